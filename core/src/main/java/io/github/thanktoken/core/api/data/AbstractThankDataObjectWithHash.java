@@ -33,6 +33,19 @@ public abstract class AbstractThankDataObjectWithHash implements AttributeReadHa
     return this.hash2Chain;
   }
 
+  /**
+   * Restores the {@link #getHash2Chain() hash to chain} that has been calculated before (e.g. when loaded from a local
+   * repository that cached it). Has no effect if the {@link #getHash2Chain() hash to chain} is already present.
+   *
+   * @param hash the {@link #getHash2Chain() hash to chain} previously calculated for this object. May be {@code null}.
+   */
+  public void restoreHash2Chain(Hash hash) {
+
+    if (this.hash2Chain == null) {
+      this.hash2Chain = hash;
+    }
+  }
+
   /**
    * Calculates the {@link #getHash2Sign() hash to sign} and if the {@link AttributeReadSignature#getSignature()
    * signature} is present also the {@link #getHash2Chain() hash to chain}.
@@ -1,5 +1,7 @@
 package io.github.thanktoken.core.api.field;
 
+import java.time.DateTimeException;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
@@ -15,11 +17,16 @@ import javax.json.stream.JsonParser.Event;
 
 import io.github.mmm.binary.BinaryType;
 import io.github.mmm.binary.codec.BinaryCodec;
+import io.github.mmm.crypto.CryptoBinary;
 import io.github.thanktoken.core.api.context.ThankTokenContext;
 import io.github.thanktoken.core.api.data.ThankDataObject;
 import io.github.thanktoken.core.api.datatype.IntegerType;
+import io.github.thanktoken.core.api.io.ThankBinaryInput;
+import io.github.thanktoken.core.api.io.ThankBinaryOutput;
 import io.github.thanktoken.core.api.io.ThankValueParser;
+import io.github.thanktoken.core.api.timestamp.ThankTimestamp;
 import io.github.thanktoken.core.api.token.header.ThankTokenHeader;
+import io.github.thanktoken.core.api.value.ThankValue;
 import io.github.thanktoken.core.api.version.ThankVersion;
 
 /**
@@ -394,6 +401,121 @@ public abstract class ThankField<T, D extends ThankDataObject, B extends D> {
     }
   }
 
+  /**
+   * Writes this field in the {@link io.github.thanktoken.core.api.io.ThankFormat#BINARY binary format}: nothing if
+   * the value is empty, otherwise the given {@code tag} followed by the value. Numeric values are written as varint,
+   * {@link ThankTimestamp}s as signed varint seconds followed by varint nanos, {@link CryptoBinary binaries} as raw
+   * bytes and all other values as their {@link #format(Object, ThankTokenContext) formatted} {@link String}.
+   *
+   * @param data the {@link ThankDataObject} to write.
+   * @param context the {@link ThankTokenContext} required for parsing and formatting context-sensitive fields.
+   * @param out the {@link ThankBinaryOutput} to write to.
+   * @param tag the tag identifying this field within its {@link ThankFieldMap}.
+   */
+  public void toBinary(D data, ThankTokenContext context, ThankBinaryOutput out, int tag) {
+
+    T value = get(data);
+    if (isEmpty(value)) {
+      return;
+    }
+    out.writeVarInt(tag);
+    if (value instanceof Collection) {
+      Collection<?> collection = (Collection<?>) value;
+      out.writeVarInt(collection.size());
+      Class<?> componentType = getComponentType();
+      for (Object item : collection) {
+        toBinaryValue(item, componentType, context, out);
+      }
+    } else {
+      toBinaryValue(value, this.type, context, out);
+    }
+  }
+
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  private void toBinaryValue(Object value, Class<?> valueType, ThankTokenContext context, ThankBinaryOutput out) {
+
+    if (ThankDataObject.class.isAssignableFrom(valueType)) {
+      ((ThankFieldMap) getFieldMap()).toBinary((ThankDataObject) value, context, out);
+    } else if (IntegerType.class.isAssignableFrom(valueType)) {
+      out.writeVarInt(((IntegerType) value).getValue());
+    } else if (valueType == ThankValue.class) {
+      out.writeVarLong(((ThankValue) value).getUnscaledValue());
+    } else if (valueType == ThankTimestamp.class) {
+      // seconds and nanos instead of epoch nanos to support the entire range of Instant without loss
+      Instant instant = ((ThankTimestamp) value).getInstant();
+      out.writeSignedVarLong(instant.getEpochSecond());
+      out.writeVarInt(instant.getNano());
+    } else if (CryptoBinary.class.isAssignableFrom(valueType)) {
+      out.writeBytes(((CryptoBinary) value).getData());
+    } else {
+      out.writeString(formatObject(value, context));
+    }
+  }
+
+  /**
+   * Reads the value of this field written by {@link #toBinary(ThankDataObject, ThankTokenContext, ThankBinaryOutput,
+   * int)} (after the tag) and applies it to the given {@code bean}.
+   *
+   * @param in the {@link ThankBinaryInput} to read from.
+   * @param bean the {@link ThankDataObject} as mutable bean where to apply the parsed value.
+   * @param parser the {@link ThankValueParser}.
+   * @param context the {@link ThankTokenContext} required for parsing context-sensitive fields.
+   * @return the {@link ThankValueParser}. Typically the given one but may be
+   *         {@link #enhanceParser(ThankValueParser, Object) enhanced}.
+   */
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  public ThankValueParser fromBinary(ThankBinaryInput in, B bean, ThankValueParser parser, ThankTokenContext context) {
+
+    if (Collection.class.isAssignableFrom(this.type)) {
+      Class<?> componentType = getComponentType();
+      if (componentType == null) {
+        throw new IllegalStateException("Binary collection for field '" + this.name + "' without component type!");
+      }
+      Collection collection = createCollection();
+      int size = in.readVarInt();
+      for (int i = 0; i < size; i++) {
+        collection.add(fromBinaryValue(in, componentType, parser, context));
+      }
+      set(bean, (T) collection);
+      return parser;
+    }
+    Object value = fromBinaryValue(in, this.type, parser, context);
+    set(bean, (T) value);
+    return enhanceParser(parser, value);
+  }
+
+  private Object fromBinaryValue(ThankBinaryInput in, Class<?> valueType, ThankValueParser parser,
+      ThankTokenContext context) {
+
+    if (ThankDataObject.class.isAssignableFrom(valueType)) {
+      ThankFieldMap<?, ?, ?> fieldMap = getFieldMap();
+      if (fieldMap == null) {
+        throw new IllegalStateException("Binary object for field '" + this.name + "' without field map!");
+      }
+      return fieldMap.fromBinary(in, parser, context);
+    } else if (valueType == ThankVersion.class) {
+      return ThankVersion.of(in.readVarInt());
+    } else if (IntegerType.class.isAssignableFrom(valueType)) {
+      return parser.parse(Integer.toString(in.readVarInt()), valueType, context);
+    } else if (valueType == ThankValue.class) {
+      return ThankValue.ofUnscaled(in.readVarLong());
+    } else if (valueType == ThankTimestamp.class) {
+      long epochSecond = in.readSignedVarLong();
+      int nanos = in.readVarInt();
+      if ((nanos < 0) || (nanos > 999_999_999)) {
+        throw new IllegalStateException("Invalid nanos " + nanos + " of field '" + this.name + "'.");
+      }
+      try {
+        return new ThankTimestamp(Instant.ofEpochSecond(epochSecond, nanos));
+      } catch (DateTimeException e) {
+        throw new IllegalStateException("Invalid timestamp of field '" + this.name + "'.", e);
+      }
+    } else if (CryptoBinary.class.isAssignableFrom(valueType)) {
+      return parser.parseBinary(in.readBytes(), valueType, context);
+    }
+    return parser.parse(in.readString(), valueType, context);
+  }
+
   private <V> Collection<V> createCollection() {
 
     if (this.type.equals(List.class)) {
@@ -2,8 +2,9 @@ package io.github.thanktoken.core.api.field;
 
 import java.io.StringWriter;
 import java.io.Writer;
-import java.nio.charset.StandardCharsets;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -22,6 +23,8 @@ import io.github.mmm.crypto.hash.HashCreator;
 import io.github.thanktoken.core.api.attribute.AttributeReadSignature;
 import io.github.thanktoken.core.api.context.ThankTokenContext;
 import io.github.thanktoken.core.api.data.ThankDataObject;
+import io.github.thanktoken.core.api.io.ThankBinaryInput;
+import io.github.thanktoken.core.api.io.ThankBinaryOutput;
 import io.github.thanktoken.core.api.io.ThankValueParser;
 
 /**
@@ -42,7 +45,7 @@ public abstract class ThankFieldMap<D extends ThankDataObject, B extends D, F ex
 
   private final List<F> all;
 
-  private final Map<String, F> fieldMap;
+  private Key<?>[][] keysByLength;
 
   /** Predicate that accepts all fields. */
   public static final Predicate<ThankField<?, ?, ?>> ALL_FIELDS = (x) -> true;
@@ -58,7 +61,7 @@ public abstract class ThankFieldMap<D extends ThankDataObject, B extends D, F ex
     super();
     this.fields = new ArrayList<>();
     this.all = Collections.unmodifiableList(this.fields);
-    this.fieldMap = new HashMap<>();
+    this.keysByLength = new Key<?>[0][];
   }
 
   private static Map<String, Object> createConfig() {
@@ -80,29 +83,102 @@ public abstract class ThankFieldMap<D extends ThankDataObject, B extends D, F ex
 
   private void add(String key, F field) {
 
-    doAdd(key, field);
-    doAdd('"' + key + '"', field);
+    if (get(key) != null) {
+      throw new IllegalArgumentException(key);
+    }
+    int length = key.length();
+    if (length >= this.keysByLength.length) {
+      Key<?>[][] newKeys = Arrays.copyOf(this.keysByLength, length + 1);
+      for (int i = this.keysByLength.length; i <= length; i++) {
+        newKeys[i] = new Key<?>[0];
+      }
+      this.keysByLength = newKeys;
+    }
+    Key<?>[] keys = this.keysByLength[length];
+    keys = Arrays.copyOf(keys, keys.length + 1);
+    keys[keys.length - 1] = new Key<>(key.toCharArray(), field);
+    this.keysByLength[length] = keys;
   }
 
-  private void doAdd(String key, F field) {
+  /**
+   * @param nameOrId the {@link ThankField#getName() name} or {@link ThankField#getId() ID} of the field. May be
+   *        surrounded by whitespaces or quotes.
+   * @return the requested {@link ThankField} or {@code null} if no such field exists.
+   */
+  public F get(String nameOrId) {
 
-    F old = this.fieldMap.put(key, field);
-    if (old != null) {
-      throw new IllegalArgumentException(key);
+    return get(nameOrId, 0, nameOrId.length());
+  }
+
+  /**
+   * Resolves a {@link ThankField} from a range of characters without any allocation. The fields are dispatched by
+   * the length of the key and then compared character by character against the precomputed
+   * {@link ThankField#getId() IDs} and {@link ThankField#getName() names}.
+   *
+   * @param chars the {@link CharSequence} containing the {@link ThankField#getName() name} or {@link ThankField#getId()
+   *        ID} of the field.
+   * @param start the index of the first character of the key (inclusive).
+   * @param end the index of the last character of the key (exclusive).
+   * @return the requested {@link ThankField} or {@code null} if no such field exists.
+   */
+  @SuppressWarnings("unchecked")
+  public F get(CharSequence chars, int start, int end) {
+
+    while ((start < end) && (chars.charAt(start) <= ' ')) {
+      start++;
+    }
+    while ((end > start) && (chars.charAt(end - 1) <= ' ')) {
+      end--;
+    }
+    if (((end - start) >= 2) && (chars.charAt(start) == '"') && (chars.charAt(end - 1) == '"')) {
+      start++;
+      end--;
     }
+    int length = end - start;
+    if (length >= this.keysByLength.length) {
+      return null;
+    }
+    for (Key<?> key : this.keysByLength[length]) {
+      char[] keyChars = key.chars;
+      int i = 0;
+      while ((i < length) && (keyChars[i] == chars.charAt(start + i))) {
+        i++;
+      }
+      if (i == length) {
+        return (F) key.field;
+      }
+    }
+    return null;
   }
 
   /**
-   * @param nameOrId the {@link ThankField#getName() name} or {@link ThankField#getId() ID} of the field.
+   * Resolves a {@link ThankField} from a range of UTF-8 bytes without any allocation.
+   *
+   * @param bytes the {@link ByteBuffer} containing the {@link ThankField#getName() name} or {@link ThankField#getId()
+   *        ID} of the field. Only read with absolute indexes so it is not modified.
+   * @param start the index of the first byte of the key (inclusive).
+   * @param end the index of the last byte of the key (exclusive).
    * @return the requested {@link ThankField} or {@code null} if no such field exists.
+   * @see #get(CharSequence, int, int)
    */
-  public F get(String nameOrId) {
+  @SuppressWarnings("unchecked")
+  public F get(ByteBuffer bytes, int start, int end) {
 
-    F field = this.fieldMap.get(nameOrId);
-    if (field == null) {
-      field = this.fieldMap.get(nameOrId.trim());
+    int length = end - start;
+    if (length >= this.keysByLength.length) {
+      return null;
+    }
+    for (Key<?> key : this.keysByLength[length]) {
+      char[] keyChars = key.chars;
+      int i = 0;
+      while ((i < length) && (keyChars[i] == bytes.get(start + i))) {
+        i++;
+      }
+      if (i == length) {
+        return (F) key.field;
+      }
     }
-    return field;
+    return null;
   }
 
   /**
@@ -246,6 +322,64 @@ public abstract class ThankFieldMap<D extends ThankDataObject, B extends D, F ex
     jsonGenerator.writeEnd();
   }
 
+  /**
+   * Writes the given {@link ThankDataObject} in the {@link io.github.thanktoken.core.api.io.ThankFormat#BINARY binary
+   * format}. Each non-empty field is written with its position in {@link #getAll() all fields} (starting with
+   * {@code 1}) as tag followed by its value. The object is terminated by the tag {@code 0}.
+   *
+   * @param data the {@link ThankDataObject} to write.
+   * @param context the {@link ThankTokenContext} required for parsing or formatting context-sensitive fields.
+   * @param out the {@link ThankBinaryOutput} to write to.
+   */
+  public void toBinary(D data, ThankTokenContext context, ThankBinaryOutput out) {
+
+    if ((context == null) && (data instanceof ThankTokenContext)) {
+      context = (ThankTokenContext) data;
+    }
+    int tag = 1;
+    for (F field : this.fields) {
+      field.toBinary(data, context, out, tag++);
+    }
+    out.writeVarInt(0);
+  }
+
+  /**
+   * @param in the {@link ThankBinaryInput} to read the {@link #toBinary(ThankDataObject, ThankTokenContext,
+   *        ThankBinaryOutput) binary format} from.
+   * @param valueParser the {@link ThankValueParser}.
+   * @param context the {@link ThankTokenContext} required for parsing or formatting context-sensitive fields.
+   * @return the parsed {@link ThankDataObject}.
+   */
+  public D fromBinary(ThankBinaryInput in, ThankValueParser valueParser, ThankTokenContext context) {
+
+    B bean = newBean();
+    if ((context == null) && (bean instanceof ThankTokenContext)) {
+      context = (ThankTokenContext) bean;
+    }
+    fromBinary(in, valueParser, bean, context);
+    return bean2data(bean);
+  }
+
+  /**
+   * @param in the {@link ThankBinaryInput} to read the {@link #toBinary(ThankDataObject, ThankTokenContext,
+   *        ThankBinaryOutput) binary format} from.
+   * @param valueParser the {@link ThankValueParser}.
+   * @param bean the mutable {@link ThankDataObject} where to apply the parsed data to.
+   * @param context the {@link ThankTokenContext} required for parsing or formatting context-sensitive fields.
+   */
+  public void fromBinary(ThankBinaryInput in, ThankValueParser valueParser, B bean, ThankTokenContext context) {
+
+    ThankValueParser parser = valueParser;
+    int tag = in.readVarInt();
+    while (tag != 0) {
+      if (tag > this.fields.size()) {
+        throw new ObjectNotFoundException(bean.getClass(), Integer.toString(tag));
+      }
+      parser = this.fields.get(tag - 1).fromBinary(in, bean, parser, context);
+      tag = in.readVarInt();
+    }
+  }
+
   /**
    * Creates the hash that needs to be signed for the signature. It therefore hashes {@link #getAll() all fields in
    * defined order} excluding the signature.
@@ -283,12 +417,11 @@ public abstract class ThankFieldMap<D extends ThankDataObject, B extends D, F ex
             hashCreator.update(binary);
           }
         } else {
-          String string = value.toString();
-          if (string.isEmpty()) {
+          ThankHashBuffer buffer = ThankHashBuffer.get().encode(value);
+          if (buffer.size() == 0) {
             empty = true;
           } else {
-            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
-            hashCreator.update(bytes);
+            buffer.update(hashCreator);
           }
         }
         if (empty && !field.isOptional()) {
@@ -300,4 +433,22 @@ public abstract class ThankFieldMap<D extends ThankDataObject, B extends D, F ex
     return hash;
   }
 
+  /**
+   * A precomputed key ({@link ThankField#getId() ID} or {@link ThankField#getName() name}) of a {@link ThankField}.
+   */
+  private static final class Key<F> {
+
+    private final char[] chars;
+
+    private final F field;
+
+    private Key(char[] chars, F field) {
+
+      super();
+      this.chars = chars;
+      this.field = field;
+    }
+
+  }
+
 }
@@ -0,0 +1,213 @@
+package io.github.thanktoken.core.api.field;
+
+import java.time.Instant;
+import java.util.Arrays;
+
+import io.github.mmm.crypto.hash.HashCreator;
+import io.github.thanktoken.core.api.timestamp.ThankTimestamp;
+import io.github.thanktoken.core.api.value.ThankValue;
+import io.github.thanktoken.core.api.version.ThankVersion;
+
+/**
+ * Reusable buffer for the canonical encoding of field values fed to the {@link HashCreator} by
+ * {@link ThankFieldMap#hash hash}. The canonical encoding is the UTF-8 encoding of {@link Object#toString()}. However,
+ * {@link ThankValue}, {@link ThankTimestamp} and {@link ThankVersion} are written digit by digit and all other values
+ * (e.g. {@link io.github.thanktoken.core.api.datatype.StringType}s such as
+ * {@link io.github.thanktoken.core.api.location.ThankLocation}) are encoded from their {@link Object#toString()
+ * string} without creating intermediate byte arrays.
+ */
+final class ThankHashBuffer {
+
+  private static final ThreadLocal<ThankHashBuffer> BUFFER = ThreadLocal.withInitial(ThankHashBuffer::new);
+
+  private static final int SCALE = ThankValue.VALUE_1.getScale();
+
+  private static final long SCALE_FACTOR = ThankValue.VALUE_1.getUnscaledValue();
+
+  private static final int SECONDS_PER_DAY = 86400;
+
+  private byte[] bytes;
+
+  private int size;
+
+  private ThankHashBuffer() {
+
+    super();
+    this.bytes = new byte[256];
+  }
+
+  /**
+   * @return the number of bytes in this buffer.
+   */
+  int size() {
+
+    return this.size;
+  }
+
+  /**
+   * @param value the field value to encode. Replaces the previous content of this buffer.
+   * @return this buffer.
+   */
+  ThankHashBuffer encode(Object value) {
+
+    this.size = 0;
+    Class<?> type = value.getClass();
+    if (type == ThankValue.class) {
+      appendValue(((ThankValue) value).getUnscaledValue());
+    } else if (type == ThankTimestamp.class) {
+      appendTimestamp((ThankTimestamp) value);
+    } else if (type == ThankVersion.class) {
+      appendLong(((ThankVersion) value).getValue());
+    } else {
+      appendString(value.toString());
+    }
+    return this;
+  }
+
+  /**
+   * @param hashCreator the {@link HashCreator} to {@link HashCreator#update(byte[], int, int) update} with the
+   *        content of this buffer.
+   */
+  void update(HashCreator hashCreator) {
+
+    hashCreator.update(this.bytes, 0, this.size);
+  }
+
+  private void ensureCapacity(int length) {
+
+    int required = this.size + length;
+    if (required > this.bytes.length) {
+      this.bytes = Arrays.copyOf(this.bytes, Math.max(required, 2 * this.bytes.length));
+    }
+  }
+
+  private void append(int b) {
+
+    this.bytes[this.size++] = (byte) b;
+  }
+
+  private void appendString(String string) {
+
+    int length = string.length();
+    ensureCapacity(3 * length);
+    for (int i = 0; i < length; i++) {
+      char c = string.charAt(i);
+      if (c < 0x80) {
+        append(c);
+      } else if (c < 0x800) {
+        append(0xC0 | (c >> 6));
+        append(0x80 | (c & 0x3F));
+      } else if (Character.isSurrogate(c)) {
+        int codePoint = -1;
+        if (Character.isHighSurrogate(c) && ((i + 1) < length) && Character.isLowSurrogate(string.charAt(i + 1))) {
+          codePoint = Character.toCodePoint(c, string.charAt(i + 1));
+          i++;
+        }
+        if (codePoint < 0) {
+          append('?'); // same replacement as String.getBytes(UTF_8) for malformed surrogates
+        } else {
+          append(0xF0 | (codePoint >> 18));
+          append(0x80 | ((codePoint >> 12) & 0x3F));
+          append(0x80 | ((codePoint >> 6) & 0x3F));
+          append(0x80 | (codePoint & 0x3F));
+        }
+      } else {
+        append(0xE0 | (c >> 12));
+        append(0x80 | ((c >> 6) & 0x3F));
+        append(0x80 | (c & 0x3F));
+      }
+    }
+  }
+
+  private void appendLong(long value) {
+
+    if (value < 0) {
+      if (value == Long.MIN_VALUE) {
+        appendString(Long.toString(value));
+        return;
+      }
+      ensureCapacity(1);
+      append('-');
+      appendLong(-value);
+      return;
+    }
+    int digits = 1;
+    for (long rest = value / 10; rest > 0; rest = rest / 10) {
+      digits++;
+    }
+    appendDigits(value, digits);
+  }
+
+  private void appendDigits(long value, int digits) {
+
+    ensureCapacity(digits);
+    long rest = value;
+    for (int i = this.size + digits - 1; i >= this.size; i--) {
+      this.bytes[i] = (byte) ('0' + (rest % 10));
+      rest = rest / 10;
+    }
+    this.size += digits;
+  }
+
+  /**
+   * Same as {@link ThankValue#toString()}: the integer part followed by the fraction without trailing zeros.
+   */
+  private void appendValue(long unscaled) {
+
+    appendLong(unscaled / SCALE_FACTOR);
+    long fraction = unscaled % SCALE_FACTOR;
+    if (fraction > 0) {
+      int digits = SCALE;
+      while ((fraction % 10) == 0) {
+        fraction = fraction / 10;
+        digits--;
+      }
+      ensureCapacity(1);
+      append('.');
+      appendDigits(fraction, digits);
+    }
+  }
+
+  /**
+   * Same as {@link ThankTimestamp#toString()} ({@link ThankTimestamp#TIMESTAMP_FORMATTER}).
+   */
+  private void appendTimestamp(ThankTimestamp timestamp) {
+
+    Instant instant = timestamp.getInstant();
+    long epochSecond = instant.getEpochSecond();
+    long epochDay = Math.floorDiv(epochSecond, SECONDS_PER_DAY);
+    int secondOfDay = (int) Math.floorMod(epochSecond, SECONDS_PER_DAY);
+    // civil date from epoch day (proleptic Gregorian calendar)
+    long z = epochDay + 719468;
+    long era = Math.floorDiv(z, 146097);
+    long dayOfEra = z - (era * 146097);
+    long yearOfEra = (dayOfEra - (dayOfEra / 1460) + (dayOfEra / 36524) - (dayOfEra / 146096)) / 365;
+    long dayOfYear = dayOfEra - ((365 * yearOfEra) + (yearOfEra / 4) - (yearOfEra / 100));
+    long mp = ((5 * dayOfYear) + 2) / 153;
+    long day = dayOfYear - (((153 * mp) + 2) / 5) + 1;
+    long month = (mp < 10) ? (mp + 3) : (mp - 9);
+    long year = yearOfEra + (era * 400) + ((month <= 2) ? 1 : 0);
+    if ((year < 1) || (year > 9999)) {
+      appendString(timestamp.toString());
+      return;
+    }
+    appendDigits(year, 4);
+    appendDigits(month, 2);
+    appendDigits(day, 2);
+    appendDigits(secondOfDay / 3600, 2);
+    appendDigits((secondOfDay / 60) % 60, 2);
+    appendDigits(secondOfDay % 60, 2);
+    ensureCapacity(1);
+    append('.');
+    appendDigits(instant.getNano(), 9);
+  }
+
+  /**
+   * @return the {@link ThankHashBuffer} of the current {@link Thread}.
+   */
+  static ThankHashBuffer get() {
+
+    return BUFFER.get();
+  }
+
+}
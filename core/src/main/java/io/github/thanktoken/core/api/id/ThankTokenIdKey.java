@@ -0,0 +1,337 @@
+package io.github.thanktoken.core.api.id;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Objects;
+
+import io.github.thanktoken.core.api.algorithm.ThankAlgorithm;
+import io.github.thanktoken.core.api.currency.Gradido;
+import io.github.thanktoken.core.api.currency.ThankCurrency;
+import io.github.thanktoken.core.api.currency.Thanks;
+import io.github.thanktoken.core.api.currency.Vote;
+import io.github.thanktoken.core.api.location.ThankLocation;
+import io.github.thanktoken.core.api.location.ThankLocationNuts;
+import io.github.thanktoken.core.api.location.ThankLocationOlc;
+import io.github.thanktoken.core.api.timestamp.ThankTimestamp;
+import io.github.thanktoken.core.api.token.header.ThankTokenHeader;
+import io.github.thanktoken.core.api.version.ThankVersion;
+
+/**
+ * Canonical compact binary form of a {@link ThankTokenId} to be used as key for maps, caches, indexes, on disk or on
+ * the wire. It packs the {@link ThankTokenId} into two {@code long} values with a precomputed hash:
+ * <ol>
+ * <li>the {@link ThankTokenId#getTimestamp() timestamp} as nanoseconds since the epoch.</li>
+ * <li>the {@link ThankTokenId#getVersion() version} (16 bit), the codes of the {@link ThankTokenId#getAlgorithm()
+ * algorithm} (8 bit) and the {@link ThankTokenId#getCurrency() currency} (8 bit) and the {@link ThankLocationOlc OLC}
+ * {@link ThankTokenId#getLocation() location} as region index (32 bit).</li>
+ * </ol>
+ * So for the standard algorithms, currencies and {@link ThankLocationOlc OLC} locations the {@link #toBytes() binary
+ * form} has exactly {@value #COMPACT_LENGTH} bytes. Otherwise the values that have no code are stored as
+ * {@link #isCompact() extension} after these {@value #COMPACT_LENGTH} bytes. The codes are part of the persistent
+ * format and must therefore never change (only new codes may be appended).
+ *
+ * @since 1.0.0
+ */
+public final class ThankTokenIdKey implements Comparable<ThankTokenIdKey> {
+
+  /** The length of the {@link #toBytes() binary form} if {@link #isCompact() compact}. */
+  public static final int COMPACT_LENGTH = 16;
+
+  /** Codes of the {@link ThankAlgorithm}s - index is the code, append only. */
+  private static final String[] ALGORITHM_CODES = { null, "secp256k1", "rsa4k" };
+
+  /** Codes of the {@link ThankCurrency currencies} - index is the code, append only. */
+  private static final String[] CURRENCY_CODES = { null, Thanks.THANKS, Gradido.GRADIDO, Vote.VOTE };
+
+  private static final int OLC_LONGITUDE_REGIONS = 7200;
+
+  private static final byte LOCATION_KIND_OLC = 'O';
+
+  private static final byte LOCATION_KIND_NUTS = 'N';
+
+  private static final byte[] NO_EXTENSION = new byte[0];
+
+  private final long nanos;
+
+  private final long attributes;
+
+  private final byte[] extension;
+
+  private final long hash64;
+
+  private ThankTokenIdKey(long nanos, long attributes, byte[] extension) {
+
+    super();
+    this.nanos = nanos;
+    this.attributes = attributes;
+    this.extension = extension;
+    long h = mix(nanos ^ mix(attributes));
+    for (byte b : extension) {
+      h = (h ^ b) * 0x100000001B3L;
+    }
+    this.hash64 = mix(h);
+  }
+
+  /**
+   * @return the {@link ThankTokenId#getTimestamp() timestamp} as nanoseconds since the epoch.
+   */
+  public long getEpochNanos() {
+
+    return this.nanos;
+  }
+
+  /**
+   * @return the {@link ThankTokenId#getVersion() version}, the codes of {@link ThankTokenId#getAlgorithm() algorithm}
+   *         and {@link ThankTokenId#getCurrency() currency} and the {@link ThankTokenId#getLocation() location} packed
+   *         into a single {@code long}.
+   */
+  public long getAttributes() {
+
+    return this.attributes;
+  }
+
+  /**
+   * @return {@code true} if the {@link #toBytes() binary form} has exactly {@value #COMPACT_LENGTH} bytes,
+   *         {@code false} if some values could not be encoded as code and are stored as extension.
+   */
+  public boolean isCompact() {
+
+    return this.extension.length == 0;
+  }
+
+  /**
+   * @return the stable 64-bit hash of this key. Unlike {@link #hashCode()} this is guaranteed to never change and can
+   *         therefore be persisted (e.g. in a {@link io.github.thanktoken.core.api.repository.ThankTokenBloomFilter}).
+   */
+  public long getHash64() {
+
+    return this.hash64;
+  }
+
+  /**
+   * @return the {@link ThankTimestamp}.
+   */
+  public ThankTimestamp getTimestamp() {
+
+    return ThankTimestamp.ofEpochNanos(this.nanos);
+  }
+
+  /**
+   * @return the binary form of this key.
+   */
+  public byte[] toBytes() {
+
+    ByteBuffer buffer = ByteBuffer.allocate(COMPACT_LENGTH + this.extension.length);
+    write(buffer);
+    return buffer.array();
+  }
+
+  /**
+   * @param buffer the {@link ByteBuffer} where to write the {@link #toBytes() binary form} of this key.
+   */
+  public void write(ByteBuffer buffer) {
+
+    buffer.putLong(this.nanos);
+    buffer.putLong(this.attributes);
+    buffer.put(this.extension);
+  }
+
+  /**
+   * @return the {@link ThankTokenIdType} decoded from this key.
+   */
+  public ThankTokenIdType toId() {
+
+    ByteBuffer ext = ByteBuffer.wrap(this.extension);
+    ThankVersion version = ThankVersion.of((int) (this.attributes >>> 48));
+    ThankAlgorithm algorithm = ThankAlgorithm.of(decode((int) (this.attributes >>> 40) & 0xFF, ALGORITHM_CODES, ext));
+    ThankCurrency currency = ThankCurrency.of(decode((int) (this.attributes >>> 32) & 0xFF, CURRENCY_CODES, ext));
+    ThankLocation location;
+    int region = (int) this.attributes;
+    if (region == 0) {
+      byte kind = ext.get();
+      String value = readString(ext);
+      if (kind == LOCATION_KIND_NUTS) {
+        location = ThankLocationNuts.of(value);
+      } else {
+        location = ThankLocationOlc.of(value);
+      }
+    } else {
+      region = region - 1;
+      location = ThankLocationOlc.ofRegions(region / OLC_LONGITUDE_REGIONS, region % OLC_LONGITUDE_REGIONS);
+    }
+    return new ThankTokenIdType(getTimestamp(), location, version, algorithm, currency);
+  }
+
+  private static String decode(int code, String[] codes, ByteBuffer ext) {
+
+    if (code == 0) {
+      return readString(ext);
+    } else if (code >= codes.length) {
+      throw new IllegalArgumentException("Unknown code " + code);
+    }
+    return codes[code];
+  }
+
+  private static String readString(ByteBuffer buffer) {
+
+    byte[] bytes = new byte[buffer.get() & 0xFF];
+    buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  @Override
+  public int compareTo(ThankTokenIdKey other) {
+
+    int result = Long.compare(this.nanos, other.nanos);
+    if (result == 0) {
+      result = Long.compare(this.attributes, other.attributes);
+      if (result == 0) {
+        result = Arrays.compare(this.extension, other.extension);
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public int hashCode() {
+
+    return (int) (this.hash64 ^ (this.hash64 >>> 32));
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+
+    if (obj == this) {
+      return true;
+    } else if ((obj == null) || (obj.getClass() != ThankTokenIdKey.class)) {
+      return false;
+    }
+    ThankTokenIdKey other = (ThankTokenIdKey) obj;
+    return (this.nanos == other.nanos) && (this.attributes == other.attributes)
+        && Arrays.equals(this.extension, other.extension);
+  }
+
+  @Override
+  public String toString() {
+
+    StringBuilder sb = new StringBuilder(2 * (COMPACT_LENGTH + this.extension.length));
+    for (byte b : toBytes()) {
+      sb.append(Character.forDigit((b >> 4) & 0x0F, 16));
+      sb.append(Character.forDigit(b & 0x0F, 16));
+    }
+    return sb.toString();
+  }
+
+  private static long mix(long value) {
+
+    long h = value;
+    h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+    h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+    return h ^ (h >>> 33);
+  }
+
+  /**
+   * @param id the {@link ThankTokenId} to encode.
+   * @return the {@link ThankTokenIdKey} for the given {@link ThankTokenId}.
+   */
+  public static ThankTokenIdKey of(ThankTokenId id) {
+
+    if (id instanceof ThankTokenIdType) {
+      return ((ThankTokenIdType) id).getKey();
+    } else if (id instanceof ThankTokenHeader) {
+      return ((ThankTokenHeader) id).getId().getKey();
+    }
+    return encode(id);
+  }
+
+  /**
+   * @param id the {@link ThankTokenId} to encode.
+   * @return the new {@link ThankTokenIdKey}.
+   */
+  static ThankTokenIdKey encode(ThankTokenId id) {
+
+    Objects.requireNonNull(id, "id");
+    long nanos = id.requireTimestamp().getEpochNanos();
+    int version = id.requireVersion().getValue();
+    if (version > 0xFFFF) {
+      throw new IllegalArgumentException("Version too large: " + version);
+    }
+    ByteBuffer ext = ByteBuffer.allocate(1024);
+    String algorithm = id.requireAlgorithm().getValue();
+    long algorithmCode = encode(algorithm, ALGORITHM_CODES, ext);
+    String currency = id.requireCurrency().getValue();
+    long currencyCode = encode(currency, CURRENCY_CODES, ext);
+    long region;
+    ThankLocation location = id.requireLocation();
+    if (location instanceof ThankLocationOlc) {
+      ThankLocationOlc olc = (ThankLocationOlc) location;
+      region = 1 + (long) olc.getLatitudeRegion() * OLC_LONGITUDE_REGIONS + olc.getLongitudeRegion();
+    } else {
+      region = 0;
+      if (location instanceof ThankLocationNuts) {
+        ext.put(LOCATION_KIND_NUTS);
+      } else {
+        ext.put(LOCATION_KIND_OLC);
+      }
+      writeString(location.getValue(), ext);
+    }
+    long attributes = ((long) version << 48) | (algorithmCode << 40) | (currencyCode << 32) | region;
+    byte[] extension = NO_EXTENSION;
+    if (ext.position() > 0) {
+      extension = Arrays.copyOf(ext.array(), ext.position());
+    }
+    return new ThankTokenIdKey(nanos, attributes, extension);
+  }
+
+  private static long encode(String value, String[] codes, ByteBuffer ext) {
+
+    for (int code = 1; code < codes.length; code++) {
+      if (codes[code].equals(value)) {
+        return code;
+      }
+    }
+    writeString(value, ext);
+    return 0;
+  }
+
+  private static void writeString(String value, ByteBuffer buffer) {
+
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    if (bytes.length > 0xFF) {
+      throw new IllegalArgumentException("Value too long: " + value);
+    }
+    buffer.put((byte) bytes.length);
+    buffer.put(bytes);
+  }
+
+  /**
+   * @param bytes the {@link #toBytes() binary form}.
+   * @return the decoded {@link ThankTokenIdKey}.
+   */
+  public static ThankTokenIdKey of(byte[] bytes) {
+
+    return read(ByteBuffer.wrap(bytes), bytes.length);
+  }
+
+  /**
+   * @param buffer the {@link ByteBuffer} to read the {@link #toBytes() binary form} from.
+   * @param length the length of the {@link #toBytes() binary form} (at least {@value #COMPACT_LENGTH}).
+   * @return the decoded {@link ThankTokenIdKey}.
+   */
+  public static ThankTokenIdKey read(ByteBuffer buffer, int length) {
+
+    if (length < COMPACT_LENGTH) {
+      throw new IllegalArgumentException("Invalid key length " + length);
+    }
+    long nanos = buffer.getLong();
+    long attributes = buffer.getLong();
+    byte[] extension = NO_EXTENSION;
+    if (length > COMPACT_LENGTH) {
+      extension = new byte[length - COMPACT_LENGTH];
+      buffer.get(extension);
+    }
+    return new ThankTokenIdKey(nanos, attributes, extension);
+  }
+
+}
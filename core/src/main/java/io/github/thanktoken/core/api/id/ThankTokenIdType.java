@@ -26,6 +26,10 @@ public final class ThankTokenIdType implements ThankTokenId {
 
   private final ThankCurrency currency;
 
+  private transient int hash;
+
+  private transient ThankTokenIdKey key;
+
   /**
    * The constructor.
    *
@@ -113,10 +117,31 @@ public final class ThankTokenIdType implements ThankTokenId {
 
   }
 
+  /**
+   * @return the {@link ThankTokenIdKey} of this ID. Lazily created and cached.
+   */
+  public ThankTokenIdKey getKey() {
+
+    if (this.key == null) {
+      this.key = ThankTokenIdKey.encode(this);
+    }
+    return this.key;
+  }
+
   @Override
   public int hashCode() {
 
-    return Objects.hash(this.timestamp, this.location, this.version, this.algorithm, this.currency);
+    // cached as IDs are heavily used as map keys (computed without varargs boxing)
+    int h = this.hash;
+    if (h == 0) {
+      h = Objects.hashCode(this.timestamp);
+      h = 31 * h + Objects.hashCode(this.location);
+      h = 31 * h + Objects.hashCode(this.version);
+      h = 31 * h + Objects.hashCode(this.algorithm);
+      h = 31 * h + Objects.hashCode(this.currency);
+      this.hash = h;
+    }
+    return h;
   }
 
   @Override
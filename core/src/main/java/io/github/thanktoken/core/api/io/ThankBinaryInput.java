@@ -0,0 +1,117 @@
+package io.github.thanktoken.core.api.io;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads the {@link ThankFormat#BINARY binary format} written by {@link ThankBinaryOutput} from a {@link ByteBuffer}.
+ *
+ * @since 1.0.0
+ */
+public final class ThankBinaryInput {
+
+  private final ByteBuffer buffer;
+
+  /**
+   * The constructor.
+   *
+   * @param buffer the {@link ByteBuffer} to read from. Its {@link ByteBuffer#position() position} is advanced.
+   */
+  public ThankBinaryInput(ByteBuffer buffer) {
+
+    super();
+    this.buffer = buffer;
+  }
+
+  /**
+   * @return {@code true} if there is more data to read, {@code false} otherwise.
+   */
+  public boolean hasRemaining() {
+
+    return this.buffer.hasRemaining();
+  }
+
+  /**
+   * @return the next byte as unsigned value.
+   */
+  public int readByte() {
+
+    return this.buffer.get() & 0xFF;
+  }
+
+  /**
+   * @return the next unsigned variable length integer as {@code int}.
+   */
+  public int readVarInt() {
+
+    long value = readVarLong();
+    if ((value >>> 32) != 0) {
+      throw new IllegalStateException("Varint too large for int: " + value);
+    }
+    return (int) value;
+  }
+
+  /**
+   * @return the next unsigned variable length integer as {@code long}.
+   */
+  public long readVarLong() {
+
+    long value = 0;
+    for (int shift = 0; shift < 64; shift = shift + 7) {
+      int b = this.buffer.get();
+      value = value | ((long) (b & 0x7F) << shift);
+      if ((b & 0x80) == 0) {
+        return value;
+      }
+    }
+    throw new IllegalStateException("Malformed varint.");
+  }
+
+  /**
+   * @return the next signed variable length integer written in zigzag encoding.
+   * @see ThankBinaryOutput#writeSignedVarLong(long)
+   */
+  public long readSignedVarLong() {
+
+    long value = readVarLong();
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  /**
+   * @return the next length-prefixed raw bytes.
+   */
+  public byte[] readBytes() {
+
+    byte[] bytes = new byte[readLength()];
+    this.buffer.get(bytes);
+    return bytes;
+  }
+
+  /**
+   * @return the next length-prefixed UTF-8 {@link String}.
+   */
+  public String readString() {
+
+    int length = readLength();
+    if (this.buffer.hasArray()) {
+      int position = this.buffer.position();
+      String string = new String(this.buffer.array(), this.buffer.arrayOffset() + position, length,
+          StandardCharsets.UTF_8);
+      this.buffer.position(position + length);
+      return string;
+    }
+    byte[] bytes = new byte[length];
+    this.buffer.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+
+  private int readLength() {
+
+    int length = readVarInt();
+    if ((length < 0) || (length > this.buffer.remaining())) {
+      throw new IllegalStateException("Invalid length " + length);
+    }
+    return length;
+  }
+
+}
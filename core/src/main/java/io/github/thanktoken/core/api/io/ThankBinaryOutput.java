@@ -0,0 +1,140 @@
+package io.github.thanktoken.core.api.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Growable buffer to write the {@link ThankFormat#BINARY binary format}. Numbers are written as variable length
+ * integers (unsigned LEB128 with 7 bits per byte) and binaries as well as strings are prefixed with their length.
+ *
+ * @see ThankBinaryInput
+ * @since 1.0.0
+ */
+public final class ThankBinaryOutput {
+
+  private byte[] buffer;
+
+  private int size;
+
+  /**
+   * The constructor.
+   */
+  public ThankBinaryOutput() {
+
+    this(256);
+  }
+
+  /**
+   * The constructor.
+   *
+   * @param capacity the initial capacity in bytes.
+   */
+  public ThankBinaryOutput(int capacity) {
+
+    super();
+    this.buffer = new byte[capacity];
+  }
+
+  private void ensureCapacity(int length) {
+
+    int required = this.size + length;
+    if (required > this.buffer.length) {
+      this.buffer = Arrays.copyOf(this.buffer, Math.max(required, 2 * this.buffer.length));
+    }
+  }
+
+  /**
+   * @param b the single byte to write.
+   */
+  public void writeByte(int b) {
+
+    ensureCapacity(1);
+    this.buffer[this.size++] = (byte) b;
+  }
+
+  /**
+   * @param value the {@code int} to write as unsigned variable length integer.
+   */
+  public void writeVarInt(int value) {
+
+    writeVarLong(value & 0xFFFFFFFFL);
+  }
+
+  /**
+   * @param value the {@code long} to write as unsigned variable length integer.
+   */
+  public void writeVarLong(long value) {
+
+    ensureCapacity(10);
+    long rest = value;
+    while ((rest & ~0x7FL) != 0) {
+      this.buffer[this.size++] = (byte) ((rest & 0x7F) | 0x80);
+      rest = rest >>> 7;
+    }
+    this.buffer[this.size++] = (byte) rest;
+  }
+
+  /**
+   * @param value the signed {@code long} to write as variable length integer in zigzag encoding so small negative
+   *        values are as compact as small positive values.
+   */
+  public void writeSignedVarLong(long value) {
+
+    writeVarLong((value << 1) ^ (value >> 63));
+  }
+
+  /**
+   * @param bytes the raw bytes to write prefixed with their length.
+   */
+  public void writeBytes(byte[] bytes) {
+
+    writeVarInt(bytes.length);
+    ensureCapacity(bytes.length);
+    System.arraycopy(bytes, 0, this.buffer, this.size, bytes.length);
+    this.size += bytes.length;
+  }
+
+  /**
+   * @param value the {@link String} to write as UTF-8 prefixed with its length.
+   */
+  public void writeString(String value) {
+
+    writeBytes(value.getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * @return the number of bytes written.
+   */
+  public int size() {
+
+    return this.size;
+  }
+
+  /**
+   * Discards all bytes written so this buffer can be reused.
+   */
+  public void reset() {
+
+    this.size = 0;
+  }
+
+  /**
+   * @return a copy of the bytes written.
+   */
+  public byte[] toByteArray() {
+
+    return Arrays.copyOf(this.buffer, this.size);
+  }
+
+  /**
+   * @param out the {@link OutputStream} where to write the bytes written to this buffer.
+   * @throws IOException on error.
+   */
+  public void writeTo(OutputStream out) throws IOException {
+
+    out.write(this.buffer, 0, this.size);
+  }
+
+}
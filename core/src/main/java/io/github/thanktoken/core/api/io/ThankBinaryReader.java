@@ -0,0 +1,151 @@
+package io.github.thanktoken.core.api.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+import io.github.thanktoken.core.api.token.ThankToken;
+import io.github.thanktoken.core.api.token.ThankTokenBean;
+import io.github.thanktoken.core.api.token.header.ThankTokenHeader;
+import io.github.thanktoken.core.api.token.header.ThankTokenHeaderField;
+import io.github.thanktoken.core.api.transaction.ThankTransaction;
+import io.github.thanktoken.core.api.transaction.ThankTransactionField;
+
+/**
+ * Implementation of {@link ThankReader} for the {@link ThankFormat#BINARY binary format} written by
+ * {@link ThankBinaryWriter}. The {@link Reader} and {@link String} variants read the binary data encoded as
+ * {@link Base64} text as written by the {@link java.io.Writer} variants of {@link ThankBinaryWriter}.
+ *
+ * @since 1.0.0
+ */
+public class ThankBinaryReader implements ThankReader {
+
+  private static final ThankBinaryReader INSTANCE = new ThankBinaryReader();
+
+  @Override
+  public ThankToken read(String header, String... transactions) {
+
+    ThankTokenHeader tokenHeader = readHeader(decode(header));
+    ThankTokenBean token = new ThankTokenBean(tokenHeader);
+    for (String transaction : transactions) {
+      ThankTransaction tx = readTransaction(tokenHeader, decode(transaction));
+      token.addTransaction(tx);
+    }
+    return token;
+  }
+
+  /**
+   * Deserializes an entire {@link ThankToken}.
+   *
+   * @param header the {@link #readHeader(ByteBuffer) serialized} {@link ThankTokenHeader}.
+   * @param transactions the {@link #readTransaction(ThankTokenHeader, ByteBuffer) serialized}
+   *        {@link ThankTransaction}s.
+   * @return the parsed {@link ThankToken}.
+   */
+  public ThankToken read(byte[] header, byte[]... transactions) {
+
+    ThankTokenHeader tokenHeader = readHeader(ByteBuffer.wrap(header));
+    ThankTokenBean token = new ThankTokenBean(tokenHeader);
+    for (byte[] transaction : transactions) {
+      ThankTransaction tx = readTransaction(tokenHeader, ByteBuffer.wrap(transaction));
+      token.addTransaction(tx);
+    }
+    return token;
+  }
+
+  /**
+   * @return the {@link ThankValueParser}.
+   */
+  public ThankValueParser getValueParser() {
+
+    return ThankValueParserDefault.get();
+  }
+
+  @Override
+  public ThankTokenHeader readHeader(InputStream in) {
+
+    try {
+      return readHeader(ByteBuffer.wrap(in.readAllBytes()));
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to read token header.", e);
+    }
+  }
+
+  @Override
+  public ThankTokenHeader readHeader(Reader reader) {
+
+    return readHeader(decode(reader));
+  }
+
+  @Override
+  public ThankTokenHeader readHeader(ByteBuffer buffer) {
+
+    ThankBinaryInput in = start(buffer);
+    return ThankTokenHeaderField.getFields().fromBinary(in, getValueParser(), null);
+  }
+
+  @Override
+  public ThankTransaction readTransaction(ThankTokenHeader header, InputStream in) {
+
+    try {
+      return readTransaction(header, ByteBuffer.wrap(in.readAllBytes()));
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to read transaction.", e);
+    }
+  }
+
+  @Override
+  public ThankTransaction readTransaction(ThankTokenHeader header, Reader reader) {
+
+    return readTransaction(header, decode(reader));
+  }
+
+  @Override
+  public ThankTransaction readTransaction(ThankTokenHeader header, ByteBuffer buffer) {
+
+    ThankBinaryInput in = start(buffer);
+    return ThankTransactionField.getFields().fromBinary(in, getValueParser(), header);
+  }
+
+  private static ByteBuffer decode(Reader reader) {
+
+    StringWriter writer = new StringWriter(512);
+    try {
+      reader.transferTo(writer);
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to read binary text.", e);
+    }
+    return decode(writer.toString());
+  }
+
+  private static ByteBuffer decode(String text) {
+
+    try {
+      return ByteBuffer.wrap(Base64.getDecoder().decode(text.strip()));
+    } catch (IllegalArgumentException e) {
+      throw new IllegalStateException("Invalid binary text.", e);
+    }
+  }
+
+  private static ThankBinaryInput start(ByteBuffer buffer) {
+
+    ThankBinaryInput in = new ThankBinaryInput(buffer.duplicate());
+    int marker = in.readByte();
+    if (marker != ThankBinaryWriter.MARKER) {
+      throw new IllegalStateException("Invalid binary marker " + marker);
+    }
+    return in;
+  }
+
+  /**
+   * @return the {@link ThankReader} implementation.
+   */
+  public static ThankReader get() {
+
+    return INSTANCE;
+  }
+
+}
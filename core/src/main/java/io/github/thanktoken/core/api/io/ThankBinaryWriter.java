@@ -0,0 +1,110 @@
+package io.github.thanktoken.core.api.io;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.Base64;
+import java.util.Objects;
+
+import io.github.thanktoken.core.api.token.ThankToken;
+import io.github.thanktoken.core.api.token.header.ThankTokenHeader;
+import io.github.thanktoken.core.api.token.header.ThankTokenHeaderField;
+import io.github.thanktoken.core.api.transaction.ThankTransaction;
+import io.github.thanktoken.core.api.transaction.ThankTransactionField;
+
+/**
+ * Implementation of {@link ThankWriter} for the {@link ThankFormat#BINARY binary format}. The data starts with
+ * {@link #MARKER} followed by the {@link io.github.thanktoken.core.api.field.ThankFieldMap#toBinary binary fields}. As
+ * binary data can not be written to a {@link Writer} directly, the {@link Writer} variants write the binary data
+ * encoded as {@link Base64} text that therefore starts with {@link #TEXT_MARKER}.
+ *
+ * @see ThankBinaryReader
+ * @since 1.0.0
+ */
+public class ThankBinaryWriter implements ThankWriter {
+
+  /** The first byte of the binary format. It can never be the start of a JSON document encoded as UTF-8. */
+  public static final int MARKER = 0xB1;
+
+  /** The first character of the {@link Base64} text of the binary format as it starts with {@link #MARKER}. */
+  public static final char TEXT_MARKER = 's';
+
+  private static final ThankBinaryWriter INSTANCE = new ThankBinaryWriter();
+
+  @Override
+  public void writeHeader(ThankTokenHeader header, OutputStream out) {
+
+    Objects.requireNonNull(out, "out");
+    ThankBinaryOutput buffer = toBinary(header);
+    try {
+      buffer.writeTo(out);
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to write token header.", e);
+    }
+  }
+
+  @Override
+  public void writeHeader(ThankTokenHeader header, Writer writer) {
+
+    Objects.requireNonNull(writer, "writer");
+    try {
+      writer.write(Base64.getEncoder().encodeToString(toBinary(header).toByteArray()));
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to write token header.", e);
+    }
+  }
+
+  private static ThankBinaryOutput toBinary(ThankTokenHeader header) {
+
+    Objects.requireNonNull(header, "header");
+    ThankBinaryOutput buffer = new ThankBinaryOutput();
+    buffer.writeByte(MARKER);
+    ThankTokenHeaderField.getFields().toBinary(header, header, buffer);
+    return buffer;
+  }
+
+  @Override
+  public void writeTransaction(ThankToken token, ThankTransaction tx, OutputStream out) {
+
+    Objects.requireNonNull(out, "out");
+    ThankBinaryOutput buffer = toBinary(token, tx);
+    try {
+      buffer.writeTo(out);
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to write transaction.", e);
+    }
+  }
+
+  @Override
+  public void writeTransaction(ThankToken token, ThankTransaction tx, Writer writer) {
+
+    Objects.requireNonNull(writer, "writer");
+    try {
+      writer.write(Base64.getEncoder().encodeToString(toBinary(token, tx).toByteArray()));
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to write transaction.", e);
+    }
+  }
+
+  private static ThankBinaryOutput toBinary(ThankToken token, ThankTransaction tx) {
+
+    Objects.requireNonNull(token, "token");
+    ThankTokenHeader header = token.getHeader();
+    Objects.requireNonNull(header, "header");
+    Objects.requireNonNull(tx, "tx");
+    assert (token.getTransactions().contains(tx));
+    ThankBinaryOutput buffer = new ThankBinaryOutput();
+    buffer.writeByte(MARKER);
+    ThankTransactionField.getFields().toBinary(tx, header, buffer);
+    return buffer;
+  }
+
+  /**
+   * @return the {@link ThankWriter} implementation.
+   */
+  public static ThankWriter get() {
+
+    return INSTANCE;
+  }
+
+}
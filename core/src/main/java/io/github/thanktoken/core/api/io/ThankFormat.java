@@ -0,0 +1,90 @@
+package io.github.thanktoken.core.api.io;
+
+import io.github.thanktoken.core.api.version.ThankVersion;
+
+/**
+ * The serialization format of a {@link io.github.thanktoken.core.api.token.ThankToken}. Both formats carry exactly
+ * the same data and can be converted into each other without loss. As the
+ * {@link io.github.thanktoken.core.api.field.ThankFieldMap#hash2Sign hash to sign} is computed from the field values
+ * and not from the serialized form, signatures stay valid regardless of the format.
+ *
+ * @see #of(ThankVersion)
+ * @since 1.0.0
+ */
+public enum ThankFormat {
+
+  /** The human readable JSON format (default). */
+  JSON(ThankReaderImpl.get(), ThankWriterImpl.get()),
+
+  /**
+   * The compact binary format with varint numbers and length-prefixed raw binaries. It always starts with
+   * {@link ThankBinaryWriter#MARKER} so it can be distinguished from {@link #JSON}.
+   */
+  BINARY(ThankBinaryReader.get(), ThankBinaryWriter.get());
+
+  private final ThankReader reader;
+
+  private final ThankWriter writer;
+
+  private ThankFormat(ThankReader reader, ThankWriter writer) {
+
+    this.reader = reader;
+    this.writer = writer;
+  }
+
+  /**
+   * @return the {@link ThankReader} for this format.
+   */
+  public ThankReader getReader() {
+
+    return this.reader;
+  }
+
+  /**
+   * @return the {@link ThankWriter} for this format.
+   */
+  public ThankWriter getWriter() {
+
+    return this.writer;
+  }
+
+  /**
+   * @param firstByte the first byte of a serialized {@link io.github.thanktoken.core.api.token.header.ThankTokenHeader
+   *        header} or {@link io.github.thanktoken.core.api.transaction.ThankTransaction transaction}.
+   * @return the detected {@link ThankFormat}.
+   */
+  public static ThankFormat detect(int firstByte) {
+
+    if ((firstByte & 0xFF) == ThankBinaryWriter.MARKER) {
+      return BINARY;
+    }
+    return JSON;
+  }
+
+  /**
+   * @param firstChar the first character of a serialized
+   *        {@link io.github.thanktoken.core.api.token.header.ThankTokenHeader header} or
+   *        {@link io.github.thanktoken.core.api.transaction.ThankTransaction transaction} in textual form.
+   * @return the detected {@link ThankFormat}.
+   * @see ThankBinaryWriter#TEXT_MARKER
+   */
+  public static ThankFormat detectText(int firstChar) {
+
+    if (firstChar == ThankBinaryWriter.TEXT_MARKER) {
+      return BINARY;
+    }
+    return JSON;
+  }
+
+  /**
+   * @param version the {@link ThankVersion} of a {@link io.github.thanktoken.core.api.token.ThankToken}.
+   * @return the {@link ThankFormat} used to serialize {@link io.github.thanktoken.core.api.token.ThankToken}s of the
+   *         given version by default.
+   * @see ThankFormatWriter
+   */
+  public static ThankFormat of(ThankVersion version) {
+
+    return JSON;
+  }
+
+}
@@ -0,0 +1,121 @@
+package io.github.thanktoken.core.api.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PushbackInputStream;
+import java.io.PushbackReader;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+
+import io.github.thanktoken.core.api.token.ThankToken;
+import io.github.thanktoken.core.api.token.header.ThankTokenHeader;
+import io.github.thanktoken.core.api.transaction.ThankTransaction;
+
+/**
+ * Implementation of {@link ThankReader} that {@link ThankFormat#detect(int) detects} the {@link ThankFormat} from the
+ * data to read. Therefore it can read everything written by {@link ThankFormatWriter} regardless of the
+ * {@link ThankFormat} selected for the {@link ThankTokenHeader#getVersion() version}. Textual input ({@link String}
+ * or {@link Reader}) is {@link ThankFormat#BINARY} as {@link java.util.Base64} text if it starts with
+ * {@link ThankBinaryWriter#TEXT_MARKER} and {@link ThankFormat#JSON} otherwise.
+ *
+ * @since 1.0.0
+ */
+public class ThankFormatReader implements ThankReader {
+
+  private static final ThankFormatReader INSTANCE = new ThankFormatReader();
+
+  @Override
+  public ThankToken read(String header, String... transactions) {
+
+    ThankFormat format = ThankFormat.JSON;
+    if (!header.isEmpty()) {
+      format = ThankFormat.detectText(header.charAt(0));
+    }
+    return format.getReader().read(header, transactions);
+  }
+
+  @Override
+  public ThankTokenHeader readHeader(InputStream in) {
+
+    PushbackInputStream pushback = new PushbackInputStream(in, 1);
+    return getReader(pushback).readHeader(pushback);
+  }
+
+  @Override
+  public ThankTokenHeader readHeader(Reader reader) {
+
+    PushbackReader pushback = new PushbackReader(reader, 1);
+    return getReader(pushback).readHeader(pushback);
+  }
+
+  @Override
+  public ThankTokenHeader readHeader(ByteBuffer buffer) {
+
+    return getReader(buffer).readHeader(buffer);
+  }
+
+  @Override
+  public ThankTransaction readTransaction(ThankTokenHeader header, InputStream in) {
+
+    PushbackInputStream pushback = new PushbackInputStream(in, 1);
+    return getReader(pushback).readTransaction(header, pushback);
+  }
+
+  @Override
+  public ThankTransaction readTransaction(ThankTokenHeader header, Reader reader) {
+
+    PushbackReader pushback = new PushbackReader(reader, 1);
+    return getReader(pushback).readTransaction(header, pushback);
+  }
+
+  @Override
+  public ThankTransaction readTransaction(ThankTokenHeader header, ByteBuffer buffer) {
+
+    return getReader(buffer).readTransaction(header, buffer);
+  }
+
+  private static ThankReader getReader(ByteBuffer buffer) {
+
+    if (!buffer.hasRemaining()) {
+      return ThankFormat.JSON.getReader();
+    }
+    return ThankFormat.detect(buffer.get(buffer.position())).getReader();
+  }
+
+  private static ThankReader getReader(PushbackInputStream in) {
+
+    try {
+      int b = in.read();
+      if (b < 0) {
+        return ThankFormat.JSON.getReader();
+      }
+      in.unread(b);
+      return ThankFormat.detect(b).getReader();
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to detect format.", e);
+    }
+  }
+
+  private static ThankReader getReader(PushbackReader reader) {
+
+    try {
+      int c = reader.read();
+      if (c < 0) {
+        return ThankFormat.JSON.getReader();
+      }
+      reader.unread(c);
+      return ThankFormat.detectText(c).getReader();
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to detect format.", e);
+    }
+  }
+
+  /**
+   * @return the {@link ThankReader} implementation.
+   */
+  public static ThankReader get() {
+
+    return INSTANCE;
+  }
+
+}
@@ -0,0 +1,81 @@
+package io.github.thanktoken.core.api.io;
+
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.Objects;
+import java.util.function.Function;
+
+import io.github.thanktoken.core.api.token.ThankToken;
+import io.github.thanktoken.core.api.token.header.ThankTokenHeader;
+import io.github.thanktoken.core.api.transaction.ThankTransaction;
+import io.github.thanktoken.core.api.version.ThankVersion;
+
+/**
+ * Implementation of {@link ThankWriter} that selects the {@link ThankFormat} by the
+ * {@link ThankTokenHeader#getVersion() version} of the {@link ThankToken} to write. By default the format is
+ * determined by {@link ThankFormat#of(ThankVersion)} but a custom strategy can be given (e.g. to replicate all tokens
+ * of a version in {@link ThankFormat#BINARY binary format}).
+ *
+ * @see ThankFormatReader
+ * @since 1.0.0
+ */
+public class ThankFormatWriter implements ThankWriter {
+
+  private static final ThankFormatWriter INSTANCE = new ThankFormatWriter(ThankFormat::of);
+
+  private final Function<ThankVersion, ThankFormat> strategy;
+
+  /**
+   * The constructor.
+   *
+   * @param strategy the {@link Function} that selects the {@link ThankFormat} for a {@link ThankVersion}.
+   */
+  public ThankFormatWriter(Function<ThankVersion, ThankFormat> strategy) {
+
+    super();
+    Objects.requireNonNull(strategy, "strategy");
+    this.strategy = strategy;
+  }
+
+  /**
+   * @param header the {@link ThankTokenHeader} to write or of the {@link ThankToken} to write.
+   * @return the {@link ThankWriter} of the selected {@link ThankFormat}.
+   */
+  protected ThankWriter getWriter(ThankTokenHeader header) {
+
+    return this.strategy.apply(header.getVersion()).getWriter();
+  }
+
+  @Override
+  public void writeHeader(ThankTokenHeader header, OutputStream out) {
+
+    getWriter(header).writeHeader(header, out);
+  }
+
+  @Override
+  public void writeHeader(ThankTokenHeader header, Writer writer) {
+
+    getWriter(header).writeHeader(header, writer);
+  }
+
+  @Override
+  public void writeTransaction(ThankToken token, ThankTransaction tx, OutputStream out) {
+
+    getWriter(token.getHeader()).writeTransaction(token, tx, out);
+  }
+
+  @Override
+  public void writeTransaction(ThankToken token, ThankTransaction tx, Writer writer) {
+
+    getWriter(token.getHeader()).writeTransaction(token, tx, writer);
+  }
+
+  /**
+   * @return the {@link ThankWriter} implementation using {@link ThankFormat#of(ThankVersion)}.
+   */
+  public static ThankWriter get() {
+
+    return INSTANCE;
+  }
+
+}
@@ -0,0 +1,520 @@
+package io.github.thanktoken.core.api.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.Month;
+import java.time.chrono.IsoChronology;
+import java.util.Arrays;
+
+import io.github.mmm.base.exception.ObjectNotFoundException;
+import io.github.mmm.binary.codec.Base64;
+import io.github.mmm.crypto.CryptoBinary;
+import io.github.thanktoken.core.api.context.ThankTokenContext;
+import io.github.thanktoken.core.api.data.ThankDataObject;
+import io.github.thanktoken.core.api.field.ThankField;
+import io.github.thanktoken.core.api.field.ThankFieldMap;
+import io.github.thanktoken.core.api.timestamp.ThankTimestamp;
+import io.github.thanktoken.core.api.token.ThankToken;
+import io.github.thanktoken.core.api.token.header.ThankTokenHeader;
+import io.github.thanktoken.core.api.token.header.ThankTokenHeaderField;
+import io.github.thanktoken.core.api.transaction.ThankTransaction;
+import io.github.thanktoken.core.api.transaction.ThankTransactionField;
+import io.github.thanktoken.core.api.value.ThankValue;
+import io.github.thanktoken.core.api.version.ThankVersion;
+
+/**
+ * Implementation of {@link ThankReader} for {@link ThankFormat#JSON} that parses the fixed token schema directly from
+ * the UTF-8 bytes of a heap or direct {@link ByteBuffer} instead of decoding them to chars and {@link String}s first.
+ * Field keys are resolved via {@link ThankFieldMap#get(ByteBuffer, int, int)}. {@link ThankValue}s,
+ * {@link ThankTimestamp}s and {@link ThankVersion}s are parsed from their digits and Base64 binaries are decoded in
+ * place. Only values that are {@link String}s anyway (e.g. the currency or the public purpose) are decoded to
+ * {@link String}. Any value that is not in canonical form falls back to the regular parsing so the result is always
+ * identical to parsing the decoded text with {@link ThankReaderImpl}. Textual input ({@link String} or {@link Reader})
+ * is delegated to {@link ThankReaderImpl} that in turn uses this reader for its {@link ByteBuffer} input.
+ *
+ * @since 1.0.0
+ */
+public class ThankJsonByteReader implements ThankReader {
+
+  private static final ThankJsonByteReader INSTANCE = new ThankJsonByteReader();
+
+  private static final int SCALE = ThankValue.VALUE_1.getScale();
+
+  private static final long[] FACTORS = { 1L, 10L, 100L, 1000L, 10000L, 100000L, 1000000L, 10000000L, 100000000L };
+
+  private static final int TIMESTAMP_LENGTH = 24;
+
+  @Override
+  public ThankToken read(String header, String... transactions) {
+
+    return ThankReaderImpl.get().read(header, transactions);
+  }
+
+  /**
+   * @return the {@link ThankValueParser}.
+   */
+  public ThankValueParser getValueParser() {
+
+    return ThankValueParserDefault.get();
+  }
+
+  @Override
+  public ThankTokenHeader readHeader(InputStream in) {
+
+    try {
+      return readHeader(ByteBuffer.wrap(in.readAllBytes()));
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to read token header.", e);
+    }
+  }
+
+  @Override
+  public ThankTokenHeader readHeader(Reader reader) {
+
+    return ThankReaderImpl.get().readHeader(reader);
+  }
+
+  @Override
+  public ThankTokenHeader readHeader(ByteBuffer buffer) {
+
+    Parser parser = new Parser(buffer, getValueParser());
+    ThankTokenHeader header = parser.parseObject(ThankTokenHeaderField.getFields(), null);
+    parser.expectEnd();
+    return header;
+  }
+
+  @Override
+  public ThankTransaction readTransaction(ThankTokenHeader header, InputStream in) {
+
+    try {
+      return readTransaction(header, ByteBuffer.wrap(in.readAllBytes()));
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to read transaction.", e);
+    }
+  }
+
+  @Override
+  public ThankTransaction readTransaction(ThankTokenHeader header, Reader reader) {
+
+    return ThankReaderImpl.get().readTransaction(header, reader);
+  }
+
+  @Override
+  public ThankTransaction readTransaction(ThankTokenHeader header, ByteBuffer buffer) {
+
+    Parser parser = new Parser(buffer, getValueParser());
+    ThankTransaction tx = parser.parseObject(ThankTransactionField.getFields(), header);
+    parser.expectEnd();
+    return tx;
+  }
+
+  /**
+   * @return the {@link ThankReader} implementation.
+   */
+  public static ThankReader get() {
+
+    return INSTANCE;
+  }
+
+  /**
+   * Parses JSON from a {@link ByteBuffer} using absolute indexes so the {@link ByteBuffer} is not modified.
+   */
+  private static class Parser {
+
+    private final ByteBuffer buffer;
+
+    private final int end;
+
+    private final ThankValueParser valueParser;
+
+    private int pos;
+
+    private int stringEnd;
+
+    private boolean stringEscaped;
+
+    private Parser(ByteBuffer buffer, ThankValueParser valueParser) {
+
+      super();
+      this.buffer = buffer;
+      this.pos = buffer.position();
+      this.end = buffer.limit();
+      this.valueParser = valueParser;
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private <D extends ThankDataObject, B extends D> D parseObject(ThankFieldMap<D, B, ?> fieldMap,
+        ThankTokenContext context) {
+
+      B bean = fieldMap.newBean();
+      if ((context == null) && (bean instanceof ThankTokenContext)) {
+        context = (ThankTokenContext) bean;
+      }
+      expect('{');
+      if (peek() == '}') {
+        this.pos++;
+        return fieldMap.bean2data(bean);
+      }
+      while (true) {
+        expect('"');
+        int keyStart = this.pos;
+        scanString();
+        ThankField field = findField(fieldMap, keyStart);
+        if (field == null) {
+          throw new ObjectNotFoundException(bean.getClass(), decodeString(keyStart));
+        }
+        expect(':');
+        Object value = parseValue(field, context);
+        field.set(bean, value);
+        byte b = next();
+        if (b == '}') {
+          return fieldMap.bean2data(bean);
+        } else if (b != ',') {
+          throw error("',' or '}'");
+        }
+      }
+    }
+
+    private ThankField<?, ?, ?> findField(ThankFieldMap<?, ?, ?> fieldMap, int keyStart) {
+
+      if (this.stringEscaped) {
+        return fieldMap.get(decodeString(keyStart));
+      }
+      return fieldMap.get(this.buffer, keyStart, this.stringEnd);
+    }
+
+    private Object parseValue(ThankField<?, ?, ?> field, ThankTokenContext context) {
+
+      byte b = peek();
+      Class<?> type = field.getType();
+      if (b == '"') {
+        this.pos++;
+        int start = this.pos;
+        scanString();
+        if (!this.stringEscaped) {
+          if (type == ThankValue.class) {
+            ThankValue value = parseThankValue(start);
+            if (value != null) {
+              return value;
+            }
+          } else if (type == ThankTimestamp.class) {
+            ThankTimestamp timestamp = parseTimestamp(start);
+            if (timestamp != null) {
+              return timestamp;
+            }
+          } else if (CryptoBinary.class.isAssignableFrom(type) && isBase64(context)) {
+            byte[] data = decodeBase64(start);
+            if (data != null) {
+              return this.valueParser.parseBinary(data, type, context);
+            }
+          }
+        }
+        return this.valueParser.parse(decodeString(start), type, context);
+      } else if (b == '{') {
+        ThankFieldMap<?, ?, ?> fieldMap = field.getFieldMap();
+        if (fieldMap == null) {
+          throw new IllegalStateException("JSON object for field '" + field.getName() + "' without field map!");
+        }
+        return parseObject(fieldMap, context);
+      } else if ((b == '-') || ((b >= '0') && (b <= '9'))) {
+        long number = parseLong();
+        if (type == ThankVersion.class) {
+          return ThankVersion.of(Math.toIntExact(number));
+        } else if (type == Integer.class) {
+          return Integer.valueOf(Math.toIntExact(number));
+        } else if (type == Long.class) {
+          return Long.valueOf(number);
+        }
+        throw new IllegalArgumentException(type.getName() + "(as JSON number)");
+      } else if (b == 'n') {
+        expectLiteral("null");
+        return null;
+      } else if (b == 't') {
+        expectLiteral("true");
+        return Boolean.TRUE;
+      } else if (b == 'f') {
+        expectLiteral("false");
+        return Boolean.FALSE;
+      }
+      throw error("value for field '" + field.getName() + "'");
+    }
+
+    private static boolean isBase64(ThankTokenContext context) {
+
+      if (context == null) {
+        return false;
+      }
+      ThankVersion version = context.getVersion();
+      return (version != null) && (version.getCodec() == Base64.DEFAULT);
+    }
+
+    private ThankValue parseThankValue(int start) {
+
+      int length = this.stringEnd - start;
+      int fractionIndex = -1;
+      long integer = 0;
+      long fraction = 0;
+      for (int i = 0; i < length; i++) {
+        byte b = this.buffer.get(start + i);
+        if (b == '.') {
+          if (fractionIndex >= 0) {
+            return null;
+          }
+          fractionIndex = i;
+        } else if ((b >= '0') && (b <= '9')) {
+          if (fractionIndex < 0) {
+            integer = (integer * 10) + (b - '0');
+          } else {
+            fraction = (fraction * 10) + (b - '0');
+          }
+        } else {
+          return null;
+        }
+      }
+      int integerDigits = (fractionIndex < 0) ? length : fractionIndex;
+      int fractionDigits = (fractionIndex < 0) ? 0 : (length - 1 - fractionIndex);
+      if ((integerDigits == 0) || (integerDigits > 11) || (fractionDigits > SCALE)
+          || ((fractionIndex >= 0) && (fractionDigits == 0))) {
+        return null; // not canonical - let ThankValue.of(String) decide
+      } else if ((integerDigits > 1) && (this.buffer.get(start) == '0')) {
+        return null;
+      } else if ((fractionDigits > 0) && (this.buffer.get(this.stringEnd - 1) == '0')) {
+        return null;
+      }
+      try {
+        long unscaled = Math.addExact(Math.multiplyExact(integer, FACTORS[SCALE]),
+            fraction * FACTORS[SCALE - fractionDigits]);
+        return ThankValue.ofUnscaled(unscaled);
+      } catch (ArithmeticException e) {
+        return null;
+      }
+    }
+
+    private ThankTimestamp parseTimestamp(int start) {
+
+      if (((this.stringEnd - start) != TIMESTAMP_LENGTH) || (this.buffer.get(start + 14) != '.')) {
+        return null;
+      }
+      int year = digits(start, 4);
+      int month = digits(start + 4, 2);
+      int day = digits(start + 6, 2);
+      int hour = digits(start + 8, 2);
+      int minute = digits(start + 10, 2);
+      int second = digits(start + 12, 2);
+      int nanos = digits(start + 15, 9);
+      if ((year < 1) || (month < 1) || (month > 12) || (day < 1) || (hour < 0) || (hour > 23) || (minute < 0)
+          || (minute > 59) || (second < 0) || (second > 59) || (nanos < 0)) {
+        return null; // not canonical - let ThankTimestamp.of(String) decide
+      } else if (day > Month.of(month).length(IsoChronology.INSTANCE.isLeapYear(year))) {
+        return null;
+      }
+      long epochSecond = (toEpochDay(year, month, day) * 86400) + (hour * 3600) + (minute * 60) + second;
+      return new ThankTimestamp(Instant.ofEpochSecond(epochSecond, nanos));
+    }
+
+    private int digits(int start, int count) {
+
+      int result = 0;
+      for (int i = start; i < start + count; i++) {
+        int digit = this.buffer.get(i) - '0';
+        if ((digit < 0) || (digit > 9)) {
+          return -1;
+        }
+        result = (result * 10) + digit;
+      }
+      return result;
+    }
+
+    private static long toEpochDay(int year, int month, int day) {
+
+      int y = (month <= 2) ? (year - 1) : year;
+      int era = y / 400;
+      int yearOfEra = y - (era * 400);
+      int dayOfYear = (((153 * ((month + 9) % 12)) + 2) / 5) + day - 1;
+      int dayOfEra = (yearOfEra * 365) + (yearOfEra / 4) - (yearOfEra / 100) + dayOfYear;
+      return (era * 146097L) + dayOfEra - 719468;
+    }
+
+    private byte[] decodeBase64(int start) {
+
+      ByteBuffer source = this.buffer.duplicate();
+      source.limit(this.stringEnd).position(start);
+      try {
+        ByteBuffer decoded = java.util.Base64.getDecoder().decode(source);
+        byte[] data = decoded.array();
+        if (decoded.remaining() != data.length) {
+          data = Arrays.copyOfRange(data, decoded.arrayOffset() + decoded.position(),
+              decoded.arrayOffset() + decoded.limit());
+        }
+        return data;
+      } catch (IllegalArgumentException e) {
+        return null; // not canonical - let the codec decide
+      }
+    }
+
+    private long parseLong() {
+
+      boolean negative = false;
+      if (peek() == '-') {
+        negative = true;
+        this.pos++;
+      }
+      int start = this.pos;
+      long value = 0;
+      while (this.pos < this.end) {
+        byte b = this.buffer.get(this.pos);
+        if ((b < '0') || (b > '9')) {
+          break;
+        }
+        value = Math.addExact(Math.multiplyExact(value, 10), b - '0');
+        this.pos++;
+      }
+      if (this.pos == start) {
+        throw error("digit");
+      }
+      return negative ? -value : value;
+    }
+
+    /**
+     * Scans a JSON string starting after the opening quote and sets {@link #stringEnd} to the index of the closing
+     * quote and {@link #stringEscaped} if the string contains escapes. Afterwards {@link #pos} points behind the
+     * closing quote.
+     */
+    private void scanString() {
+
+      this.stringEscaped = false;
+      while (this.pos < this.end) {
+        byte b = this.buffer.get(this.pos);
+        if (b == '"') {
+          this.stringEnd = this.pos;
+          this.pos++;
+          return;
+        } else if (b == '\\') {
+          this.stringEscaped = true;
+          this.pos++;
+        }
+        this.pos++;
+      }
+      throw error("'\"'");
+    }
+
+    private String decodeString(int start) {
+
+      String string;
+      int length = this.stringEnd - start;
+      if (this.buffer.hasArray()) {
+        string = new String(this.buffer.array(), this.buffer.arrayOffset() + start, length, StandardCharsets.UTF_8);
+      } else {
+        byte[] bytes = new byte[length];
+        this.buffer.duplicate().position(start).get(bytes);
+        string = new String(bytes, StandardCharsets.UTF_8);
+      }
+      if (this.stringEscaped) {
+        string = unescape(string);
+      }
+      return string;
+    }
+
+    private static String unescape(String string) {
+
+      int length = string.length();
+      StringBuilder sb = new StringBuilder(length);
+      for (int i = 0; i < length; i++) {
+        char c = string.charAt(i);
+        if (c == '\\') {
+          i++;
+          c = string.charAt(i);
+          switch (c) {
+            case 'b':
+              c = '\b';
+              break;
+            case 'f':
+              c = '\f';
+              break;
+            case 'n':
+              c = '\n';
+              break;
+            case 'r':
+              c = '\r';
+              break;
+            case 't':
+              c = '\t';
+              break;
+            case 'u':
+              c = (char) Integer.parseInt(string.substring(i + 1, i + 5), 16);
+              i = i + 4;
+              break;
+            default:
+              // '"', '\\' and '/' stand for themselves
+          }
+        }
+        sb.append(c);
+      }
+      return sb.toString();
+    }
+
+    private void expectLiteral(String literal) {
+
+      for (int i = 0; i < literal.length(); i++) {
+        if ((this.pos >= this.end) || (this.buffer.get(this.pos) != literal.charAt(i))) {
+          throw error(literal);
+        }
+        this.pos++;
+      }
+    }
+
+    private void skipWhitespace() {
+
+      while (this.pos < this.end) {
+        byte b = this.buffer.get(this.pos);
+        if ((b != ' ') && (b != '\n') && (b != '\r') && (b != '\t')) {
+          return;
+        }
+        this.pos++;
+      }
+    }
+
+    private byte peek() {
+
+      skipWhitespace();
+      if (this.pos >= this.end) {
+        throw error("more data");
+      }
+      return this.buffer.get(this.pos);
+    }
+
+    private byte next() {
+
+      byte b = peek();
+      this.pos++;
+      return b;
+    }
+
+    private void expect(char expected) {
+
+      if (next() != expected) {
+        this.pos--;
+        throw error("'" + expected + "'");
+      }
+    }
+
+    private void expectEnd() {
+
+      skipWhitespace();
+      if (this.pos < this.end) {
+        throw error("end of data");
+      }
+    }
+
+    private IllegalStateException error(String expected) {
+
+      return new IllegalStateException("Invalid JSON at offset " + this.pos + ": expected " + expected);
+    }
+
+  }
+
+}
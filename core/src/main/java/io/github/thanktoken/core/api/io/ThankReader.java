@@ -1,8 +1,11 @@
 package io.github.thanktoken.core.api.io;
 
+import java.io.CharArrayReader;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
 import java.nio.charset.StandardCharsets;
 
 import io.github.thanktoken.core.api.token.ThankToken;
@@ -43,6 +46,20 @@ public interface ThankReader {
    */
   ThankTokenHeader readHeader(Reader reader);
 
+  /**
+   * Reads a {@link ThankToken} from the given {@link ByteBuffer}. The data is read from the current
+   * {@link ByteBuffer#position() position} to the {@link ByteBuffer#limit() limit} without modifying the given
+   * {@link ByteBuffer}. This allows to read directly from a {@link java.nio.MappedByteBuffer} without copying. The
+   * entire data is decoded in bulk instead of char by char via an {@link InputStreamReader}.
+   *
+   * @param buffer is the {@link ByteBuffer} where to read the {@link ThankToken} from.
+   * @return the parsed {@link ThankToken}.
+   */
+  default ThankTokenHeader readHeader(ByteBuffer buffer) {
+
+    return readHeader(decode(buffer));
+  }
+
   /**
    * Reads a {@link ThankTransaction} from the given {@link InputStream}.
    *
@@ -65,4 +82,29 @@ public interface ThankReader {
    */
   ThankTransaction readTransaction(ThankTokenHeader header, Reader reader);
 
+  /**
+   * Reads a {@link ThankTransaction} from the given {@link ByteBuffer}. The data is read from the current
+   * {@link ByteBuffer#position() position} to the {@link ByteBuffer#limit() limit} without modifying the given
+   * {@link ByteBuffer}.
+   *
+   * @param header the {@link ThankTokenHeader} of the owning {@link ThankToken}.
+   * @param buffer is the {@link ByteBuffer} where to read the {@link ThankTransaction} from.
+   * @return the parsed {@link ThankTransaction}.
+   */
+  default ThankTransaction readTransaction(ThankTokenHeader header, ByteBuffer buffer) {
+
+    return readTransaction(header, decode(buffer));
+  }
+
+  /**
+   * @param buffer the {@link ByteBuffer} with the UTF-8 encoded data from its {@link ByteBuffer#position() position}
+   *        to its {@link ByteBuffer#limit() limit}. Will not be modified.
+   * @return a {@link Reader} on the decoded data.
+   */
+  private static Reader decode(ByteBuffer buffer) {
+
+    CharBuffer chars = StandardCharsets.UTF_8.decode(buffer.duplicate());
+    return new CharArrayReader(chars.array(), chars.arrayOffset() + chars.position(), chars.remaining());
+  }
+
 }
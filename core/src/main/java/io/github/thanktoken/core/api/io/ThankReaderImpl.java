@@ -2,6 +2,7 @@ package io.github.thanktoken.core.api.io;
 
 import java.io.Reader;
 import java.io.StringReader;
+import java.nio.ByteBuffer;
 
 import javax.json.Json;
 import javax.json.stream.JsonParser;
@@ -15,7 +16,8 @@ import io.github.thanktoken.core.api.transaction.ThankTransaction;
 import io.github.thanktoken.core.api.transaction.ThankTransactionField;
 
 /**
- * Implementation of {@link ThankReader}.
+ * Implementation of {@link ThankReader}. Data from a {@link ByteBuffer} (e.g. a {@link java.nio.MappedByteBuffer} of
+ * the local disk repository) is parsed directly from the UTF-8 bytes via {@link ThankJsonByteReader}.
  */
 public class ThankReaderImpl implements ThankReader {
 
@@ -63,6 +65,18 @@ public class ThankReaderImpl implements ThankReader {
     return ThankTransactionField.getFields().fromJson(jsonParser, getValueParser(), header);
   }
 
+  @Override
+  public ThankTokenHeader readHeader(ByteBuffer buffer) {
+
+    return ThankJsonByteReader.get().readHeader(buffer);
+  }
+
+  @Override
+  public ThankTransaction readTransaction(ThankTokenHeader header, ByteBuffer buffer) {
+
+    return ThankJsonByteReader.get().readTransaction(header, buffer);
+  }
+
   /**
    * @return the {@link ThankReader} implementation.
    */
@@ -0,0 +1,327 @@
+package io.github.thanktoken.core.api.io;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javax.json.Json;
+import javax.json.JsonException;
+import javax.json.stream.JsonParser;
+import javax.json.stream.JsonParser.Event;
+import javax.json.stream.JsonParserFactory;
+
+import io.github.mmm.base.exception.ObjectNotFoundException;
+import io.github.thanktoken.core.api.token.ThankToken;
+import io.github.thanktoken.core.api.token.ThankTokenBean;
+import io.github.thanktoken.core.api.token.ThankTokenField;
+import io.github.thanktoken.core.api.token.header.ThankTokenHeader;
+import io.github.thanktoken.core.api.token.header.ThankTokenHeaderField;
+import io.github.thanktoken.core.api.transaction.ThankTransactionField;
+
+/**
+ * Reads any number of {@link ThankToken}s written by {@link ThankTokenStreamWriter} from a single {@link InputStream}
+ * one at a time with constant memory. Only a single {@link ThankToken} is held in memory at a time so bulk imports
+ * never have to split the input into {@link String}s first.
+ *
+ * @since 1.0.0
+ */
+public class ThankTokenStreamReader implements AutoCloseable {
+
+  /**
+   * The maximum length of a binary record or a JSON line (in characters) to protect against corrupt or malicious
+   * data.
+   */
+  public static final int MAX_RECORD_LENGTH = 16 * 1024 * 1024;
+
+  private static final JsonParserFactory JSON_FACTORY = Json.createParserFactory(null);
+
+  private final ThankFormat format;
+
+  private final ThankValueParser valueParser;
+
+  private final DataInputStream in;
+
+  private final Reader reader;
+
+  private char[] chars;
+
+  private int charPosition;
+
+  private int charLimit;
+
+  private StringBuilder line;
+
+  private byte[] record;
+
+  private long count;
+
+  /**
+   * The constructor.
+   *
+   * @param channel the {@link ReadableByteChannel} to read from.
+   * @param format the {@link ThankFormat} to read.
+   */
+  public ThankTokenStreamReader(ReadableByteChannel channel, ThankFormat format) {
+
+    this(Channels.newInputStream(channel), format);
+  }
+
+  /**
+   * The constructor.
+   *
+   * @param in the {@link InputStream} to read from. Will be closed on {@link #close()}.
+   * @param format the {@link ThankFormat} to read.
+   */
+  public ThankTokenStreamReader(InputStream in, ThankFormat format) {
+
+    this(in, format, ThankValueParserDefault.get());
+  }
+
+  /**
+   * The constructor.
+   *
+   * @param in the {@link InputStream} to read from. Will be closed on {@link #close()}.
+   * @param format the {@link ThankFormat} to read.
+   * @param valueParser the {@link ThankValueParser}.
+   */
+  public ThankTokenStreamReader(InputStream in, ThankFormat format, ThankValueParser valueParser) {
+
+    super();
+    Objects.requireNonNull(in, "in");
+    Objects.requireNonNull(format, "format");
+    Objects.requireNonNull(valueParser, "valueParser");
+    this.format = format;
+    this.valueParser = valueParser;
+    if (format == ThankFormat.JSON) {
+      this.in = null;
+      this.reader = new InputStreamReader(in, StandardCharsets.UTF_8);
+      this.chars = new char[64 * 1024];
+      this.line = new StringBuilder(4096);
+    } else {
+      this.in = new DataInputStream(new BufferedInputStream(in, 64 * 1024));
+      this.reader = null;
+      this.record = new byte[4096];
+    }
+  }
+
+  /**
+   * @return the {@link ThankFormat} to read.
+   */
+  public ThankFormat getFormat() {
+
+    return this.format;
+  }
+
+  /**
+   * @return the number of {@link ThankToken}s read.
+   */
+  public long getCount() {
+
+    return this.count;
+  }
+
+  /**
+   * @return the next {@link ThankToken} or {@code null} if the end of the stream has been reached.
+   */
+  public ThankToken read() {
+
+    ThankToken token;
+    try {
+      if (this.reader == null) {
+        token = readBinary();
+      } else {
+        token = readJson();
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to read token #" + this.count, e);
+    }
+    if (token != null) {
+      this.count++;
+    }
+    return token;
+  }
+
+  private ThankToken readJson() throws IOException {
+
+    String line = readLine();
+    while ((line != null) && line.isBlank()) {
+      line = readLine();
+    }
+    if (line == null) {
+      return null;
+    }
+    JsonParser jsonParser = JSON_FACTORY.createParser(new StringReader(line));
+    expect(jsonParser, Event.START_OBJECT);
+    ThankTokenBean token = null;
+    Event e = jsonParser.next();
+    while (e == Event.KEY_NAME) {
+      String key = jsonParser.getString();
+      if (ThankTokenField.HEADER.getId().equals(key)) {
+        token = new ThankTokenBean(ThankTokenHeaderField.getFields().fromJson(jsonParser, this.valueParser));
+      } else if (ThankTokenField.TRANSACTIONS.getId().equals(key)) {
+        if (token == null) {
+          throw new IllegalStateException("Transactions before header in token #" + this.count);
+        }
+        expect(jsonParser, Event.START_ARRAY);
+        e = jsonParser.next();
+        while (e == Event.START_OBJECT) {
+          token.addTransaction(ThankTransactionField.getFields().fromJson(jsonParser, this.valueParser,
+              token.getHeader()));
+          e = jsonParser.next();
+        }
+        if (e != Event.END_ARRAY) {
+          throw new IllegalStateException(e.toString());
+        }
+      } else {
+        throw new ObjectNotFoundException(ThankToken.class, key);
+      }
+      e = jsonParser.next();
+    }
+    if ((e != Event.END_OBJECT) || (token == null)) {
+      throw new IllegalStateException("Invalid token #" + this.count + ": " + e);
+    }
+    boolean trailing;
+    try {
+      trailing = jsonParser.hasNext();
+    } catch (JsonException ex) {
+      // some parsers already fail to tokenize the trailing content
+      trailing = true;
+    }
+    if (trailing) {
+      throw new IllegalStateException("Trailing content after token #" + this.count);
+    }
+    jsonParser.close();
+    return token;
+  }
+
+  /**
+   * Reads the next line like {@link java.io.BufferedReader#readLine()} but fails if the line exceeds
+   * {@link #MAX_RECORD_LENGTH} so a corrupt input without line breaks can not exhaust the memory.
+   *
+   * @return the next line without the line break or {@code null} if the end of the stream has been reached.
+   * @throws IOException on I/O error.
+   */
+  private String readLine() throws IOException {
+
+    this.line.setLength(0);
+    boolean empty = true;
+    while (true) {
+      if (this.charPosition >= this.charLimit) {
+        int read = this.reader.read(this.chars, 0, this.chars.length);
+        if (read < 0) {
+          return empty ? null : this.line.toString();
+        }
+        this.charPosition = 0;
+        this.charLimit = read;
+      }
+      empty = false;
+      int start = this.charPosition;
+      while ((this.charPosition < this.charLimit) && (this.chars[this.charPosition] != '\n')) {
+        this.charPosition++;
+      }
+      int length = this.charPosition - start;
+      if (this.line.length() + length > MAX_RECORD_LENGTH) {
+        throw new IllegalStateException("Line of token #" + this.count + " exceeds " + MAX_RECORD_LENGTH);
+      }
+      this.line.append(this.chars, start, length);
+      if (this.charPosition < this.charLimit) {
+        // skip the line break
+        this.charPosition++;
+        int end = this.line.length();
+        if ((end > 0) && (this.line.charAt(end - 1) == '\r')) {
+          this.line.setLength(end - 1);
+        }
+        return this.line.toString();
+      }
+    }
+  }
+
+  private static void expect(JsonParser jsonParser, Event expected) {
+
+    Event e = jsonParser.next();
+    if (e != expected) {
+      throw new IllegalStateException(e.toString());
+    }
+  }
+
+  private ThankToken readBinary() throws IOException {
+
+    int length;
+    try {
+      length = this.in.readInt();
+    } catch (EOFException e) {
+      return null;
+    }
+    if ((length <= 0) || (length > MAX_RECORD_LENGTH)) {
+      throw new IllegalStateException("Invalid record length " + length + " of token #" + this.count);
+    }
+    if (length > this.record.length) {
+      this.record = new byte[Math.max(length, 2 * this.record.length)];
+    }
+    this.in.readFully(this.record, 0, length);
+    ThankBinaryInput input = new ThankBinaryInput(ByteBuffer.wrap(this.record, 0, length));
+    if (input.readByte() != ThankBinaryWriter.MARKER) {
+      throw new IllegalStateException("Invalid binary marker of token #" + this.count);
+    }
+    ThankTokenHeader header = ThankTokenHeaderField.getFields().fromBinary(input, this.valueParser, null);
+    ThankTokenBean token = new ThankTokenBean(header);
+    int txCount = input.readVarInt();
+    for (int i = 0; i < txCount; i++) {
+      token.addTransaction(ThankTransactionField.getFields().fromBinary(input, this.valueParser, header));
+    }
+    return token;
+  }
+
+  /**
+   * @return a sequential {@link Stream} of the remaining {@link ThankToken}s. Closing the {@link Stream} will
+   *         {@link #close() close} this reader.
+   */
+  public Stream<ThankToken> stream() {
+
+    Spliterator<ThankToken> spliterator = new Spliterators.AbstractSpliterator<>(Long.MAX_VALUE,
+        Spliterator.ORDERED | Spliterator.NONNULL) {
+
+      @Override
+      public boolean tryAdvance(Consumer<? super ThankToken> action) {
+
+        ThankToken token = read();
+        if (token == null) {
+          return false;
+        }
+        action.accept(token);
+        return true;
+      }
+    };
+    return StreamSupport.stream(spliterator, false).onClose(this::close);
+  }
+
+  @Override
+  public void close() {
+
+    try {
+      if (this.reader == null) {
+        this.in.close();
+      } else {
+        this.reader.close();
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to close token stream.", e);
+    }
+  }
+
+}
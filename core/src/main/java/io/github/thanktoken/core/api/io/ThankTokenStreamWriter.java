@@ -0,0 +1,199 @@
+package io.github.thanktoken.core.api.io;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FilterWriter;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+
+import javax.json.Json;
+import javax.json.stream.JsonGenerator;
+import javax.json.stream.JsonGeneratorFactory;
+
+import io.github.thanktoken.core.api.token.ThankToken;
+import io.github.thanktoken.core.api.token.ThankTokenField;
+import io.github.thanktoken.core.api.token.header.ThankTokenHeader;
+import io.github.thanktoken.core.api.token.header.ThankTokenHeaderField;
+import io.github.thanktoken.core.api.transaction.ThankTransaction;
+import io.github.thanktoken.core.api.transaction.ThankTransactionField;
+
+/**
+ * Writes any number of {@link ThankToken}s to a single {@link OutputStream} one at a time with constant memory. For
+ * {@link ThankFormat#JSON} each {@link ThankToken} is written as a single line of JSON (NDJSON) in the form of
+ * {@link ThankTokenField}s ({@code {"h":{...},"tx":[{...},...]}}). For {@link ThankFormat#BINARY} each
+ * {@link ThankToken} is written as a record prefixed with its length as {@code int} containing
+ * {@link ThankBinaryWriter#MARKER}, the binary header, the number of transactions as varint and the binary
+ * transactions.
+ *
+ * @see ThankTokenStreamReader
+ * @since 1.0.0
+ */
+public class ThankTokenStreamWriter implements Flushable, AutoCloseable {
+
+  private static final JsonGeneratorFactory JSON_FACTORY = Json.createGeneratorFactory(null);
+
+  private final ThankFormat format;
+
+  private final DataOutputStream out;
+
+  private final Writer writer;
+
+  private final ThankBinaryOutput buffer;
+
+  private long count;
+
+  /**
+   * The constructor.
+   *
+   * @param channel the {@link WritableByteChannel} to write to.
+   * @param format the {@link ThankFormat} to write.
+   */
+  public ThankTokenStreamWriter(WritableByteChannel channel, ThankFormat format) {
+
+    this(Channels.newOutputStream(channel), format);
+  }
+
+  /**
+   * The constructor.
+   *
+   * @param out the {@link OutputStream} to write to. Will be closed on {@link #close()}.
+   * @param format the {@link ThankFormat} to write.
+   */
+  public ThankTokenStreamWriter(OutputStream out, ThankFormat format) {
+
+    super();
+    Objects.requireNonNull(out, "out");
+    Objects.requireNonNull(format, "format");
+    this.format = format;
+    this.out = new DataOutputStream(new BufferedOutputStream(out, 64 * 1024));
+    if (format == ThankFormat.JSON) {
+      this.writer = new UnflushedWriter(new OutputStreamWriter(this.out, StandardCharsets.UTF_8));
+      this.buffer = null;
+    } else {
+      this.writer = null;
+      this.buffer = new ThankBinaryOutput(4096);
+    }
+  }
+
+  /**
+   * @return the {@link ThankFormat} to write.
+   */
+  public ThankFormat getFormat() {
+
+    return this.format;
+  }
+
+  /**
+   * @return the number of {@link ThankToken}s written.
+   */
+  public long getCount() {
+
+    return this.count;
+  }
+
+  /**
+   * @param token the {@link ThankToken} to write.
+   */
+  public void write(ThankToken token) {
+
+    Objects.requireNonNull(token, "token");
+    ThankTokenHeader header = token.getHeader();
+    Objects.requireNonNull(header, "header");
+    try {
+      if (this.writer == null) {
+        writeBinary(header, token);
+      } else {
+        writeJson(header, token);
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to write token " + header.getId(), e);
+    }
+    this.count++;
+  }
+
+  private void writeJson(ThankTokenHeader header, ThankToken token) throws IOException {
+
+    JsonGenerator jsonGenerator = JSON_FACTORY.createGenerator(this.writer);
+    jsonGenerator.writeStartObject();
+    jsonGenerator.writeKey(ThankTokenField.HEADER.getId());
+    ThankTokenHeaderField.getFields().toJson(header, header, jsonGenerator);
+    jsonGenerator.writeStartArray(ThankTokenField.TRANSACTIONS.getId());
+    for (ThankTransaction tx : token.getTransactions()) {
+      ThankTransactionField.getFields().toJson(tx, header, jsonGenerator);
+    }
+    jsonGenerator.writeEnd();
+    jsonGenerator.writeEnd();
+    jsonGenerator.flush();
+    this.writer.write('\n');
+  }
+
+  private void writeBinary(ThankTokenHeader header, ThankToken token) throws IOException {
+
+    this.buffer.reset();
+    this.buffer.writeByte(ThankBinaryWriter.MARKER);
+    ThankTokenHeaderField.getFields().toBinary(header, header, this.buffer);
+    this.buffer.writeVarInt(token.getTransactions().size());
+    for (ThankTransaction tx : token.getTransactions()) {
+      ThankTransactionField.getFields().toBinary(tx, header, this.buffer);
+    }
+    this.out.writeInt(this.buffer.size());
+    this.buffer.writeTo(this.out);
+  }
+
+  @Override
+  public void flush() {
+
+    try {
+      if (this.writer == null) {
+        this.out.flush();
+      } else {
+        ((UnflushedWriter) this.writer).flushThrough();
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to flush token stream.", e);
+    }
+  }
+
+  @Override
+  public void close() {
+
+    try {
+      flush();
+      this.out.close();
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to close token stream.", e);
+    }
+  }
+
+  /**
+   * {@link FilterWriter} that ignores {@link #flush()} so {@link JsonGenerator#flush()} only hands its data over
+   * instead of forcing every single {@link ThankToken} down to the {@link OutputStream}.
+   */
+  private static class UnflushedWriter extends FilterWriter {
+
+    private UnflushedWriter(Writer writer) {
+
+      super(writer);
+    }
+
+    @Override
+    public void flush() {
+
+      // ignore - see flushThrough()
+    }
+
+    private void flushThrough() throws IOException {
+
+      this.out.flush();
+    }
+
+  }
+
+}
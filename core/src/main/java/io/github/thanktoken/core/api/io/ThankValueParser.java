@@ -90,4 +90,25 @@ public interface ThankValueParser {
     return (T) result;
   }
 
+  /**
+   * @param <T> generic type of the value.
+   * @param data the raw binary data as read from the {@link ThankFormat#BINARY binary format}.
+   * @param type the {@link Class} reflecting the requested value type.
+   * @param context the {@link ThankTokenContext} required for parsing context-sensitive fields.
+   * @return the given {@code data} converted to the requested {@code type}.
+   */
+  @SuppressWarnings("unchecked")
+  default <T> T parseBinary(byte[] data, Class<T> type, ThankTokenContext context) {
+
+    Object result;
+    if (type == SignatureBinary.class) {
+      result = ThankTokenContextHelper.requireAlgorithm(context).getSignatureFactory().createSignature(data);
+    } else if (type == ThankAddress.class) {
+      result = ThankTokenContextHelper.requireAlgorithm(context).createAddress(data);
+    } else {
+      return parse(context.getVersion().getCodec().encode(data), type, context);
+    }
+    return (T) result;
+  }
+
 }
@@ -0,0 +1,220 @@
+package io.github.thanktoken.core.api.repository;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+import io.github.thanktoken.core.api.token.ThankToken;
+
+/**
+ * Abstract base implementation of {@link ThankTokenIndex} that is persisted as an append-only log of records. Each
+ * change is {@link #log(byte[]) appended} to the log and the log is {@link #replay(ByteBuffer) replayed} when the
+ * index is opened again. The log is compacted on {@link #close()} if it contains much more records than the current
+ * state of the index. A flag in the header of the log tells if the index was closed properly. Otherwise the index
+ * {@link #isRebuildRequired() has to be rebuilt} as {@link ThankToken}s may have been saved without being logged.
+ *
+ * @since 1.0.0
+ */
+public abstract class AbstractThankTokenIndex implements ThankTokenIndex {
+
+  private static final int OFFSET_CLEAN = 4;
+
+  private static final int HEADER_SIZE = 5;
+
+  private final Path file;
+
+  private final int magic;
+
+  private FileChannel channel;
+
+  private DataOutputStream out;
+
+  private long recordCount;
+
+  private boolean rebuildRequired;
+
+  /**
+   * The constructor.
+   *
+   * @param file the {@link Path} to the log file of this index.
+   * @param magic the magic number identifying the log format of this index.
+   */
+  public AbstractThankTokenIndex(Path file, int magic) {
+
+    super();
+    this.file = file;
+    this.magic = magic;
+  }
+
+  /**
+   * Opens the log and {@link #replay(ByteBuffer) replays} it. Has to be called at the end of the constructor of the
+   * sub-class once its state has been initialized.
+   */
+  protected void open() {
+
+    boolean clean = false;
+    if (Files.isRegularFile(this.file)) {
+      try {
+        clean = read();
+      } catch (IOException | RuntimeException e) {
+        // corrupt index will be rebuilt
+        clean = false;
+      }
+    }
+    if (!clean) {
+      this.recordCount = 0;
+      create();
+      this.rebuildRequired = true;
+    }
+    try {
+      this.channel = FileChannel.open(this.file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+      this.channel.position(this.channel.size());
+      // mark as dirty until closed properly
+      this.channel.write(ByteBuffer.wrap(new byte[] { 0 }), OFFSET_CLEAN);
+      this.channel.force(false);
+      OutputStream channelOut = Channels.newOutputStream(this.channel);
+      this.out = new DataOutputStream(new BufferedOutputStream(channelOut));
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to open index " + this.file, e);
+    }
+  }
+
+  private boolean read() throws IOException {
+
+    ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(this.file));
+    if ((buffer.remaining() < HEADER_SIZE) || (buffer.getInt() != this.magic) || (buffer.get() != 1)) {
+      return false;
+    }
+    clear();
+    long count = 0;
+    while (buffer.hasRemaining()) {
+      int length = buffer.getInt();
+      ByteBuffer record = buffer.slice();
+      record.limit(length);
+      replay(record);
+      buffer.position(buffer.position() + length);
+      count++;
+    }
+    this.recordCount = count;
+    return true;
+  }
+
+  private void create() {
+
+    try {
+      writeLog(this.file, null);
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to create index " + this.file, e);
+    }
+  }
+
+  private void writeLog(Path target, Consumer<Consumer<byte[]>> records) throws IOException {
+
+    Path tempFile = target.resolveSibling(target.getFileName() + ".tmp");
+    long count = 0;
+    try (DataOutputStream tempOut = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+      tempOut.writeInt(this.magic);
+      tempOut.writeByte((records == null) ? 0 : 1);
+      if (records != null) {
+        long[] counter = new long[1];
+        records.accept(record -> {
+          try {
+            tempOut.writeInt(record.length);
+            tempOut.write(record);
+            counter[0]++;
+          } catch (IOException e) {
+            throw new IllegalStateException("Failed to write index " + target, e);
+          }
+        });
+        count = counter[0];
+      }
+    }
+    Files.move(tempFile, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    this.recordCount = count;
+  }
+
+  /**
+   * @param record the record to append to the log.
+   */
+  protected synchronized void log(byte[] record) {
+
+    try {
+      this.out.writeInt(record.length);
+      this.out.write(record);
+      this.recordCount++;
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to write index " + this.file, e);
+    }
+  }
+
+  /**
+   * @param record the {@link ByteBuffer} with a record from the log to apply to the state of this index.
+   */
+  protected abstract void replay(ByteBuffer record);
+
+  /**
+   * @param consumer the {@link Consumer} to receive the minimum records to restore the current state of this index.
+   */
+  protected abstract void forEachRecord(Consumer<byte[]> consumer);
+
+  /**
+   * @return the number of records {@link #forEachRecord(Consumer) required} for the current state of this index.
+   */
+  protected abstract long getRecordCount();
+
+  @Override
+  public boolean isRebuildRequired() {
+
+    return this.rebuildRequired;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * Sub-classes have to call this method via {@code super.clear()} when they override it.
+   */
+  @Override
+  public synchronized void clear() {
+
+    this.rebuildRequired = false;
+  }
+
+  @Override
+  public synchronized void flush() {
+
+    try {
+      this.out.flush();
+      this.channel.force(false);
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to flush index " + this.file, e);
+    }
+  }
+
+  @Override
+  public synchronized void close() {
+
+    try {
+      this.out.flush();
+      if (this.recordCount > 2 * getRecordCount()) {
+        this.out.close();
+        writeLog(this.file, this::forEachRecord);
+      } else {
+        this.channel.write(ByteBuffer.wrap(new byte[] { 1 }), OFFSET_CLEAN);
+        this.channel.force(false);
+        this.out.close();
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to close index " + this.file, e);
+    }
+  }
+
+}
@@ -0,0 +1,220 @@
+package io.github.thanktoken.core.api.repository;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import io.github.thanktoken.core.api.id.ThankTokenIdKey;
+import io.github.thanktoken.core.api.id.ThankTokenIdType;
+
+/**
+ * Bloom filter of {@link ThankTokenIdType}s. If {@link #mightContain(ThankTokenIdType)} returns {@code false} the
+ * {@link ThankTokenIdType} has definitely never been {@link #put(ThankTokenIdType) put} into this filter. If it returns
+ * {@code true} it was put with a probability depending on the {@link #getFalsePositiveProbability() false positive
+ * probability}.<br>
+ * The hash of an {@link ThankTokenIdType} is the stable {@link ThankTokenIdKey#getHash64() hash} of its compact
+ * {@link ThankTokenIdKey} so the filter can be {@link #write(DataOutputStream) persisted} and
+ * {@link #read(DataInputStream) read} again in a later run of the JVM.
+ * This class is thread-safe.
+ *
+ * @since 1.0.0
+ */
+public class ThankTokenBloomFilter {
+
+  private static final int MAGIC = 0x54544232; // TTB2 (hash of ThankTokenIdKey)
+
+  private static final long SEED = 0x9E3779B97F4A7C15L;
+
+  private final AtomicLongArray bits;
+
+  private final long bitCount;
+
+  private final int hashCount;
+
+  private final long expectedInsertions;
+
+  private final double falsePositiveProbability;
+
+  private final AtomicLong insertions;
+
+  /**
+   * The constructor.
+   *
+   * @param expectedInsertions the {@link #getExpectedInsertions() expected number of insertions}.
+   * @param falsePositiveProbability the {@link #getFalsePositiveProbability() false positive probability}.
+   */
+  public ThankTokenBloomFilter(long expectedInsertions, double falsePositiveProbability) {
+
+    super();
+    if (expectedInsertions <= 0) {
+      throw new IllegalArgumentException(Long.toString(expectedInsertions));
+    }
+    if ((falsePositiveProbability <= 0) || (falsePositiveProbability >= 1)) {
+      throw new IllegalArgumentException(Double.toString(falsePositiveProbability));
+    }
+    this.expectedInsertions = expectedInsertions;
+    this.falsePositiveProbability = falsePositiveProbability;
+    double ln2 = Math.log(2);
+    long bitSize = (long) Math.ceil((-expectedInsertions * Math.log(falsePositiveProbability)) / (ln2 * ln2));
+    int words = (int) Math.max(1, Math.min(Integer.MAX_VALUE - 8, (bitSize + 63) / 64));
+    this.bits = new AtomicLongArray(words);
+    this.bitCount = words * 64L;
+    this.hashCount = Math.max(1, (int) Math.round(((double) this.bitCount / expectedInsertions) * ln2));
+    this.insertions = new AtomicLong();
+  }
+
+  private ThankTokenBloomFilter(long expectedInsertions, double falsePositiveProbability, int hashCount, long[] words,
+      long insertions) {
+
+    super();
+    this.expectedInsertions = expectedInsertions;
+    this.falsePositiveProbability = falsePositiveProbability;
+    this.hashCount = hashCount;
+    this.bits = new AtomicLongArray(words);
+    this.bitCount = words.length * 64L;
+    this.insertions = new AtomicLong(insertions);
+  }
+
+  /**
+   * @return the expected number of {@link #put(ThankTokenIdType) insertions} this filter has been sized for.
+   */
+  public long getExpectedInsertions() {
+
+    return this.expectedInsertions;
+  }
+
+  /**
+   * @return the false positive probability of {@link #mightContain(ThankTokenIdType)} when the
+   *         {@link #getExpectedInsertions() expected number of insertions} has been reached.
+   */
+  public double getFalsePositiveProbability() {
+
+    return this.falsePositiveProbability;
+  }
+
+  /**
+   * @return the number of {@link #put(ThankTokenIdType) insertions}. May be larger than the number of distinct
+   *         {@link ThankTokenIdType}s.
+   */
+  public long getInsertions() {
+
+    return this.insertions.get();
+  }
+
+  /**
+   * @return {@code true} if the {@link #getInsertions() number of insertions} exceeds the
+   *         {@link #getExpectedInsertions() expected number of insertions} so the false positive probability increases
+   *         and the filter should be rebuilt with a larger size, {@code false} otherwise.
+   */
+  public boolean isSaturated() {
+
+    return (this.insertions.get() > this.expectedInsertions);
+  }
+
+  /**
+   * @param id the {@link ThankTokenIdType} to add.
+   */
+  public void put(ThankTokenIdType id) {
+
+    long hash1 = hash(id);
+    long hash2 = mix(hash1 ^ SEED);
+    for (int i = 0; i < this.hashCount; i++) {
+      long bitIndex = Math.floorMod(hash1 + (i * hash2), this.bitCount);
+      int wordIndex = (int) (bitIndex >>> 6);
+      long mask = 1L << bitIndex;
+      long word = this.bits.get(wordIndex);
+      while ((word & mask) == 0) {
+        if (this.bits.compareAndSet(wordIndex, word, word | mask)) {
+          break;
+        }
+        word = this.bits.get(wordIndex);
+      }
+    }
+    this.insertions.incrementAndGet();
+  }
+
+  /**
+   * @param id the {@link ThankTokenIdType} to check.
+   * @return {@code false} if the given {@link ThankTokenIdType} has definitely not been {@link #put(ThankTokenIdType)
+   *         put} into this filter, {@code true} if it might have been put.
+   */
+  public boolean mightContain(ThankTokenIdType id) {
+
+    long hash1 = hash(id);
+    long hash2 = mix(hash1 ^ SEED);
+    for (int i = 0; i < this.hashCount; i++) {
+      long bitIndex = Math.floorMod(hash1 + (i * hash2), this.bitCount);
+      if ((this.bits.get((int) (bitIndex >>> 6)) & (1L << bitIndex)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * @param out the {@link DataOutputStream} where to write this filter to.
+   * @throws IOException on I/O error.
+   */
+  public void write(DataOutputStream out) throws IOException {
+
+    out.writeInt(MAGIC);
+    out.writeLong(this.expectedInsertions);
+    out.writeDouble(this.falsePositiveProbability);
+    out.writeInt(this.hashCount);
+    out.writeLong(this.insertions.get());
+    int words = this.bits.length();
+    out.writeInt(words);
+    for (int i = 0; i < words; i++) {
+      out.writeLong(this.bits.get(i));
+    }
+  }
+
+  /**
+   * @param in the {@link DataInputStream} to read a filter from that has previously been
+   *        {@link #write(DataOutputStream) written}.
+   * @return the {@link ThankTokenBloomFilter} that has been read.
+   * @throws IOException on I/O error or if the data is corrupt.
+   */
+  public static ThankTokenBloomFilter read(DataInputStream in) throws IOException {
+
+    int magic = in.readInt();
+    if (magic != MAGIC) {
+      throw new IOException("Invalid bloom filter magic " + Integer.toHexString(magic));
+    }
+    long expectedInsertions = in.readLong();
+    double falsePositiveProbability = in.readDouble();
+    int hashCount = in.readInt();
+    long insertions = in.readLong();
+    int words = in.readInt();
+    if ((expectedInsertions <= 0) || (hashCount <= 0) || (words <= 0)) {
+      throw new IOException("Corrupt bloom filter");
+    }
+    long[] data = new long[words];
+    for (int i = 0; i < words; i++) {
+      data[i] = in.readLong();
+    }
+    return new ThankTokenBloomFilter(expectedInsertions, falsePositiveProbability, hashCount, data, insertions);
+  }
+
+  /**
+   * @param id the {@link ThankTokenIdType}.
+   * @return a stable 64-bit hash of the given {@link ThankTokenIdType} that does not depend on
+   *         {@link Object#hashCode()}.
+   * @see ThankTokenIdKey#getHash64()
+   */
+  private static long hash(ThankTokenIdType id) {
+
+    return id.getKey().getHash64();
+  }
+
+  private static long mix(long value) {
+
+    long h = value;
+    h = (h ^ (h >>> 33)) * 0xFF51AFD7ED558CCDL;
+    h = (h ^ (h >>> 33)) * 0xC4CEB9FE1A85EC53L;
+    return h ^ (h >>> 33);
+  }
+
+}
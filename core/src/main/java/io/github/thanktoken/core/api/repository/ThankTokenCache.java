@@ -0,0 +1,743 @@
+package io.github.thanktoken.core.api.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+import io.github.thanktoken.core.api.id.ThankTokenIdType;
+import io.github.thanktoken.core.api.token.ThankToken;
+
+/**
+ * Bounded in-memory cache of {@link ThankTokenContainer}s used as 1st level cache by
+ * {@link ThankTokenRepositoryLocalCacheImpl}. It implements a W-TinyLFU eviction policy:
+ * <ul>
+ * <li>New entries are added to a small LRU <em>window</em> so bursts of new {@link ThankToken}s do not immediately
+ * displace established ones.</li>
+ * <li>Entries leaving the window are only admitted to the <em>main</em> area if their estimated access frequency
+ * (tracked by a count-min sketch that also remembers evicted entries) is higher than the one of the entry that would
+ * have to be evicted instead.</li>
+ * <li>The main area is a segmented LRU with a <em>probation</em> and a <em>protected</em> segment. Entries accessed
+ * again while in probation are promoted to the protected segment.</li>
+ * <li>Entries of {@link ThankTokenContainer#isInvalid() invalid} {@link ThankToken}s are kept in a separate queue and
+ * always evicted first.</li>
+ * </ul>
+ * Lookups via {@link #get(ThankTokenIdType)} do not acquire a lock. The entries are read from a concurrent map and the
+ * accesses are recorded in a lossy read buffer that is drained into the policy under the lock of this cache when it
+ * runs full or on the next write.<br>
+ * The size of the cache is limited by the {@link #getMaxWeight() maximum weight} rather than the number of entries.
+ * The {@link #getWeight(ThankTokenContainer) weight} of an entry is {@code 1} plus the number of
+ * {@link ThankToken#getTransactions() transactions} so long-lived {@link ThankToken}s with many transactions count
+ * accordingly.
+ *
+ * @since 1.0.0
+ */
+public class ThankTokenCache {
+
+  /** The default {@link #getMaxWeight() maximum weight}. */
+  public static final long DEFAULT_MAX_WEIGHT = 100_000;
+
+  private static final int WINDOW_PERCENT = 1;
+
+  private static final int PROTECTED_PERCENT = 80;
+
+  private final Map<ThankTokenIdType, Node> map;
+
+  private final ReentrantLock lock;
+
+  private final ReadBuffer readBuffer;
+
+  private final FrequencySketch sketch;
+
+  private final long maxWeight;
+
+  private final long maxWindowWeight;
+
+  private final long maxProtectedWeight;
+
+  private final LruQueue window;
+
+  private final LruQueue probation;
+
+  private final LruQueue protectedQueue;
+
+  private final LruQueue invalid;
+
+  private final LongAdder hitCount;
+
+  private final LongAdder missCount;
+
+  private long evictionCount;
+
+  /**
+   * The constructor.
+   */
+  public ThankTokenCache() {
+
+    this(DEFAULT_MAX_WEIGHT);
+  }
+
+  /**
+   * The constructor.
+   *
+   * @param maxWeight the {@link #getMaxWeight() maximum weight}.
+   */
+  public ThankTokenCache(long maxWeight) {
+
+    super();
+    if (maxWeight <= 0) {
+      throw new IllegalArgumentException(Long.toString(maxWeight));
+    }
+    this.map = new ConcurrentHashMap<>();
+    this.lock = new ReentrantLock();
+    this.readBuffer = new ReadBuffer();
+    this.hitCount = new LongAdder();
+    this.missCount = new LongAdder();
+    this.sketch = new FrequencySketch(maxWeight);
+    this.maxWeight = maxWeight;
+    this.maxWindowWeight = Math.max(1, (maxWeight * WINDOW_PERCENT) / 100);
+    this.maxProtectedWeight = ((maxWeight - this.maxWindowWeight) * PROTECTED_PERCENT) / 100;
+    this.window = new LruQueue();
+    this.probation = new LruQueue();
+    this.protectedQueue = new LruQueue();
+    this.invalid = new LruQueue();
+  }
+
+  /**
+   * @return the maximum total {@link #getWeight(ThankTokenContainer) weight} of all entries in this cache.
+   */
+  public long getMaxWeight() {
+
+    return this.maxWeight;
+  }
+
+  /**
+   * @return the current total {@link #getWeight(ThankTokenContainer) weight} of all entries in this cache.
+   */
+  public long getWeight() {
+
+    this.lock.lock();
+    try {
+      return getWeightLocked();
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  private long getWeightLocked() {
+
+    return this.window.weight + getMainWeight();
+  }
+
+  /**
+   * @return the number of entries in this cache.
+   */
+  public int getSize() {
+
+    return this.map.size();
+  }
+
+  /**
+   * @return the number of {@link #get(ThankTokenIdType) lookups} that found an entry.
+   */
+  public long getHitCount() {
+
+    return this.hitCount.sum();
+  }
+
+  /**
+   * @return the number of {@link #get(ThankTokenIdType) lookups} that did not find an entry.
+   */
+  public long getMissCount() {
+
+    return this.missCount.sum();
+  }
+
+  /**
+   * @return the number of entries that have been evicted due to the {@link #getMaxWeight() maximum weight}.
+   */
+  public long getEvictionCount() {
+
+    this.lock.lock();
+    try {
+      return this.evictionCount;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * @param id the {@link ThankTokenIdType} of the requested {@link ThankToken}.
+   * @return the cached {@link ThankTokenContainer} or {@code null} if not cached.
+   */
+  public ThankTokenContainer get(ThankTokenIdType id) {
+
+    Node node = this.map.get(id);
+    if (node == null) {
+      this.missCount.increment();
+      afterRead(id);
+      return null;
+    }
+    this.hitCount.increment();
+    afterRead(node);
+    return node.container;
+  }
+
+  private void afterRead(Object access) {
+
+    boolean recorded = this.readBuffer.offer(access);
+    if ((!recorded || this.readBuffer.isDrainRequired()) && this.lock.tryLock()) {
+      try {
+        drainReadBuffer();
+      } finally {
+        this.lock.unlock();
+      }
+    }
+  }
+
+  private void drainReadBuffer() {
+
+    Object access = this.readBuffer.poll();
+    while (access != null) {
+      if (access instanceof Node) {
+        Node node = (Node) access;
+        this.sketch.increment(node.id);
+        if (node.queue != null) {
+          onAccess(node);
+        }
+      } else {
+        this.sketch.increment((ThankTokenIdType) access);
+      }
+      access = this.readBuffer.poll();
+    }
+  }
+
+  /**
+   * Batch variant of {@link #get(ThankTokenIdType)}.
+   *
+   * @param ids the {@link Collection} of {@link ThankTokenIdType}s to lookup.
+   * @return the {@link Map} with the cached {@link ThankTokenContainer}s. An {@link ThankTokenIdType} that is not
+   *         cached is not contained as key.
+   */
+  public Map<ThankTokenIdType, ThankTokenContainer> getAll(Collection<ThankTokenIdType> ids) {
+
+    Map<ThankTokenIdType, ThankTokenContainer> result = new HashMap<>(ids.size());
+    for (ThankTokenIdType id : ids) {
+      ThankTokenContainer container = get(id);
+      if (container != null) {
+        result.put(id, container);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Adds or updates the given {@link ThankTokenContainer}. Has to be called again after the
+   * {@link ThankTokenContainer#isValid() validity} of a cached {@link ThankTokenContainer} has been set so the cache
+   * can update its policy.
+   *
+   * @param id the {@link ThankTokenIdType} of the {@link ThankToken}.
+   * @param container the {@link ThankTokenContainer} to cache.
+   */
+  public void put(ThankTokenIdType id, ThankTokenContainer container) {
+
+    Objects.requireNonNull(id, "id");
+    Objects.requireNonNull(container, "container");
+    this.lock.lock();
+    try {
+      drainReadBuffer();
+      putLocked(id, container);
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  private void putLocked(ThankTokenIdType id, ThankTokenContainer container) {
+
+    int weight = getWeight(container);
+    Node node = this.map.get(id);
+    if (node == null) {
+      this.sketch.increment(id);
+      if (weight > this.maxWeight) {
+        return;
+      }
+      node = new Node(id, container, weight);
+      this.map.put(id, node);
+      if (container.isInvalid()) {
+        this.invalid.add(node);
+      } else {
+        this.window.add(node);
+      }
+    } else {
+      node.container = container;
+      node.queue.weight = node.queue.weight - node.weight + weight;
+      node.weight = weight;
+      if (container.isInvalid()) {
+        node.queue.remove(node);
+        this.invalid.add(node);
+      } else if (node.queue == this.invalid) {
+        // verdict changed so move the entry back into the main area
+        this.invalid.remove(node);
+        this.probation.add(node);
+      } else {
+        onAccess(node);
+      }
+    }
+    evict();
+  }
+
+  /**
+   * @param id the {@link ThankTokenIdType} of the {@link ThankToken} to remove from this cache.
+   * @return the removed {@link ThankTokenContainer} or {@code null} if not cached.
+   */
+  public ThankTokenContainer remove(ThankTokenIdType id) {
+
+    this.lock.lock();
+    try {
+      drainReadBuffer();
+      Node node = this.map.remove(id);
+      if (node == null) {
+        return null;
+      }
+      node.queue.remove(node);
+      return node.container;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * Removes all entries from this cache.
+   */
+  public void clear() {
+
+    this.lock.lock();
+    try {
+      drainReadBuffer();
+      for (Node node : this.map.values()) {
+        node.queue = null;
+      }
+      this.map.clear();
+      this.window.clear();
+      this.probation.clear();
+      this.protectedQueue.clear();
+      this.invalid.clear();
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  /**
+   * @return the {@link List} of all cached {@link ThankTokenContainer}s ordered from the hottest to the coldest entry
+   *         (protected, probation and window segment and finally the {@link ThankTokenContainer#isInvalid() invalid}
+   *         entries). Used to write a {@link ThankTokenCacheSnapshot}.
+   */
+  public List<ThankTokenContainer> getEntries() {
+
+    this.lock.lock();
+    try {
+      drainReadBuffer();
+      List<ThankTokenContainer> entries = new ArrayList<>(this.map.size());
+      addEntries(this.protectedQueue, entries);
+      addEntries(this.probation, entries);
+      addEntries(this.window, entries);
+      addEntries(this.invalid, entries);
+      return entries;
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  private static void addEntries(LruQueue queue, List<ThankTokenContainer> entries) {
+
+    for (Node node = queue.tail; node != null; node = node.previous) {
+      entries.add(node.container);
+    }
+  }
+
+  /**
+   * Restores the given {@link ThankTokenContainer}s (e.g. from a {@link ThankTokenCacheSnapshot}) directly into the
+   * main area of this cache without passing the admission of the window. The hottest entries fill the protected
+   * segment, the others go to the probation segment. Entries that are already cached or do not fit into the
+   * {@link #getMaxWeight() maximum weight} are skipped.
+   *
+   * @param entries the {@link ThankTokenContainer}s ordered from the hottest to the coldest entry as returned by
+   *        {@link #getEntries()}.
+   * @return the number of restored entries.
+   */
+  public int restore(List<ThankTokenContainer> entries) {
+
+    this.lock.lock();
+    try {
+      drainReadBuffer();
+      return restoreLocked(entries);
+    } finally {
+      this.lock.unlock();
+    }
+  }
+
+  private int restoreLocked(List<ThankTokenContainer> entries) {
+
+    long maxMainWeight = this.maxWeight - this.maxWindowWeight;
+    long mainWeight = getMainWeight();
+    long protectedWeight = this.protectedQueue.weight;
+    List<Node> protectedNodes = new ArrayList<>();
+    List<Node> probationNodes = new ArrayList<>();
+    List<Node> invalidNodes = new ArrayList<>();
+    for (ThankTokenContainer container : entries) {
+      ThankTokenIdType id = container.getToken().requireHeader().getId();
+      int weight = getWeight(container);
+      if (this.map.containsKey(id) || (mainWeight + weight > maxMainWeight)) {
+        continue;
+      }
+      Node node = new Node(id, container, weight);
+      this.map.put(id, node);
+      this.sketch.increment(id);
+      mainWeight = mainWeight + weight;
+      if (container.isInvalid()) {
+        invalidNodes.add(node);
+      } else if (protectedWeight + weight <= this.maxProtectedWeight) {
+        this.sketch.increment(id);
+        protectedWeight = protectedWeight + weight;
+        protectedNodes.add(node);
+      } else {
+        probationNodes.add(node);
+      }
+    }
+    addNodes(this.protectedQueue, protectedNodes);
+    addNodes(this.probation, probationNodes);
+    addNodes(this.invalid, invalidNodes);
+    return protectedNodes.size() + probationNodes.size() + invalidNodes.size();
+  }
+
+  private static void addNodes(LruQueue queue, List<Node> nodes) {
+
+    // coldest first so the hottest entry becomes the most recently used
+    for (int i = nodes.size() - 1; i >= 0; i--) {
+      queue.add(nodes.get(i));
+    }
+  }
+
+  private void onAccess(Node node) {
+
+    if (node.queue == this.probation) {
+      this.probation.remove(node);
+      this.protectedQueue.add(node);
+      while (this.protectedQueue.weight > this.maxProtectedWeight) {
+        Node demoted = this.protectedQueue.head;
+        this.protectedQueue.remove(demoted);
+        this.probation.add(demoted);
+      }
+    } else if (node.queue != this.invalid) {
+      node.queue.moveToTail(node);
+    }
+  }
+
+  private void evict() {
+
+    long maxMainWeight = this.maxWeight - this.maxWindowWeight;
+    while (this.window.weight > this.maxWindowWeight) {
+      Node candidate = this.window.head;
+      this.window.remove(candidate);
+      if (admit(candidate, maxMainWeight)) {
+        this.probation.add(candidate);
+      } else {
+        this.map.remove(candidate.id);
+        this.evictionCount++;
+      }
+    }
+    while (getWeightLocked() > this.maxWeight) {
+      Node victim = this.invalid.head;
+      if (victim == null) {
+        victim = this.probation.head;
+        if (victim == null) {
+          victim = this.protectedQueue.head;
+          if (victim == null) {
+            victim = this.window.head;
+          }
+        }
+      }
+      evict(victim);
+    }
+  }
+
+  private boolean admit(Node candidate, long maxMainWeight) {
+
+    int candidateFrequency = this.sketch.frequency(candidate.id);
+    while (getMainWeight() + candidate.weight > maxMainWeight) {
+      Node victim = this.invalid.head;
+      if (victim == null) {
+        victim = this.probation.head;
+        if (victim == null) {
+          victim = this.protectedQueue.head;
+          if (victim == null) {
+            return true;
+          }
+        }
+        if (candidateFrequency <= this.sketch.frequency(victim.id)) {
+          return false;
+        }
+      }
+      evict(victim);
+    }
+    return true;
+  }
+
+  private long getMainWeight() {
+
+    return this.invalid.weight + this.probation.weight + this.protectedQueue.weight;
+  }
+
+  private void evict(Node node) {
+
+    node.queue.remove(node);
+    this.map.remove(node.id);
+    this.evictionCount++;
+  }
+
+  /**
+   * @param container the {@link ThankTokenContainer}.
+   * @return the weight of the {@link ThankTokenContainer} that is {@code 1} plus the number of
+   *         {@link ThankToken#getTransactions() transactions}.
+   */
+  public static int getWeight(ThankTokenContainer container) {
+
+    return 1 + container.getToken().getTransactions().size();
+  }
+
+  /**
+   * An entry of the cache that is linked in one of the {@link LruQueue}s.
+   */
+  private static final class Node {
+
+    private final ThankTokenIdType id;
+
+    private volatile ThankTokenContainer container;
+
+    private int weight;
+
+    private LruQueue queue;
+
+    private Node previous;
+
+    private Node next;
+
+    private Node(ThankTokenIdType id, ThankTokenContainer container, int weight) {
+
+      super();
+      this.id = id;
+      this.container = container;
+      this.weight = weight;
+    }
+
+  }
+
+  /**
+   * A doubly linked LRU queue of {@link Node}s with the least recently used {@link Node} as {@link #head}.
+   */
+  private static final class LruQueue {
+
+    private Node head;
+
+    private Node tail;
+
+    private long weight;
+
+    private void add(Node node) {
+
+      node.queue = this;
+      node.previous = this.tail;
+      node.next = null;
+      if (this.tail == null) {
+        this.head = node;
+      } else {
+        this.tail.next = node;
+      }
+      this.tail = node;
+      this.weight = this.weight + node.weight;
+    }
+
+    private void remove(Node node) {
+
+      if (node.previous == null) {
+        this.head = node.next;
+      } else {
+        node.previous.next = node.next;
+      }
+      if (node.next == null) {
+        this.tail = node.previous;
+      } else {
+        node.next.previous = node.previous;
+      }
+      node.previous = null;
+      node.next = null;
+      node.queue = null;
+      this.weight = this.weight - node.weight;
+    }
+
+    private void moveToTail(Node node) {
+
+      if (node != this.tail) {
+        remove(node);
+        add(node);
+      }
+    }
+
+    private void clear() {
+
+      this.head = null;
+      this.tail = null;
+      this.weight = 0;
+    }
+
+  }
+
+  /**
+   * A bounded lossy ring buffer recording the accesses of {@link #get(ThankTokenIdType) lookups} as {@link Node} (hit)
+   * or {@link ThankTokenIdType} (miss). Any thread may {@link #offer(Object) offer} an access without locking. If the
+   * buffer is full or the offer is contended, the access is dropped as it only feeds the heuristics of the policy.
+   * Only the thread holding the lock of the cache may {@link #poll() poll}.
+   */
+  private static final class ReadBuffer {
+
+    private static final int SIZE = 128;
+
+    private static final int MASK = SIZE - 1;
+
+    private static final int DRAIN_THRESHOLD = SIZE / 4;
+
+    private final AtomicReferenceArray<Object> buffer;
+
+    private final AtomicLong writeCount;
+
+    private volatile long readCount;
+
+    private ReadBuffer() {
+
+      super();
+      this.buffer = new AtomicReferenceArray<>(SIZE);
+      this.writeCount = new AtomicLong();
+    }
+
+    private boolean offer(Object access) {
+
+      long write = this.writeCount.get();
+      if ((write - this.readCount) >= SIZE) {
+        return false;
+      }
+      if (this.writeCount.compareAndSet(write, write + 1)) {
+        this.buffer.lazySet((int) (write & MASK), access);
+      }
+      return true;
+    }
+
+    private boolean isDrainRequired() {
+
+      return (this.writeCount.get() - this.readCount) >= DRAIN_THRESHOLD;
+    }
+
+    private Object poll() {
+
+      long read = this.readCount;
+      if (read >= this.writeCount.get()) {
+        return null;
+      }
+      int index = (int) (read & MASK);
+      Object access = this.buffer.get(index);
+      if (access == null) {
+        // slot claimed but not yet published
+        return null;
+      }
+      this.buffer.lazySet(index, null);
+      this.readCount = read + 1;
+      return access;
+    }
+
+  }
+
+  /**
+   * A count-min sketch with 4 rows of saturating counters (maximum 15) to estimate the access frequency of a
+   * {@link ThankTokenIdType}. All counters are halved periodically so the estimation adapts to changing workloads.
+   */
+  private static final class FrequencySketch {
+
+    private static final int DEPTH = 4;
+
+    private static final int MAX_COUNT = 15;
+
+    private static final int[] SEEDS = { 0x97CB3127, 0xB8B5B8F3, 0xC2B2AE35, 0x85EBCA6B };
+
+    private final byte[] table;
+
+    private final int mask;
+
+    private final int sampleSize;
+
+    private int additions;
+
+    private FrequencySketch(long maxWeight) {
+
+      super();
+      int width = Integer.highestOneBit((int) Math.min(Math.max(maxWeight, 16), 1 << 24) - 1) << 1;
+      this.table = new byte[DEPTH * width];
+      this.mask = width - 1;
+      this.sampleSize = 10 * width;
+    }
+
+    private int frequency(ThankTokenIdType id) {
+
+      int hash = spread(id.hashCode());
+      int frequency = MAX_COUNT;
+      for (int row = 0; row < DEPTH; row++) {
+        frequency = Math.min(frequency, this.table[index(hash, row)]);
+      }
+      return frequency;
+    }
+
+    private void increment(ThankTokenIdType id) {
+
+      int hash = spread(id.hashCode());
+      boolean incremented = false;
+      for (int row = 0; row < DEPTH; row++) {
+        int index = index(hash, row);
+        if (this.table[index] < MAX_COUNT) {
+          this.table[index]++;
+          incremented = true;
+        }
+      }
+      if (incremented && (++this.additions >= this.sampleSize)) {
+        reset();
+      }
+    }
+
+    private void reset() {
+
+      for (int i = 0; i < this.table.length; i++) {
+        this.table[i] = (byte) (this.table[i] >>> 1);
+      }
+      this.additions = this.additions / 2;
+    }
+
+    private int index(int hash, int row) {
+
+      int h = hash * SEEDS[row];
+      h = h ^ (h >>> 16);
+      return (row * (this.mask + 1)) + (h & this.mask);
+    }
+
+    private static int spread(int hash) {
+
+      int h = hash * 0x9E3779B9;
+      return h ^ (h >>> 15);
+    }
+
+  }
+
+}
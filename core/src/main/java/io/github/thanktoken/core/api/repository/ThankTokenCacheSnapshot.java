@@ -0,0 +1,291 @@
+package io.github.thanktoken.core.api.repository;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.lang.System.Logger;
+import java.lang.System.Logger.Level;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import io.github.thanktoken.core.api.io.ThankBinaryWriter;
+import io.github.thanktoken.core.api.io.ThankFormatReader;
+import io.github.thanktoken.core.api.io.ThankReader;
+import io.github.thanktoken.core.api.io.ThankTokenStreamReader;
+import io.github.thanktoken.core.api.io.ThankWriter;
+import io.github.thanktoken.core.api.token.ThankToken;
+import io.github.thanktoken.core.api.token.ThankTokenType;
+import io.github.thanktoken.core.api.token.header.ThankTokenHeader;
+import io.github.thanktoken.core.api.transaction.ThankTransaction;
+
+/**
+ * Snapshot of the hot set of a {@link ThankTokenCache} in a compact binary file for a warm restart. The snapshot
+ * contains the serialized {@link ThankToken}s with their {@link ThankTokenContainer#isValid() validity} ordered from
+ * the hottest to the coldest entry. It is {@link #write() written} on {@link #close() shutdown} and optionally
+ * {@link #start(Duration) periodically}. At startup {@link #load()} parses the {@link ThankToken}s in parallel and
+ * {@link ThankTokenCache#restore(List) restores} them before the node takes traffic.<br>
+ * By default the {@link ThankToken}s are serialized in the compact {@link ThankBinaryWriter binary format}. As the
+ * snapshot is read from the local disk and may be truncated or corrupted, all lengths are bounded and a record that
+ * can not be parsed is skipped instead of failing the entire load.
+ *
+ * @since 1.0.0
+ */
+public class ThankTokenCacheSnapshot implements AutoCloseable {
+
+  private static final Logger LOG = System.getLogger(ThankTokenCacheSnapshot.class.getName());
+
+  private static final int MAGIC = 0x54544331; // TTC1
+
+  private static final byte VALIDITY_UNKNOWN = 0;
+
+  private static final byte VALIDITY_VALID = 1;
+
+  private static final byte VALIDITY_INVALID = 2;
+
+  private static final int MAX_TRANSACTION_COUNT = 1_000_000;
+
+  private final ThankTokenCache cache;
+
+  private final Path file;
+
+  private final ThankReader reader;
+
+  private final ThankWriter writer;
+
+  private ScheduledExecutorService scheduler;
+
+  /**
+   * The constructor.
+   *
+   * @param cache the {@link ThankTokenCache} to snapshot.
+   * @param file the {@link Path} to the snapshot file.
+   */
+  public ThankTokenCacheSnapshot(ThankTokenCache cache, Path file) {
+
+    this(cache, file, ThankFormatReader.get(), ThankBinaryWriter.get());
+  }
+
+  /**
+   * The constructor.
+   *
+   * @param cache the {@link ThankTokenCache} to snapshot.
+   * @param file the {@link Path} to the snapshot file.
+   * @param reader the {@link ThankReader} to parse the {@link ThankToken}s.
+   * @param writer the {@link ThankWriter} to serialize the {@link ThankToken}s.
+   */
+  public ThankTokenCacheSnapshot(ThankTokenCache cache, Path file, ThankReader reader, ThankWriter writer) {
+
+    super();
+    Objects.requireNonNull(cache, "cache");
+    Objects.requireNonNull(file, "file");
+    Objects.requireNonNull(reader, "reader");
+    Objects.requireNonNull(writer, "writer");
+    this.cache = cache;
+    this.file = file;
+    this.reader = reader;
+    this.writer = writer;
+  }
+
+  /**
+   * Writes the current {@link ThankTokenCache#getEntries() entries} of the {@link ThankTokenCache} atomically to the
+   * snapshot file.
+   *
+   * @return the number of written entries.
+   */
+  public synchronized int write() {
+
+    List<ThankTokenContainer> entries = this.cache.getEntries();
+    Path tempFile = this.file.resolveSibling(this.file.getFileName() + ".tmp");
+    try {
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+        out.writeInt(MAGIC);
+        out.writeInt(entries.size());
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(512);
+        for (ThankTokenContainer container : entries) {
+          write(container, out, buffer);
+        }
+      }
+      Files.move(tempFile, this.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to write cache snapshot to " + this.file, e);
+    }
+    return entries.size();
+  }
+
+  private void write(ThankTokenContainer container, DataOutputStream out, ByteArrayOutputStream buffer)
+      throws IOException {
+
+    if (container.isValid()) {
+      out.writeByte(VALIDITY_VALID);
+    } else if (container.isInvalid()) {
+      out.writeByte(VALIDITY_INVALID);
+    } else {
+      out.writeByte(VALIDITY_UNKNOWN);
+    }
+    ThankToken token = container.getToken();
+    buffer.reset();
+    this.writer.writeHeader(token.getHeader(), buffer);
+    out.writeInt(buffer.size());
+    buffer.writeTo(out);
+    List<? extends ThankTransaction> transactions = token.getTransactions();
+    out.writeInt(transactions.size());
+    for (ThankTransaction tx : transactions) {
+      buffer.reset();
+      this.writer.writeTransaction(token, tx, buffer);
+      out.writeInt(buffer.size());
+      buffer.writeTo(out);
+    }
+  }
+
+  /**
+   * Loads the snapshot file (if it exists) and {@link ThankTokenCache#restore(List) restores} its entries into the
+   * {@link ThankTokenCache}. The {@link ThankToken}s are parsed in parallel. If the snapshot is truncated or a length
+   * is out of bounds, the records read before are restored. A record that can not be parsed is skipped. So a corrupt
+   * snapshot never prevents the node from starting, in the worst case with a cold cache.
+   *
+   * @return the number of restored entries.
+   */
+  public int load() {
+
+    List<byte[][]> records = new ArrayList<>();
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(this.file)))) {
+      if (in.readInt() != MAGIC) {
+        return 0;
+      }
+      int count = in.readInt();
+      for (int i = 0; i < count; i++) {
+        records.add(readRecord(in));
+      }
+    } catch (NoSuchFileException e) {
+      return 0;
+    } catch (IOException e) {
+      // corrupt or truncated snapshot, restore what has been read
+    }
+    List<ThankTokenContainer> entries = records.parallelStream().map(this::parse).filter(Objects::nonNull)
+        .collect(Collectors.toList());
+    return this.cache.restore(entries);
+  }
+
+  private static byte[][] readRecord(DataInputStream in) throws IOException {
+
+    byte validity = in.readByte();
+    byte[] header = readBytes(in);
+    int txCount = in.readInt();
+    if ((txCount < 0) || (txCount > MAX_TRANSACTION_COUNT)) {
+      throw new IOException("Invalid transaction count " + txCount);
+    }
+    byte[][] record = new byte[txCount + 2][];
+    record[0] = new byte[] { validity };
+    record[1] = header;
+    for (int i = 0; i < txCount; i++) {
+      record[i + 2] = readBytes(in);
+    }
+    return record;
+  }
+
+  private static byte[] readBytes(DataInputStream in) throws IOException {
+
+    int length = in.readInt();
+    if ((length < 0) || (length > ThankTokenStreamReader.MAX_RECORD_LENGTH)) {
+      throw new IOException("Invalid record length " + length);
+    }
+    byte[] data = new byte[length];
+    in.readFully(data);
+    return data;
+  }
+
+  private ThankTokenContainer parse(byte[][] record) {
+
+    ThankTokenType token;
+    try {
+      ThankTokenHeader header = this.reader.readHeader(ByteBuffer.wrap(record[1]));
+      token = new ThankTokenType(header);
+      for (int i = 2; i < record.length; i++) {
+        token.addTransaction(this.reader.readTransaction(header, ByteBuffer.wrap(record[i])));
+      }
+      // fails for an incomplete header that could not be restored
+      token.requireHeader().getId();
+    } catch (RuntimeException e) {
+      // corrupt record, skip it as the token is simply loaded again on demand
+      return null;
+    }
+    ThankTokenContainer container = new ThankTokenContainer(token);
+    byte validity = record[0][0];
+    if (validity == VALIDITY_VALID) {
+      container.setValid(true);
+    } else if (validity == VALIDITY_INVALID) {
+      container.setValid(false);
+    }
+    return container;
+  }
+
+  /**
+   * Starts to {@link #write() write} the snapshot periodically in a background thread. A failed snapshot is logged
+   * and retried with the next period.
+   *
+   * @param interval the {@link Duration} between two snapshots.
+   */
+  public synchronized void start(Duration interval) {
+
+    if (this.scheduler != null) {
+      throw new IllegalStateException("Already started");
+    }
+    this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "ThankToken-CacheSnapshot");
+      thread.setDaemon(true);
+      return thread;
+    });
+    long millis = interval.toMillis();
+    this.scheduler.scheduleWithFixedDelay(this::writePeriodic, millis, millis, TimeUnit.MILLISECONDS);
+  }
+
+  /**
+   * {@link #write() Writes} the snapshot and logs a failure instead of propagating it as otherwise the
+   * {@link ScheduledExecutorService} would suppress all subsequent snapshots.
+   */
+  private void writePeriodic() {
+
+    try {
+      write();
+    } catch (RuntimeException e) {
+      LOG.log(Level.WARNING, "Failed to write periodic cache snapshot to " + this.file, e);
+    }
+  }
+
+  /**
+   * Stops the {@link #start(Duration) periodic snapshots} and {@link #write() writes} a final snapshot.
+   */
+  @Override
+  public void close() {
+
+    ScheduledExecutorService currentScheduler;
+    synchronized (this) {
+      currentScheduler = this.scheduler;
+      this.scheduler = null;
+    }
+    if (currentScheduler != null) {
+      currentScheduler.shutdown();
+      try {
+        currentScheduler.awaitTermination(1, TimeUnit.MINUTES);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    write();
+  }
+
+}
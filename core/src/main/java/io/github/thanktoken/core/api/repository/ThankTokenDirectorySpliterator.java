@@ -0,0 +1,177 @@
+package io.github.thanktoken.core.api.repository;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import io.github.thanktoken.core.api.id.ThankTokenIdType;
+import io.github.thanktoken.core.api.token.ThankToken;
+
+/**
+ * {@link Spliterator} of the {@link ThankTokenHandle}s for the {@link ThankToken} folders of
+ * {@link ThankTokenRepositoryLocalDiskImpl}. Walks the directory tree lazily (depth first) and prunes directories via
+ * {@link ThankTokenRepositoryLayout#mayContain(List, ThankTokenScanFilter)}. Splitting hands over half of the pending
+ * directories so sub-trees are walked in parallel.
+ */
+class ThankTokenDirectorySpliterator implements Spliterator<ThankTokenHandle> {
+
+  private static final int MAX_SPLIT_EXPANSIONS = 8;
+
+  private final ThankTokenRepositoryLayout layout;
+
+  private final ThankTokenScanFilter filter;
+
+  private final Function<Path, ThankTokenIdType> headerReader;
+
+  private final Function<ThankTokenIdType, ThankToken> loader;
+
+  /** The pending directories. Walked from the end (depth first) and split from the start. */
+  private final Deque<Node> pending;
+
+  private final Deque<ThankTokenHandle> ready;
+
+  /**
+   * The constructor.
+   *
+   * @param repositoryPath the {@link Path} to the root directory of the repository.
+   * @param layout the {@link ThankTokenRepositoryLayout}.
+   * @param filter the {@link ThankTokenScanFilter}.
+   * @param headerReader the {@link Function} to read the {@link ThankTokenIdType} from a header file.
+   * @param loader the {@link Function} to load a {@link ThankToken}.
+   */
+  ThankTokenDirectorySpliterator(Path repositoryPath, ThankTokenRepositoryLayout layout, ThankTokenScanFilter filter,
+      Function<Path, ThankTokenIdType> headerReader, Function<ThankTokenIdType, ThankToken> loader) {
+
+    this(layout, filter, headerReader, loader, new ArrayDeque<>());
+    this.pending.add(new Node(repositoryPath, Collections.emptyList()));
+  }
+
+  private ThankTokenDirectorySpliterator(ThankTokenRepositoryLayout layout, ThankTokenScanFilter filter,
+      Function<Path, ThankTokenIdType> headerReader, Function<ThankTokenIdType, ThankToken> loader,
+      Deque<Node> pending) {
+
+    super();
+    this.layout = layout;
+    this.filter = filter;
+    this.headerReader = headerReader;
+    this.loader = loader;
+    this.pending = pending;
+    this.ready = new ArrayDeque<>();
+  }
+
+  @Override
+  public boolean tryAdvance(Consumer<? super ThankTokenHandle> action) {
+
+    while (this.ready.isEmpty()) {
+      Node node = this.pending.pollLast();
+      if (node == null) {
+        return false;
+      }
+      expand(node);
+    }
+    action.accept(this.ready.pollFirst());
+    return true;
+  }
+
+  private void expand(Node node) {
+
+    ThankTokenIdType id = this.layout.getId(node.relativePath);
+    if (id != null) {
+      // ID derived from the path without reading any file but an empty or half-created folder is no token
+      if (this.filter.matches(id)
+          && Files.isRegularFile(node.path.resolve(ThankTokenRepositoryLocalDiskImpl.FILENAME_HEADER))) {
+        this.ready.add(new ThankTokenHandle(id, this.loader));
+      }
+      return;
+    }
+    List<Node> children = new ArrayList<>();
+    boolean tokenFolder = false;
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(node.path)) {
+      for (Path child : stream) {
+        String name = child.getFileName().toString();
+        if (ThankTokenRepositoryLocalDiskImpl.FILENAME_HEADER.equals(name)) {
+          tokenFolder = true;
+        } else if (!isTokenFile(name) && Files.isDirectory(child)) {
+          List<String> childPath = new ArrayList<>(node.relativePath.size() + 1);
+          childPath.addAll(node.relativePath);
+          childPath.add(name);
+          if (this.layout.mayContain(childPath, this.filter)) {
+            children.add(new Node(child, childPath));
+          }
+        }
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to scan directory " + node.path, e);
+    }
+    if (tokenFolder) {
+      id = this.headerReader.apply(node.path.resolve(ThankTokenRepositoryLocalDiskImpl.FILENAME_HEADER));
+      if (this.filter.matches(id)) {
+        this.ready.add(new ThankTokenHandle(id, this.loader));
+      }
+    }
+    // reverse order so the walk from the end visits the children in directory order
+    for (int i = children.size() - 1; i >= 0; i--) {
+      this.pending.addLast(children.get(i));
+    }
+  }
+
+  private static boolean isTokenFile(String name) {
+
+    return name.endsWith(".json") || name.endsWith(".bin") || name.endsWith(".tmp") || name.endsWith(".log");
+  }
+
+  @Override
+  public Spliterator<ThankTokenHandle> trySplit() {
+
+    int expansions = 0;
+    while ((this.pending.size() == 1) && (expansions < MAX_SPLIT_EXPANSIONS)) {
+      // expand a single directory (e.g. the root or the algorithm) so there is something to split
+      expand(this.pending.pollLast());
+      expansions++;
+    }
+    int size = this.pending.size();
+    if (size < 2) {
+      return null;
+    }
+    Deque<Node> prefix = new ArrayDeque<>(size / 2);
+    for (int i = size / 2; i > 0; i--) {
+      prefix.addLast(this.pending.pollFirst());
+    }
+    return new ThankTokenDirectorySpliterator(this.layout, this.filter, this.headerReader, this.loader, prefix);
+  }
+
+  @Override
+  public long estimateSize() {
+
+    return Long.MAX_VALUE;
+  }
+
+  @Override
+  public int characteristics() {
+
+    return DISTINCT | NONNULL;
+  }
+
+  private static final class Node {
+
+    private final Path path;
+
+    private final List<String> relativePath;
+
+    private Node(Path path, List<String> relativePath) {
+
+      this.path = path;
+      this.relativePath = relativePath;
+    }
+  }
+
+}
@@ -0,0 +1,64 @@
+package io.github.thanktoken.core.api.repository;
+
+import java.util.Objects;
+import java.util.function.Function;
+
+import io.github.thanktoken.core.api.id.ThankTokenIdType;
+import io.github.thanktoken.core.api.token.ThankToken;
+
+/**
+ * Handle to a {@link ThankToken} found by a {@link ThankTokenRepositoryLocalDisk#scan(ThankTokenScanFilter) scan}.
+ * It only knows the {@link #getId() ID} and materializes the {@link ThankToken} lazily when {@link #getToken()} is
+ * called for the first time.
+ *
+ * @since 1.0.0
+ */
+public final class ThankTokenHandle {
+
+  private final ThankTokenIdType id;
+
+  private final Function<ThankTokenIdType, ThankToken> loader;
+
+  private ThankToken token;
+
+  /**
+   * The constructor.
+   *
+   * @param id the {@link #getId() ID}.
+   * @param loader the {@link Function} to load the {@link ThankToken} for the {@link #getId() ID}.
+   */
+  public ThankTokenHandle(ThankTokenIdType id, Function<ThankTokenIdType, ThankToken> loader) {
+
+    super();
+    Objects.requireNonNull(id, "id");
+    Objects.requireNonNull(loader, "loader");
+    this.id = id;
+    this.loader = loader;
+  }
+
+  /**
+   * @return the {@link ThankTokenIdType} of the {@link ThankToken}.
+   */
+  public ThankTokenIdType getId() {
+
+    return this.id;
+  }
+
+  /**
+   * @return the {@link ThankToken} loaded on the first call. May be {@code null} if it has been removed concurrently.
+   */
+  public ThankToken getToken() {
+
+    if (this.token == null) {
+      this.token = this.loader.apply(this.id);
+    }
+    return this.token;
+  }
+
+  @Override
+  public String toString() {
+
+    return this.id.toString();
+  }
+
+}
@@ -0,0 +1,45 @@
+package io.github.thanktoken.core.api.repository;
+
+import io.github.thanktoken.core.api.token.ThankToken;
+
+/**
+ * A secondary index of the {@link ThankToken}s stored in a {@link ThankTokenRepositoryLocalDisk}. It is
+ * {@link #update(ThankToken) updated} incrementally by {@link ThankTokenRepositoryLocalDiskIndexedImpl} whenever a
+ * {@link ThankToken} is {@link ThankTokenRepositoryLocalDisk#save(ThankToken) saved} or
+ * {@link ThankTokenRepositoryLocalDisk#appendTransactions(ThankToken, int) extended}.
+ *
+ * @since 1.0.0
+ */
+public interface ThankTokenIndex extends AutoCloseable {
+
+  /**
+   * @param token the {@link ThankToken} that has been saved or extended with new
+   *        {@link ThankToken#getTransactions() transactions}.
+   */
+  void update(ThankToken token);
+
+  /**
+   * @return {@code true} if this index has to be rebuilt from all stored {@link ThankToken}s (e.g. because it has
+   *         been newly created or was not {@link #close() closed} properly), {@code false} otherwise.
+   */
+  boolean isRebuildRequired();
+
+  /**
+   * Discards all entries before this index is rebuilt via {@link #update(ThankToken)}.
+   */
+  void clear();
+
+  /**
+   * Writes pending changes of this index to the disk. The default implementation does nothing.
+   */
+  default void flush() {
+
+  }
+
+  /**
+   * Persists and closes this index.
+   */
+  @Override
+  void close();
+
+}
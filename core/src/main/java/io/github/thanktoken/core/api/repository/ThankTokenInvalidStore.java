@@ -0,0 +1,335 @@
+package io.github.thanktoken.core.api.repository;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import io.github.thanktoken.core.api.attribute.AttributeReadSignature;
+import io.github.thanktoken.core.api.id.ThankTokenIdKey;
+import io.github.thanktoken.core.api.id.ThankTokenIdType;
+import io.github.mmm.crypto.asymmetric.sign.SignatureBinary;
+import io.github.thanktoken.core.api.token.ThankToken;
+import io.github.thanktoken.core.api.transaction.ThankTransaction;
+import io.github.thanktoken.core.api.validate.ThankValidator;
+
+/**
+ * Persistent and bounded store of {@link ThankToken}s that failed the {@link ThankValidator#validate(ThankToken)
+ * validation} together with the {@link #getReason(ThankToken) reason}. As only valid {@link ThankToken}s are stored in
+ * the {@link ThankTokenRepositoryLocalDisk 2nd level cache}, this store prevents that an invalid {@link ThankToken} is
+ * validated again after a restart or an eviction from the {@link ThankTokenCache 1st level cache}. A verdict is keyed
+ * by the {@link ThankTokenIdType} together with a fingerprint of the {@link AttributeReadSignature#getSignature()
+ * signatures} of the {@link ThankToken} so a forged copy never blacklists the genuine {@link ThankToken} with the same
+ * {@link ThankTokenIdType} and a {@link ThankToken} with a new {@link ThankTransaction} is validated again. Only
+ * definitive verdicts (e.g. an invalid signature) shall be added as a verdict is final so entries never expire but the
+ * number of entries is limited by the {@link #getCapacity() capacity} evicting the oldest verdicts first.<br>
+ * Each verdict is appended and flushed to a file that is compacted when the store is opened or contains too many
+ * evicted verdicts.
+ *
+ * @since 1.0.0
+ */
+public class ThankTokenInvalidStore implements AutoCloseable {
+
+  /** The default {@link #getCapacity() capacity}. */
+  public static final int DEFAULT_CAPACITY = 100_000;
+
+  /** The maximum length of a stored {@link #getReason(ThankTokenIdType) reason}. */
+  public static final int MAX_REASON_LENGTH = 1000;
+
+  private static final int MAGIC = 0x54544932; // TTI2
+
+  private static final int FINGERPRINT_LENGTH = 32;
+
+  private final Path file;
+
+  private final int capacity;
+
+  private final Map<Verdict, String> verdict2reasonMap;
+
+  private DataOutputStream out;
+
+  private int logCount;
+
+  /**
+   * The constructor.
+   *
+   * @param file the {@link Path} to the file where to persist the verdicts.
+   */
+  public ThankTokenInvalidStore(Path file) {
+
+    this(file, DEFAULT_CAPACITY);
+  }
+
+  /**
+   * The constructor.
+   *
+   * @param file the {@link Path} to the file where to persist the verdicts.
+   * @param capacity the {@link #getCapacity() capacity}.
+   */
+  public ThankTokenInvalidStore(Path file, int capacity) {
+
+    super();
+    Objects.requireNonNull(file, "file");
+    if (capacity <= 0) {
+      throw new IllegalArgumentException(Integer.toString(capacity));
+    }
+    this.file = file;
+    this.capacity = capacity;
+    this.verdict2reasonMap = new LinkedHashMap<>();
+    open();
+  }
+
+  private void open() {
+
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(this.file)))) {
+      if (in.readInt() == MAGIC) {
+        while (true) {
+          int keyLength = in.readUnsignedShort();
+          if (keyLength < ThankTokenIdKey.COMPACT_LENGTH) {
+            break; // corrupt record
+          }
+          byte[] key = new byte[keyLength];
+          in.readFully(key);
+          if (in.readUnsignedByte() != FINGERPRINT_LENGTH) {
+            break; // corrupt record
+          }
+          byte[] fingerprint = new byte[FINGERPRINT_LENGTH];
+          in.readFully(fingerprint);
+          put(new Verdict(ThankTokenIdKey.of(key), fingerprint), in.readUTF());
+        }
+      }
+    } catch (NoSuchFileException | EOFException e) {
+      // new store or end of log (possibly truncated by a crash)
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to read invalid tokens from " + this.file, e);
+    }
+    // drop a truncated or corrupt record and all following so the log can be appended
+    compact();
+  }
+
+  private void compact() {
+
+    Path tempFile = this.file.resolveSibling(this.file.getFileName() + ".tmp");
+    try {
+      try (DataOutputStream tempOut = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+        tempOut.writeInt(MAGIC);
+        for (Map.Entry<Verdict, String> entry : this.verdict2reasonMap.entrySet()) {
+          write(tempOut, entry.getKey(), entry.getValue());
+        }
+      }
+      Files.move(tempFile, this.file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      OutputStream fileOut = Files.newOutputStream(this.file, StandardOpenOption.APPEND);
+      this.out = new DataOutputStream(new BufferedOutputStream(fileOut));
+      this.logCount = this.verdict2reasonMap.size();
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to write invalid tokens to " + this.file, e);
+    }
+  }
+
+  private static void write(DataOutputStream dataOut, Verdict verdict, String reason) throws IOException {
+
+    byte[] keyBytes = verdict.key.toBytes();
+    dataOut.writeShort(keyBytes.length);
+    dataOut.write(keyBytes);
+    dataOut.writeByte(verdict.fingerprint.length);
+    dataOut.write(verdict.fingerprint);
+    dataOut.writeUTF(reason);
+  }
+
+  private void put(Verdict verdict, String reason) {
+
+    this.verdict2reasonMap.put(verdict, reason);
+    Iterator<Verdict> iterator = this.verdict2reasonMap.keySet().iterator();
+    while (this.verdict2reasonMap.size() > this.capacity) {
+      iterator.next();
+      iterator.remove();
+    }
+  }
+
+  /**
+   * @return the maximum number of verdicts in this store.
+   */
+  public int getCapacity() {
+
+    return this.capacity;
+  }
+
+  /**
+   * @return the number of verdicts in this store.
+   */
+  public synchronized int getSize() {
+
+    return this.verdict2reasonMap.size();
+  }
+
+  /**
+   * @param token the {@link ThankToken} to check.
+   * @return {@code true} if the given {@link ThankToken} is known to be invalid, {@code false} otherwise (also if
+   *         only a different copy with the same {@link ThankTokenIdType} is known to be invalid).
+   */
+  public boolean isInvalid(ThankToken token) {
+
+    return getReason(token) != null;
+  }
+
+  /**
+   * @param token the {@link ThankToken}.
+   * @return the reason why the given {@link ThankToken} is invalid or {@code null} if not known to be invalid.
+   */
+  public String getReason(ThankToken token) {
+
+    Verdict verdict = Verdict.of(token);
+    synchronized (this) {
+      return this.verdict2reasonMap.get(verdict);
+    }
+  }
+
+  /**
+   * @param token the {@link ThankToken} that failed the validation.
+   * @param reason the reason of the failure (e.g. the
+   *        {@link io.github.thanktoken.core.api.validate.ThankValidationResult validation result}). Will be truncated
+   *        to {@link #MAX_REASON_LENGTH}.
+   */
+  public void add(ThankToken token, String reason) {
+
+    Objects.requireNonNull(token, "token");
+    String truncatedReason = (reason == null) ? "" : reason;
+    if (truncatedReason.length() > MAX_REASON_LENGTH) {
+      truncatedReason = truncatedReason.substring(0, MAX_REASON_LENGTH);
+    }
+    Verdict verdict = Verdict.of(token);
+    synchronized (this) {
+      add(verdict, truncatedReason);
+    }
+  }
+
+  private void add(Verdict verdict, String truncatedReason) {
+
+    if (this.verdict2reasonMap.containsKey(verdict)) {
+      return;
+    }
+    put(verdict, truncatedReason);
+    try {
+      if (this.logCount >= 2 * this.capacity) {
+        // the log contains too many evicted verdicts
+        this.out.close();
+        compact();
+      } else {
+        write(this.out, verdict, truncatedReason);
+        // flush each verdict so it survives a crash and is visible to a store opened on the same file
+        this.out.flush();
+        this.logCount++;
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to write invalid token to " + this.file, e);
+    }
+  }
+
+  /**
+   * Writes all {@link #add(ThankToken, String) added} verdicts to the file.
+   */
+  public synchronized void flush() {
+
+    try {
+      this.out.flush();
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to flush invalid tokens to " + this.file, e);
+    }
+  }
+
+  @Override
+  public synchronized void close() {
+
+    try {
+      this.out.close();
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to close invalid tokens " + this.file, e);
+    }
+  }
+
+  /**
+   * The key of a verdict: the {@link ThankTokenIdKey} together with the fingerprint of the content.
+   */
+  private static final class Verdict {
+
+    private final ThankTokenIdKey key;
+
+    private final byte[] fingerprint;
+
+    private Verdict(ThankTokenIdKey key, byte[] fingerprint) {
+
+      super();
+      this.key = key;
+      this.fingerprint = fingerprint;
+    }
+
+    @Override
+    public int hashCode() {
+
+      return this.key.hashCode() ^ Arrays.hashCode(this.fingerprint);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+
+      if (obj == this) {
+        return true;
+      } else if (!(obj instanceof Verdict)) {
+        return false;
+      }
+      Verdict other = (Verdict) obj;
+      return this.key.equals(other.key) && Arrays.equals(this.fingerprint, other.fingerprint);
+    }
+
+    /**
+     * @param token the {@link ThankToken}.
+     * @return the {@link Verdict} with the SHA-256 fingerprint of the {@link AttributeReadSignature#getSignature()
+     *         signatures} of the header and all {@link ThankTransaction}s.
+     */
+    private static Verdict of(ThankToken token) {
+
+      MessageDigest digest;
+      try {
+        digest = MessageDigest.getInstance("SHA-256");
+      } catch (NoSuchAlgorithmException e) {
+        throw new IllegalStateException(e);
+      }
+      update(digest, token.requireHeader().getSignature());
+      for (ThankTransaction tx : token.getTransactions()) {
+        update(digest, tx.getSignature());
+      }
+      return new Verdict(token.requireHeader().getId().getKey(), digest.digest());
+    }
+
+    private static void update(MessageDigest digest, SignatureBinary signature) {
+
+      if (signature == null) {
+        digest.update((byte) 0);
+      } else {
+        byte[] data = signature.getData();
+        // length prefix so the signatures can not be shifted between header and transactions
+        digest.update((byte) 1);
+        digest.update(ByteBuffer.allocate(4).putInt(data.length).array());
+        digest.update(data);
+      }
+    }
+
+  }
+
+}
@@ -0,0 +1,215 @@
+package io.github.thanktoken.core.api.repository;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import io.github.thanktoken.core.api.currency.ThankCurrency;
+import io.github.thanktoken.core.api.id.ThankTokenIdKey;
+import io.github.thanktoken.core.api.id.ThankTokenIdType;
+import io.github.thanktoken.core.api.location.ThankLocation;
+import io.github.thanktoken.core.api.location.ThankLocationOlc;
+import io.github.thanktoken.core.api.token.ThankToken;
+import io.github.thanktoken.core.api.token.header.ThankTokenHeader;
+import io.github.thanktoken.core.api.value.ThankValue;
+
+/**
+ * {@link ThankTokenIndex} with {@link Rollup rollups} of the {@link ThankToken}s per {@link ThankCurrency} and
+ * {@link ThankLocationOlc#getSector() sector}, {@link ThankLocationOlc#getArea() area} and
+ * {@link ThankLocationOlc#getRegion() region} of their {@link ThankTokenIdType#getLocation() location}. Each
+ * {@link Rollup} holds the number of {@link ThankToken}s and the sum of their {@link ThankTokenHeader#getAmount()
+ * amounts} and is read in constant time. {@link ThankToken}s with a {@link ThankLocation} that is not a
+ * {@link ThankLocationOlc} are not counted.
+ *
+ * @since 1.0.0
+ */
+public class ThankTokenLocationIndex extends AbstractThankTokenIndex {
+
+  private static final int MAGIC = 0x54544C31; // TTL1
+
+  private static final int[] SEGMENT_INDEXES = { ThankLocationOlc.SEGMENT_INDEX_SECTOR,
+      ThankLocationOlc.SEGMENT_INDEX_AREA, ThankLocationOlc.SEGMENT_INDEX_REGION };
+
+  private final Map<ThankTokenIdKey, Long> amountByToken;
+
+  private final Map<String, Rollup> rollups;
+
+  /**
+   * The constructor.
+   *
+   * @param file the {@link Path} to the file where to persist the index.
+   */
+  public ThankTokenLocationIndex(Path file) {
+
+    super(file, MAGIC);
+    this.amountByToken = new ConcurrentHashMap<>();
+    this.rollups = new ConcurrentHashMap<>();
+    open();
+  }
+
+  /**
+   * @param currency the {@link ThankCurrency}.
+   * @param locationPrefix the {@link ThankLocationOlc#getPrefix(int) prefix} of the {@link ThankLocationOlc} for the
+   *        {@link ThankLocationOlc#getSector() sector} (2 characters), {@link ThankLocationOlc#getArea() area} (4
+   *        characters) or {@link ThankLocationOlc#getRegion() region} (6 characters).
+   * @return the {@link Rollup} or {@code null} if no {@link ThankToken} has been indexed for the given criteria.
+   */
+  public Rollup getRollup(ThankCurrency currency, String locationPrefix) {
+
+    Objects.requireNonNull(currency, "currency");
+    Objects.requireNonNull(locationPrefix, "locationPrefix");
+    return this.rollups.get(getRollupKey(currency, locationPrefix));
+  }
+
+  /**
+   * @param currency the {@link ThankCurrency}.
+   * @param location the {@link ThankLocationOlc}.
+   * @param segmentIndex the {@link ThankLocationOlc#SEGMENT_INDEX_SECTOR sector},
+   *        {@link ThankLocationOlc#SEGMENT_INDEX_AREA area} or {@link ThankLocationOlc#SEGMENT_INDEX_REGION region}
+   *        index.
+   * @return the {@link Rollup} or {@code null} if no {@link ThankToken} has been indexed for the given criteria.
+   */
+  public Rollup getRollup(ThankCurrency currency, ThankLocationOlc location, int segmentIndex) {
+
+    return getRollup(currency, location.getPrefix(segmentIndex));
+  }
+
+  private static String getRollupKey(ThankCurrency currency, String locationPrefix) {
+
+    return currency.getValue() + '/' + locationPrefix;
+  }
+
+  @Override
+  public void update(ThankToken token) {
+
+    ThankTokenHeader header = token.requireHeader();
+    if (!(header.getLocation() instanceof ThankLocationOlc) || (header.getAmount() == null)) {
+      return;
+    }
+    ThankTokenIdKey key = header.getId().getKey();
+    long amount = header.getAmount().getUnscaledValue();
+    synchronized (this) {
+      if (!this.amountByToken.containsKey(key)) {
+        add(header.getCurrency(), (ThankLocationOlc) header.getLocation(), amount);
+        this.amountByToken.put(key, Long.valueOf(amount));
+        log(toRecord(key, amount));
+      }
+    }
+  }
+
+  /**
+   * Adds the given {@code amount} to the {@link Rollup}s starting with the widest {@link ThankLocationOlc#getSector()
+   * sector} that has the largest {@link Rollup#getTotal() total}. Therefore an overflow is detected before any
+   * {@link Rollup} has been modified.
+   */
+  private void add(ThankCurrency currency, ThankLocationOlc location, long amount) {
+
+    for (int segmentIndex : SEGMENT_INDEXES) {
+      String rollupKey = getRollupKey(currency, location.getPrefix(segmentIndex));
+      try {
+        this.rollups.computeIfAbsent(rollupKey, k -> new Rollup()).add(amount);
+      } catch (ArithmeticException e) {
+        throw new IllegalArgumentException("Overflow whilst adding " + ThankValue.ofUnscaled(amount)
+            + " to rollup " + rollupKey, e);
+      }
+    }
+  }
+
+  private static byte[] toRecord(ThankTokenIdKey key, long amount) {
+
+    byte[] keyBytes = key.toBytes();
+    ByteBuffer record = ByteBuffer.allocate(10 + keyBytes.length);
+    record.putShort((short) keyBytes.length);
+    record.put(keyBytes);
+    record.putLong(amount);
+    return record.array();
+  }
+
+  @Override
+  protected void replay(ByteBuffer record) {
+
+    ThankTokenIdKey key = ThankTokenIdKey.read(record, record.getShort() & 0xFFFF);
+    long amount = record.getLong();
+    if (!this.amountByToken.containsKey(key)) {
+      ThankTokenIdType id = key.toId();
+      add(id.getCurrency(), (ThankLocationOlc) id.getLocation(), amount);
+      this.amountByToken.put(key, Long.valueOf(amount));
+    }
+  }
+
+  @Override
+  protected void forEachRecord(Consumer<byte[]> consumer) {
+
+    for (Map.Entry<ThankTokenIdKey, Long> entry : this.amountByToken.entrySet()) {
+      consumer.accept(toRecord(entry.getKey(), entry.getValue().longValue()));
+    }
+  }
+
+  @Override
+  protected long getRecordCount() {
+
+    return this.amountByToken.size();
+  }
+
+  @Override
+  public synchronized void clear() {
+
+    super.clear();
+    this.amountByToken.clear();
+    this.rollups.clear();
+  }
+
+  /**
+   * The aggregated {@link #getCount() count} and {@link #getTotal() total value} of the {@link ThankToken}s of a
+   * {@link ThankCurrency} within a {@link ThankLocationOlc#getSector() sector}, {@link ThankLocationOlc#getArea() area}
+   * or {@link ThankLocationOlc#getRegion() region}.
+   */
+  public static final class Rollup {
+
+    private final AtomicLong count;
+
+    private final AtomicLong total;
+
+    private Rollup() {
+
+      super();
+      this.count = new AtomicLong();
+      this.total = new AtomicLong();
+    }
+
+    private void add(long amount) {
+
+      this.total.accumulateAndGet(amount, Math::addExact);
+      this.count.incrementAndGet();
+    }
+
+    /**
+     * @return the number of {@link ThankToken}s.
+     */
+    public long getCount() {
+
+      return this.count.get();
+    }
+
+    /**
+     * @return the sum of the {@link ThankTokenHeader#getAmount() amounts} of the {@link ThankToken}s as created
+     *         (without demurrage).
+     */
+    public ThankValue getTotal() {
+
+      return ThankValue.ofUnscaled(this.total.get());
+    }
+
+    @Override
+    public String toString() {
+
+      return this.count + ":" + getTotal();
+    }
+
+  }
+
+}
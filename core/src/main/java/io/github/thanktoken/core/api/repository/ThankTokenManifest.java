@@ -0,0 +1,206 @@
+package io.github.thanktoken.core.api.repository;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import io.github.mmm.crypto.hash.Hash;
+import io.github.thanktoken.core.api.token.ThankToken;
+import io.github.thanktoken.core.api.transaction.ThankTransaction;
+
+/**
+ * The manifest of a {@link ThankToken} stored by {@link ThankTokenRepositoryLocalDiskImpl}. It records the number of
+ * stored {@link ThankTransaction}s, the size of each file and the cached {@link Hash#getData() hash to chain} values
+ * so loading a {@link ThankToken} does not have to probe for files and can read each file with a single sized read.
+ */
+final class ThankTokenManifest {
+
+  /** The filename of the manifest in the folder of a {@link ThankToken}. */
+  static final String FILENAME_MANIFEST = "m.bin";
+
+  private static final int MAGIC = 0x544B4D31; // TKM1
+
+  private static final byte[] NO_HASH = new byte[0];
+
+  private final int[] sizes;
+
+  private final byte[][] hashes;
+
+  /**
+   * The constructor.
+   *
+   * @param sizes the sizes of the header file followed by the sizes of the transaction files.
+   * @param hashes the raw {@link Hash#getData() hash to chain} values in the same order as {@code sizes}.
+   */
+  ThankTokenManifest(int[] sizes, byte[][] hashes) {
+
+    super();
+    this.sizes = sizes;
+    this.hashes = hashes;
+  }
+
+  /**
+   * @return the number of stored {@link ThankTransaction}s.
+   */
+  int getTxCount() {
+
+    return this.sizes.length - 1;
+  }
+
+  /**
+   * @return the size of the header file in bytes.
+   */
+  int getHeaderSize() {
+
+    return this.sizes[0];
+  }
+
+  /**
+   * @return the cached hash to chain of the header or {@code null} if not available.
+   */
+  Hash getHeaderHash() {
+
+    return getHash(0);
+  }
+
+  /**
+   * @param txIndex the index of the {@link ThankTransaction}.
+   * @return the size of the according transaction file in bytes.
+   */
+  int getTxSize(int txIndex) {
+
+    return this.sizes[txIndex + 1];
+  }
+
+  /**
+   * @param txIndex the index of the {@link ThankTransaction}.
+   * @return the cached hash to chain of the according {@link ThankTransaction} or {@code null} if not available.
+   */
+  Hash getTxHash(int txIndex) {
+
+    return getHash(txIndex + 1);
+  }
+
+  private Hash getHash(int index) {
+
+    byte[] hash = this.hashes[index];
+    if (hash.length == 0) {
+      return null;
+    }
+    return new Hash(hash);
+  }
+
+  /**
+   * @param txCount the new number of stored {@link ThankTransaction}s.
+   * @return a copy of this manifest extended to the given {@code txCount}. Call {@link #set(int, int, Hash)} for the
+   *         new entries.
+   */
+  ThankTokenManifest extend(int txCount) {
+
+    int length = txCount + 1;
+    int oldLength = this.sizes.length;
+    byte[][] newHashes = Arrays.copyOf(this.hashes, length);
+    for (int i = oldLength; i < length; i++) {
+      newHashes[i] = NO_HASH;
+    }
+    return new ThankTokenManifest(Arrays.copyOf(this.sizes, length), newHashes);
+  }
+
+  /**
+   * @param index the index of the file ({@code 0} for the header and {@code txIndex + 1} for a transaction).
+   * @param size the size of the file in bytes.
+   * @param hash the hash to chain or {@code null} if not (yet) calculated.
+   */
+  void set(int index, int size, Hash hash) {
+
+    this.sizes[index] = size;
+    if (hash == null) {
+      this.hashes[index] = NO_HASH;
+    } else {
+      this.hashes[index] = hash.getData();
+    }
+  }
+
+  /**
+   * @param txCount the number of {@link ThankTransaction}s.
+   * @return a new empty manifest. Call {@link #set(int, int, Hash)} for all entries.
+   */
+  static ThankTokenManifest of(int txCount) {
+
+    int length = txCount + 1;
+    byte[][] hashes = new byte[length][];
+    Arrays.fill(hashes, NO_HASH);
+    return new ThankTokenManifest(new int[length], hashes);
+  }
+
+  /**
+   * @return the binary representation of this manifest.
+   */
+  byte[] toBytes() {
+
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream(16 + this.sizes.length * 40);
+    try (DataOutputStream out = new DataOutputStream(buffer)) {
+      out.writeInt(MAGIC);
+      out.writeInt(this.sizes.length);
+      for (int i = 0; i < this.sizes.length; i++) {
+        out.writeInt(this.sizes[i]);
+        byte[] hash = this.hashes[i];
+        out.writeByte(hash.length);
+        out.write(hash);
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+    return buffer.toByteArray();
+  }
+
+  /**
+   * @param folder the {@link Path} to the folder of the {@link ThankToken}.
+   * @return the {@link ThankTokenManifest} or {@code null} if the manifest does not exist (e.g. {@link ThankToken}
+   *         stored by an older version).
+   */
+  static ThankTokenManifest read(Path folder) {
+
+    Path file = folder.resolve(FILENAME_MANIFEST);
+    if (!Files.isRegularFile(file)) {
+      // cheap check for the common miss instead of throwing and catching an exception
+      return null;
+    }
+    ByteBuffer buffer;
+    try {
+      buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+    } catch (NoSuchFileException e) {
+      return null;
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to read manifest " + file, e);
+    }
+    try {
+      if (buffer.getInt() != MAGIC) {
+        throw new IllegalStateException("Corrupt manifest " + file);
+      }
+      int length = buffer.getInt();
+      // each entry needs at least its size and the length of its hash
+      if ((length < 1) || (length > buffer.remaining() / 5)) {
+        throw new IllegalStateException("Corrupt manifest " + file + " with length " + length);
+      }
+      int[] sizes = new int[length];
+      byte[][] hashes = new byte[length][];
+      for (int i = 0; i < length; i++) {
+        sizes[i] = buffer.getInt();
+        byte[] hash = new byte[buffer.get() & 0xFF];
+        buffer.get(hash);
+        hashes[i] = hash;
+      }
+      return new ThankTokenManifest(sizes, hashes);
+    } catch (BufferUnderflowException e) {
+      throw new IllegalStateException("Truncated manifest " + file, e);
+    }
+  }
+
+}
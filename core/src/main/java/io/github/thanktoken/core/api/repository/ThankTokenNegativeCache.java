@@ -0,0 +1,149 @@
+package io.github.thanktoken.core.api.repository;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import io.github.thanktoken.core.api.id.ThankTokenIdType;
+
+/**
+ * Time-bounded cache of {@link ThankTokenIdType}s that have recently been confirmed to be absent (e.g. the
+ * {@link ThankTokenRepositoryRemoteService remote service} did not {@link ThankTokenRepository#find(ThankTokenIdType)
+ * find} the token). This prevents that clients referencing unknown tokens cause unbounded remote traffic. Each entry
+ * expires after the {@link #getTimeToLive() time to live} and the number of entries is limited by the
+ * {@link #getCapacity() capacity} evicting the oldest entries first.<br>
+ * <b>ATTENTION:</b> Only confirmed absences shall be {@link #add(ThankTokenIdType) added}. A failed lookup (e.g. due to
+ * a {@link io.github.thanktoken.core.api.io.ThankNetworkException}) is no proof of absence.
+ *
+ * @since 1.0.0
+ */
+public class ThankTokenNegativeCache {
+
+  /** The default {@link #getTimeToLive() time to live}. */
+  public static final Duration DEFAULT_TIME_TO_LIVE = Duration.ofMinutes(1);
+
+  /** The default {@link #getCapacity() capacity}. */
+  public static final int DEFAULT_CAPACITY = 100_000;
+
+  private final Map<ThankTokenIdType, Long> id2expiryMap;
+
+  private final Duration timeToLive;
+
+  private final long timeToLiveNanos;
+
+  private final int capacity;
+
+  /**
+   * The constructor.
+   */
+  public ThankTokenNegativeCache() {
+
+    this(DEFAULT_TIME_TO_LIVE, DEFAULT_CAPACITY);
+  }
+
+  /**
+   * The constructor.
+   *
+   * @param timeToLive the {@link #getTimeToLive() time to live}.
+   * @param capacity the {@link #getCapacity() capacity}.
+   */
+  public ThankTokenNegativeCache(Duration timeToLive, int capacity) {
+
+    super();
+    Objects.requireNonNull(timeToLive, "timeToLive");
+    if (timeToLive.isNegative() || timeToLive.isZero()) {
+      throw new IllegalArgumentException(timeToLive.toString());
+    }
+    if (capacity <= 0) {
+      throw new IllegalArgumentException(Integer.toString(capacity));
+    }
+    this.id2expiryMap = new LinkedHashMap<>();
+    this.timeToLive = timeToLive;
+    this.timeToLiveNanos = timeToLive.toNanos();
+    this.capacity = capacity;
+  }
+
+  /**
+   * @return the {@link Duration} after that an {@link #add(ThankTokenIdType) added} {@link ThankTokenIdType} expires
+   *         and the absence has to be confirmed again.
+   */
+  public Duration getTimeToLive() {
+
+    return this.timeToLive;
+  }
+
+  /**
+   * @return the maximum number of {@link ThankTokenIdType}s in this cache.
+   */
+  public int getCapacity() {
+
+    return this.capacity;
+  }
+
+  /**
+   * @return the number of {@link ThankTokenIdType}s in this cache including those that already expired but have not
+   *         yet been cleaned up.
+   */
+  public synchronized int getSize() {
+
+    return this.id2expiryMap.size();
+  }
+
+  /**
+   * @param id the {@link ThankTokenIdType} to check.
+   * @return {@code true} if the token with the given {@link ThankTokenIdType} has recently been
+   *         confirmed to be absent, {@code false} otherwise.
+   */
+  public synchronized boolean isAbsent(ThankTokenIdType id) {
+
+    Long expiry = this.id2expiryMap.get(id);
+    if (expiry == null) {
+      return false;
+    }
+    if (expiry.longValue() - System.nanoTime() <= 0) {
+      this.id2expiryMap.remove(id);
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * @param id the {@link ThankTokenIdType} of a token that has been confirmed to be absent.
+   */
+  public synchronized void add(ThankTokenIdType id) {
+
+    Objects.requireNonNull(id, "id");
+    long now = System.nanoTime();
+    // re-insert to keep insertion order sorted by expiry
+    this.id2expiryMap.remove(id);
+    this.id2expiryMap.put(id, Long.valueOf(now + this.timeToLiveNanos));
+    Iterator<Long> iterator = this.id2expiryMap.values().iterator();
+    while (iterator.hasNext()) {
+      long expiry = iterator.next().longValue();
+      if ((this.id2expiryMap.size() > this.capacity) || (expiry - now <= 0)) {
+        iterator.remove();
+      } else {
+        break;
+      }
+    }
+  }
+
+  /**
+   * @param id the {@link ThankTokenIdType} of a token that is no longer absent (e.g. because it has been received).
+   */
+  public synchronized void remove(ThankTokenIdType id) {
+
+    this.id2expiryMap.remove(id);
+  }
+
+  /**
+   * Removes all entries from this cache.
+   */
+  public synchronized void clear() {
+
+    this.id2expiryMap.clear();
+  }
+
+}
@@ -0,0 +1,235 @@
+package io.github.thanktoken.core.api.repository;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+
+import io.github.thanktoken.core.api.address.ThankAddress;
+import io.github.thanktoken.core.api.address.ThankAddressHeader;
+import io.github.thanktoken.core.api.address.ThankAddressType;
+import io.github.thanktoken.core.api.id.ThankTokenIdKey;
+import io.github.thanktoken.core.api.id.ThankTokenIdType;
+import io.github.thanktoken.core.api.token.ThankToken;
+import io.github.thanktoken.core.api.transaction.ThankTransaction;
+
+/**
+ * {@link ThankTokenIndex} from the current owner of a {@link ThankToken} to its {@link ThankTokenIdType}. The owner is
+ * the {@link ThankTransaction#getRecipient() recipient} of the {@link ThankToken#getLastTransaction() last transaction}
+ * or the {@link io.github.thanktoken.core.api.token.header.ThankTokenHeader#getRecipient() recipient of the header} if
+ * the {@link ThankToken} has no {@link ThankToken#getTransactions() transactions}. The owners are sorted by their
+ * binary data that starts with the {@link ThankAddressHeader} so {@link #findByOwnerHeader(ThankAddressHeader)} and
+ * {@link #findByOwnerType(ThankAddressType)} are prefix scans. All lookups are O(result) instead of O(repository).
+ * The number of {@link ThankToken#getTransactions() transactions} is kept per {@link ThankToken} so an
+ * {@link #update(ThankToken) update} with a stale copy (e.g. from an interleaved save) never reverts the owner.
+ *
+ * @since 1.0.0
+ */
+public class ThankTokenOwnerIndex extends AbstractThankTokenIndex {
+
+  private static final int MAGIC = 0x54544F32; // TTO2
+
+  private final Map<ThankTokenIdKey, Owner> ownerByToken;
+
+  private final NavigableMap<String, Set<ThankTokenIdKey>> tokensByOwner;
+
+  /**
+   * The constructor.
+   *
+   * @param file the {@link Path} to the file where to persist the index.
+   */
+  public ThankTokenOwnerIndex(Path file) {
+
+    super(file, MAGIC);
+    this.ownerByToken = new ConcurrentHashMap<>();
+    this.tokensByOwner = new ConcurrentSkipListMap<>();
+    open();
+  }
+
+  /**
+   * @param owner the {@link ThankAddress} of the owner.
+   * @return the {@link List} with the {@link ThankTokenIdType}s of the {@link ThankToken}s currently owned by the given
+   *         {@link ThankAddress}.
+   */
+  public List<ThankTokenIdType> findByOwner(ThankAddress owner) {
+
+    Objects.requireNonNull(owner, "owner");
+    List<ThankTokenIdType> result = new ArrayList<>();
+    Set<ThankTokenIdKey> keys = this.tokensByOwner.get(toHex(owner.getData()));
+    if (keys != null) {
+      for (ThankTokenIdKey key : keys) {
+        result.add(key.toId());
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @param header the {@link ThankAddressHeader} of the owners.
+   * @return the {@link List} with the {@link ThankTokenIdType}s of the {@link ThankToken}s currently owned by an
+   *         {@link ThankAddress} with the given {@link ThankAddress#getHeader() header}.
+   */
+  public List<ThankTokenIdType> findByOwnerHeader(ThankAddressHeader header) {
+
+    Objects.requireNonNull(header, "header");
+    return findByPrefix(toHex(new byte[] { header.getType().getValue(), (byte) header.getDetail() }));
+  }
+
+  /**
+   * @param type the {@link ThankAddressType} of the owners.
+   * @return the {@link List} with the {@link ThankTokenIdType}s of the {@link ThankToken}s currently owned by an
+   *         {@link ThankAddress} of the given {@link ThankAddressHeader#getType() type}.
+   */
+  public List<ThankTokenIdType> findByOwnerType(ThankAddressType type) {
+
+    Objects.requireNonNull(type, "type");
+    return findByPrefix(toHex(new byte[] { type.getValue() }));
+  }
+
+  private List<ThankTokenIdType> findByPrefix(String prefix) {
+
+    List<ThankTokenIdType> result = new ArrayList<>();
+    for (Set<ThankTokenIdKey> keys : this.tokensByOwner.subMap(prefix, prefix + Character.MAX_VALUE).values()) {
+      for (ThankTokenIdKey key : keys) {
+        result.add(key.toId());
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public void update(ThankToken token) {
+
+    ThankTransaction lastTx = token.getLastTransaction();
+    ThankAddress owner;
+    if (lastTx == null) {
+      owner = token.requireHeader().getRecipient();
+    } else {
+      owner = lastTx.getRecipient();
+    }
+    if (owner == null) {
+      return;
+    }
+    ThankTokenIdKey key = token.requireHeader().getId().getKey();
+    int txCount = token.getTransactions().size();
+    byte[] ownerData = owner.getData();
+    synchronized (this) {
+      if (put(key, toHex(ownerData), txCount)) {
+        log(toRecord(key.toBytes(), ownerData, txCount));
+      }
+    }
+  }
+
+  private boolean put(ThankTokenIdKey key, String owner, int txCount) {
+
+    Owner old = this.ownerByToken.get(key);
+    if ((old != null) && (old.txCount >= txCount)) {
+      return false; // stale or unchanged copy
+    }
+    this.ownerByToken.put(key, new Owner(owner, txCount));
+    String oldOwner = (old == null) ? null : old.owner;
+    if (owner.equals(oldOwner)) {
+      return true; // only the number of transactions changed
+    }
+    if (oldOwner != null) {
+      Set<ThankTokenIdKey> oldKeys = this.tokensByOwner.get(oldOwner);
+      if (oldKeys != null) {
+        oldKeys.remove(key);
+        if (oldKeys.isEmpty()) {
+          this.tokensByOwner.remove(oldOwner);
+        }
+      }
+    }
+    this.tokensByOwner.computeIfAbsent(owner, o -> ConcurrentHashMap.newKeySet()).add(key);
+    return true;
+  }
+
+  private static byte[] toRecord(byte[] key, byte[] owner, int txCount) {
+
+    ByteBuffer record = ByteBuffer.allocate(8 + key.length + owner.length);
+    record.putShort((short) key.length);
+    record.put(key);
+    record.putShort((short) owner.length);
+    record.put(owner);
+    record.putInt(txCount);
+    return record.array();
+  }
+
+  @Override
+  protected void replay(ByteBuffer record) {
+
+    ThankTokenIdKey key = ThankTokenIdKey.read(record, record.getShort() & 0xFFFF);
+    byte[] owner = new byte[record.getShort() & 0xFFFF];
+    record.get(owner);
+    put(key, toHex(owner), record.getInt());
+  }
+
+  @Override
+  protected void forEachRecord(Consumer<byte[]> consumer) {
+
+    for (Map.Entry<ThankTokenIdKey, Owner> entry : this.ownerByToken.entrySet()) {
+      Owner owner = entry.getValue();
+      consumer.accept(toRecord(entry.getKey().toBytes(), fromHex(owner.owner), owner.txCount));
+    }
+  }
+
+  @Override
+  protected long getRecordCount() {
+
+    return this.ownerByToken.size();
+  }
+
+  @Override
+  public synchronized void clear() {
+
+    super.clear();
+    this.ownerByToken.clear();
+    this.tokensByOwner.clear();
+  }
+
+  private static String toHex(byte[] data) {
+
+    StringBuilder sb = new StringBuilder(2 * data.length);
+    for (byte b : data) {
+      sb.append(Character.forDigit((b >> 4) & 0x0F, 16));
+      sb.append(Character.forDigit(b & 0x0F, 16));
+    }
+    return sb.toString();
+  }
+
+  private static byte[] fromHex(String hex) {
+
+    byte[] data = new byte[hex.length() / 2];
+    for (int i = 0; i < data.length; i++) {
+      data[i] = (byte) Integer.parseInt(hex.substring(2 * i, 2 * i + 2), 16);
+    }
+    return data;
+  }
+
+  /**
+   * The owner of a {@link ThankToken} together with the number of {@link ThankToken#getTransactions() transactions}
+   * it has been determined from.
+   */
+  private static final class Owner {
+
+    private final String owner;
+
+    private final int txCount;
+
+    private Owner(String owner, int txCount) {
+
+      super();
+      this.owner = owner;
+      this.txCount = txCount;
+    }
+
+  }
+
+}
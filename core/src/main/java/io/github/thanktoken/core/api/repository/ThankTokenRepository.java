@@ -1,5 +1,9 @@
 package io.github.thanktoken.core.api.repository;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
 import io.github.thanktoken.core.api.id.ThankTokenIdType;
 import io.github.thanktoken.core.api.io.ThankNetworkException;
 import io.github.thanktoken.core.api.token.ThankToken;
@@ -19,4 +23,26 @@ public interface ThankTokenRepository {
    */
   ThankToken find(ThankTokenIdType id) throws ThankNetworkException;
 
+  /**
+   * Finds multiple {@link ThankToken}s at once (e.g. all {@link ThankToken}s of a message or fork chain). The default
+   * implementation simply delegates to {@link #find(ThankTokenIdType)} for each {@link ThankTokenIdType}.
+   * Implementations should override this method with a native batch implementation where this is more efficient.
+   *
+   * @param ids the {@link Collection} of {@link ThankTokenIdType}s to find.
+   * @return the {@link Map} with the {@link ThankToken}s that have been found for the given {@code ids}. An
+   *         {@link ThankTokenIdType} that was not found is not contained as key.
+   * @throws ThankNetworkException in case of a (temporary) network error.
+   */
+  default Map<ThankTokenIdType, ThankToken> findAll(Collection<ThankTokenIdType> ids) throws ThankNetworkException {
+
+    Map<ThankTokenIdType, ThankToken> result = new HashMap<>(ids.size());
+    for (ThankTokenIdType id : ids) {
+      ThankToken token = find(id);
+      if (token != null) {
+        result.put(id, token);
+      }
+    }
+    return result;
+  }
+
 }
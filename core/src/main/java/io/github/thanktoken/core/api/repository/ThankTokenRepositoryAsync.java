@@ -0,0 +1,35 @@
+package io.github.thanktoken.core.api.repository;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import io.github.thanktoken.core.api.id.ThankTokenIdType;
+import io.github.thanktoken.core.api.token.ThankToken;
+
+/**
+ * Asynchronous variant of {@link ThankTokenRepository} that does not block the calling thread. Instead of throwing a
+ * {@link io.github.thanktoken.core.api.io.ThankNetworkException} the returned {@link CompletableFuture} is completed
+ * exceptionally.
+ *
+ * @see ThankTokenRepositoryAsyncAdapter
+ * @since 1.0.0
+ */
+public interface ThankTokenRepositoryAsync {
+
+  /**
+   * @param id the {@link ThankTokenIdType}.
+   * @return the {@link CompletableFuture} with the {@link ThankToken} for the given {@link ThankTokenIdType} or
+   *         {@code null} if not found.
+   * @see ThankTokenRepository#find(ThankTokenIdType)
+   */
+  CompletableFuture<ThankToken> findAsync(ThankTokenIdType id);
+
+  /**
+   * @param ids the {@link Collection} of {@link ThankTokenIdType}s to find.
+   * @return the {@link CompletableFuture} with the {@link Map} of the {@link ThankToken}s that have been found.
+   * @see ThankTokenRepository#findAll(Collection)
+   */
+  CompletableFuture<Map<ThankTokenIdType, ThankToken>> findAllAsync(Collection<ThankTokenIdType> ids);
+
+}
@@ -0,0 +1,199 @@
+package io.github.thanktoken.core.api.repository;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+import io.github.thanktoken.core.api.id.ThankTokenIdType;
+import io.github.thanktoken.core.api.token.ThankToken;
+
+/**
+ * Adapter implementing {@link ThankTokenRepositoryWithValidationAsync} on top of an existing synchronous
+ * {@link ThankTokenRepositoryWithValidation}. Requests that can be answered from the in-memory {@link ThankTokenCache}
+ * (e.g. {@link ThankTokenRepositoryLocalCacheImpl#getFirstLevelCache()}) complete inline on the calling thread. All
+ * other requests (that may block on disk I/O or ask the {@link ThankTokenRepositoryRemoteService remote service}) are
+ * dispatched to the given {@link Executor}. Errors are never thrown directly but complete the returned
+ * {@link CompletableFuture} exceptionally.
+ *
+ * @since 1.0.0
+ */
+public class ThankTokenRepositoryAsyncAdapter implements ThankTokenRepositoryWithValidationAsync {
+
+  private final ThankTokenRepositoryWithValidation repository;
+
+  private final ThankTokenCache cache;
+
+  private final Executor executor;
+
+  /**
+   * The constructor.
+   *
+   * @param repository the synchronous {@link ThankTokenRepositoryWithValidation} to adapt (e.g.
+   *        {@link ThankTokenRepositoryImpl}).
+   * @param cache the in-memory {@link ThankTokenCache} (e.g.
+   *        {@link ThankTokenRepositoryLocalCacheImpl#getFirstLevelCache()}) used to answer requests inline. May be
+   *        {@code null} to always dispatch to the {@link Executor}.
+   * @param executor the {@link Executor} used to run the blocking calls of the given {@code repository}.
+   */
+  public ThankTokenRepositoryAsyncAdapter(ThankTokenRepositoryWithValidation repository, ThankTokenCache cache,
+      Executor executor) {
+
+    super();
+    Objects.requireNonNull(repository, "repository");
+    Objects.requireNonNull(executor, "executor");
+    this.repository = repository;
+    this.cache = cache;
+    this.executor = executor;
+  }
+
+  @Override
+  public CompletableFuture<ThankToken> findAsync(ThankTokenIdType id) {
+
+    try {
+      ThankTokenContainer container = getCached(id);
+      if (container != null) {
+        return CompletableFuture.completedFuture(container.getToken());
+      }
+    } catch (RuntimeException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+    return CompletableFuture.supplyAsync(() -> this.repository.find(id), this.executor);
+  }
+
+  @Override
+  public CompletableFuture<Map<ThankTokenIdType, ThankToken>> findAllAsync(Collection<ThankTokenIdType> ids) {
+
+    if (this.cache == null) {
+      return CompletableFuture.supplyAsync(() -> this.repository.findAll(ids), this.executor);
+    }
+    Map<ThankTokenIdType, ThankToken> result;
+    Set<ThankTokenIdType> missingIds;
+    try {
+      Map<ThankTokenIdType, ThankTokenContainer> containers = this.cache.getAll(ids);
+      result = new HashMap<>(ids.size());
+      for (Map.Entry<ThankTokenIdType, ThankTokenContainer> entry : containers.entrySet()) {
+        result.put(entry.getKey(), entry.getValue().getToken());
+      }
+      missingIds = getMissingIds(ids, containers);
+    } catch (RuntimeException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+    return completeAll(result, missingIds, this.repository::findAll);
+  }
+
+  @Override
+  public CompletableFuture<Boolean> getValidityAsync(ThankTokenIdType id) {
+
+    try {
+      ThankTokenContainer container = getCached(id);
+      if ((container != null) && (container.getValid() != null)) {
+        return CompletableFuture.completedFuture(container.getValid());
+      }
+    } catch (RuntimeException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+    return CompletableFuture.supplyAsync(() -> this.repository.getValidity(id), this.executor);
+  }
+
+  @Override
+  public CompletableFuture<ThankToken> findValidAsync(ThankTokenIdType id) {
+
+    try {
+      ThankTokenContainer container = getCached(id);
+      if (container != null) {
+        if (container.isValid()) {
+          return CompletableFuture.completedFuture(container.getToken());
+        } else if (container.isInvalid()) {
+          return CompletableFuture.completedFuture(null);
+        }
+      }
+    } catch (RuntimeException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+    return CompletableFuture.supplyAsync(() -> this.repository.findValid(id), this.executor);
+  }
+
+  @Override
+  public CompletableFuture<ThankToken> findAndValidateAsync(ThankTokenIdType id) {
+
+    try {
+      ThankTokenContainer container = getCached(id);
+      if ((container != null) && container.isValid()) {
+        return CompletableFuture.completedFuture(container.getToken());
+      }
+    } catch (RuntimeException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+    return CompletableFuture.supplyAsync(() -> this.repository.findAndValidate(id), this.executor);
+  }
+
+  @Override
+  public CompletableFuture<Map<ThankTokenIdType, ThankToken>> findAllValidAsync(Collection<ThankTokenIdType> ids) {
+
+    if (this.cache == null) {
+      return CompletableFuture.supplyAsync(() -> this.repository.findAllValid(ids), this.executor);
+    }
+    Map<ThankTokenIdType, ThankToken> result;
+    Set<ThankTokenIdType> missingIds;
+    try {
+      Map<ThankTokenIdType, ThankTokenContainer> containers = this.cache.getAll(ids);
+      result = new HashMap<>(ids.size());
+      Iterator<Map.Entry<ThankTokenIdType, ThankTokenContainer>> iterator = containers.entrySet().iterator();
+      while (iterator.hasNext()) {
+        Map.Entry<ThankTokenIdType, ThankTokenContainer> entry = iterator.next();
+        ThankTokenContainer container = entry.getValue();
+        if (container.isValid()) {
+          result.put(entry.getKey(), container.getToken());
+        } else if (container.getValid() == null) {
+          // not yet validated
+          iterator.remove();
+        }
+      }
+      missingIds = getMissingIds(ids, containers);
+    } catch (RuntimeException e) {
+      return CompletableFuture.failedFuture(e);
+    }
+    return completeAll(result, missingIds, this.repository::findAllValid);
+  }
+
+  private ThankTokenContainer getCached(ThankTokenIdType id) {
+
+    if (this.cache == null) {
+      return null;
+    }
+    return this.cache.get(id);
+  }
+
+  private static Set<ThankTokenIdType> getMissingIds(Collection<ThankTokenIdType> ids,
+      Map<ThankTokenIdType, ThankTokenContainer> containers) {
+
+    Set<ThankTokenIdType> missingIds = new LinkedHashSet<>();
+    for (ThankTokenIdType id : ids) {
+      if (!containers.containsKey(id)) {
+        missingIds.add(id);
+      }
+    }
+    return missingIds;
+  }
+
+  private CompletableFuture<Map<ThankTokenIdType, ThankToken>> completeAll(Map<ThankTokenIdType, ThankToken> result,
+      Set<ThankTokenIdType> missingIds,
+      Function<Collection<ThankTokenIdType>, Map<ThankTokenIdType, ThankToken>> batchFinder) {
+
+    if (missingIds.isEmpty()) {
+      return CompletableFuture.completedFuture(result);
+    }
+    return CompletableFuture.supplyAsync(() -> batchFinder.apply(missingIds), this.executor).thenApply(tokens -> {
+      result.putAll(tokens);
+      return result;
+    });
+  }
+
+}
@@ -1,5 +1,8 @@
 package io.github.thanktoken.core.api.repository;
 
+import java.util.Collection;
+import java.util.Map;
+
 import io.github.thanktoken.core.api.id.ThankTokenIdType;
 import io.github.thanktoken.core.api.io.ThankNetworkException;
 import io.github.thanktoken.core.api.token.ThankToken;
@@ -30,4 +33,10 @@ public class ThankTokenRepositoryFacade extends AbstractThankTokenRepository {
     return this.repository.findValid(id);
   }
 
+  @Override
+  public Map<ThankTokenIdType, ThankToken> findAll(Collection<ThankTokenIdType> ids) throws ThankNetworkException {
+
+    return this.repository.findAllValid(ids);
+  }
+
 }
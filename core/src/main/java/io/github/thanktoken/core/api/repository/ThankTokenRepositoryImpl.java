@@ -1,5 +1,13 @@
 package io.github.thanktoken.core.api.repository;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
 import io.github.thanktoken.core.api.id.ThankTokenIdType;
 import io.github.thanktoken.core.api.io.ThankNetworkException;
 import io.github.thanktoken.core.api.token.ThankToken;
@@ -8,10 +16,17 @@ import io.github.thanktoken.core.api.validate.ThankValidationFailureMode;
 import io.github.thanktoken.core.api.validate.ThankValidationResult;
 import io.github.thanktoken.core.api.validate.ThankValidationResultImpl;
 import io.github.thanktoken.core.api.validate.ThankValidator;
+import io.github.thanktoken.core.api.validate.failure.ThankValidationFailure;
 import io.github.thanktoken.core.api.validate.failure.ThankValidationFailureException;
+import io.github.thanktoken.core.api.validate.failure.ThankValidationFailureInFuture;
+import io.github.thanktoken.core.api.validate.failure.ThankValidationFailureReferenceNotFound;
 
 /**
- * TODO hohwille This type ...
+ * Implementation of {@link ThankTokenRepositoryWithValidation} that {@link #find(ThankTokenIdType) finds}
+ * {@link ThankToken}s in the local {@link ThankTokenRepositoryLocalCacheImpl cache} or otherwise from the
+ * {@link ThankTokenRepositoryRemoteService remote service} and {@link ThankValidator#validate(ThankToken) validates}
+ * them on demand. Concurrent requests for the same {@link ThankTokenIdType} are coalesced so that only one remote
+ * fetch and one validation is performed per {@link ThankTokenIdType} while all other callers wait for its result.
  *
  * @since 1.0.0
  */
@@ -24,29 +39,184 @@ public class ThankTokenRepositoryImpl extends AbstractThankTokenRepository
 
   private final ThankValidator validator;
 
+  private final ThankTokenNegativeCache negativeCache;
+
+  private final ThankTokenInvalidStore invalidStore;
+
+  private final ThankTokenRequestCoalescer<ThankToken> pendingFinds;
+
+  private final ThankTokenRequestCoalescer<Boolean> pendingValidations;
+
   /**
-   * The constructor.
+   * The constructor without {@link ThankTokenNegativeCache negative cache} so every miss is asked from the
+   * {@link ThankTokenRepositoryRemoteService remote service} again.
    *
-   * @param remoteService
-   * @param cache
-   * @param validator
+   * @param remoteService the {@link ThankTokenRepositoryRemoteService}.
+   * @param cache the {@link ThankTokenRepositoryLocalCacheImpl}.
+   * @param validator the {@link ThankValidator}.
    */
   public ThankTokenRepositoryImpl(ThankTokenRepositoryRemoteService remoteService,
       ThankTokenRepositoryLocalCacheImpl cache, ThankValidator validator) {
 
+    this(remoteService, cache, validator, null);
+  }
+
+  /**
+   * The constructor.
+   *
+   * @param remoteService the {@link ThankTokenRepositoryRemoteService}.
+   * @param cache the {@link ThankTokenRepositoryLocalCacheImpl}.
+   * @param validator the {@link ThankValidator}.
+   * @param negativeCache the {@link ThankTokenNegativeCache} for {@link ThankTokenIdType}s recently not found by the
+   *        {@link ThankTokenRepositoryRemoteService} or {@code null} to disable negative caching.
+   */
+  public ThankTokenRepositoryImpl(ThankTokenRepositoryRemoteService remoteService,
+      ThankTokenRepositoryLocalCacheImpl cache, ThankValidator validator, ThankTokenNegativeCache negativeCache) {
+
+    this(remoteService, cache, validator, negativeCache, null);
+  }
+
+  /**
+   * The constructor.
+   *
+   * @param remoteService the {@link ThankTokenRepositoryRemoteService}.
+   * @param cache the {@link ThankTokenRepositoryLocalCacheImpl}.
+   * @param validator the {@link ThankValidator}.
+   * @param negativeCache the {@link ThankTokenNegativeCache} for {@link ThankTokenIdType}s recently not found by the
+   *        {@link ThankTokenRepositoryRemoteService} or {@code null} to disable negative caching.
+   * @param invalidStore the {@link ThankTokenInvalidStore} to persist and short-circuit the definitive verdicts of
+   *        invalid {@link ThankToken}s or {@code null} to keep them only in the cache. Temporary failures (e.g. a
+   *        referenced {@link ThankToken} not found) are never persisted.
+   */
+  public ThankTokenRepositoryImpl(ThankTokenRepositoryRemoteService remoteService,
+      ThankTokenRepositoryLocalCacheImpl cache, ThankValidator validator, ThankTokenNegativeCache negativeCache,
+      ThankTokenInvalidStore invalidStore) {
+
     super();
     this.remoteService = remoteService;
     this.cache = cache;
     this.validator = validator;
+    this.negativeCache = negativeCache;
+    this.invalidStore = invalidStore;
+    this.pendingFinds = new ThankTokenRequestCoalescer<>();
+    this.pendingValidations = new ThankTokenRequestCoalescer<>();
   }
 
   @Override
   public ThankToken find(ThankTokenIdType id) throws ThankNetworkException {
 
+    ThankToken token = this.cache.find(id);
+    if ((token == null) && !isAbsent(id)) {
+      token = this.pendingFinds.execute(id, () -> fetch(id));
+    }
+    return token;
+  }
+
+  @Override
+  public Map<ThankTokenIdType, ThankToken> findAll(Collection<ThankTokenIdType> ids) throws ThankNetworkException {
+
+    Map<ThankTokenIdType, ThankToken> result = this.cache.findAll(ids);
+    if (result.size() < ids.size()) {
+      Set<ThankTokenIdType> missingIds = new LinkedHashSet<>(ids.size() - result.size());
+      for (ThankTokenIdType id : ids) {
+        if (!result.containsKey(id) && !isAbsent(id)) {
+          missingIds.add(id);
+        }
+      }
+      if (missingIds.isEmpty()) {
+        return result;
+      }
+      Map<ThankTokenIdType, ThankToken> tokens = this.remoteService.findAll(missingIds);
+      for (ThankTokenIdType id : missingIds) {
+        ThankToken token = tokens.get(id);
+        if (token == null) {
+          addAbsent(id);
+        } else {
+          this.cache.add(token);
+          result.put(id, token);
+        }
+      }
+    }
+    return result;
+  }
+
+  @Override
+  public Map<ThankTokenIdType, ThankToken> findAllValid(Collection<ThankTokenIdType> ids)
+      throws ThankNetworkException {
+
+    Map<ThankTokenIdType, ThankToken> tokens = findAll(ids);
+    Map<ThankTokenIdType, ThankToken> result = new HashMap<>(tokens.size());
+    for (Map.Entry<ThankTokenIdType, ThankToken> entry : tokens.entrySet()) {
+      ThankTokenIdType id = entry.getKey();
+      ThankToken token = entry.getValue();
+      if (isKnownInvalid(token)) {
+        continue;
+      }
+      Boolean validity = this.cache.getValidity(id);
+      if (validity == null) {
+        validity = this.pendingValidations.execute(id, () -> validate(id, token));
+      }
+      if (validity.booleanValue()) {
+        result.put(id, token);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * @return the {@link ThankTokenNegativeCache} with the {@link ThankTokenIdType}s recently not found by the
+   *         {@link ThankTokenRepositoryRemoteService} or {@code null} if negative caching is disabled.
+   */
+  public ThankTokenNegativeCache getNegativeCache() {
+
+    return this.negativeCache;
+  }
+
+  /**
+   * Adds a {@link ThankToken} that has been received (e.g. with a message) to the local cache. If its
+   * {@link ThankTokenIdType} has recently been confirmed to be absent, it is removed from the
+   * {@link #getNegativeCache() negative cache} so it can be found immediately.
+   *
+   * @param token the {@link ThankToken} to add.
+   */
+  public void add(ThankToken token) {
+
+    this.cache.add(token);
+    if (this.negativeCache != null) {
+      this.negativeCache.remove(token.requireHeader().getId());
+    }
+  }
+
+  private boolean isAbsent(ThankTokenIdType id) {
+
+    return (this.negativeCache != null) && this.negativeCache.isAbsent(id);
+  }
+
+  private void addAbsent(ThankTokenIdType id) {
+
+    if (this.negativeCache != null) {
+      this.negativeCache.add(id);
+    }
+  }
+
+  /**
+   * @return the {@link ThankTokenInvalidStore} with the verdicts of invalid {@link ThankToken}s or {@code null} if not
+   *         configured.
+   */
+  public ThankTokenInvalidStore getInvalidStore() {
+
+    return this.invalidStore;
+  }
+
+  private ThankToken fetch(ThankTokenIdType id) {
+
+    // double check as a concurrent fetch may have completed before we started
     ThankToken token = this.cache.find(id);
     if (token == null) {
       token = this.remoteService.find(id);
-      if (token != null) {
+      if (token == null) {
+        addAbsent(id);
+      } else {
         this.cache.add(token);
       }
     }
@@ -68,38 +238,109 @@ public class ThankTokenRepositoryImpl extends AbstractThankTokenRepository
   private ThankToken findValid(ThankTokenIdType id, boolean throwValidationException) throws ThankNetworkException {
 
     ThankToken token = find(id);
-    if (token != null) {
+    if ((token != null) && !isKnownInvalid(token)) {
       Boolean validity = this.cache.getValidity(id);
       if (validity == Boolean.TRUE) {
         return token;
       } else if (validity == null) {
-        ThankValidationResult validationResult = null;
-        try {
-          validationResult = this.validator.validate(token);
-        } catch (ThankValidationException e) {
-          ThankValidationResultImpl resultImpl = new ThankValidationResultImpl(
-              ThankValidationFailureMode.RETURN_RESULT);
-          resultImpl.add(new ThankValidationFailureException(token, e));
-          validationResult = resultImpl;
+        validity = this.pendingValidations.execute(id, () -> validate(id, token));
+        if (validity.booleanValue()) {
+          return token;
         }
-        if (!validationResult.isValid()) {
-          // LOG.warn()
-        }
-        this.cache.setValidity(token, validationResult.isValid());
-        return token;
       }
     }
     return null;
   }
 
+  private Boolean validate(ThankTokenIdType id, ThankToken token) {
+
+    // double check as a concurrent validation may have completed before we started
+    Boolean validity = this.cache.getValidity(id);
+    if (validity != null) {
+      return validity;
+    }
+    ThankValidationResult validationResult = null;
+    try {
+      validationResult = this.validator.validate(token);
+    } catch (ThankValidationException e) {
+      ThankValidationResultImpl resultImpl = new ThankValidationResultImpl(ThankValidationFailureMode.RETURN_RESULT);
+      resultImpl.add(new ThankValidationFailureException(token, e));
+      validationResult = resultImpl;
+    }
+    boolean valid = validationResult.isValid();
+    if (!valid) {
+      // LOG.warn()
+      if ((this.invalidStore != null) && isDefinitive(validationResult)) {
+        this.invalidStore.add(token, validationResult.toString());
+      }
+    }
+    this.cache.setValidity(token, valid);
+    return Boolean.valueOf(valid);
+  }
+
+  /**
+   * @param validationResult the in{@link ThankValidationResult#isValid() valid} {@link ThankValidationResult}.
+   * @return {@code true} if at least one of its {@link ThankValidationFailure}s is
+   *         {@link #isDefinitive(ThankValidationFailure) definitive}, {@code false} otherwise.
+   */
+  private static boolean isDefinitive(ThankValidationResult validationResult) {
+
+    for (ThankValidationFailure failure : validationResult.getFailures()) {
+      if (isDefinitive(failure)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @param failure the {@link ThankValidationFailure} to check.
+   * @return {@code true} if the {@link ThankToken} can never become valid (e.g. an invalid signature or a mismatch of
+   *         the hash chain) so the verdict may be {@link ThankTokenInvalidStore persisted}, {@code false} if the
+   *         failure may be temporary (e.g. a referenced {@link ThankToken} that has not been found yet, a timestamp in
+   *         the future or a network error) and the {@link ThankToken} has to be validated again later.
+   */
+  private static boolean isDefinitive(ThankValidationFailure failure) {
+
+    if ((failure instanceof ThankValidationFailureReferenceNotFound)
+        || (failure instanceof ThankValidationFailureInFuture)) {
+      return false;
+    }
+    Throwable error = failure.getError();
+    if (error instanceof ThankValidationResult) {
+      return isDefinitive((ThankValidationResult) error);
+    }
+    while (error != null) {
+      if ((error instanceof ThankNetworkException) || (error instanceof IOException)
+          || (error instanceof UncheckedIOException)) {
+        return false;
+      }
+      error = error.getCause();
+    }
+    return true;
+  }
+
   @Override
   public Boolean getValidity(ThankTokenIdType id) {
 
     ThankToken token = find(id);
     if (token != null) {
+      if (isKnownInvalid(token)) {
+        return Boolean.FALSE;
+      }
       return this.cache.getValidity(id);
     }
     return null;
   }
 
+  /**
+   * @param token the {@link ThankToken} to check.
+   * @return {@code true} if the given {@link ThankToken} is known to be invalid by the {@link ThankTokenInvalidStore}
+   *         so it does not have to be validated again, {@code false} otherwise.
+   */
+  private boolean isKnownInvalid(ThankToken token) {
+
+    return (this.invalidStore != null) && this.invalidStore.isInvalid(token);
+  }
+
 }
@@ -0,0 +1,459 @@
+package io.github.thanktoken.core.api.repository;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.zip.CRC32;
+
+/**
+ * Write-ahead journal for {@link ThankTokenRepositoryWriteMode#DURABLE durable} writes of
+ * {@link ThankTokenRepositoryLocalDiskImpl}. The {@link FileWrite}s of all concurrent {@link #write(List) writes}
+ * within the configured maximum latency are appended to the journal file that is then forced to the disk only once
+ * for the entire batch (group commit). Afterwards the files are written {@link #writeAtomic(Path, byte[], boolean)
+ * atomically} without forcing them individually. Once the journal exceeds a size threshold all files written since the
+ * last checkpoint are forced in the background and the journal is truncated (checkpoint). After a crash the journal is
+ * replayed when opened again.<br>
+ * Each journal entry has the form {@code pathLength, path, dataLength, data, crc32} so a torn entry at the end is
+ * detected and ignored (it has never been acknowledged).
+ */
+class ThankTokenRepositoryJournal implements AutoCloseable {
+
+  /** The default maximum latency to wait for further writes before committing a batch. */
+  static final Duration DEFAULT_MAX_LATENCY = Duration.ofMillis(5);
+
+  /** The filename of the journal in the repository directory. */
+  static final String FILENAME_JOURNAL = "journal.log";
+
+  private static final long CHECKPOINT_SIZE = 16 * 1024 * 1024;
+
+  private static final long MAX_BATCH_SIZE = 4 * 1024 * 1024;
+
+  private static final String SUFFIX_TEMP = ".tmp";
+
+  private final Path repositoryPath;
+
+  private final Path journalFile;
+
+  private final long maxLatencyNanos;
+
+  private final FileChannel channel;
+
+  private final Thread committerThread;
+
+  private final List<FileWrite> pending;
+
+  /** The {@link Path}s of the files and directories written since the last checkpoint. */
+  private final Set<Path> dirtyPaths;
+
+  private long pendingSize;
+
+  private long pendingSince;
+
+  private long journalSize;
+
+  /** Sequence number of the last {@link FileWrite} added to {@link #pending}. */
+  private long enqueuedSequence;
+
+  /** Sequence number of the last {@link FileWrite} that has been committed and applied. */
+  private long appliedSequence;
+
+  private RuntimeException failure;
+
+  private boolean closed;
+
+  /**
+   * The constructor. Replays the journal if it contains entries from a previous run.
+   *
+   * @param repositoryPath the {@link Path} to the root directory of the repository.
+   * @param maxLatency the maximum latency to wait for further writes before committing a batch.
+   */
+  ThankTokenRepositoryJournal(Path repositoryPath, Duration maxLatency) {
+
+    super();
+    Objects.requireNonNull(repositoryPath, "repositoryPath");
+    Objects.requireNonNull(maxLatency, "maxLatency");
+    if (maxLatency.isNegative()) {
+      throw new IllegalArgumentException(maxLatency.toString());
+    }
+    this.repositoryPath = repositoryPath;
+    this.journalFile = repositoryPath.resolve(FILENAME_JOURNAL);
+    this.maxLatencyNanos = maxLatency.toNanos();
+    this.pending = new ArrayList<>();
+    this.dirtyPaths = new LinkedHashSet<>();
+    try {
+      Files.createDirectories(repositoryPath);
+      this.channel = FileChannel.open(this.journalFile, StandardOpenOption.CREATE, StandardOpenOption.READ,
+          StandardOpenOption.WRITE);
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to open journal " + this.journalFile, e);
+    }
+    replay();
+    this.committerThread = new Thread(this::commit, "ThankToken-Journal");
+    this.committerThread.setDaemon(true);
+    this.committerThread.start();
+  }
+
+  private void replay() {
+
+    try {
+      long size = this.channel.size();
+      if (size == 0) {
+        return;
+      }
+      ByteBuffer buffer = ByteBuffer.allocate((int) size);
+      while (buffer.hasRemaining() && (this.channel.read(buffer, buffer.position()) >= 0)) {
+        // read fully
+      }
+      buffer.flip();
+      FileWrite write = readEntry(buffer);
+      while (write != null) {
+        apply(write);
+        write = readEntry(buffer);
+      }
+      checkpoint();
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to replay journal " + this.journalFile, e);
+    }
+  }
+
+  private FileWrite readEntry(ByteBuffer buffer) {
+
+    int start = buffer.position();
+    if (buffer.remaining() < 4) {
+      return null;
+    }
+    int pathLength = buffer.getInt();
+    if ((pathLength <= 0) || (pathLength > buffer.remaining() - 4)) {
+      return null;
+    }
+    byte[] path = new byte[pathLength];
+    buffer.get(path);
+    int dataLength = buffer.getInt();
+    if ((dataLength < 0) || (dataLength > buffer.remaining() - 4)) {
+      return null;
+    }
+    byte[] data = new byte[dataLength];
+    buffer.get(data);
+    int checksum = buffer.getInt();
+    CRC32 crc = new CRC32();
+    crc.update(buffer.duplicate().position(start).limit(buffer.position() - 4));
+    if ((int) crc.getValue() != checksum) {
+      // torn entry that has never been acknowledged
+      return null;
+    }
+    return new FileWrite(this.repositoryPath.resolve(new String(path, StandardCharsets.UTF_8)), data);
+  }
+
+  /**
+   * Writes the given {@link FileWrite}s durably. Blocks until the batch containing them has been committed to the
+   * journal and the files have been written.
+   *
+   * @param writes the {@link List} of {@link FileWrite}s to write.
+   */
+  void write(List<FileWrite> writes) {
+
+    if (writes.isEmpty()) {
+      return;
+    }
+    long sequence;
+    synchronized (this) {
+      checkState();
+      if (this.pending.isEmpty()) {
+        this.pendingSince = System.nanoTime();
+      }
+      for (FileWrite write : writes) {
+        this.pending.add(write);
+        this.pendingSize += write.data.length;
+      }
+      this.enqueuedSequence += writes.size();
+      sequence = this.enqueuedSequence;
+      notifyAll();
+    }
+    await(sequence);
+  }
+
+  /**
+   * Blocks until all {@link #write(List) writes} started before have been committed and applied.
+   */
+  void flush() {
+
+    long sequence;
+    synchronized (this) {
+      sequence = this.enqueuedSequence;
+    }
+    await(sequence);
+  }
+
+  private synchronized void await(long sequence) {
+
+    while (this.appliedSequence < sequence) {
+      if (this.failure != null) {
+        throw new IllegalStateException("Journal commit failed", this.failure);
+      } else if (!this.committerThread.isAlive()) {
+        throw new IllegalStateException("Journal stopped");
+      }
+      try {
+        wait();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while waiting for journal commit", e);
+      }
+    }
+  }
+
+  private void checkState() {
+
+    if (this.closed) {
+      throw new IllegalStateException("Already closed");
+    } else if (this.failure != null) {
+      throw new IllegalStateException("Journal commit failed", this.failure);
+    }
+  }
+
+  /**
+   * The loop of the background committer thread.
+   */
+  private void commit() {
+
+    while (true) {
+      List<FileWrite> batch;
+      long sequence;
+      synchronized (this) {
+        try {
+          while (this.pending.isEmpty() && !this.closed) {
+            wait();
+          }
+          if (this.pending.isEmpty()) {
+            return;
+          }
+          // group commit: wait for further writes until the max latency is reached or the batch is large enough
+          long remainingNanos = this.maxLatencyNanos - (System.nanoTime() - this.pendingSince);
+          while ((remainingNanos > 0) && (this.pendingSize < MAX_BATCH_SIZE) && !this.closed) {
+            wait(remainingNanos / 1_000_000, (int) (remainingNanos % 1_000_000));
+            remainingNanos = this.maxLatencyNanos - (System.nanoTime() - this.pendingSince);
+          }
+        } catch (InterruptedException e) {
+          return;
+        }
+        batch = new ArrayList<>(this.pending);
+        sequence = this.enqueuedSequence;
+        this.pending.clear();
+        this.pendingSize = 0;
+      }
+      try {
+        append(batch);
+        for (FileWrite write : batch) {
+          apply(write);
+        }
+        if (this.journalSize >= CHECKPOINT_SIZE) {
+          checkpoint();
+        }
+      } catch (IOException | RuntimeException e) {
+        synchronized (this) {
+          this.failure = new IllegalStateException("Failed to commit journal " + this.journalFile, e);
+          notifyAll();
+        }
+        return;
+      }
+      synchronized (this) {
+        this.appliedSequence = sequence;
+        notifyAll();
+      }
+    }
+  }
+
+  private void append(List<FileWrite> batch) throws IOException {
+
+    int size = 0;
+    List<byte[]> paths = new ArrayList<>(batch.size());
+    for (FileWrite write : batch) {
+      byte[] path = this.repositoryPath.relativize(write.file).toString().replace('\\', '/')
+          .getBytes(StandardCharsets.UTF_8);
+      paths.add(path);
+      size = size + 12 + path.length + write.data.length;
+    }
+    ByteBuffer buffer = ByteBuffer.allocate(size);
+    for (int i = 0; i < batch.size(); i++) {
+      int start = buffer.position();
+      byte[] path = paths.get(i);
+      byte[] data = batch.get(i).data;
+      buffer.putInt(path.length).put(path).putInt(data.length).put(data);
+      CRC32 crc = new CRC32();
+      crc.update(buffer.array(), start, buffer.position() - start);
+      buffer.putInt((int) crc.getValue());
+    }
+    buffer.flip();
+    long position = this.journalSize;
+    while (buffer.hasRemaining()) {
+      position += this.channel.write(buffer, position);
+    }
+    // the only fsync per batch
+    this.channel.force(false);
+    this.journalSize = position;
+  }
+
+  private void apply(FileWrite write) throws IOException {
+
+    Path folder = write.file.getParent();
+    if (!Files.isDirectory(folder)) {
+      Files.createDirectories(folder);
+      Path parent = folder;
+      while ((parent != null) && !parent.equals(this.repositoryPath)) {
+        this.dirtyPaths.add(parent);
+        parent = parent.getParent();
+      }
+    }
+    // not forced individually: the journal is only truncated after the next checkpoint has forced the file
+    writeAtomic(write.file, write.data, false);
+    this.dirtyPaths.add(write.file);
+    this.dirtyPaths.add(folder);
+  }
+
+  /**
+   * Forces all files and directories written since the last checkpoint to the disk and truncates the journal.
+   */
+  private void checkpoint() throws IOException {
+
+    for (Path path : this.dirtyPaths) {
+      force(path);
+    }
+    force(this.repositoryPath);
+    this.dirtyPaths.clear();
+    this.channel.truncate(0);
+    this.channel.force(true);
+    this.journalSize = 0;
+  }
+
+  /**
+   * @param path the {@link Path} to the file or directory to force to the disk.
+   * @throws IOException on I/O error.
+   */
+  static void force(Path path) throws IOException {
+
+    try (FileChannel pathChannel = FileChannel.open(path, StandardOpenOption.READ)) {
+      pathChannel.force(true);
+    } catch (IOException e) {
+      if (!Files.isDirectory(path)) {
+        throw e;
+      }
+      // some platforms do not support to force directories
+    }
+  }
+
+  /**
+   * Commits all pending writes, checkpoints and closes the journal.
+   */
+  @Override
+  public void close() {
+
+    synchronized (this) {
+      if (this.closed) {
+        return;
+      }
+      this.closed = true;
+      notifyAll();
+    }
+    try {
+      this.committerThread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while closing journal", e);
+    }
+    try {
+      if (this.failure == null) {
+        checkpoint();
+      }
+      this.channel.close();
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to close journal " + this.journalFile, e);
+    }
+    if (this.failure != null) {
+      throw this.failure;
+    }
+  }
+
+  /**
+   * Writes the given {@code data} to a uniquely named temporary file in the same directory that is then atomically
+   * renamed to the given {@code file}. So the {@code file} either has its previous or its new content but is never
+   * half-written. Concurrent writes of the same {@code file} do not interfere as each uses its own temporary file.
+   *
+   * @param file the {@link Path} to the file to write.
+   * @param data the data to write.
+   * @param force {@code true} to force the data of the temporary file to the disk before it is renamed so the
+   *        {@code file} can not end up empty after a crash, {@code false} if the caller guarantees recovery otherwise
+   *        (e.g. by replaying the journal).
+   * @throws IOException on I/O error.
+   */
+  static void writeAtomic(Path file, byte[] data, boolean force) throws IOException {
+
+    Path tempFile = Files.createTempFile(file.getParent(), file.getFileName() + ".", SUFFIX_TEMP);
+    try {
+      try (FileChannel fileChannel = FileChannel.open(tempFile, StandardOpenOption.WRITE,
+          StandardOpenOption.TRUNCATE_EXISTING)) {
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        while (buffer.hasRemaining()) {
+          fileChannel.write(buffer);
+        }
+        if (force) {
+          fileChannel.force(true);
+        }
+      }
+      Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException | RuntimeException e) {
+      Files.deleteIfExists(tempFile);
+      throw e;
+    }
+  }
+
+  /**
+   * The data to write to a file.
+   */
+  static final class FileWrite {
+
+    private final Path file;
+
+    private final byte[] data;
+
+    /**
+     * The constructor.
+     *
+     * @param file the {@link Path} to the file to write.
+     * @param data the data to write.
+     */
+    FileWrite(Path file, byte[] data) {
+
+      super();
+      this.file = file;
+      this.data = data;
+    }
+
+    /**
+     * @return the {@link Path} to the file to write.
+     */
+    Path getFile() {
+
+      return this.file;
+    }
+
+    /**
+     * @return the data to write.
+     */
+    byte[] getData() {
+
+      return this.data;
+    }
+
+  }
+
+}
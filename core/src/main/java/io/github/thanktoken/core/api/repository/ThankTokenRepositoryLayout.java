@@ -0,0 +1,66 @@
+package io.github.thanktoken.core.api.repository;
+
+import java.nio.file.Path;
+import java.util.List;
+
+import io.github.thanktoken.core.api.id.ThankTokenId;
+import io.github.thanktoken.core.api.id.ThankTokenIdType;
+
+/**
+ * Interface for the strategy how a {@link ThankTokenRepositoryLocalDisk} maps a {@link ThankTokenId} to the relative
+ * folder where the according {@link io.github.thanktoken.core.api.token.ThankToken} is stored.
+ *
+ * @see ThankTokenRepositoryLayoutDefault
+ * @see ThankTokenRepositoryLayoutHashed
+ * @since 1.0.0
+ */
+public interface ThankTokenRepositoryLayout {
+
+  /**
+   * @param id the {@link ThankTokenId}.
+   * @return the {@link List} of path segments of the folder relative to the repository root.
+   */
+  List<String> getRelativePath(ThankTokenId id);
+
+  /**
+   * @param repositoryPath the {@link Path} to the root directory of the repository.
+   * @param id the {@link ThankTokenId}.
+   * @return the {@link Path} to the folder of the {@link io.github.thanktoken.core.api.token.ThankToken} with the
+   *         given {@link ThankTokenId}.
+   */
+  default Path getPath(Path repositoryPath, ThankTokenId id) {
+
+    Path path = repositoryPath;
+    for (String segment : getRelativePath(id)) {
+      path = path.resolve(segment);
+    }
+    return path;
+  }
+
+  /**
+   * Allows to prune a {@link ThankTokenRepositoryLocalDisk#scan(ThankTokenScanFilter) scan} on the directory structure.
+   * The default implementation can not prune and always returns {@code true}.
+   *
+   * @param relativePath the {@link List} of path segments of a directory relative to the repository root as found on
+   *        disk (so empty segments of {@link #getRelativePath(ThankTokenId)} are omitted).
+   * @param filter the {@link ThankTokenScanFilter}.
+   * @return {@code false} if no {@link io.github.thanktoken.core.api.token.ThankToken} in or below the given directory
+   *         can match the given {@link ThankTokenScanFilter}, {@code true} otherwise.
+   */
+  default boolean mayContain(List<String> relativePath, ThankTokenScanFilter filter) {
+
+    return true;
+  }
+
+  /**
+   * @param relativePath the {@link List} of path segments of a directory relative to the repository root.
+   * @return the {@link ThankTokenIdType} if the given directory is the folder of a
+   *         {@link io.github.thanktoken.core.api.token.ThankToken} and the ID can be derived from the path without
+   *         reading a file, {@code null} otherwise. The default implementation always returns {@code null}.
+   */
+  default ThankTokenIdType getId(List<String> relativePath) {
+
+    return null;
+  }
+
+}
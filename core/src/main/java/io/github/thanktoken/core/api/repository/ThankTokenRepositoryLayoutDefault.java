@@ -0,0 +1,146 @@
+package io.github.thanktoken.core.api.repository;
+
+import java.time.DateTimeException;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import io.github.thanktoken.core.api.id.ThankTokenId;
+import io.github.thanktoken.core.api.location.ThankLocation;
+import io.github.thanktoken.core.api.timestamp.ThankTimestamp;
+
+/**
+ * The default implementation of {@link ThankTokenRepositoryLayout}. Uses a human readable hierarchy of
+ * {@code algorithm/version/currency/location-segments/year/month/day/hour/minute/second/nano}. This tree is very deep
+ * and sparse. For large repositories consider {@link ThankTokenRepositoryLayoutHashed} instead.
+ *
+ * @since 1.0.0
+ */
+public class ThankTokenRepositoryLayoutDefault implements ThankTokenRepositoryLayout {
+
+  private static final ThankTokenRepositoryLayoutDefault INSTANCE = new ThankTokenRepositoryLayoutDefault();
+
+  private static final int LEVEL_ALGORITHM = 0;
+
+  private static final int LEVEL_CURRENCY = 2;
+
+  private static final int LEVEL_LOCATION = 3;
+
+  private static final int LEVEL_TIMESTAMP = 6;
+
+  private static final Pattern OLC_SEGMENT_PATTERN = Pattern.compile("[23456789CFGHJMPQRVWX]{2}");
+
+  private static final ChronoUnit[] TIME_UNITS = { ChronoUnit.YEARS, ChronoUnit.MONTHS, ChronoUnit.DAYS,
+      ChronoUnit.HOURS, ChronoUnit.MINUTES, ChronoUnit.SECONDS, ChronoUnit.NANOS };
+
+  /**
+   * The constructor.
+   */
+  protected ThankTokenRepositoryLayoutDefault() {
+
+    super();
+  }
+
+  @Override
+  public List<String> getRelativePath(ThankTokenId id) {
+
+    List<String> path = new ArrayList<>(8);
+    path.add(id.requireAlgorithm().getValue());
+    path.add(id.requireVersion().toString());
+    path.add(id.requireCurrency().getValue());
+    getRelativePath4Location(id.requireLocation(), path);
+    getRelativePath4Timestamp(id.requireTimestamp(), path);
+    return path;
+  }
+
+  private void getRelativePath4Timestamp(ThankTimestamp timestamp, List<String> path) {
+
+    ZonedDateTime dateTime = timestamp.asZonedDateTime();
+    path.add(Integer.toString(dateTime.getYear()));
+    path.add(Integer.toString(dateTime.getMonthValue()));
+    path.add(Integer.toString(dateTime.getDayOfMonth()));
+    path.add(Integer.toString(dateTime.getHour()));
+    path.add(Integer.toString(dateTime.getMinute()));
+    path.add(Integer.toString(dateTime.getSecond()));
+    path.add(Integer.toString(dateTime.getNano()));
+  }
+
+  private void getRelativePath4Location(ThankLocation location, List<String> path) {
+
+    int segmentCount = location.getSegmentCount();
+    for (int segmentIndex = 0; segmentIndex < segmentCount; segmentIndex++) {
+      path.add(location.getSegment(segmentIndex));
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * Prunes on {@link ThankTokenScanFilter#getAlgorithm() algorithm} and {@link ThankTokenScanFilter#getCurrency()
+   * currency}. For {@link io.github.thanktoken.core.api.location.ThankLocationOlc OLC} locations it also prunes on the
+   * {@link ThankTokenScanFilter#getLocationPrefix() location prefix} and the timestamp range.
+   */
+  @Override
+  public boolean mayContain(List<String> relativePath, ThankTokenScanFilter filter) {
+
+    int level = relativePath.size() - 1;
+    String segment = relativePath.get(level);
+    if (level == LEVEL_ALGORITHM) {
+      return (filter.getAlgorithm() == null) || filter.getAlgorithm().getValue().equals(segment);
+    } else if (level == LEVEL_CURRENCY) {
+      return (filter.getCurrency() == null) || filter.getCurrency().getValue().equals(segment);
+    } else if (level < LEVEL_LOCATION) {
+      return true;
+    }
+    int locationEnd = Math.min(level, LEVEL_TIMESTAMP - 1);
+    for (int i = LEVEL_LOCATION; i <= locationEnd; i++) {
+      if (!OLC_SEGMENT_PATTERN.matcher(relativePath.get(i)).matches()) {
+        // not an OLC location so the depth of the location is unknown
+        return true;
+      }
+    }
+    if (level < LEVEL_TIMESTAMP) {
+      String prefix = filter.getLocationPrefix();
+      if (prefix == null) {
+        return true;
+      }
+      String location = String.join("", relativePath.subList(LEVEL_LOCATION, level + 1));
+      return location.startsWith(prefix) || prefix.startsWith(location);
+    }
+    if ((filter.getFrom() == null) && (filter.getTo() == null)) {
+      return true;
+    }
+    return overlapsTimestamp(relativePath.subList(LEVEL_TIMESTAMP, level + 1), filter);
+  }
+
+  private static boolean overlapsTimestamp(List<String> timeSegments, ThankTokenScanFilter filter) {
+
+    int size = timeSegments.size();
+    if (size > TIME_UNITS.length) {
+      return true;
+    }
+    int[] fields = { 0, 1, 1, 0, 0, 0, 0 };
+    try {
+      for (int i = 0; i < size; i++) {
+        fields[i] = Integer.parseInt(timeSegments.get(i));
+      }
+      ZonedDateTime start = ZonedDateTime.of(fields[0], fields[1], fields[2], fields[3], fields[4], fields[5],
+          fields[6], ThankTimestamp.UTC);
+      ZonedDateTime end = start.plus(1, TIME_UNITS[size - 1]);
+      return filter.overlapsTimestamp(start.toInstant(), end.toInstant());
+    } catch (NumberFormatException | DateTimeException e) {
+      return true;
+    }
+  }
+
+  /**
+   * @return the singleton instance of this {@link ThankTokenRepositoryLayoutDefault}.
+   */
+  public static ThankTokenRepositoryLayoutDefault get() {
+
+    return INSTANCE;
+  }
+
+}
@@ -0,0 +1,104 @@
+package io.github.thanktoken.core.api.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import io.github.thanktoken.core.api.id.ThankTokenId;
+import io.github.thanktoken.core.api.id.ThankTokenIdKey;
+import io.github.thanktoken.core.api.id.ThankTokenIdType;
+
+/**
+ * Implementation of {@link ThankTokenRepositoryLayout} with a fixed-depth hashed fan-out. The folder of a
+ * {@link io.github.thanktoken.core.api.token.ThankToken} is named by the hex encoding of its compact
+ * {@link ThankTokenIdKey} and placed below {@link #getDepth() depth} levels of directories named by two hex digits of
+ * its {@link ThankTokenIdKey#getHash64() stable hash}. So with the default depth of {@code 2} there are at most
+ * {@code 65536} directories that are evenly filled and the tree stays flat and friendly for directory caches and
+ * backups.
+ *
+ * @since 1.0.0
+ */
+public class ThankTokenRepositoryLayoutHashed implements ThankTokenRepositoryLayout {
+
+  /** The default {@link #getDepth() depth}. */
+  public static final int DEFAULT_DEPTH = 2;
+
+  private static final ThankTokenRepositoryLayoutHashed INSTANCE = new ThankTokenRepositoryLayoutHashed(DEFAULT_DEPTH);
+
+  private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+  private final int depth;
+
+  /**
+   * The constructor.
+   *
+   * @param depth the {@link #getDepth() depth}.
+   */
+  public ThankTokenRepositoryLayoutHashed(int depth) {
+
+    super();
+    if ((depth < 1) || (depth > 4)) {
+      throw new IllegalArgumentException(Integer.toString(depth));
+    }
+    this.depth = depth;
+  }
+
+  /**
+   * @return the number of hashed directory levels (each with up to {@code 256} directories).
+   */
+  public int getDepth() {
+
+    return this.depth;
+  }
+
+  @Override
+  public List<String> getRelativePath(ThankTokenId id) {
+
+    ThankTokenIdKey key = ThankTokenIdKey.of(id);
+    long hash = key.getHash64();
+    List<String> path = new ArrayList<>(this.depth + 1);
+    for (int level = 0; level < this.depth; level++) {
+      int b = (int) (hash >>> (56 - level * 8)) & 0xFF;
+      path.add(new String(new char[] { HEX[b >>> 4], HEX[b & 0x0F] }));
+    }
+    path.add(key.toString());
+    return path;
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * The ID is decoded from the folder name so a scan does not need to read any file to filter.
+   */
+  @Override
+  public ThankTokenIdType getId(List<String> relativePath) {
+
+    if (relativePath.size() != this.depth + 1) {
+      return null;
+    }
+    String folderName = relativePath.get(this.depth);
+    int length = folderName.length();
+    if ((length < 2 * ThankTokenIdKey.COMPACT_LENGTH) || ((length % 2) != 0)) {
+      return null;
+    }
+    byte[] bytes = new byte[length / 2];
+    for (int i = 0; i < bytes.length; i++) {
+      int high = Character.digit(folderName.charAt(2 * i), 16);
+      int low = Character.digit(folderName.charAt(2 * i + 1), 16);
+      if ((high < 0) || (low < 0)) {
+        return null;
+      }
+      bytes[i] = (byte) ((high << 4) | low);
+    }
+    return ThankTokenIdKey.of(bytes).toId();
+  }
+
+  /**
+   * @return the instance of this {@link ThankTokenRepositoryLayoutHashed} with the {@link #DEFAULT_DEPTH default
+   *         depth}.
+   */
+  public static ThankTokenRepositoryLayoutHashed get() {
+
+    return INSTANCE;
+  }
+
+}
@@ -0,0 +1,138 @@
+package io.github.thanktoken.core.api.repository;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Objects;
+
+import io.github.thanktoken.core.api.id.ThankTokenIdType;
+import io.github.thanktoken.core.api.io.ThankReader;
+import io.github.thanktoken.core.api.io.ThankReaderImpl;
+
+/**
+ * Tool to migrate an existing repository of {@link ThankTokenRepositoryLocalDiskImpl} in place to a different
+ * {@link ThankTokenRepositoryLayout}. The repository is streamed: the directory tree is walked and each
+ * {@link io.github.thanktoken.core.api.token.ThankToken} folder is moved on its own by an atomic rename as soon as it
+ * is found, so the memory consumption does not depend on the size of the repository. Only the header of each token is
+ * read to determine its {@link ThankTokenIdType}. Directories that become empty are deleted. The migration can be
+ * safely restarted if it was interrupted as folders that are already at their target location are skipped.<br>
+ * The repository must not be in use during the migration.
+ *
+ * @since 1.0.0
+ */
+public class ThankTokenRepositoryLayoutMigration {
+
+  private final Path repositoryPath;
+
+  private final ThankTokenRepositoryLayout targetLayout;
+
+  private final ThankReader reader;
+
+  private long migratedCount;
+
+  /**
+   * The constructor.
+   *
+   * @param repositoryPath the {@link Path} to the root directory of the repository to migrate.
+   * @param targetLayout the {@link ThankTokenRepositoryLayout} to migrate to.
+   */
+  public ThankTokenRepositoryLayoutMigration(Path repositoryPath, ThankTokenRepositoryLayout targetLayout) {
+
+    this(repositoryPath, targetLayout, ThankReaderImpl.get());
+  }
+
+  /**
+   * The constructor.
+   *
+   * @param repositoryPath the {@link Path} to the root directory of the repository to migrate.
+   * @param targetLayout the {@link ThankTokenRepositoryLayout} to migrate to.
+   * @param reader the {@link ThankReader} to read the token headers.
+   */
+  public ThankTokenRepositoryLayoutMigration(Path repositoryPath, ThankTokenRepositoryLayout targetLayout,
+      ThankReader reader) {
+
+    super();
+    Objects.requireNonNull(repositoryPath, "repositoryPath");
+    Objects.requireNonNull(targetLayout, "targetLayout");
+    Objects.requireNonNull(reader, "reader");
+    this.repositoryPath = repositoryPath;
+    this.targetLayout = targetLayout;
+    this.reader = reader;
+  }
+
+  /**
+   * Performs the migration.
+   *
+   * @return the number of {@link io.github.thanktoken.core.api.token.ThankToken}s that have been moved.
+   */
+  public long migrate() {
+
+    this.migratedCount = 0;
+    if (!Files.isDirectory(this.repositoryPath)) {
+      return 0;
+    }
+    try {
+      Files.walkFileTree(this.repositoryPath, new SimpleFileVisitor<Path>() {
+
+        @Override
+        public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+
+          Path headerFile = dir.resolve(ThankTokenRepositoryLocalDiskImpl.FILENAME_HEADER);
+          if (Files.isRegularFile(headerFile)) {
+            move(dir, headerFile);
+            return FileVisitResult.SKIP_SUBTREE;
+          }
+          return FileVisitResult.CONTINUE;
+        }
+
+        @Override
+        public FileVisitResult postVisitDirectory(Path dir, IOException e) throws IOException {
+
+          if (e != null) {
+            throw e;
+          }
+          if (!dir.equals(ThankTokenRepositoryLayoutMigration.this.repositoryPath) && isEmpty(dir)) {
+            Files.delete(dir);
+          }
+          return FileVisitResult.CONTINUE;
+        }
+      });
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to migrate repository " + this.repositoryPath, e);
+    }
+    return this.migratedCount;
+  }
+
+  private void move(Path folder, Path headerFile) throws IOException {
+
+    ThankTokenIdType id;
+    try (InputStream in = Files.newInputStream(headerFile)) {
+      id = this.reader.readHeader(in).getId();
+    }
+    Path targetFolder = this.targetLayout.getPath(this.repositoryPath, id);
+    if (targetFolder.equals(folder)) {
+      return;
+    }
+    if (Files.exists(targetFolder)) {
+      throw new FileAlreadyExistsException(targetFolder.toString(), folder.toString(), "Duplicate token " + id);
+    }
+    Files.createDirectories(targetFolder.getParent());
+    Files.move(folder, targetFolder, StandardCopyOption.ATOMIC_MOVE);
+    this.migratedCount++;
+  }
+
+  private static boolean isEmpty(Path dir) throws IOException {
+
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+      return !stream.iterator().hasNext();
+    }
+  }
+
+}
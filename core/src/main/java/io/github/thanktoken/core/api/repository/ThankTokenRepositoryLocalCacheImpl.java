@@ -1,8 +1,11 @@
 package io.github.thanktoken.core.api.repository;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Objects;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.Set;
 
 import io.github.thanktoken.core.api.id.ThankTokenIdType;
 import io.github.thanktoken.core.api.io.ThankNetworkException;
@@ -16,7 +19,7 @@ import io.github.thanktoken.core.api.token.ThankToken;
 public class ThankTokenRepositoryLocalCacheImpl extends AbstractThankTokenRepository implements ThankTokenRepositoryWithValidityWriteAccess {
 
   // 1st level cache (Memory)
-  private final Map<ThankTokenIdType, ThankTokenContainer> firstLevelCache;
+  private final ThankTokenCache firstLevelCache;
 
   private final ThankTokenRepositoryLocalDisk secondLevelCache;
 
@@ -28,11 +31,34 @@ public class ThankTokenRepositoryLocalCacheImpl extends AbstractThankTokenReposi
    */
   public ThankTokenRepositoryLocalCacheImpl(ThankTokenRepositoryLocalDisk secondLevelCache) {
 
+    this(secondLevelCache, new ThankTokenCache());
+  }
+
+  /**
+   * The constructor.
+   *
+   * @param secondLevelCache the {@link ThankTokenRepositoryLocalDisk} used as 2nd level cache and only for valid
+   *        tokens.
+   * @param firstLevelCache the {@link ThankTokenCache} used as bounded 1st level cache in memory.
+   */
+  public ThankTokenRepositoryLocalCacheImpl(ThankTokenRepositoryLocalDisk secondLevelCache,
+      ThankTokenCache firstLevelCache) {
+
     super();
-    this.firstLevelCache = new ConcurrentHashMap<>();
+    Objects.requireNonNull(firstLevelCache, "firstLevelCache");
+    this.firstLevelCache = firstLevelCache;
     this.secondLevelCache = secondLevelCache;
   }
 
+  /**
+   * @return the {@link ThankTokenCache} used as 1st level cache. Can be used to get statistics like the
+   *         {@link ThankTokenCache#getHitCount() hit count}.
+   */
+  public ThankTokenCache getFirstLevelCache() {
+
+    return this.firstLevelCache;
+  }
+
   @Override
   public ThankToken find(ThankTokenIdType id) throws ThankNetworkException {
 
@@ -43,6 +69,32 @@ public class ThankTokenRepositoryLocalCacheImpl extends AbstractThankTokenReposi
     return null;
   }
 
+  @Override
+  public Map<ThankTokenIdType, ThankToken> findAll(Collection<ThankTokenIdType> ids) throws ThankNetworkException {
+
+    Map<ThankTokenIdType, ThankTokenContainer> containers = loadAll(ids);
+    Map<ThankTokenIdType, ThankToken> result = new HashMap<>(containers.size());
+    for (Map.Entry<ThankTokenIdType, ThankTokenContainer> entry : containers.entrySet()) {
+      result.put(entry.getKey(), entry.getValue().getToken());
+    }
+    return result;
+  }
+
+  @Override
+  public Map<ThankTokenIdType, ThankToken> findAllValid(Collection<ThankTokenIdType> ids)
+      throws ThankNetworkException {
+
+    Map<ThankTokenIdType, ThankTokenContainer> containers = loadAll(ids);
+    Map<ThankTokenIdType, ThankToken> result = new HashMap<>(containers.size());
+    for (Map.Entry<ThankTokenIdType, ThankTokenContainer> entry : containers.entrySet()) {
+      ThankTokenContainer container = entry.getValue();
+      if (container.isValid()) {
+        result.put(entry.getKey(), container.getToken());
+      }
+    }
+    return result;
+  }
+
   @Override
   public Boolean getValidity(ThankTokenIdType id) {
 
@@ -101,6 +153,27 @@ public class ThankTokenRepositoryLocalCacheImpl extends AbstractThankTokenReposi
     return container;
   }
 
+  private Map<ThankTokenIdType, ThankTokenContainer> loadAll(Collection<ThankTokenIdType> ids) {
+
+    Map<ThankTokenIdType, ThankTokenContainer> result = this.firstLevelCache.getAll(ids);
+    if (result.size() < ids.size()) {
+      Set<ThankTokenIdType> missingIds = new LinkedHashSet<>(ids.size() - result.size());
+      for (ThankTokenIdType id : ids) {
+        if (!result.containsKey(id)) {
+          missingIds.add(id);
+        }
+      }
+      Map<ThankTokenIdType, ThankToken> tokens = this.secondLevelCache.findAll(missingIds);
+      for (Map.Entry<ThankTokenIdType, ThankToken> entry : tokens.entrySet()) {
+        ThankTokenContainer container = new ThankTokenContainer(entry.getValue());
+        container.setValid(true); // 2nd level cache only contains valid tokens!
+        this.firstLevelCache.put(entry.getKey(), container);
+        result.put(entry.getKey(), container);
+      }
+    }
+    return result;
+  }
+
   @Override
   public void setValidity(ThankToken token, boolean valid) {
 
@@ -113,6 +186,7 @@ public class ThankTokenRepositoryLocalCacheImpl extends AbstractThankTokenReposi
       this.firstLevelCache.put(id, container);
     } else {
       container.setValid(valid);
+      this.firstLevelCache.put(id, container);
     }
     if (valid) {
       this.secondLevelCache.save(token);
@@ -1,5 +1,11 @@
 package io.github.thanktoken.core.api.repository;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import io.github.thanktoken.core.api.id.ThankTokenIdType;
 import io.github.thanktoken.core.api.token.ThankToken;
 
 /**
@@ -15,4 +21,76 @@ public interface ThankTokenRepositoryLocalDisk extends ThankTokenRepository {
    */
   void save(ThankToken token);
 
+  /**
+   * Persists the {@link ThankToken#getTransactions() transactions} of the given {@link ThankToken} starting from the
+   * given index for a {@link ThankToken} that is already stored with the {@link ThankToken#getTransactions()
+   * transactions} before that index. This way the cost of persisting a transfer is proportional to the new
+   * transactions only. The default implementation simply {@link #save(ThankToken) saves} the entire
+   * {@link ThankToken}.
+   *
+   * @param token the {@link ThankToken} that received new {@link ThankToken#getTransactions() transactions}.
+   * @param fromIndex the index of the first new {@link ThankToken#getTransactions() transaction}. A value of
+   *        {@code 0} will save the entire {@link ThankToken}.
+   */
+  default void appendTransactions(ThankToken token, int fromIndex) {
+
+    save(token);
+  }
+
+  /**
+   * Iterates the {@link ThankTokenIdType}s of all {@link ThankToken}s stored in this repository. This is an expensive
+   * operation intended for maintenance like rebuilding indexes or filters. The default implementation is based on
+   * {@link #scan(ThankTokenScanFilter) scan} and does not {@link ThankTokenHandle#getToken() materialize} the
+   * {@link ThankToken}s.<br>
+   * <b>ATTENTION:</b> As {@link #scan(ThankTokenScanFilter) scan} is by default implemented via this method,
+   * implementations have to override at least one of them.
+   *
+   * @param consumer the {@link Consumer} called with the {@link ThankTokenIdType} of each stored {@link ThankToken}.
+   */
+  default void forEachId(Consumer<ThankTokenIdType> consumer) {
+
+    try (Stream<ThankTokenHandle> handles = scan(ThankTokenScanFilter.all())) {
+      handles.forEach(handle -> consumer.accept(handle.getId()));
+    }
+  }
+
+  /**
+   * Scans the {@link ThankToken}s stored in this repository lazily. Implementations prune on their storage structure
+   * where possible so that only the {@link ThankToken}s matching the given {@link ThankTokenScanFilter} are visited.
+   * A {@link ThankToken} is only {@link ThankTokenHandle#getToken() materialized} when the consumer asks for it. The
+   * returned {@link Stream} supports {@link Stream#parallel() parallel} processing. The default implementation
+   * collects the matching {@link ThankTokenIdType}s via {@link #forEachId(Consumer)}. Implementations have to override
+   * at least one of both methods.
+   *
+   * @param filter the {@link ThankTokenScanFilter}.
+   * @return the {@link Stream} of {@link ThankTokenHandle}s for the matching {@link ThankToken}s.
+   */
+  default Stream<ThankTokenHandle> scan(ThankTokenScanFilter filter) {
+
+    List<ThankTokenIdType> ids = new ArrayList<>();
+    forEachId(id -> {
+      if (filter.matches(id)) {
+        ids.add(id);
+      }
+    });
+    return ids.stream().map(id -> new ThankTokenHandle(id, this::find));
+  }
+
+  /**
+   * @return the number of {@link ThankToken}s in this repository or {@code -1} if it can not be determined without
+   *         {@link #forEachId(Consumer) scanning} the disk. The default implementation returns {@code -1}.
+   */
+  default int getSize() {
+
+    return -1;
+  }
+
+  /**
+   * Ensures that all {@link ThankToken}s {@link #save(ThankToken) saved} before are durably stored on the disk (e.g.
+   * via {@code fsync}). The default implementation does nothing.
+   */
+  default void flush() {
+
+  }
+
 }
@@ -0,0 +1,242 @@
+package io.github.thanktoken.core.api.repository;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import io.github.thanktoken.core.api.id.ThankTokenIdType;
+import io.github.thanktoken.core.api.io.ThankNetworkException;
+import io.github.thanktoken.core.api.token.ThankToken;
+
+/**
+ * Implementation of {@link ThankTokenRepositoryLocalDisk} that decorates another {@link ThankTokenRepositoryLocalDisk}
+ * with a {@link ThankTokenBloomFilter} of the stored {@link ThankTokenIdType}s. A {@link #find(ThankTokenIdType) find}
+ * for a {@link ThankToken} that has definitely never been {@link #save(ThankToken) saved} returns {@code null}
+ * without touching the file system.<br>
+ * The filter is persisted to a file on {@link #close()} together with the
+ * {@link ThankTokenRepositoryLocalDisk#getSize() size} of the decorated repository and loaded from there when opened
+ * again. The file is deleted after it has been loaded so that after a crash (where the filter has not been written)
+ * the filter is rebuilt from the {@link ThankTokenRepositoryLocalDisk#forEachId(Consumer) stored tokens}. As
+ * {@link ThankToken}s are never deleted, the persisted filter is only used if the size is still the same so
+ * {@link ThankToken}s saved to the decorated repository in the meantime can not be missed. If the decorated repository
+ * can not determine its size, the filter is always rebuilt. The filter is also rebuilt with a larger size when it gets
+ * {@link ThankTokenBloomFilter#isSaturated() saturated}.
+ *
+ * @since 1.0.0
+ */
+public class ThankTokenRepositoryLocalDiskBloomFilterImpl extends AbstractThankTokenRepository
+    implements ThankTokenRepositoryLocalDisk, AutoCloseable {
+
+  /** The default {@link ThankTokenBloomFilter#getExpectedInsertions() expected number of insertions}. */
+  public static final long DEFAULT_EXPECTED_INSERTIONS = 1_000_000;
+
+  /** The default {@link ThankTokenBloomFilter#getFalsePositiveProbability() false positive probability}. */
+  public static final double DEFAULT_FALSE_POSITIVE_PROBABILITY = 0.01;
+
+  private final ThankTokenRepositoryLocalDisk delegate;
+
+  private final Path filterFile;
+
+  private final double falsePositiveProbability;
+
+  private volatile ThankTokenBloomFilter filter;
+
+  /**
+   * The constructor.
+   *
+   * @param delegate the {@link ThankTokenRepositoryLocalDisk} to decorate.
+   * @param filterFile the {@link Path} to the file where to persist the {@link ThankTokenBloomFilter}.
+   */
+  public ThankTokenRepositoryLocalDiskBloomFilterImpl(ThankTokenRepositoryLocalDisk delegate, Path filterFile) {
+
+    this(delegate, filterFile, DEFAULT_EXPECTED_INSERTIONS, DEFAULT_FALSE_POSITIVE_PROBABILITY);
+  }
+
+  /**
+   * The constructor.
+   *
+   * @param delegate the {@link ThankTokenRepositoryLocalDisk} to decorate.
+   * @param filterFile the {@link Path} to the file where to persist the {@link ThankTokenBloomFilter}.
+   * @param expectedInsertions the {@link ThankTokenBloomFilter#getExpectedInsertions() expected number of insertions}
+   *        used if the filter has to be created.
+   * @param falsePositiveProbability the {@link ThankTokenBloomFilter#getFalsePositiveProbability() false positive
+   *        probability}.
+   */
+  public ThankTokenRepositoryLocalDiskBloomFilterImpl(ThankTokenRepositoryLocalDisk delegate, Path filterFile,
+      long expectedInsertions, double falsePositiveProbability) {
+
+    super();
+    Objects.requireNonNull(delegate, "delegate");
+    Objects.requireNonNull(filterFile, "filterFile");
+    this.delegate = delegate;
+    this.filterFile = filterFile;
+    this.falsePositiveProbability = falsePositiveProbability;
+    this.filter = open(expectedInsertions);
+  }
+
+  private ThankTokenBloomFilter open(long expectedInsertions) {
+
+    if (Files.isRegularFile(this.filterFile)) {
+      ThankTokenBloomFilter persistedFilter = null;
+      int size = this.delegate.getSize();
+      if (size >= 0) {
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(this.filterFile)))) {
+          if (in.readInt() == size) {
+            persistedFilter = ThankTokenBloomFilter.read(in);
+          }
+        } catch (IOException e) {
+          // corrupt filter will be rebuilt
+        }
+      }
+      try {
+        Files.delete(this.filterFile);
+      } catch (IOException e) {
+        throw new IllegalStateException("Failed to delete bloom filter " + this.filterFile, e);
+      }
+      if (persistedFilter != null) {
+        return persistedFilter;
+      }
+    }
+    return rebuild(expectedInsertions);
+  }
+
+  private ThankTokenBloomFilter rebuild(long expectedInsertions) {
+
+    ThankTokenBloomFilter newFilter = new ThankTokenBloomFilter(expectedInsertions, this.falsePositiveProbability);
+    this.delegate.forEachId(newFilter::put);
+    return newFilter;
+  }
+
+  /**
+   * @return the current {@link ThankTokenBloomFilter}.
+   */
+  public ThankTokenBloomFilter getFilter() {
+
+    return this.filter;
+  }
+
+  @Override
+  public ThankToken find(ThankTokenIdType id) throws ThankNetworkException {
+
+    if (!this.filter.mightContain(id)) {
+      return null;
+    }
+    return this.delegate.find(id);
+  }
+
+  @Override
+  public Map<ThankTokenIdType, ThankToken> findAll(Collection<ThankTokenIdType> ids) throws ThankNetworkException {
+
+    ThankTokenBloomFilter currentFilter = this.filter;
+    List<ThankTokenIdType> candidates = new ArrayList<>(ids.size());
+    for (ThankTokenIdType id : ids) {
+      if (currentFilter.mightContain(id)) {
+        candidates.add(id);
+      }
+    }
+    if (candidates.isEmpty()) {
+      return Collections.emptyMap();
+    }
+    return this.delegate.findAll(candidates);
+  }
+
+  @Override
+  public void save(ThankToken token) {
+
+    Objects.requireNonNull(token, "token");
+    this.delegate.save(token);
+    add(token);
+  }
+
+  private void add(ThankToken token) {
+
+    // synchronized so a concurrent rebuild can not miss the token
+    ThankTokenIdType id = token.requireHeader().getId();
+    synchronized (this) {
+      if (this.filter.mightContain(id)) {
+        return;
+      }
+      this.filter.put(id);
+      if (this.filter.isSaturated()) {
+        this.filter = rebuild(2 * this.filter.getExpectedInsertions());
+      }
+    }
+  }
+
+  @Override
+  public void appendTransactions(ThankToken token, int fromIndex) {
+
+    Objects.requireNonNull(token, "token");
+    this.delegate.appendTransactions(token, fromIndex);
+    add(token);
+  }
+
+  @Override
+  public void forEachId(Consumer<ThankTokenIdType> consumer) {
+
+    this.delegate.forEachId(consumer);
+  }
+
+  @Override
+  public Stream<ThankTokenHandle> scan(ThankTokenScanFilter filter) {
+
+    return this.delegate.scan(filter);
+  }
+
+  @Override
+  public int getSize() {
+
+    return this.delegate.getSize();
+  }
+
+  @Override
+  public void flush() {
+
+    this.delegate.flush();
+  }
+
+  /**
+   * Closes the decorated {@link ThankTokenRepositoryLocalDisk} if it is {@link AutoCloseable} and persists the
+   * {@link ThankTokenBloomFilter} with its {@link ThankTokenRepositoryLocalDisk#getSize() size}. The filter is not
+   * persisted if the size can not be determined as it would be rebuilt anyway.
+   */
+  @Override
+  public synchronized void close() {
+
+    if (this.delegate instanceof AutoCloseable) {
+      try {
+        ((AutoCloseable) this.delegate).close();
+      } catch (Exception e) {
+        throw new IllegalStateException("Failed to close " + this.delegate, e);
+      }
+    }
+    int size = this.delegate.getSize();
+    if (size < 0) {
+      return;
+    }
+    Path tempFile = this.filterFile.resolveSibling(this.filterFile.getFileName() + ".tmp");
+    try {
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tempFile)))) {
+        out.writeInt(size);
+        this.filter.write(out);
+      }
+      Files.move(tempFile, this.filterFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to write bloom filter to " + this.filterFile, e);
+    }
+  }
+
+}
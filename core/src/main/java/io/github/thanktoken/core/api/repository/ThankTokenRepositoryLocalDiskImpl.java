@@ -1,13 +1,30 @@
 package io.github.thanktoken.core.api.repository;
 
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Objects;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
+import io.github.mmm.crypto.hash.Hash;
+import io.github.thanktoken.core.api.data.AbstractThankDataObjectWithHash;
 import io.github.thanktoken.core.api.id.ThankTokenId;
 import io.github.thanktoken.core.api.id.ThankTokenIdType;
 import io.github.thanktoken.core.api.io.ThankNetworkException;
@@ -15,19 +32,42 @@ import io.github.thanktoken.core.api.io.ThankReader;
 import io.github.thanktoken.core.api.io.ThankReaderImpl;
 import io.github.thanktoken.core.api.io.ThankWriter;
 import io.github.thanktoken.core.api.io.ThankWriterImpl;
+import io.github.thanktoken.core.api.repository.ThankTokenRepositoryJournal.FileWrite;
 import io.github.thanktoken.core.api.token.ThankToken;
 import io.github.thanktoken.core.api.token.ThankTokenType;
 import io.github.thanktoken.core.api.token.header.ThankTokenHeader;
 import io.github.thanktoken.core.api.transaction.ThankTransaction;
 
 /**
- * TODO hohwille This type ...
+ * Implementation of {@link ThankTokenRepositoryLocalDisk} that stores each {@link ThankToken} in its own folder as
+ * individual files:
+ * <ul>
+ * <li>{@code h.json} - the {@link ThankTokenHeader header}.</li>
+ * <li>{@code tx0.json}, {@code tx1.json}, ... - the {@link ThankTransaction}s in their order.</li>
+ * <li>{@code m.bin} - the {@link ThankTokenManifest manifest} with the number of stored {@link ThankTransaction}s,
+ * the size of each file and the cached {@link ThankTransaction#getHash2Chain() hashes to chain}. It is written last
+ * so it never refers to files that have not been written. {@link ThankToken}s stored by an older version without
+ * manifest are still readable.</li>
+ * </ul>
+ * The location of the folder is determined by the {@link #getLayout() layout} (see
+ * {@link ThankTokenRepositoryLayoutDefault} and {@link ThankTokenRepositoryLayoutHashed}). Saving a {@link ThankToken}
+ * that is already stored only writes the new {@link ThankTransaction}s and the manifest. How the files are written is
+ * configured by the {@link ThankTokenRepositoryWriteMode} and how they are read by the
+ * {@link ThankTokenRepositoryReadMode}.
  *
  * @since 1.0.0
  */
-public class ThankTokenRepositoryLocalDiskImpl extends AbstractThankTokenRepository implements ThankTokenRepositoryLocalDisk {
+public class ThankTokenRepositoryLocalDiskImpl extends AbstractThankTokenRepository
+    implements ThankTokenRepositoryLocalDisk, AutoCloseable {
 
-  private static final String FILENAME_HEADER = "h.json";
+  /** The filename of the header in the folder of a {@link ThankToken}. */
+  static final String FILENAME_HEADER = "h.json";
+
+  /** Files smaller than this size are read into a heap buffer in {@link ThankTokenRepositoryReadMode#MAPPED} mode. */
+  private static final int MIN_MAPPED_SIZE = 16 * 1024;
+
+  /** Maximum number of {@link #dirtyPaths} before they are forced to the disk without waiting for {@link #flush()}. */
+  private static final int MAX_DIRTY_PATHS = 10_000;
 
   private final Path repositoryPath;
 
@@ -35,6 +75,17 @@ public class ThankTokenRepositoryLocalDiskImpl extends AbstractThankTokenReposit
 
   private final ThankWriter writer;
 
+  private final ThankTokenRepositoryReadMode readMode;
+
+  private final ThankTokenRepositoryWriteMode writeMode;
+
+  private final ThankTokenRepositoryJournal journal;
+
+  private final ThankTokenRepositoryLayout layout;
+
+  /** Files and directories written (without {@link #journal}) that have not yet been forced by {@link #flush()}. */
+  private final Set<Path> dirtyPaths;
+
   /**
    * The constructor.
    *
@@ -52,52 +103,276 @@ public class ThankTokenRepositoryLocalDiskImpl extends AbstractThankTokenReposit
    */
   public ThankTokenRepositoryLocalDiskImpl(Path repositoryPath, ThankReader reader, ThankWriter writer) {
 
+    this(repositoryPath, reader, writer, ThankTokenRepositoryReadMode.STREAM);
+  }
+
+  /**
+   * The constructor.
+   *
+   * @param repositoryPath the {@link Path} to the root directory of the repository.
+   * @param reader the {@link ThankReader} to deserialize the {@link ThankToken}s.
+   * @param writer the {@link ThankWriter} to serialize the {@link ThankToken}s.
+   * @param readMode the {@link ThankTokenRepositoryReadMode}.
+   */
+  public ThankTokenRepositoryLocalDiskImpl(Path repositoryPath, ThankReader reader, ThankWriter writer,
+      ThankTokenRepositoryReadMode readMode) {
+
+    this(repositoryPath, reader, writer, readMode, ThankTokenRepositoryWriteMode.DIRECT,
+        ThankTokenRepositoryJournal.DEFAULT_MAX_LATENCY);
+  }
+
+  /**
+   * The constructor.
+   *
+   * @param repositoryPath the {@link Path} to the root directory of the repository.
+   * @param reader the {@link ThankReader} to deserialize the {@link ThankToken}s.
+   * @param writer the {@link ThankWriter} to serialize the {@link ThankToken}s.
+   * @param readMode the {@link ThankTokenRepositoryReadMode}.
+   * @param writeMode the {@link ThankTokenRepositoryWriteMode}.
+   * @param maxCommitLatency the maximum latency a {@link #save(ThankToken) save} waits for further saves to commit
+   *        them together in a single batch. Only used for {@link ThankTokenRepositoryWriteMode#DURABLE}.
+   */
+  public ThankTokenRepositoryLocalDiskImpl(Path repositoryPath, ThankReader reader, ThankWriter writer,
+      ThankTokenRepositoryReadMode readMode, ThankTokenRepositoryWriteMode writeMode, Duration maxCommitLatency) {
+
+    this(repositoryPath, reader, writer, readMode, writeMode, maxCommitLatency,
+        ThankTokenRepositoryLayoutDefault.get());
+  }
+
+  /**
+   * The constructor.
+   *
+   * @param repositoryPath the {@link Path} to the root directory of the repository.
+   * @param reader the {@link ThankReader} to deserialize the {@link ThankToken}s.
+   * @param writer the {@link ThankWriter} to serialize the {@link ThankToken}s.
+   * @param readMode the {@link ThankTokenRepositoryReadMode}.
+   * @param writeMode the {@link ThankTokenRepositoryWriteMode}.
+   * @param maxCommitLatency the maximum latency a {@link #save(ThankToken) save} waits for further saves to commit
+   *        them together in a single batch. Only used for {@link ThankTokenRepositoryWriteMode#DURABLE}.
+   * @param layout the {@link ThankTokenRepositoryLayout}. Use {@link ThankTokenRepositoryLayoutMigration} to migrate
+   *        an existing repository to a different layout.
+   */
+  public ThankTokenRepositoryLocalDiskImpl(Path repositoryPath, ThankReader reader, ThankWriter writer,
+      ThankTokenRepositoryReadMode readMode, ThankTokenRepositoryWriteMode writeMode, Duration maxCommitLatency,
+      ThankTokenRepositoryLayout layout) {
+
     super();
+    Objects.requireNonNull(layout, "layout");
+    Objects.requireNonNull(readMode, "readMode");
+    Objects.requireNonNull(writeMode, "writeMode");
     this.repositoryPath = repositoryPath;
     this.reader = reader;
     this.writer = writer;
+    this.readMode = readMode;
+    this.writeMode = writeMode;
+    this.layout = layout;
+    this.dirtyPaths = new LinkedHashSet<>();
+    if (writeMode == ThankTokenRepositoryWriteMode.DURABLE) {
+      this.journal = new ThankTokenRepositoryJournal(repositoryPath, maxCommitLatency);
+    } else {
+      this.journal = null;
+    }
+  }
+
+  /**
+   * @return the {@link ThankTokenRepositoryReadMode}.
+   */
+  public ThankTokenRepositoryReadMode getReadMode() {
+
+    return this.readMode;
+  }
+
+  /**
+   * @return the {@link ThankTokenRepositoryWriteMode}.
+   */
+  public ThankTokenRepositoryWriteMode getWriteMode() {
+
+    return this.writeMode;
+  }
+
+  /**
+   * @return the {@link ThankTokenRepositoryLayout}.
+   */
+  public ThankTokenRepositoryLayout getLayout() {
+
+    return this.layout;
   }
 
   protected Path getPath(ThankTokenId id) {
 
-    Path path = this.repositoryPath;
-    List<String> relativePath = getRelativePath(id);
-    for (String segment : relativePath) {
-      path = path.resolve(segment);
-    }
-    return path;
+    return this.layout.getPath(this.repositoryPath, id);
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * Reads the {@link ThankTokenManifest manifest} of the {@link ThankToken} and then reads exactly the files listed
+   * there with sized reads. Cached {@link ThankTransaction#getHash2Chain() hashes to chain} are restored.
+   */
   @Override
   public ThankToken find(ThankTokenIdType id) throws ThankNetworkException {
 
     Objects.requireNonNull(id, "id");
     Path folder = getPath(id);
-    if (Files.isDirectory(folder)) {
-      Path headerFile = folder.resolve(FILENAME_HEADER);
-      ThankTokenHeader header;
+    ThankTokenManifest manifest = ThankTokenManifest.read(folder);
+    if (manifest == null) {
+      if (Files.isRegularFile(folder.resolve(FILENAME_HEADER))) {
+        return findWithoutManifest(folder);
+      }
+      return null;
+    }
+    ThankTokenHeader header = readHeader(folder.resolve(FILENAME_HEADER), manifest.getHeaderSize());
+    restoreHash2Chain(header, manifest.getHeaderHash());
+    ThankTokenType token = new ThankTokenType(header);
+    int txCount = manifest.getTxCount();
+    for (int txIndex = 0; txIndex < txCount; txIndex++) {
+      Path txFile = folder.resolve(getTxFilename(txIndex));
+      ThankTransaction tx = readTransaction(header, txFile, manifest.getTxSize(txIndex));
+      restoreHash2Chain(tx, manifest.getTxHash(txIndex));
+      token.addTransaction(tx);
+    }
+    return token;
+  }
+
+  /**
+   * Fallback for {@link ThankToken}s stored without {@link ThankTokenManifest manifest} (by an older version).
+   *
+   * @param folder the {@link Path} to the folder of the {@link ThankToken}.
+   * @return the {@link ThankToken}.
+   */
+  private ThankToken findWithoutManifest(Path folder) {
+
+    ThankTokenHeader header = readHeader(folder.resolve(FILENAME_HEADER), -1);
+    ThankTokenType token = new ThankTokenType(header);
+    int txIndex = 0;
+    while (true) {
+      Path txFile = folder.resolve(getTxFilename(txIndex));
+      if (!Files.isRegularFile(txFile)) {
+        break;
+      }
+      token.addTransaction(readTransaction(header, txFile, -1));
+      txIndex++;
+    }
+    return token;
+  }
+
+  private static void restoreHash2Chain(Object object, Hash hash) {
+
+    if ((hash != null) && (object instanceof AbstractThankDataObjectWithHash)) {
+      ((AbstractThankDataObjectWithHash) object).restoreHash2Chain(hash);
+    }
+  }
+
+  private ThankTokenHeader readHeader(Path headerFile, int size) {
+
+    try {
+      if (this.readMode == ThankTokenRepositoryReadMode.MAPPED) {
+        return this.reader.readHeader(map(headerFile));
+      } else if (size >= 0) {
+        return this.reader.readHeader(read(headerFile, size));
+      }
       try (InputStream in = Files.newInputStream(headerFile)) {
-        header = this.reader.readHeader(in);
-      } catch (IOException e) {
-        throw new IllegalStateException("Failed to read token header from " + headerFile, e);
-      }
-      ThankTokenType token = new ThankTokenType(header);
-      int txIndex = 0;
-      while (true) {
-        Path txFile = folder.resolve(getTxFilename(txIndex));
-        if (!Files.isRegularFile(txFile)) {
-          break;
-        }
-        try (InputStream in = Files.newInputStream(txFile)) {
-          ThankTransaction tx = this.reader.readTransaction(header, in);
-          token.addTransaction(tx);
-        } catch (IOException e) {
-          throw new IllegalStateException("Failed to read token tx from " + txFile, e);
-        }
+        return this.reader.readHeader(in);
       }
-      return token;
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to read token header from " + headerFile, e);
     }
-    return null;
+  }
+
+  private ThankTransaction readTransaction(ThankTokenHeader header, Path txFile, int size) {
+
+    try {
+      if (this.readMode == ThankTokenRepositoryReadMode.MAPPED) {
+        return this.reader.readTransaction(header, map(txFile));
+      } else if (size >= 0) {
+        return this.reader.readTransaction(header, read(txFile, size));
+      }
+      try (InputStream in = Files.newInputStream(txFile)) {
+        return this.reader.readTransaction(header, in);
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to read token tx from " + txFile, e);
+    }
+  }
+
+  /**
+   * @param file the {@link Path} to the file to read.
+   * @param size the known size of the {@code file}.
+   * @return the {@link ByteBuffer} with exactly {@code size} bytes read from the given {@code file}.
+   */
+  private static ByteBuffer read(Path file, int size) throws IOException {
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      return read(channel, file, size);
+    }
+  }
+
+  private static ByteBuffer read(FileChannel channel, Path file, int size) throws IOException {
+
+    ByteBuffer buffer = ByteBuffer.allocate(size);
+    while (buffer.hasRemaining()) {
+      if (channel.read(buffer) < 0) {
+        throw new EOFException("Expected " + size + " bytes in " + file);
+      }
+    }
+    buffer.flip();
+    return buffer;
+  }
+
+  /**
+   * @param file the {@link Path} to the file to map. The mapping stays valid after the {@link FileChannel} is closed.
+   * @return the {@link ByteBuffer} with the entire content of the given {@code file}. A file smaller than
+   *         {@link #MIN_MAPPED_SIZE} is read into a heap buffer instead as mapping it costs more than copying it.
+   */
+  private static ByteBuffer map(Path file) throws IOException {
+
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size < MIN_MAPPED_SIZE) {
+        return read(channel, file, (int) size);
+      }
+      return channel.map(MapMode.READ_ONLY, 0, size);
+    }
+  }
+
+  @Override
+  public void forEachId(Consumer<ThankTokenIdType> consumer) {
+
+    if (!Files.isDirectory(this.repositoryPath)) {
+      return;
+    }
+    try {
+      Files.walkFileTree(this.repositoryPath, new SimpleFileVisitor<Path>() {
+
+        @Override
+        public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+
+          if (FILENAME_HEADER.equals(file.getFileName().toString())) {
+            consumer.accept(readHeader(file, -1).getId());
+          }
+          return FileVisitResult.CONTINUE;
+        }
+      });
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to walk repository " + this.repositoryPath, e);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * Walks the directory tree lazily and skips all directories that can not contain a matching {@link ThankToken}
+   * according to the {@link #getLayout() layout}.
+   */
+  @Override
+  public Stream<ThankTokenHandle> scan(ThankTokenScanFilter filter) {
+
+    Objects.requireNonNull(filter, "filter");
+    if (!Files.isDirectory(this.repositoryPath)) {
+      return Stream.empty();
+    }
+    return StreamSupport.stream(new ThankTokenDirectorySpliterator(this.repositoryPath, this.layout, filter,
+        file -> readHeader(file, -1).getId(), this::find), false);
   }
 
   private String getTxFilename(int txIndex) {
@@ -105,33 +380,232 @@ public class ThankTokenRepositoryLocalDiskImpl extends AbstractThankTokenReposit
     return "tx" + txIndex + ".json";
   }
 
+  /**
+   * {@inheritDoc}
+   *
+   * If the {@link ThankToken} is already stored only the {@link ThankTransaction}s that are not yet stored are
+   * written. A stale copy with no more {@link ThankTransaction}s than already stored is ignored so the stored
+   * {@link ThankTransaction}s are never reduced.
+   */
   @Override
   public void save(ThankToken token) {
 
     Objects.requireNonNull(token, "token");
     ThankTokenHeader header = token.requireHeader();
     Path folder = getPath(header);
+    int txCount = token.getTransactions().size();
+    ThankTokenManifest manifest = ThankTokenManifest.read(folder);
+    if (manifest != null) {
+      write(token, folder, manifest.getTxCount(), manifest);
+    } else if (Files.isRegularFile(folder.resolve(FILENAME_HEADER))) {
+      write(token, folder, getStoredTxCount(folder, txCount), null);
+    } else {
+      write(token, folder, 0, null);
+    }
+  }
+
+  @Override
+  public void appendTransactions(ThankToken token, int fromIndex) {
+
+    Objects.requireNonNull(token, "token");
+    if ((fromIndex < 0) || (fromIndex > token.getTransactions().size())) {
+      throw new IndexOutOfBoundsException(Integer.toString(fromIndex));
+    }
+    Path folder = getPath(token.requireHeader());
+    ThankTokenManifest manifest = ThankTokenManifest.read(folder);
+    if ((manifest != null) || Files.isRegularFile(folder.resolve(FILENAME_HEADER))) {
+      write(token, folder, fromIndex, manifest);
+    } else {
+      write(token, folder, 0, null);
+    }
+  }
+
+  /**
+   * Determines the number of stored {@link ThankTransaction}s by probing the transaction files downwards from the end
+   * as typically only the last (few) {@link ThankTransaction}s are new. Only used for {@link ThankToken}s stored
+   * without {@link ThankTokenManifest manifest}.
+   *
+   * @param folder the {@link Path} to the folder of the {@link ThankToken}.
+   * @param txCount the number of {@link ThankTransaction}s of the {@link ThankToken} to save.
+   * @return the number of {@link ThankTransaction}s that are already stored.
+   */
+  private int getStoredTxCount(Path folder, int txCount) {
+
+    for (int txIndex = txCount - 1; txIndex >= 0; txIndex--) {
+      if (Files.isRegularFile(folder.resolve(getTxFilename(txIndex)))) {
+        return txIndex + 1;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * @param token the {@link ThankToken} to write.
+   * @param folder the {@link Path} to the folder of the {@link ThankToken}.
+   * @param fromIndex the index of the first {@link ThankTransaction} to write or {@code 0} to write the entire
+   *        {@link ThankToken} including its {@link ThankTokenHeader header}. Clamped to the number of
+   *        {@link ThankTransaction}s actually stored so a too high value can never leave a gap. Nothing is written
+   *        if the {@link ThankToken} has no more {@link ThankTransaction}s than already stored.
+   * @param manifest the existing {@link ThankTokenManifest} or {@code null} if none exists.
+   */
+  private void write(ThankToken token, Path folder, int fromIndex, ThankTokenManifest manifest) {
+
+    List<? extends ThankTransaction> transactions = token.getTransactions();
+    int txCount = transactions.size();
+    if (manifest != null) {
+      if (txCount <= manifest.getTxCount()) {
+        return; // nothing new to write and the stored transactions must never be reduced
+      }
+      fromIndex = Math.min(fromIndex, manifest.getTxCount());
+    } else if (Files.isRegularFile(folder.resolve(getTxFilename(txCount)))) {
+      return; // stored without manifest by an older version with more transactions
+    } else if (fromIndex > 0) {
+      fromIndex = getStoredTxCount(folder, fromIndex);
+    }
+    ThankTokenManifest newManifest;
+    if ((manifest == null) || (fromIndex == 0)) {
+      newManifest = ThankTokenManifest.of(txCount);
+      if (fromIndex > 0) {
+        // stored without manifest by an older version
+        try {
+          newManifest.set(0, (int) Files.size(folder.resolve(FILENAME_HEADER)), token.getHeader().getHash2Chain());
+          for (int txIndex = 0; txIndex < fromIndex; txIndex++) {
+            Path txFile = folder.resolve(getTxFilename(txIndex));
+            newManifest.set(txIndex + 1, (int) Files.size(txFile), transactions.get(txIndex).getHash2Chain());
+          }
+        } catch (IOException e) {
+          throw new IllegalStateException("Failed to create manifest for " + folder, e);
+        }
+      }
+    } else {
+      newManifest = manifest.extend(txCount);
+    }
+    List<FileWrite> writes = new ArrayList<>(txCount - fromIndex + 2);
+    if (fromIndex == 0) {
+      ByteArrayOutputStream out = new ByteArrayOutputStream(512);
+      this.writer.writeHeader(token.getHeader(), out);
+      byte[] data = out.toByteArray();
+      newManifest.set(0, data.length, token.getHeader().getHash2Chain());
+      writes.add(new FileWrite(folder.resolve(FILENAME_HEADER), data));
+    }
+    for (int txIndex = fromIndex; txIndex < txCount; txIndex++) {
+      ThankTransaction tx = transactions.get(txIndex);
+      ByteArrayOutputStream out = new ByteArrayOutputStream(512);
+      this.writer.writeTransaction(token, tx, out);
+      byte[] data = out.toByteArray();
+      newManifest.set(txIndex + 1, data.length, tx.getHash2Chain());
+      writes.add(new FileWrite(folder.resolve(getTxFilename(txIndex)), data));
+    }
+    // manifest is written last so it never refers to files that have not been written
+    FileWrite manifestWrite = new FileWrite(folder.resolve(ThankTokenManifest.FILENAME_MANIFEST),
+        newManifest.toBytes());
+    if (this.journal != null) {
+      writes.add(manifestWrite);
+      this.journal.write(writes);
+      return;
+    }
+    List<Path> written = new ArrayList<>(writes.size() + 4);
     try {
-      Files.createDirectories(folder);
+      if (!Files.isDirectory(folder)) {
+        Files.createDirectories(folder);
+        Path parent = folder.getParent();
+        while ((parent != null) && !parent.equals(this.repositoryPath)) {
+          written.add(parent);
+          parent = parent.getParent();
+        }
+      }
     } catch (IOException e) {
       throw new IllegalStateException("Failed to create directory " + folder, e);
     }
-    Path headerFile = folder.resolve(FILENAME_HEADER);
-    try (OutputStream out = Files.newOutputStream(headerFile)) {
-      this.writer.writeHeader(header, out);
+    for (FileWrite write : writes) {
+      try {
+        if (this.writeMode == ThankTokenRepositoryWriteMode.ATOMIC) {
+          ThankTokenRepositoryJournal.writeAtomic(write.getFile(), write.getData(), true);
+        } else {
+          Files.write(write.getFile(), write.getData());
+        }
+      } catch (IOException e) {
+        throw new IllegalStateException("Failed to write token to " + write.getFile(), e);
+      }
+    }
+    try {
+      // always atomic as a torn manifest could not be read
+      ThankTokenRepositoryJournal.writeAtomic(manifestWrite.getFile(), manifestWrite.getData(),
+          this.writeMode == ThankTokenRepositoryWriteMode.ATOMIC);
     } catch (IOException e) {
-      throw new IllegalStateException("Failed to write token header to " + headerFile, e);
+      throw new IllegalStateException("Failed to write manifest to " + manifestWrite.getFile(), e);
     }
-    List<? extends ThankTransaction> transactions = token.getTransactions();
-    int txCount = transactions.size();
-    for (int txIndex = 0; txIndex < txCount; txIndex++) {
-      ThankTransaction tx = transactions.get(txIndex);
-      Path txFile = folder.resolve(getTxFilename(txIndex));
-      try (OutputStream out = Files.newOutputStream(txFile)) {
-        this.writer.writeTransaction(token, tx, out);
+    for (FileWrite write : writes) {
+      written.add(write.getFile());
+    }
+    written.add(manifestWrite.getFile());
+    written.add(folder);
+    List<Path> pathsToForce = null;
+    synchronized (this.dirtyPaths) {
+      this.dirtyPaths.addAll(written);
+      if (this.dirtyPaths.size() >= MAX_DIRTY_PATHS) {
+        pathsToForce = drainDirtyPaths();
+      }
+    }
+    if (pathsToForce != null) {
+      force(pathsToForce);
+    }
+  }
+
+  private List<Path> drainDirtyPaths() {
+
+    List<Path> paths = new ArrayList<>(this.dirtyPaths);
+    this.dirtyPaths.clear();
+    return paths;
+  }
+
+  private void force(List<Path> paths) {
+
+    for (Path path : paths) {
+      try {
+        ThankTokenRepositoryJournal.force(path);
       } catch (IOException e) {
-        throw new IllegalStateException("Failed to write token tx to " + txFile, e);
+        throw new IllegalStateException("Failed to force " + path, e);
+      }
+    }
+    try {
+      ThankTokenRepositoryJournal.force(this.repositoryPath);
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to force " + this.repositoryPath, e);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * In {@link ThankTokenRepositoryWriteMode#DURABLE} mode this blocks until all pending saves have been committed.
+   * Otherwise all files and directories written since the last flush are forced to the disk.
+   */
+  @Override
+  public void flush() {
+
+    if (this.journal != null) {
+      this.journal.flush();
+      return;
+    }
+    List<Path> pathsToForce;
+    synchronized (this.dirtyPaths) {
+      if (this.dirtyPaths.isEmpty()) {
+        return;
       }
+      pathsToForce = drainDirtyPaths();
+    }
+    force(pathsToForce);
+  }
+
+  /**
+   * Commits all pending saves and closes the journal (if {@link ThankTokenRepositoryWriteMode#DURABLE}).
+   */
+  @Override
+  public void close() {
+
+    if (this.journal != null) {
+      this.journal.close();
     }
   }
 
@@ -0,0 +1,175 @@
+package io.github.thanktoken.core.api.repository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import io.github.thanktoken.core.api.id.ThankTokenIdType;
+import io.github.thanktoken.core.api.io.ThankNetworkException;
+import io.github.thanktoken.core.api.token.ThankToken;
+
+/**
+ * Implementation of {@link ThankTokenRepositoryLocalDisk} that decorates another {@link ThankTokenRepositoryLocalDisk}
+ * and keeps {@link ThankTokenIndex secondary indexes} up to date. Each {@link #save(ThankToken) save} and
+ * {@link #appendTransactions(ThankToken, int) append} is passed to all {@link #getIndexes() indexes} after it has been
+ * written by the decorated {@link ThankTokenRepositoryLocalDisk}. An index that
+ * {@link ThankTokenIndex#isRebuildRequired() requires a rebuild} is rebuilt from the
+ * {@link ThankTokenRepositoryLocalDisk#forEachId(Consumer) stored tokens} when this repository is created.
+ *
+ * @since 1.0.0
+ */
+public class ThankTokenRepositoryLocalDiskIndexedImpl extends AbstractThankTokenRepository
+    implements ThankTokenRepositoryLocalDisk, AutoCloseable {
+
+  private final ThankTokenRepositoryLocalDisk delegate;
+
+  private final List<ThankTokenIndex> indexes;
+
+  /**
+   * The constructor.
+   *
+   * @param delegate the {@link ThankTokenRepositoryLocalDisk} to decorate.
+   * @param indexes the {@link ThankTokenIndex}es to maintain.
+   */
+  public ThankTokenRepositoryLocalDiskIndexedImpl(ThankTokenRepositoryLocalDisk delegate, ThankTokenIndex... indexes) {
+
+    super();
+    Objects.requireNonNull(delegate, "delegate");
+    this.delegate = delegate;
+    this.indexes = Collections.unmodifiableList(Arrays.asList(indexes));
+    rebuild();
+  }
+
+  private void rebuild() {
+
+    List<ThankTokenIndex> outdated = new ArrayList<>();
+    for (ThankTokenIndex index : this.indexes) {
+      if (index.isRebuildRequired()) {
+        index.clear();
+        outdated.add(index);
+      }
+    }
+    if (outdated.isEmpty()) {
+      return;
+    }
+    this.delegate.forEachId(id -> {
+      ThankToken token = this.delegate.find(id);
+      if (token != null) {
+        for (ThankTokenIndex index : outdated) {
+          index.update(token);
+        }
+      }
+    });
+  }
+
+  /**
+   * @return the {@link List} of {@link ThankTokenIndex}es maintained by this repository.
+   */
+  public List<ThankTokenIndex> getIndexes() {
+
+    return this.indexes;
+  }
+
+  /**
+   * @param <I> the type of the requested {@link ThankTokenIndex}.
+   * @param indexType the {@link Class} reflecting the requested {@link ThankTokenIndex}.
+   * @return the first {@link #getIndexes() index} of the given type or {@code null} if no such index is maintained.
+   */
+  public <I extends ThankTokenIndex> I getIndex(Class<I> indexType) {
+
+    for (ThankTokenIndex index : this.indexes) {
+      if (indexType.isInstance(index)) {
+        return indexType.cast(index);
+      }
+    }
+    return null;
+  }
+
+  @Override
+  public ThankToken find(ThankTokenIdType id) throws ThankNetworkException {
+
+    return this.delegate.find(id);
+  }
+
+  @Override
+  public Map<ThankTokenIdType, ThankToken> findAll(Collection<ThankTokenIdType> ids) throws ThankNetworkException {
+
+    return this.delegate.findAll(ids);
+  }
+
+  @Override
+  public void save(ThankToken token) {
+
+    Objects.requireNonNull(token, "token");
+    this.delegate.save(token);
+    update(token);
+  }
+
+  @Override
+  public void appendTransactions(ThankToken token, int fromIndex) {
+
+    Objects.requireNonNull(token, "token");
+    this.delegate.appendTransactions(token, fromIndex);
+    update(token);
+  }
+
+  private void update(ThankToken token) {
+
+    for (ThankTokenIndex index : this.indexes) {
+      index.update(token);
+    }
+  }
+
+  @Override
+  public void forEachId(Consumer<ThankTokenIdType> consumer) {
+
+    this.delegate.forEachId(consumer);
+  }
+
+  @Override
+  public Stream<ThankTokenHandle> scan(ThankTokenScanFilter filter) {
+
+    return this.delegate.scan(filter);
+  }
+
+  @Override
+  public int getSize() {
+
+    return this.delegate.getSize();
+  }
+
+  @Override
+  public void flush() {
+
+    this.delegate.flush();
+    for (ThankTokenIndex index : this.indexes) {
+      index.flush();
+    }
+  }
+
+  /**
+   * Closes all {@link #getIndexes() indexes} and the decorated {@link ThankTokenRepositoryLocalDisk} if it is
+   * {@link AutoCloseable}.
+   */
+  @Override
+  public void close() {
+
+    for (ThankTokenIndex index : this.indexes) {
+      index.close();
+    }
+    if (this.delegate instanceof AutoCloseable) {
+      try {
+        ((AutoCloseable) this.delegate).close();
+      } catch (Exception e) {
+        throw new IllegalStateException("Failed to close " + this.delegate, e);
+      }
+    }
+  }
+
+}
@@ -0,0 +1,682 @@
+package io.github.thanktoken.core.api.repository;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import io.github.thanktoken.core.api.id.ThankTokenIdKey;
+import io.github.thanktoken.core.api.id.ThankTokenIdType;
+import io.github.thanktoken.core.api.io.ThankNetworkException;
+import io.github.thanktoken.core.api.io.ThankReader;
+import io.github.thanktoken.core.api.io.ThankReaderImpl;
+import io.github.thanktoken.core.api.io.ThankWriter;
+import io.github.thanktoken.core.api.io.ThankWriterImpl;
+import io.github.thanktoken.core.api.token.ThankToken;
+import io.github.thanktoken.core.api.token.ThankTokenType;
+import io.github.thanktoken.core.api.token.header.ThankTokenHeader;
+import io.github.thanktoken.core.api.transaction.ThankTransaction;
+
+/**
+ * Implementation of {@link ThankTokenRepositoryLocalDisk} that appends {@link ThankToken}s to large rolling segment
+ * files instead of creating a directory per {@link ThankToken} and a file per {@link ThankTransaction}. An
+ * in-memory index maps the compact {@link ThankTokenIdKey} of each {@link ThankToken} to the position of its latest
+ * record so a {@link #save(ThankToken) save} is a single sequential append and a {@link #find(ThankTokenIdType) find}
+ * is a single positioned read. The index is rebuilt from the segment files when the repository is opened. In
+ * {@link ThankTokenRepositoryReadMode#MAPPED mapped mode} the segments are mapped into memory and the records are
+ * parsed directly from slices of the mapping.<br>
+ * When a {@link ThankToken} already stored receives new {@link ThankTransaction}s only these are
+ * {@link #appendTransactions(ThankToken, int) appended} as a transactions record pointing to the previous record of
+ * the {@link ThankToken}.<br>
+ * A token record has the following layout:
+ *
+ * <pre>
+ * int    length (of the record excluding this field)
+ * byte   type (1)
+ * int    header length
+ * byte[] header
+ * int    transaction count
+ * (int transaction length, byte[] transaction)*
+ * </pre>
+ *
+ * A transactions record has the following layout:
+ *
+ * <pre>
+ * int    length (of the record excluding this field)
+ * byte   type (2)
+ * int    segment of previous record
+ * long   position of previous record
+ * int    transaction count
+ * (int transaction length, byte[] transaction)*
+ * </pre>
+ *
+ * @since 1.0.0
+ */
+public class ThankTokenRepositoryLocalDiskSegmentImpl extends AbstractThankTokenRepository
+    implements ThankTokenRepositoryLocalDisk, AutoCloseable {
+
+  /** The default {@link #getMaxSegmentSize() maximum segment size} (64 MiB). */
+  public static final long DEFAULT_MAX_SEGMENT_SIZE = 64L * 1024L * 1024L;
+
+  private static final String SEGMENT_PREFIX = "segment-";
+
+  private static final String SEGMENT_SUFFIX = ".log";
+
+  private static final byte RECORD_TYPE_TOKEN = 1;
+
+  private static final byte RECORD_TYPE_TRANSACTIONS = 2;
+
+  private final Path repositoryPath;
+
+  private final ThankReader reader;
+
+  private final ThankWriter writer;
+
+  private final long maxSegmentSize;
+
+  private final ThankTokenRepositoryReadMode readMode;
+
+  private final Map<ThankTokenIdKey, RecordLocation> index;
+
+  private final List<FileChannel> segments;
+
+  private final List<MappedByteBuffer> mappings;
+
+  private long activeSegmentSize;
+
+  /** The index of the first segment with writes not yet {@link #flush() flushed} or {@code -1} for none. */
+  private int unflushedSegment;
+
+  /**
+   * The constructor.
+   *
+   * @param repositoryPath the {@link Path} to the directory where to store the segment files.
+   */
+  public ThankTokenRepositoryLocalDiskSegmentImpl(Path repositoryPath) {
+
+    this(repositoryPath, ThankReaderImpl.get(), ThankWriterImpl.get(), DEFAULT_MAX_SEGMENT_SIZE);
+  }
+
+  /**
+   * The constructor.
+   *
+   * @param repositoryPath the {@link Path} to the directory where to store the segment files.
+   * @param reader the {@link ThankReader} to deserialize the {@link ThankToken}s.
+   * @param writer the {@link ThankWriter} to serialize the {@link ThankToken}s.
+   * @param maxSegmentSize the {@link #getMaxSegmentSize() maximum segment size}.
+   */
+  public ThankTokenRepositoryLocalDiskSegmentImpl(Path repositoryPath, ThankReader reader, ThankWriter writer,
+      long maxSegmentSize) {
+
+    this(repositoryPath, reader, writer, maxSegmentSize, ThankTokenRepositoryReadMode.STREAM);
+  }
+
+  /**
+   * The constructor.
+   *
+   * @param repositoryPath the {@link Path} to the directory where to store the segment files.
+   * @param reader the {@link ThankReader} to deserialize the {@link ThankToken}s.
+   * @param writer the {@link ThankWriter} to serialize the {@link ThankToken}s.
+   * @param maxSegmentSize the {@link #getMaxSegmentSize() maximum segment size}. In
+   *        {@link ThankTokenRepositoryReadMode#MAPPED mapped mode} it may not exceed {@link Integer#MAX_VALUE}.
+   * @param readMode the {@link ThankTokenRepositoryReadMode}.
+   */
+  public ThankTokenRepositoryLocalDiskSegmentImpl(Path repositoryPath, ThankReader reader, ThankWriter writer,
+      long maxSegmentSize, ThankTokenRepositoryReadMode readMode) {
+
+    super();
+    Objects.requireNonNull(repositoryPath, "repositoryPath");
+    Objects.requireNonNull(readMode, "readMode");
+    if ((maxSegmentSize <= 0)
+        || ((readMode == ThankTokenRepositoryReadMode.MAPPED) && (maxSegmentSize > Integer.MAX_VALUE))) {
+      throw new IllegalArgumentException(Long.toString(maxSegmentSize));
+    }
+    this.repositoryPath = repositoryPath;
+    this.reader = reader;
+    this.writer = writer;
+    this.maxSegmentSize = maxSegmentSize;
+    this.readMode = readMode;
+    this.index = new ConcurrentHashMap<>();
+    this.segments = new CopyOnWriteArrayList<>();
+    this.mappings = new CopyOnWriteArrayList<>();
+    this.unflushedSegment = -1;
+    open();
+  }
+
+  /**
+   * @return the maximum size of a segment file in bytes. If appending a record would exceed this size, a new segment
+   *         file is started. A single record larger than this size will still be written to its own segment.
+   */
+  public long getMaxSegmentSize() {
+
+    return this.maxSegmentSize;
+  }
+
+  /**
+   * @return the {@link ThankTokenRepositoryReadMode}.
+   */
+  public ThankTokenRepositoryReadMode getReadMode() {
+
+    return this.readMode;
+  }
+
+  @Override
+  public int getSize() {
+
+    return this.index.size();
+  }
+
+  private void open() {
+
+    try {
+      Files.createDirectories(this.repositoryPath);
+      List<Path> segmentFiles = new ArrayList<>();
+      try (DirectoryStream<Path> stream = Files.newDirectoryStream(this.repositoryPath,
+          SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+        for (Path segmentFile : stream) {
+          segmentFiles.add(segmentFile);
+        }
+      }
+      Collections.sort(segmentFiles);
+      Map<Long, ThankTokenIdKey> position2IdMap = new HashMap<>();
+      int segmentCount = segmentFiles.size();
+      for (int segmentIndex = 0; segmentIndex < segmentCount; segmentIndex++) {
+        Path segmentFile = segmentFiles.get(segmentIndex);
+        if (!segmentFile.equals(getSegmentPath(segmentIndex))) {
+          throw new IllegalStateException("Missing segment " + getSegmentPath(segmentIndex));
+        }
+        FileChannel channel = FileChannel.open(segmentFile, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.segments.add(channel);
+        this.mappings.add(null);
+        this.activeSegmentSize = scan(segmentIndex, channel, position2IdMap);
+      }
+      if (this.segments.isEmpty()) {
+        startSegment();
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to open repository " + this.repositoryPath, e);
+    }
+  }
+
+  /**
+   * Scans the given segment to rebuild the {@link #index}. A record that was only partially written (e.g. due to a
+   * crash) at the end of the segment is truncated.
+   *
+   * @param position2IdMap the {@link Map} from the {@link #getPositionKey(int, long) position} of the records scanned
+   *        so far to the {@link ThankTokenIdKey} of their {@link ThankToken} used to resolve transactions records.
+   * @return the valid size of the segment.
+   */
+  private long scan(int segmentIndex, FileChannel channel, Map<Long, ThankTokenIdKey> position2IdMap)
+      throws IOException {
+
+    long size = channel.size();
+    long position = 0;
+    ByteBuffer lengthBuffer = ByteBuffer.allocate(Integer.BYTES);
+    while (position + Integer.BYTES <= size) {
+      lengthBuffer.clear();
+      readFully(channel, lengthBuffer, position);
+      int length = lengthBuffer.getInt(0);
+      if ((length <= 0) || (position + Integer.BYTES + length > size)) {
+        break;
+      }
+      int recordLength = Integer.BYTES + length;
+      ByteBuffer record = getRecord(segmentIndex, position, recordLength);
+      byte type = record.get(Integer.BYTES);
+      ThankTokenIdKey id;
+      RecordLocation location;
+      if (type == RECORD_TYPE_TOKEN) {
+        int offset = Integer.BYTES + 1;
+        int headerLength = record.getInt(offset);
+        offset = offset + Integer.BYTES;
+        id = this.reader.readHeader(slice(record, offset, headerLength)).getId().getKey();
+        int txCount = record.getInt(offset + headerLength);
+        location = new RecordLocation(segmentIndex, position, recordLength, txCount, null);
+      } else if (type == RECORD_TYPE_TRANSACTIONS) {
+        int offset = Integer.BYTES + 1;
+        int previousSegment = record.getInt(offset);
+        long previousPosition = record.getLong(offset + Integer.BYTES);
+        int txCount = record.getInt(offset + Integer.BYTES + Long.BYTES);
+        id = position2IdMap.get(Long.valueOf(getPositionKey(previousSegment, previousPosition)));
+        RecordLocation previous = (id == null) ? null : this.index.get(id);
+        if ((previous == null) || (previous.segment != previousSegment) || (previous.position != previousPosition)) {
+          throw new IllegalStateException("Dangling transactions record at " + position + " in "
+              + getSegmentPath(segmentIndex));
+        }
+        location = new RecordLocation(segmentIndex, position, recordLength, previous.txCount + txCount, previous);
+      } else {
+        throw new IllegalStateException("Unknown record type " + type + " at " + position + " in "
+            + getSegmentPath(segmentIndex));
+      }
+      this.index.put(id, location);
+      position2IdMap.put(Long.valueOf(getPositionKey(segmentIndex, position)), id);
+      position = position + recordLength;
+    }
+    if (position < size) {
+      this.mappings.set(segmentIndex, null);
+      channel.truncate(position);
+    }
+    return position;
+  }
+
+  private static long getPositionKey(int segmentIndex, long position) {
+
+    return (((long) segmentIndex) << 40) | position;
+  }
+
+  private void startSegment() throws IOException {
+
+    Path segmentFile = getSegmentPath(this.segments.size());
+    FileChannel channel = FileChannel.open(segmentFile, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+        StandardOpenOption.WRITE);
+    this.segments.add(channel);
+    this.mappings.add(null);
+    this.activeSegmentSize = 0;
+  }
+
+  private Path getSegmentPath(int segmentIndex) {
+
+    String segmentNumber = String.format("%08d", Integer.valueOf(segmentIndex));
+    return this.repositoryPath.resolve(SEGMENT_PREFIX + segmentNumber + SEGMENT_SUFFIX);
+  }
+
+  @Override
+  public ThankToken find(ThankTokenIdType id) throws ThankNetworkException {
+
+    Objects.requireNonNull(id, "id");
+    RecordLocation location = this.index.get(id.getKey());
+    if (location == null) {
+      return null;
+    }
+    try {
+      return readRecord(location);
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to read token " + id + " from " + getSegmentPath(location.segment), e);
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * The records are read sorted by segment and position so the segments are read sequentially.
+   */
+  @Override
+  public Map<ThankTokenIdType, ThankToken> findAll(Collection<ThankTokenIdType> ids) throws ThankNetworkException {
+
+    List<RecordLocation> locations = new ArrayList<>(ids.size());
+    Map<RecordLocation, ThankTokenIdType> location2IdMap = new HashMap<>(ids.size());
+    for (ThankTokenIdType id : ids) {
+      RecordLocation location = this.index.get(id.getKey());
+      if ((location != null) && (location2IdMap.put(location, id) == null)) {
+        locations.add(location);
+      }
+    }
+    locations.sort(RecordLocation.COMPARATOR);
+    Map<ThankTokenIdType, ThankToken> result = new HashMap<>(locations.size());
+    for (RecordLocation location : locations) {
+      ThankTokenIdType id = location2IdMap.get(location);
+      try {
+        result.put(id, readRecord(location));
+      } catch (IOException e) {
+        throw new IllegalStateException("Failed to read token " + id + " from " + getSegmentPath(location.segment), e);
+      }
+    }
+    return result;
+  }
+
+  private ThankTokenType readRecord(RecordLocation location) throws IOException {
+
+    // collect the chain of records from the token record to the latest transactions record
+    List<RecordLocation> chain = new ArrayList<>();
+    RecordLocation current = location;
+    while (current != null) {
+      chain.add(current);
+      current = current.previous;
+    }
+    RecordLocation tokenLocation = chain.get(chain.size() - 1);
+    ByteBuffer record = getRecord(tokenLocation);
+    int offset = Integer.BYTES;
+    byte type = record.get(offset++);
+    if (type != RECORD_TYPE_TOKEN) {
+      throw new IllegalStateException("Unknown record type " + type);
+    }
+    int headerLength = record.getInt(offset);
+    offset = offset + Integer.BYTES;
+    ThankTokenHeader header = this.reader.readHeader(slice(record, offset, headerLength));
+    offset = offset + headerLength;
+    ThankTokenType token = new ThankTokenType(header);
+    readTransactions(record, offset, token);
+    for (int i = chain.size() - 2; i >= 0; i--) {
+      record = getRecord(chain.get(i));
+      offset = Integer.BYTES;
+      type = record.get(offset++);
+      if (type != RECORD_TYPE_TRANSACTIONS) {
+        throw new IllegalStateException("Unknown record type " + type);
+      }
+      offset = offset + Integer.BYTES + Long.BYTES;
+      readTransactions(record, offset, token);
+    }
+    return token;
+  }
+
+  private void readTransactions(ByteBuffer record, int txCountOffset, ThankTokenType token) {
+
+    ThankTokenHeader header = token.getHeader();
+    int offset = txCountOffset;
+    int txCount = record.getInt(offset);
+    offset = offset + Integer.BYTES;
+    for (int txIndex = 0; txIndex < txCount; txIndex++) {
+      int txLength = record.getInt(offset);
+      offset = offset + Integer.BYTES;
+      ThankTransaction tx = this.reader.readTransaction(header, slice(record, offset, txLength));
+      token.addTransaction(tx);
+      offset = offset + txLength;
+    }
+  }
+
+  /**
+   * @param location the {@link RecordLocation}.
+   * @return a {@link ByteBuffer} with the data of the record starting at index {@code 0}. In
+   *         {@link ThankTokenRepositoryReadMode#MAPPED mapped mode} this is a slice of the segment mapping,
+   *         otherwise the record is read into a heap buffer.
+   */
+  private ByteBuffer getRecord(RecordLocation location) throws IOException {
+
+    return getRecord(location.segment, location.position, location.length);
+  }
+
+  private ByteBuffer getRecord(int segmentIndex, long position, int length) throws IOException {
+
+    if (this.readMode == ThankTokenRepositoryReadMode.MAPPED) {
+      MappedByteBuffer mapping = getMapping(segmentIndex, position + length);
+      if (mapping != null) {
+        return slice(mapping, (int) position, length).slice();
+      }
+      // record in the unmapped tail of the active segment
+    }
+    ByteBuffer buffer = ByteBuffer.allocate(length);
+    readFully(this.segments.get(segmentIndex), buffer, position);
+    buffer.flip();
+    return buffer;
+  }
+
+  /**
+   * @param segmentIndex the index of the segment.
+   * @param end the minimum size of the mapping. If the existing mapping is smaller (because records have been appended
+   *        to the segment since it was mapped), the segment is mapped again if it is no longer the active segment or
+   *        has at least doubled in size since it was mapped. So the active segment is only mapped a logarithmic number
+   *        of times while it grows and a completed segment is mapped once and the mapping is reused for all reads.
+   * @return the {@link MappedByteBuffer} of the segment or {@code null} if the record ending at {@code end} is not
+   *         covered by the current mapping and shall be read into a heap buffer.
+   */
+  private MappedByteBuffer getMapping(int segmentIndex, long end) throws IOException {
+
+    MappedByteBuffer mapping = this.mappings.get(segmentIndex);
+    if ((mapping != null) && (mapping.capacity() >= end)) {
+      return mapping;
+    }
+    synchronized (this.mappings) {
+      mapping = this.mappings.get(segmentIndex);
+      if ((mapping == null) || (mapping.capacity() < end)) {
+        FileChannel channel = this.segments.get(segmentIndex);
+        long size = channel.size();
+        boolean active = (segmentIndex == this.segments.size() - 1);
+        if ((mapping != null) && active && (size < 2L * mapping.capacity())) {
+          return null;
+        }
+        // the previous mapping is released by the garbage collector once no slice refers to it anymore
+        mapping = channel.map(MapMode.READ_ONLY, 0, size);
+        this.mappings.set(segmentIndex, mapping);
+      }
+    }
+    return mapping;
+  }
+
+  private static ByteBuffer slice(ByteBuffer buffer, int offset, int length) {
+
+    ByteBuffer slice = buffer.duplicate();
+    slice.limit(offset + length);
+    slice.position(offset);
+    return slice;
+  }
+
+  private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+
+    long pos = position;
+    while (buffer.hasRemaining()) {
+      int bytes = channel.read(buffer, pos);
+      if (bytes < 0) {
+        throw new IOException("Unexpected end of segment at " + pos);
+      }
+      pos = pos + bytes;
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * If the {@link ThankToken} is already stored only the new {@link ThankTransaction}s are
+   * {@link #appendTransactions(ThankToken, int) appended}. A stale copy with no more {@link ThankTransaction}s than
+   * already stored is ignored so the stored {@link ThankTransaction}s are never reduced.
+   */
+  @Override
+  public void save(ThankToken token) {
+
+    Objects.requireNonNull(token, "token");
+    append(token);
+  }
+
+  @Override
+  public void appendTransactions(ThankToken token, int fromIndex) {
+
+    Objects.requireNonNull(token, "token");
+    int txCount = token.getTransactions().size();
+    if ((fromIndex < 0) || (fromIndex > txCount)) {
+      throw new IndexOutOfBoundsException(Integer.toString(fromIndex));
+    }
+    // the index knows exactly which transactions are already stored
+    append(token);
+  }
+
+  /**
+   * Appends a token record if the {@link ThankToken} is not yet stored or a transactions record with the
+   * {@link ThankTransaction}s that are not yet stored. Does nothing if the {@link ThankToken} has no more
+   * {@link ThankTransaction}s than already stored.
+   *
+   * @param token the {@link ThankToken} to write.
+   */
+  private void append(ThankToken token) {
+
+    ThankTokenIdKey id = token.requireHeader().getId().getKey();
+    int txCount = token.getTransactions().size();
+    synchronized (this) {
+      RecordLocation previous = this.index.get(id);
+      int fromIndex = 0;
+      if (previous != null) {
+        if (txCount <= previous.txCount) {
+          return; // stale or unchanged copy
+        }
+        fromIndex = previous.txCount;
+      }
+      ByteBuffer record = createRecord(token, fromIndex, previous);
+      try {
+        if ((this.activeSegmentSize > 0) && (this.activeSegmentSize + record.remaining() > this.maxSegmentSize)) {
+          startSegment();
+        }
+        int segmentIndex = this.segments.size() - 1;
+        FileChannel channel = this.segments.get(segmentIndex);
+        long position = this.activeSegmentSize;
+        int length = record.remaining();
+        while (record.hasRemaining()) {
+          channel.write(record, position + record.position());
+        }
+        this.activeSegmentSize = position + length;
+        if (this.unflushedSegment < 0) {
+          this.unflushedSegment = segmentIndex;
+        }
+        this.index.put(id, new RecordLocation(segmentIndex, position, length, txCount, previous));
+      } catch (IOException e) {
+        throw new IllegalStateException("Failed to write token " + token.getHeader().getId() + " to "
+            + this.repositoryPath, e);
+      }
+    }
+  }
+
+  private ByteBuffer createRecord(ThankToken token, int fromIndex, RecordLocation previous) {
+
+    byte[] headerData = null;
+    int length = 1;
+    if (previous == null) {
+      ThankTokenHeader header = token.getHeader();
+      headerData = write(out -> this.writer.writeHeader(header, out));
+      length = length + Integer.BYTES + headerData.length;
+    } else {
+      length = length + Integer.BYTES + Long.BYTES;
+    }
+    List<? extends ThankTransaction> transactions = token.getTransactions();
+    int txCount = transactions.size() - fromIndex;
+    byte[][] txData = new byte[txCount][];
+    length = length + Integer.BYTES;
+    for (int i = 0; i < txCount; i++) {
+      ThankTransaction tx = transactions.get(fromIndex + i);
+      txData[i] = write(out -> this.writer.writeTransaction(token, tx, out));
+      length = length + Integer.BYTES + txData[i].length;
+    }
+    ByteBuffer record = ByteBuffer.allocate(Integer.BYTES + length);
+    record.putInt(length);
+    if (previous == null) {
+      record.put(RECORD_TYPE_TOKEN);
+      record.putInt(headerData.length);
+      record.put(headerData);
+    } else {
+      record.put(RECORD_TYPE_TRANSACTIONS);
+      record.putInt(previous.segment);
+      record.putLong(previous.position);
+    }
+    record.putInt(txCount);
+    for (byte[] data : txData) {
+      record.putInt(data.length);
+      record.put(data);
+    }
+    record.flip();
+    return record;
+  }
+
+  private static byte[] write(Consumer<ByteArrayOutputStream> serializer) {
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream(512);
+    serializer.accept(out);
+    return out.toByteArray();
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * Forces the segments written since the last flush to the disk. Multiple {@link #save(ThankToken) saves} are
+   * therefore made durable with a single {@code fsync} (group commit).
+   */
+  @Override
+  public void flush() {
+
+    List<FileChannel> channels;
+    synchronized (this) {
+      if (this.unflushedSegment < 0) {
+        return;
+      }
+      channels = new ArrayList<>(this.segments.subList(this.unflushedSegment, this.segments.size()));
+      this.unflushedSegment = -1;
+    }
+    for (FileChannel channel : channels) {
+      try {
+        channel.force(false);
+      } catch (IOException e) {
+        throw new IllegalStateException("Failed to flush segment of " + this.repositoryPath, e);
+      }
+    }
+  }
+
+  @Override
+  public void forEachId(Consumer<ThankTokenIdType> consumer) {
+
+    for (ThankTokenIdKey key : this.index.keySet()) {
+      consumer.accept(key.toId());
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   *
+   * The filter is applied to the in-memory index so only matching {@link ThankToken}s are read from the segments.
+   */
+  @Override
+  public Stream<ThankTokenHandle> scan(ThankTokenScanFilter filter) {
+
+    Objects.requireNonNull(filter, "filter");
+    return this.index.keySet().stream().filter(filter::matches)
+        .map(key -> new ThankTokenHandle(key.toId(), this::find));
+  }
+
+  @Override
+  public synchronized void close() {
+
+    flush();
+    this.mappings.clear();
+    for (FileChannel channel : this.segments) {
+      try {
+        channel.close();
+      } catch (IOException e) {
+        throw new IllegalStateException("Failed to close segment of " + this.repositoryPath, e);
+      }
+    }
+  }
+
+  /**
+   * Location of a record within the segment files.
+   */
+  private static final class RecordLocation {
+
+    private static final Comparator<RecordLocation> COMPARATOR = Comparator
+        .<RecordLocation> comparingInt(location -> location.segment).thenComparingLong(location -> location.position);
+
+    private final int segment;
+
+    private final long position;
+
+    private final int length;
+
+    /** The total number of transactions of the token including this record. */
+    private final int txCount;
+
+    /** The previous record of the token or {@code null} if this is the token record. */
+    private final RecordLocation previous;
+
+    private RecordLocation(int segment, long position, int length, int txCount, RecordLocation previous) {
+
+      super();
+      this.segment = segment;
+      this.position = position;
+      this.length = length;
+      this.txCount = txCount;
+      this.previous = previous;
+    }
+
+  }
+
+}
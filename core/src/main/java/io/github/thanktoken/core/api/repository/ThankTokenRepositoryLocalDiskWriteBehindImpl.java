@@ -0,0 +1,335 @@
+package io.github.thanktoken.core.api.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import io.github.thanktoken.core.api.id.ThankTokenIdType;
+import io.github.thanktoken.core.api.io.ThankNetworkException;
+import io.github.thanktoken.core.api.token.ThankToken;
+
+/**
+ * Implementation of {@link ThankTokenRepositoryLocalDisk} that decorates another {@link ThankTokenRepositoryLocalDisk}
+ * with write-behind persistence. A {@link #save(ThankToken) save} only puts the {@link ThankToken} into a bounded
+ * in-memory queue and returns immediately so the disk latency does not land on the calling (e.g. validating) thread.
+ * A background thread drains the queue, {@link ThankTokenRepositoryLocalDisk#save(ThankToken) saves} the
+ * {@link ThankToken}s to the decorated {@link ThankTokenRepositoryLocalDisk} and then
+ * {@link ThankTokenRepositoryLocalDisk#flush() flushes} it once per batch (group commit).<br>
+ * Repeated saves of the same {@link ThankToken} while it is still queued are coalesced into a single write. A save of
+ * a stale copy with less {@link ThankToken#getTransactions() transactions} than the queued one is ignored. Each queue
+ * entry carries the sequence number of its last save so an entry re-saved while being written (e.g. after a
+ * transaction has been added) stays queued and is written again.<br>
+ * If the queue is full, {@link #save(ThankToken)} blocks until the writer caught up. {@link ThankToken}s that are
+ * queued are still {@link #find(ThankTokenIdType) found}. Call {@link #flush()} or {@link #close()} (e.g. at shutdown)
+ * to guarantee durability.<br>
+ * To take the disk latency off the validation hot path of
+ * {@link ThankTokenRepositoryLocalCacheImpl#setValidity(ThankToken, boolean)} pass an instance of this class as its
+ * 2nd level cache.
+ *
+ * @since 1.0.0
+ */
+public class ThankTokenRepositoryLocalDiskWriteBehindImpl extends AbstractThankTokenRepository
+    implements ThankTokenRepositoryLocalDisk, AutoCloseable {
+
+  /** The default {@link #getCapacity() capacity}. */
+  public static final int DEFAULT_CAPACITY = 10_000;
+
+  private final ThankTokenRepositoryLocalDisk delegate;
+
+  private final int capacity;
+
+  private final Map<ThankTokenIdType, Entry> queue;
+
+  private final Thread writerThread;
+
+  /** Sequence number of the last {@link #save(ThankToken) save} put into the {@link #queue}. */
+  private long enqueuedSequence;
+
+  /** Sequence number of the last {@link #save(ThankToken) save} that has been written and flushed. */
+  private long flushedSequence;
+
+  private RuntimeException failure;
+
+  private boolean closed;
+
+  /**
+   * The constructor.
+   *
+   * @param delegate the {@link ThankTokenRepositoryLocalDisk} to decorate.
+   */
+  public ThankTokenRepositoryLocalDiskWriteBehindImpl(ThankTokenRepositoryLocalDisk delegate) {
+
+    this(delegate, DEFAULT_CAPACITY);
+  }
+
+  /**
+   * The constructor.
+   *
+   * @param delegate the {@link ThankTokenRepositoryLocalDisk} to decorate.
+   * @param capacity the {@link #getCapacity() capacity}.
+   */
+  public ThankTokenRepositoryLocalDiskWriteBehindImpl(ThankTokenRepositoryLocalDisk delegate, int capacity) {
+
+    super();
+    Objects.requireNonNull(delegate, "delegate");
+    if (capacity <= 0) {
+      throw new IllegalArgumentException(Integer.toString(capacity));
+    }
+    this.delegate = delegate;
+    this.capacity = capacity;
+    this.queue = new LinkedHashMap<>();
+    this.writerThread = new Thread(this::write, "ThankToken-WriteBehind");
+    this.writerThread.setDaemon(true);
+    this.writerThread.start();
+  }
+
+  /**
+   * @return the maximum number of {@link ThankToken}s waiting to be written.
+   */
+  public int getCapacity() {
+
+    return this.capacity;
+  }
+
+  /**
+   * @return the number of {@link ThankToken}s currently waiting to be written.
+   */
+  public synchronized int getQueueSize() {
+
+    return this.queue.size();
+  }
+
+  @Override
+  public ThankToken find(ThankTokenIdType id) throws ThankNetworkException {
+
+    synchronized (this) {
+      Entry entry = this.queue.get(id);
+      if (entry != null) {
+        return entry.token;
+      }
+    }
+    return this.delegate.find(id);
+  }
+
+  @Override
+  public Map<ThankTokenIdType, ThankToken> findAll(Collection<ThankTokenIdType> ids) throws ThankNetworkException {
+
+    Map<ThankTokenIdType, ThankToken> result = new HashMap<>(ids.size());
+    List<ThankTokenIdType> missingIds = new ArrayList<>(ids.size());
+    synchronized (this) {
+      for (ThankTokenIdType id : ids) {
+        Entry entry = this.queue.get(id);
+        if (entry == null) {
+          missingIds.add(id);
+        } else {
+          result.put(id, entry.token);
+        }
+      }
+    }
+    if (!missingIds.isEmpty()) {
+      result.putAll(this.delegate.findAll(missingIds));
+    }
+    return result;
+  }
+
+  @Override
+  public void save(ThankToken token) {
+
+    Objects.requireNonNull(token, "token");
+    ThankTokenIdType id = token.requireHeader().getId();
+    synchronized (this) {
+      checkState();
+      Entry queued = this.queue.get(id);
+      while ((queued == null) && (this.queue.size() >= this.capacity)) {
+        awaitInterruptibly();
+        checkState();
+        queued = this.queue.get(id);
+      }
+      if (queued == null) {
+        this.queue.put(id, new Entry(token, ++this.enqueuedSequence));
+      } else if ((token == queued.token)
+          || (token.getTransactions().size() >= queued.token.getTransactions().size())) {
+        // coalesce with the queued save of the same token
+        queued.token = token;
+        queued.sequence = ++this.enqueuedSequence;
+      } else {
+        // stale copy with less transactions than the queued token, nothing to write
+        return;
+      }
+      notifyAll();
+    }
+  }
+
+  @Override
+  public void forEachId(Consumer<ThankTokenIdType> consumer) {
+
+    flush();
+    this.delegate.forEachId(consumer);
+  }
+
+  @Override
+  public Stream<ThankTokenHandle> scan(ThankTokenScanFilter filter) {
+
+    flush();
+    return this.delegate.scan(filter);
+  }
+
+  @Override
+  public int getSize() {
+
+    flush();
+    return this.delegate.getSize();
+  }
+
+  /**
+   * Blocks until all {@link ThankToken}s {@link #save(ThankToken) saved} before have been written and
+   * {@link ThankTokenRepositoryLocalDisk#flush() flushed} by the decorated {@link ThankTokenRepositoryLocalDisk}.
+   */
+  @Override
+  public synchronized void flush() {
+
+    long sequence = this.enqueuedSequence;
+    while (this.flushedSequence < sequence) {
+      if (this.failure != null) {
+        throw new IllegalStateException("Write behind failed", this.failure);
+      } else if (!this.writerThread.isAlive()) {
+        throw new IllegalStateException("Write behind stopped");
+      }
+      awaitInterruptibly();
+    }
+  }
+
+  /**
+   * {@link #flush() Flushes} all queued {@link ThankToken}s, stops the background writer and closes the decorated
+   * {@link ThankTokenRepositoryLocalDisk} if it is {@link AutoCloseable}.
+   */
+  @Override
+  public void close() {
+
+    synchronized (this) {
+      if (this.closed) {
+        return;
+      }
+      flush();
+      this.closed = true;
+      notifyAll();
+    }
+    try {
+      this.writerThread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while closing write behind", e);
+    }
+    if (this.delegate instanceof AutoCloseable) {
+      try {
+        ((AutoCloseable) this.delegate).close();
+      } catch (Exception e) {
+        throw new IllegalStateException("Failed to close " + this.delegate, e);
+      }
+    }
+  }
+
+  private void checkState() {
+
+    if (this.closed) {
+      throw new IllegalStateException("Already closed");
+    } else if (this.failure != null) {
+      throw new IllegalStateException("Write behind failed", this.failure);
+    }
+  }
+
+  private void awaitInterruptibly() {
+
+    try {
+      wait();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while waiting for write behind", e);
+    }
+  }
+
+  /**
+   * The loop of the background writer thread.
+   */
+  private void write() {
+
+    while (true) {
+      List<ThankTokenIdType> batchIds;
+      List<ThankToken> batch;
+      List<Long> batchSequences;
+      long sequence;
+      synchronized (this) {
+        while (this.queue.isEmpty() && !this.closed) {
+          try {
+            wait();
+          } catch (InterruptedException e) {
+            return;
+          }
+        }
+        if (this.queue.isEmpty()) {
+          return;
+        }
+        int size = this.queue.size();
+        batchIds = new ArrayList<>(size);
+        batch = new ArrayList<>(size);
+        batchSequences = new ArrayList<>(size);
+        for (Map.Entry<ThankTokenIdType, Entry> mapEntry : this.queue.entrySet()) {
+          Entry entry = mapEntry.getValue();
+          batchIds.add(mapEntry.getKey());
+          batch.add(entry.token);
+          batchSequences.add(Long.valueOf(entry.sequence));
+        }
+        sequence = this.enqueuedSequence;
+      }
+      try {
+        for (ThankToken token : batch) {
+          this.delegate.save(token);
+        }
+        this.delegate.flush();
+      } catch (RuntimeException e) {
+        synchronized (this) {
+          this.failure = e;
+          notifyAll();
+        }
+        return;
+      }
+      synchronized (this) {
+        for (int i = 0; i < batchIds.size(); i++) {
+          ThankTokenIdType id = batchIds.get(i);
+          // only remove if not saved again in the meantime as the token may have changed after it was written
+          if (this.queue.get(id).sequence == batchSequences.get(i).longValue()) {
+            this.queue.remove(id);
+          }
+        }
+        this.flushedSequence = sequence;
+        notifyAll();
+      }
+    }
+  }
+
+  /**
+   * An entry of the {@link #queue} with the {@link ThankToken} to write and the sequence number of its last
+   * {@link #save(ThankToken) save}.
+   */
+  private static final class Entry {
+
+    private ThankToken token;
+
+    private long sequence;
+
+    private Entry(ThankToken token, long sequence) {
+
+      super();
+      this.token = token;
+      this.sequence = sequence;
+    }
+
+  }
+
+}
@@ -0,0 +1,21 @@
+package io.github.thanktoken.core.api.repository;
+
+/**
+ * The mode how a {@link ThankTokenRepositoryLocalDisk} reads the stored
+ * {@link io.github.thanktoken.core.api.token.ThankToken} data from the disk.
+ *
+ * @since 1.0.0
+ */
+public enum ThankTokenRepositoryReadMode {
+
+  /** Mode to read the data via {@link java.io.InputStream}s or by copying it into a heap buffer. */
+  STREAM,
+
+  /**
+   * Mode to map the data into memory via {@link java.nio.channels.FileChannel#map FileChannel.map} and to hand slices
+   * of the {@link java.nio.MappedByteBuffer} directly to the {@link io.github.thanktoken.core.api.io.ThankReader}. This
+   * avoids copying the data and is recommended for read heavy nodes.
+   */
+  MAPPED
+
+}
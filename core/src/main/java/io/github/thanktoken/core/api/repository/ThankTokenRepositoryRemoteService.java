@@ -1,5 +1,10 @@
 package io.github.thanktoken.core.api.repository;
 
+import java.util.Collection;
+import java.util.Map;
+
+import io.github.thanktoken.core.api.id.ThankTokenIdType;
+import io.github.thanktoken.core.api.io.ThankNetworkException;
 import io.github.thanktoken.core.api.token.ThankToken;
 
 /**
@@ -9,4 +14,17 @@ import io.github.thanktoken.core.api.token.ThankToken;
  */
 public interface ThankTokenRepositoryRemoteService extends ThankTokenRepository {
 
+  /**
+   * {@inheritDoc}
+   *
+   * The default implementation sends one request per {@link ThankTokenIdType} so existing implementations keep
+   * working. Implementations should override this method to retrieve all requested {@link ThankToken}s with a single
+   * batched request to the remote service.
+   */
+  @Override
+  default Map<ThankTokenIdType, ThankToken> findAll(Collection<ThankTokenIdType> ids) throws ThankNetworkException {
+
+    return ThankTokenRepository.super.findAll(ids);
+  }
+
 }
@@ -1,5 +1,9 @@
 package io.github.thanktoken.core.api.repository;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
 import io.github.thanktoken.core.api.id.ThankTokenIdType;
 import io.github.thanktoken.core.api.io.ThankNetworkException;
 import io.github.thanktoken.core.api.token.ThankToken;
@@ -28,6 +32,28 @@ public interface ThankTokenRepositoryWithValidation extends ThankTokenRepository
    */
   ThankToken findValid(ThankTokenIdType id) throws ThankNetworkException;
 
+  /**
+   * Batch variant of {@link #findValid(ThankTokenIdType)}. The default implementation simply delegates to
+   * {@link #findValid(ThankTokenIdType)} for each {@link ThankTokenIdType}.
+   *
+   * @param ids the {@link Collection} of {@link ThankTokenIdType}s to find.
+   * @return the {@link Map} with the valid {@link ThankToken}s that have been found for the given {@code ids}. An
+   *         {@link ThankTokenIdType} that was not found or is invalid is not contained as key.
+   * @throws ThankNetworkException in case of a (temporary) network error.
+   */
+  default Map<ThankTokenIdType, ThankToken> findAllValid(Collection<ThankTokenIdType> ids)
+      throws ThankNetworkException {
+
+    Map<ThankTokenIdType, ThankToken> result = new HashMap<>(ids.size());
+    for (ThankTokenIdType id : ids) {
+      ThankToken token = findValid(id);
+      if (token != null) {
+        result.put(id, token);
+      }
+    }
+    return result;
+  }
+
   /**
    * @param id the {@link ThankTokenIdType} (see
    *        {@link io.github.thanktoken.core.api.reference.ThankTokenReference#resolve(io.github.thanktoken.core.api.token.header.ThankTokenHeader)}).
@@ -0,0 +1,49 @@
+package io.github.thanktoken.core.api.repository;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+import io.github.thanktoken.core.api.id.ThankTokenIdType;
+import io.github.thanktoken.core.api.token.ThankToken;
+
+/**
+ * Asynchronous variant of {@link ThankTokenRepositoryWithValidation}.
+ *
+ * @see ThankTokenRepositoryAsyncAdapter
+ * @since 1.0.0
+ */
+public interface ThankTokenRepositoryWithValidationAsync extends ThankTokenRepositoryAsync {
+
+  /**
+   * @param id the {@link ThankTokenIdType}.
+   * @return the {@link CompletableFuture} with the validity.
+   * @see ThankTokenRepositoryWithValidation#getValidity(ThankTokenIdType)
+   */
+  CompletableFuture<Boolean> getValidityAsync(ThankTokenIdType id);
+
+  /**
+   * @param id the {@link ThankTokenIdType}.
+   * @return the {@link CompletableFuture} with the {@link ThankToken} for the given {@link ThankTokenIdType} or
+   *         {@code null} if not found or invalid.
+   * @see ThankTokenRepositoryWithValidation#findValid(ThankTokenIdType)
+   */
+  CompletableFuture<ThankToken> findValidAsync(ThankTokenIdType id);
+
+  /**
+   * @param id the {@link ThankTokenIdType}.
+   * @return the {@link CompletableFuture} with the {@link ThankToken} for the given {@link ThankTokenIdType} or
+   *         {@code null} if not found. Will be completed exceptionally with a
+   *         {@link io.github.thanktoken.core.api.validate.ThankValidationException} if the validation failed.
+   * @see ThankTokenRepositoryWithValidation#findAndValidate(ThankTokenIdType)
+   */
+  CompletableFuture<ThankToken> findAndValidateAsync(ThankTokenIdType id);
+
+  /**
+   * @param ids the {@link Collection} of {@link ThankTokenIdType}s to find.
+   * @return the {@link CompletableFuture} with the {@link Map} of the valid {@link ThankToken}s that have been found.
+   * @see ThankTokenRepositoryWithValidation#findAllValid(Collection)
+   */
+  CompletableFuture<Map<ThankTokenIdType, ThankToken>> findAllValidAsync(Collection<ThankTokenIdType> ids);
+
+}
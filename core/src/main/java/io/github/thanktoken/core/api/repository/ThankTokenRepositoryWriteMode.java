@@ -0,0 +1,31 @@
+package io.github.thanktoken.core.api.repository;
+
+/**
+ * The mode how a {@link ThankTokenRepositoryLocalDisk} writes the {@link io.github.thanktoken.core.api.token.ThankToken}
+ * data to the disk.
+ *
+ * @since 1.0.0
+ */
+public enum ThankTokenRepositoryWriteMode {
+
+  /**
+   * Mode to write the files in place. Fast but a crash can leave half-written files and nothing is guaranteed to be
+   * durable before {@link ThankTokenRepositoryLocalDisk#flush() flush} forced the written files to the disk.
+   */
+  DIRECT,
+
+  /**
+   * Mode to write each file to a temporary file that is forced to the disk and then atomically renamed to the final
+   * file. A crash can neither leave half-written nor empty files but the latest writes may still be lost until
+   * {@link ThankTokenRepositoryLocalDisk#flush() flush} forced the directories to the disk.
+   */
+  ATOMIC,
+
+  /**
+   * Mode to write {@link #ATOMIC atomically} and durably. The data of all saves within a configurable maximum latency
+   * is first appended to a journal that is forced to the disk once for the entire batch (group commit). Only then the
+   * files are written and the save returns. After a crash the journal is replayed.
+   */
+  DURABLE
+
+}
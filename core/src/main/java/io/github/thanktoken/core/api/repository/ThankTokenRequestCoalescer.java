@@ -0,0 +1,108 @@
+package io.github.thanktoken.core.api.repository;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+import io.github.thanktoken.core.api.id.ThankTokenIdType;
+import io.github.thanktoken.core.api.validate.ThankValidator;
+
+/**
+ * Helper to coalesce concurrent requests for the same {@link ThankTokenIdType} ("single flight"). While a request
+ * for an {@link ThankTokenIdType} is in progress, further callers for the same {@link ThankTokenIdType} do not
+ * perform the request again but wait for and share its result (or exception). A re-entrant request for the same
+ * {@link ThankTokenIdType} from the thread already performing it (e.g. the {@link ThankValidator validator} calling
+ * {@link ThankTokenRepository#find(ThankTokenIdType) find} during validation) is performed directly as waiting for
+ * its own result would dead-lock.
+ *
+ * @param <V> type of the result.
+ * @since 1.0.0
+ */
+class ThankTokenRequestCoalescer<V> {
+
+  private final ConcurrentMap<ThankTokenIdType, PendingRequest<V>> pendingRequests;
+
+  /**
+   * The constructor.
+   */
+  ThankTokenRequestCoalescer() {
+
+    super();
+    this.pendingRequests = new ConcurrentHashMap<>();
+  }
+
+  /**
+   * @param id the {@link ThankTokenIdType} of the request.
+   * @param request the {@link Supplier} performing the actual request. Will only be called if no other request for
+   *        the same {@link ThankTokenIdType} is currently in progress.
+   * @return the result of the {@code request}, potentially performed by another thread.
+   */
+  V execute(ThankTokenIdType id, Supplier<V> request) {
+
+    PendingRequest<V> pendingRequest = new PendingRequest<>();
+    PendingRequest<V> pending = this.pendingRequests.putIfAbsent(id, pendingRequest);
+    if (pending != null) {
+      if (pending.owner == Thread.currentThread()) {
+        return request.get();
+      }
+      return await(pending.future);
+    }
+    CompletableFuture<V> future = pendingRequest.future;
+    try {
+      V result = request.get();
+      future.complete(result);
+      return result;
+    } catch (RuntimeException | Error e) {
+      future.completeExceptionally(e);
+      throw e;
+    } finally {
+      this.pendingRequests.remove(id, pendingRequest);
+    }
+  }
+
+  /**
+   * @param id the {@link ThankTokenIdType} of the request.
+   * @return {@code true} if a request for the given {@link ThankTokenIdType} is currently in progress, {@code false}
+   *         otherwise.
+   */
+  boolean isPending(ThankTokenIdType id) {
+
+    return this.pendingRequests.containsKey(id);
+  }
+
+  private static <V> V await(CompletableFuture<V> future) {
+
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      } else if (cause instanceof Error) {
+        throw (Error) cause;
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * A request in progress with the {@link Thread} performing it.
+   */
+  private static final class PendingRequest<V> {
+
+    private final CompletableFuture<V> future;
+
+    private final Thread owner;
+
+    private PendingRequest() {
+
+      super();
+      this.future = new CompletableFuture<>();
+      this.owner = Thread.currentThread();
+    }
+
+  }
+
+}
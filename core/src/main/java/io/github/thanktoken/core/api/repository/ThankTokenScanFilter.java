@@ -0,0 +1,194 @@
+package io.github.thanktoken.core.api.repository;
+
+import java.time.Instant;
+
+import io.github.thanktoken.core.api.algorithm.ThankAlgorithm;
+import io.github.thanktoken.core.api.currency.ThankCurrency;
+import io.github.thanktoken.core.api.id.ThankTokenId;
+import io.github.thanktoken.core.api.id.ThankTokenIdKey;
+import io.github.thanktoken.core.api.timestamp.ThankTimestamp;
+
+/**
+ * Immutable filter for a {@link ThankTokenRepositoryLocalDisk#scan(ThankTokenScanFilter) scan} of the
+ * {@link io.github.thanktoken.core.api.token.ThankToken}s stored in a repository. Each criteria is optional
+ * ({@code null} matches everything). Start with {@link #all()} and narrow it down with the {@code with} methods.
+ *
+ * @since 1.0.0
+ */
+public final class ThankTokenScanFilter {
+
+  private static final ThankTokenScanFilter ALL = new ThankTokenScanFilter(null, null, null, null, null);
+
+  private final ThankCurrency currency;
+
+  private final ThankAlgorithm algorithm;
+
+  private final String locationPrefix;
+
+  private final Instant from;
+
+  private final Instant to;
+
+  private ThankTokenScanFilter(ThankCurrency currency, ThankAlgorithm algorithm, String locationPrefix, Instant from,
+      Instant to) {
+
+    super();
+    this.currency = currency;
+    this.algorithm = algorithm;
+    this.locationPrefix = locationPrefix;
+    this.from = from;
+    this.to = to;
+  }
+
+  /**
+   * @return the required {@link ThankTokenId#getCurrency() currency} or {@code null} for any.
+   */
+  public ThankCurrency getCurrency() {
+
+    return this.currency;
+  }
+
+  /**
+   * @return the required {@link ThankTokenId#getAlgorithm() algorithm} or {@code null} for any.
+   */
+  public ThankAlgorithm getAlgorithm() {
+
+    return this.algorithm;
+  }
+
+  /**
+   * @return the required prefix of the {@link io.github.thanktoken.core.api.location.ThankLocation#getValue()
+   *         location value} or {@code null} for any.
+   */
+  public String getLocationPrefix() {
+
+    return this.locationPrefix;
+  }
+
+  /**
+   * @return the inclusive lower bound of the {@link ThankTokenId#getTimestamp() timestamp} or {@code null} for none.
+   */
+  public Instant getFrom() {
+
+    return this.from;
+  }
+
+  /**
+   * @return the exclusive upper bound of the {@link ThankTokenId#getTimestamp() timestamp} or {@code null} for none.
+   */
+  public Instant getTo() {
+
+    return this.to;
+  }
+
+  /**
+   * @param newCurrency the {@link #getCurrency() currency}.
+   * @return a copy of this filter with the given {@link #getCurrency() currency}.
+   */
+  public ThankTokenScanFilter withCurrency(ThankCurrency newCurrency) {
+
+    return new ThankTokenScanFilter(newCurrency, this.algorithm, this.locationPrefix, this.from, this.to);
+  }
+
+  /**
+   * @param newAlgorithm the {@link #getAlgorithm() algorithm}.
+   * @return a copy of this filter with the given {@link #getAlgorithm() algorithm}.
+   */
+  public ThankTokenScanFilter withAlgorithm(ThankAlgorithm newAlgorithm) {
+
+    return new ThankTokenScanFilter(this.currency, newAlgorithm, this.locationPrefix, this.from, this.to);
+  }
+
+  /**
+   * @param newLocationPrefix the {@link #getLocationPrefix() location prefix}.
+   * @return a copy of this filter with the given {@link #getLocationPrefix() location prefix}.
+   */
+  public ThankTokenScanFilter withLocationPrefix(String newLocationPrefix) {
+
+    return new ThankTokenScanFilter(this.currency, this.algorithm, newLocationPrefix, this.from, this.to);
+  }
+
+  /**
+   * @param newFrom the {@link #getFrom() inclusive lower bound} or {@code null} for none.
+   * @param newTo the {@link #getTo() exclusive upper bound} or {@code null} for none.
+   * @return a copy of this filter with the given timestamp range.
+   */
+  public ThankTokenScanFilter withTimestampRange(ThankTimestamp newFrom, ThankTimestamp newTo) {
+
+    Instant fromInstant = (newFrom == null) ? null : newFrom.getInstant();
+    Instant toInstant = (newTo == null) ? null : newTo.getInstant();
+    return new ThankTokenScanFilter(this.currency, this.algorithm, this.locationPrefix, fromInstant, toInstant);
+  }
+
+  /**
+   * @param id the {@link ThankTokenId} to match.
+   * @return {@code true} if the given {@link ThankTokenId} matches this filter, {@code false} otherwise.
+   */
+  public boolean matches(ThankTokenId id) {
+
+    if ((this.algorithm != null) && !this.algorithm.equals(id.getAlgorithm())) {
+      return false;
+    } else if ((this.currency != null) && !this.currency.equals(id.getCurrency())) {
+      return false;
+    } else if ((this.locationPrefix != null) && !id.requireLocation().getValue().startsWith(this.locationPrefix)) {
+      return false;
+    }
+    return matchesTimestamp(id.requireTimestamp().getInstant());
+  }
+
+  /**
+   * @param key the {@link ThankTokenIdKey} to match.
+   * @return {@code true} if the given {@link ThankTokenIdKey} matches this filter, {@code false} otherwise. The
+   *         timestamp range is checked on the primitive key data before the key is decoded.
+   */
+  public boolean matches(ThankTokenIdKey key) {
+
+    if ((this.from != null) || (this.to != null)) {
+      if (!matchesTimestamp(key.getTimestamp().getInstant())) {
+        return false;
+      }
+    }
+    if ((this.algorithm == null) && (this.currency == null) && (this.locationPrefix == null)) {
+      return true;
+    }
+    return matches(key.toId());
+  }
+
+  /**
+   * @param instant the {@link Instant} of the {@link ThankTokenId#getTimestamp() timestamp}.
+   * @return {@code true} if the given {@link Instant} is in the timestamp range of this filter.
+   */
+  public boolean matchesTimestamp(Instant instant) {
+
+    if ((this.from != null) && instant.isBefore(this.from)) {
+      return false;
+    } else if ((this.to != null) && !instant.isBefore(this.to)) {
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * @param start the inclusive start of an interval.
+   * @param end the exclusive end of an interval.
+   * @return {@code true} if the given interval overlaps with the timestamp range of this filter.
+   */
+  public boolean overlapsTimestamp(Instant start, Instant end) {
+
+    if ((this.from != null) && !end.isAfter(this.from)) {
+      return false;
+    } else if ((this.to != null) && !start.isBefore(this.to)) {
+      return false;
+    }
+    return true;
+  }
+
+  /**
+   * @return the filter matching all {@link io.github.thanktoken.core.api.token.ThankToken}s.
+   */
+  public static ThankTokenScanFilter all() {
+
+    return ALL;
+  }
+
+}
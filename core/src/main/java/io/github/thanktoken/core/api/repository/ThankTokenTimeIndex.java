@@ -0,0 +1,276 @@
+package io.github.thanktoken.core.api.repository;
+
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import io.github.thanktoken.core.api.id.ThankTokenIdKey;
+import io.github.thanktoken.core.api.id.ThankTokenIdType;
+import io.github.thanktoken.core.api.timestamp.ThankTimestamp;
+import io.github.thanktoken.core.api.token.ThankToken;
+import io.github.thanktoken.core.api.transaction.ThankTransaction;
+
+/**
+ * {@link ThankTokenIndex} of the {@link ThankToken}s by the {@link ThankTimestamp}s when they have been created and
+ * when their {@link ThankTransaction}s have been executed. The {@link Entry entries} are sorted by
+ * {@link ThankTimestamp#getEpochNanos() epoch nanoseconds} so a time range is iterated without walking directories or
+ * parsing any {@link ThankTransaction}.
+ *
+ * @since 1.0.0
+ */
+public class ThankTokenTimeIndex extends AbstractThankTokenIndex {
+
+  private static final int MAGIC = 0x54545431; // TTT1
+
+  private final NavigableSet<Entry> created;
+
+  private final NavigableSet<Entry> transactions;
+
+  private final Map<ThankTokenIdKey, Integer> txCountByToken;
+
+  /**
+   * The constructor.
+   *
+   * @param file the {@link Path} to the file where to persist the index.
+   */
+  public ThankTokenTimeIndex(Path file) {
+
+    super(file, MAGIC);
+    this.created = new ConcurrentSkipListSet<>();
+    this.transactions = new ConcurrentSkipListSet<>();
+    this.txCountByToken = new ConcurrentHashMap<>();
+    open();
+  }
+
+  /**
+   * @param from the inclusive start of the time range or {@code null} for no lower bound.
+   * @param to the exclusive end of the time range or {@code null} for no upper bound.
+   * @return the {@link Stream} of the {@link Entry entries} for the {@link ThankToken}s created in the given time
+   *         range in ascending order.
+   */
+  public Stream<Entry> findCreated(ThankTimestamp from, ThankTimestamp to) {
+
+    return range(this.created, from, to).stream();
+  }
+
+  /**
+   * @param from the inclusive start of the time range or {@code null} for no lower bound.
+   * @param to the exclusive end of the time range or {@code null} for no upper bound.
+   * @return the {@link Stream} of the {@link Entry entries} for the {@link ThankTransaction}s executed in the given
+   *         time range in ascending order.
+   */
+  public Stream<Entry> findTransactions(ThankTimestamp from, ThankTimestamp to) {
+
+    return range(this.transactions, from, to).stream();
+  }
+
+  private static NavigableSet<Entry> range(NavigableSet<Entry> set, ThankTimestamp from, ThankTimestamp to) {
+
+    NavigableSet<Entry> result = set;
+    if (from != null) {
+      result = result.tailSet(Entry.bound(from.getEpochNanos()), true);
+    }
+    if (to != null) {
+      result = result.headSet(Entry.bound(to.getEpochNanos()), false);
+    }
+    return result;
+  }
+
+  @Override
+  public synchronized void update(ThankToken token) {
+
+    ThankTokenIdKey key = token.requireHeader().getId().getKey();
+    Integer indexed = this.txCountByToken.get(key);
+    if (indexed == null) {
+      add(new Entry(key.getEpochNanos(), key, Entry.TX_INDEX_CREATION), true);
+      indexed = Integer.valueOf(0);
+    }
+    List<? extends ThankTransaction> txs = token.getTransactions();
+    for (int i = indexed.intValue(); i < txs.size(); i++) {
+      ThankTimestamp timestamp = txs.get(i).getTimestamp();
+      if (timestamp != null) {
+        add(new Entry(timestamp.getEpochNanos(), key, i), true);
+      }
+    }
+    this.txCountByToken.put(key, Integer.valueOf(Math.max(indexed.intValue(), txs.size())));
+  }
+
+  private void add(Entry entry, boolean log) {
+
+    if (entry.isCreation()) {
+      this.created.add(entry);
+      this.txCountByToken.putIfAbsent(entry.key, Integer.valueOf(0));
+    } else {
+      this.transactions.add(entry);
+      this.txCountByToken.merge(entry.key, Integer.valueOf(entry.txIndex + 1), Math::max);
+    }
+    if (log) {
+      log(entry.toRecord());
+    }
+  }
+
+  @Override
+  protected void replay(ByteBuffer record) {
+
+    ThankTokenIdKey key = ThankTokenIdKey.read(record, record.getShort() & 0xFFFF);
+    int txIndex = record.getInt();
+    add(new Entry(record.getLong(), key, txIndex), false);
+  }
+
+  @Override
+  protected void forEachRecord(Consumer<byte[]> consumer) {
+
+    for (Entry entry : this.created) {
+      consumer.accept(entry.toRecord());
+    }
+    for (Entry entry : this.transactions) {
+      consumer.accept(entry.toRecord());
+    }
+  }
+
+  @Override
+  protected long getRecordCount() {
+
+    return this.created.size() + this.transactions.size();
+  }
+
+  @Override
+  public synchronized void clear() {
+
+    super.clear();
+    this.created.clear();
+    this.transactions.clear();
+    this.txCountByToken.clear();
+  }
+
+  /**
+   * An entry of the {@link ThankTokenTimeIndex} for the creation of a {@link ThankToken} or the execution of one of its
+   * {@link ThankTransaction}s.
+   */
+  public static final class Entry implements Comparable<Entry> {
+
+    /** The {@link #getTxIndex() transaction index} of an entry for the creation of a {@link ThankToken}. */
+    public static final int TX_INDEX_CREATION = -1;
+
+    private final long epochNanos;
+
+    private final ThankTokenIdKey key;
+
+    private final int txIndex;
+
+    private Entry(long epochNanos, ThankTokenIdKey key, int txIndex) {
+
+      super();
+      this.epochNanos = epochNanos;
+      this.key = key;
+      this.txIndex = txIndex;
+    }
+
+    /**
+     * @return the {@link ThankTimestamp#getEpochNanos() epoch nanoseconds} of the {@link #getTimestamp() timestamp}.
+     */
+    public long getEpochNanos() {
+
+      return this.epochNanos;
+    }
+
+    /**
+     * @return the {@link ThankTimestamp} of the creation or {@link ThankTransaction}.
+     */
+    public ThankTimestamp getTimestamp() {
+
+      return ThankTimestamp.ofEpochNanos(this.epochNanos);
+    }
+
+    /**
+     * @return the {@link ThankTokenIdType} of the {@link ThankToken}.
+     */
+    public ThankTokenIdType getId() {
+
+      return this.key.toId();
+    }
+
+    /**
+     * @return the index of the {@link ThankTransaction} in the {@link ThankToken#getTransactions() transactions} or
+     *         {@link #TX_INDEX_CREATION} for the creation of the {@link ThankToken}.
+     */
+    public int getTxIndex() {
+
+      return this.txIndex;
+    }
+
+    /**
+     * @return {@code true} if this entry is for the creation of the {@link ThankToken}, {@code false} otherwise.
+     */
+    public boolean isCreation() {
+
+      return (this.txIndex == TX_INDEX_CREATION);
+    }
+
+    private byte[] toRecord() {
+
+      byte[] keyBytes = this.key.toBytes();
+      ByteBuffer record = ByteBuffer.allocate(14 + keyBytes.length);
+      record.putShort((short) keyBytes.length);
+      record.put(keyBytes);
+      record.putInt(this.txIndex);
+      record.putLong(this.epochNanos);
+      return record.array();
+    }
+
+    @Override
+    public int compareTo(Entry other) {
+
+      int result = Long.compare(this.epochNanos, other.epochNanos);
+      if (result == 0) {
+        if (this.key == null) {
+          result = (other.key == null) ? 0 : -1;
+        } else if (other.key == null) {
+          result = 1;
+        } else {
+          result = this.key.compareTo(other.key);
+        }
+        if (result == 0) {
+          result = Integer.compare(this.txIndex, other.txIndex);
+        }
+      }
+      return result;
+    }
+
+    @Override
+    public int hashCode() {
+
+      return Long.hashCode(this.epochNanos) ^ (31 * this.txIndex);
+    }
+
+    @Override
+    public boolean equals(Object obj) {
+
+      if (obj == this) {
+        return true;
+      } else if ((obj == null) || (obj.getClass() != getClass())) {
+        return false;
+      }
+      return (compareTo((Entry) obj) == 0);
+    }
+
+    @Override
+    public String toString() {
+
+      return getTimestamp() + "@" + this.key + "#" + this.txIndex;
+    }
+
+    private static Entry bound(long epochNanos) {
+
+      return new Entry(epochNanos, null, TX_INDEX_CREATION);
+    }
+
+  }
+
+}
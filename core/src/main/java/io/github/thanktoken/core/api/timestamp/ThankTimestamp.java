@@ -30,6 +30,8 @@ public class ThankTimestamp {
   /** The {@link DateTimeFormatter} used for format and parse date/time data such as {@link Instant}. */
   public static final DateTimeFormatter TIMESTAMP_FORMATTER = DateTimeFormatter.ofPattern("yyyyMMddHHmmss.SSSSSSSSS").withZone(UTC);
 
+  private static final long NANOS_PER_SECOND = 1_000_000_000L;
+
   private final Instant instant;
 
   /**
@@ -52,6 +54,15 @@ public class ThankTimestamp {
     return this.instant;
   }
 
+  /**
+   * @return the {@link #getInstant() instant} as nanoseconds since the epoch. Sorts in the same order as the
+   *         {@link ThankTimestamp}s and covers the years 1677 to 2262.
+   */
+  public long getEpochNanos() {
+
+    return Math.addExact(Math.multiplyExact(this.instant.getEpochSecond(), NANOS_PER_SECOND), this.instant.getNano());
+  }
+
   /**
    * @param timestamp till which the number of days are requested.
    * @return the days from this {@link #getInstant() instant} to the given {@link Instant}. Integer precision is
@@ -195,6 +206,16 @@ public class ThankTimestamp {
     return new ThankTimestamp(Instant.now(ThankNanoClock.INSTANCE));
   }
 
+  /**
+   * @param epochNanos the {@link #getEpochNanos() nanoseconds since the epoch}.
+   * @return the according {@link ThankTimestamp}.
+   */
+  public static ThankTimestamp ofEpochNanos(long epochNanos) {
+
+    long seconds = Math.floorDiv(epochNanos, NANOS_PER_SECOND);
+    return new ThankTimestamp(Instant.ofEpochSecond(seconds, Math.floorMod(epochNanos, NANOS_PER_SECOND)));
+  }
+
   /**
    * @param ts the {@link #toString() string representation}.
    * @return the parsed {@link ThankTimestamp}.
@@ -1,14 +1,20 @@
 package io.github.thanktoken.core.api.header;
 
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 import org.junit.jupiter.api.Test;
 
+import io.github.mmm.crypto.CryptoBinary;
+import io.github.mmm.crypto.hash.HashCreator;
+
 import io.github.thanktoken.core.api.TestCase;
 import io.github.thanktoken.core.api.currency.ThankCurrency;
 import io.github.thanktoken.core.api.location.ThankLocation;
 import io.github.thanktoken.core.api.target.ThankTarget;
 import io.github.thanktoken.core.api.timestamp.ThankTimestamp;
+import io.github.thanktoken.core.api.token.header.ThankTokenHeader;
 import io.github.thanktoken.core.api.token.header.ThankTokenHeaderField;
 import io.github.thanktoken.core.api.value.ThankValue;
 import io.github.thanktoken.core.api.version.ThankVersion;
@@ -80,4 +86,51 @@ public class ThankHeaderFieldTest extends TestCase {
         ThankTokenHeaderField.SIGNATURE);
   }
 
+  /**
+   * Test of {@link ThankTokenHeaderField.FieldMap#get(CharSequence, int, int)} and
+   * {@link ThankTokenHeaderField.FieldMap#get(ByteBuffer, int, int)}.
+   */
+  @Test
+  public void testGet() {
+
+    // given
+    ThankTokenHeaderField.FieldMap fields = ThankTokenHeaderField.getFields();
+    ByteBuffer bytes = ByteBuffer.wrap("{\"amt\":1}".getBytes(StandardCharsets.US_ASCII));
+
+    // when + then
+    assertThat(fields.get("version")).isSameAs(ThankTokenHeaderField.VERSION);
+    assertThat(fields.get(" \"ver\" ")).isSameAs(ThankTokenHeaderField.VERSION);
+    assertThat(fields.get("xcurrencyx", 1, 9)).isSameAs(ThankTokenHeaderField.CURRENCY);
+    assertThat(fields.get(bytes, 2, 5)).isSameAs(ThankTokenHeaderField.AMOUNT);
+    assertThat(fields.get("unknown")).isNull();
+  }
+
+  /**
+   * Test that {@link ThankTokenHeaderField.FieldMap#hash2Sign(ThankTokenHeader, HashCreator)} is byte-identical to
+   * hashing the UTF-8 encoded {@link Object#toString() string representations} of the field values.
+   */
+  @Test
+  public void testHash2Sign() {
+
+    // given
+    ThankTokenHeader header = TEST_TOKEN_P4_HEADER;
+    HashCreator hashCreator = TEST_ALGORITHM.getHashFactory().newHashCreator();
+    for (ThankTokenHeaderField<?> field : ThankTokenHeaderField.getFields()) {
+      Object value = field.get(header);
+      if (value instanceof CryptoBinary) {
+        hashCreator.update((CryptoBinary) value);
+      } else if ((value != null) && (field != ThankTokenHeaderField.SIGNATURE)) {
+        hashCreator.update(value.toString().getBytes(StandardCharsets.UTF_8));
+      }
+    }
+    byte[] expected = hashCreator.hash(true);
+
+    // when
+    byte[] hash = ThankTokenHeaderField.getFields().hash2Sign(header,
+        TEST_ALGORITHM.getHashFactory().newHashCreator());
+
+    // then
+    assertThat(hash).isEqualTo(expected);
+  }
+
 }
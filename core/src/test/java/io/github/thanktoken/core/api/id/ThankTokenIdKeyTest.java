@@ -0,0 +1,70 @@
+package io.github.thanktoken.core.api.id;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.thanktoken.core.api.TestCase;
+import io.github.thanktoken.core.api.location.ThankLocationNuts;
+
+/**
+ * Test of {@link ThankTokenIdKey}.
+ */
+public class ThankTokenIdKeyTest extends TestCase {
+
+  /** Test of {@link ThankTokenIdKey#toBytes()} and {@link ThankTokenIdKey#of(byte[])} for a compact key. */
+  @Test
+  public void testCompact() {
+
+    // given
+    ThankTokenIdType id = TEST_TOKEN_P4_HEADER.getId();
+
+    // when
+    ThankTokenIdKey key = ThankTokenIdKey.of(id);
+    byte[] bytes = key.toBytes();
+    ThankTokenIdKey decoded = ThankTokenIdKey.of(bytes);
+
+    // then
+    assertThat(key.isCompact()).isTrue();
+    assertThat(bytes).hasSize(ThankTokenIdKey.COMPACT_LENGTH);
+    assertThat(decoded).isEqualTo(key);
+    assertThat(decoded.hashCode()).isEqualTo(key.hashCode());
+    assertThat(decoded.getHash64()).isEqualTo(key.getHash64());
+    assertThat(decoded.toId()).isEqualTo(id);
+    assertThat(id.getKey()).isSameAs(key);
+  }
+
+  /** Test of {@link ThankTokenIdKey} for a location that can not be encoded as code. */
+  @Test
+  public void testExtension() {
+
+    // given
+    ThankTokenIdType id = new ThankTokenIdType(TEST_TIMESTAMP, ThankLocationNuts.of("DE/DE1/DE11"), TEST_VERSION,
+        TEST_ALGORITHM, TEST_CURRENCY);
+
+    // when
+    ThankTokenIdKey key = ThankTokenIdKey.of(id);
+    ThankTokenIdKey decoded = ThankTokenIdKey.of(key.toBytes());
+
+    // then
+    assertThat(key.isCompact()).isFalse();
+    assertThat(decoded).isEqualTo(key);
+    assertThat(decoded.toId()).isEqualTo(id);
+  }
+
+  /** Test of {@link ThankTokenIdKey#compareTo(ThankTokenIdKey)} ordering by timestamp. */
+  @Test
+  public void testCompareTo() {
+
+    // given
+    ThankTokenIdKey key = TEST_TOKEN_P4_HEADER.getId().getKey();
+
+    // when
+    ThankTokenIdKey next = new ThankTokenIdType(TEST_TIMESTAMP.next(), TEST_LOCATION, TEST_VERSION, TEST_ALGORITHM,
+        TEST_CURRENCY).getKey();
+
+    // then
+    assertThat(key.compareTo(next)).isNegative();
+    assertThat(next.compareTo(key)).isPositive();
+    assertThat(key.compareTo(key)).isZero();
+  }
+
+}
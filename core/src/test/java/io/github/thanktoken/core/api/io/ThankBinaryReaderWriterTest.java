@@ -0,0 +1,100 @@
+package io.github.thanktoken.core.api.io;
+
+import java.io.ByteArrayOutputStream;
+import java.io.StringWriter;
+import java.nio.ByteBuffer;
+import java.time.Instant;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.thanktoken.core.api.TestCase;
+import io.github.thanktoken.core.api.timestamp.ThankTimestamp;
+import io.github.thanktoken.core.api.token.ThankToken;
+import io.github.thanktoken.core.api.token.header.ThankTokenHeader;
+import io.github.thanktoken.core.api.token.header.ThankTokenHeaderBean;
+import io.github.thanktoken.core.api.token.header.ThankTokenHeaderField;
+import io.github.thanktoken.core.api.transaction.ThankTransaction;
+import io.github.thanktoken.core.api.transaction.ThankTransactionField;
+
+/**
+ * Test of {@link ThankBinaryReader} and {@link ThankBinaryWriter}.
+ */
+public class ThankBinaryReaderWriterTest extends TestCase {
+
+  /** Test that the binary format round-trips losslessly with JSON and is more compact. */
+  @Test
+  public void testRoundTrip() {
+
+    // given
+    ThankWriter writer = ThankFormat.BINARY.getWriter();
+    ByteArrayOutputStream headerOut = new ByteArrayOutputStream();
+    ByteArrayOutputStream txOut = new ByteArrayOutputStream();
+
+    // when
+    writer.writeHeader(TEST_TOKEN_P4_HEADER, headerOut);
+    writer.writeTransaction(TEST_TOKEN_P4, TEST_TOKEN_P4_TX_0, txOut);
+    ThankReader reader = ThankFormatReader.get();
+    ThankTokenHeader header = reader.readHeader(ByteBuffer.wrap(headerOut.toByteArray()));
+    ThankTransaction tx = reader.readTransaction(header, ByteBuffer.wrap(txOut.toByteArray()));
+
+    // then
+    String headerJson = ThankTokenHeaderField.getFields().toJson(TEST_TOKEN_P4_HEADER);
+    assertThat(headerOut.toByteArray()[0] & 0xFF).isEqualTo(ThankBinaryWriter.MARKER);
+    assertThat(headerOut.size()).isLessThan(headerJson.length());
+    assertThat(ThankTokenHeaderField.getFields().toJson(header)).isEqualTo(headerJson);
+    assertThat(ThankTransactionField.getFields().toJson(tx, header))
+        .isEqualTo(ThankTransactionField.getFields().toJson(TEST_TOKEN_P4_TX_0, TEST_TOKEN_P4_HEADER));
+    assertThat(header.getHash2Sign()).isEqualTo(TEST_TOKEN_P4_HEADER.getHash2Sign());
+  }
+
+  /**
+   * Test of the {@link java.io.Writer} and {@link String} variants that write and read the binary format as
+   * {@link java.util.Base64} text.
+   */
+  @Test
+  public void testTextRoundTrip() {
+
+    // given
+    ThankWriter writer = ThankFormat.BINARY.getWriter();
+    StringWriter headerOut = new StringWriter();
+    StringWriter txOut = new StringWriter();
+
+    // when
+    writer.writeHeader(TEST_TOKEN_P4_HEADER, headerOut);
+    writer.writeTransaction(TEST_TOKEN_P4, TEST_TOKEN_P4_TX_0, txOut);
+    ThankToken token = ThankFormatReader.get().read(headerOut.toString(), txOut.toString());
+
+    // then
+    assertThat(headerOut.toString()).startsWith(Character.toString(ThankBinaryWriter.TEXT_MARKER));
+    assertThat(ThankTokenHeaderField.getFields().toJson(token.getHeader()))
+        .isEqualTo(ThankTokenHeaderField.getFields().toJson(TEST_TOKEN_P4_HEADER));
+    assertThat(ThankTransactionField.getFields().toJson(token.getTransactions().get(0), token.getHeader()))
+        .isEqualTo(ThankTransactionField.getFields().toJson(TEST_TOKEN_P4_TX_0, TEST_TOKEN_P4_HEADER));
+  }
+
+  /**
+   * Test that {@link ThankTimestamp}s outside of the range of {@link ThankTimestamp#getEpochNanos() epoch nanos}
+   * round-trip without loss.
+   */
+  @Test
+  public void testTimestampRange() {
+
+    checkTimestamp(new ThankTimestamp(Instant.parse("1000-01-01T00:00:00.000000001Z")));
+    checkTimestamp(new ThankTimestamp(Instant.parse("3000-12-31T23:59:59.999999999Z")));
+  }
+
+  private void checkTimestamp(ThankTimestamp timestamp) {
+
+    // given
+    ThankTokenHeader header = new ThankTokenHeaderBean(TEST_TOKEN_P4_HEADER).setTimestamp(timestamp);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+    // when
+    ThankFormat.BINARY.getWriter().writeHeader(header, out);
+    ThankTokenHeader readHeader = ThankFormat.BINARY.getReader().readHeader(ByteBuffer.wrap(out.toByteArray()));
+
+    // then
+    assertThat(readHeader.getTimestamp()).isEqualTo(timestamp);
+  }
+
+}
@@ -0,0 +1,185 @@
+package io.github.thanktoken.core.api.io;
+
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.thanktoken.core.api.token.header.ThankTokenHeader;
+import io.github.thanktoken.core.api.transaction.ThankTransaction;
+
+/**
+ * Test of {@link ThankJsonByteReader}.
+ */
+public class ThankJsonByteReaderTest extends ThankTokenReaderWriterTest {
+
+  private static final String PREFIX = "garbage";
+
+  private static final String SUFFIX = "}trailing";
+
+  private static final String PUBLIC_PURPOSE_JSON = "\"pp\":\"" + TEST_PUBLIC_PURPOSE + "\"";
+
+  @Override
+  protected ThankReader getReader() {
+
+    return new ThankJsonByteReader();
+  }
+
+  /**
+   * Test of {@link ThankJsonByteReader#readHeader(ByteBuffer)} with escaped values that can not be parsed from the
+   * bytes and fall back to the regular parsing.
+   */
+  @Test
+  public void testReadHeaderFallback() {
+
+    // given
+    String json = EXPECTED_HEADER_STRING.replace("\"amt\":\"100\"", "\"amt\":\"1\\u00300\"")
+        .replace("\"ts\":\"1", "\"ts\":\"\\u0031");
+
+    // when
+    ThankTokenHeader header = getReader().readHeader(wrap(json));
+
+    // then
+    assertThat(header).isEqualToComparingFieldByField(createTestHeader());
+  }
+
+  /**
+   * Test of {@link ThankJsonByteReader#readHeader(ByteBuffer)} with a value that is not in canonical form and
+   * therefore rejected like by {@link ThankReaderImpl}.
+   */
+  @Test
+  public void testReadHeaderNonCanonical() {
+
+    // given
+    String json = EXPECTED_HEADER_STRING.replace("\"amt\":\"100\"", "\"amt\":\"100.0\"");
+
+    // when
+    Throwable error = catchThrowable(() -> getReader().readHeader(wrap(json)));
+    Throwable expectedError = catchThrowable(() -> ThankReaderImpl.get().readHeader(new StringReader(json)));
+
+    // then
+    assertThat(expectedError).isNotNull();
+    assertThat(error).isNotNull().hasMessageContaining("100.0");
+  }
+
+  /** Test of {@link ThankJsonByteReader#readTransaction(ThankTokenHeader, ByteBuffer)} with escaped strings. */
+  @Test
+  public void testReadTxEscaped() {
+
+    // given
+    String json = EXPECTED_TX_STRING.replace(PUBLIC_PURPOSE_JSON,
+        "\"pp\":\"a\\\"b\\\\c\\/d\\u00e4\\n\\t\"").replace("\"ts\"", "\"t\\u0073\"");
+
+    // when
+    ThankTransaction tx = getReader().readTransaction(createTestHeader(), wrap(json));
+
+    // then
+    assertThat(tx.getPublicPurpose()).isEqualTo("a\"b\\c/dä\n\t");
+    assertThat(tx.getTimestamp()).isEqualTo(TEST_TIMESTAMP);
+  }
+
+  /** Test of {@link ThankJsonByteReader#readTransaction(ThankTokenHeader, ByteBuffer)} with non-ASCII UTF-8. */
+  @Test
+  public void testReadTxNonAscii() {
+
+    // given
+    String purpose = "Grüße 日本 😀";
+    String json = EXPECTED_TX_STRING.replace(PUBLIC_PURPOSE_JSON, "\"pp\":\"" + purpose + "\"");
+
+    // when
+    ThankTransaction tx = getReader().readTransaction(createTestHeader(), wrap(json));
+
+    // then
+    assertThat(tx.getPublicPurpose()).isEqualTo(purpose);
+  }
+
+  /** Test of {@link ThankJsonByteReader#readHeader(ByteBuffer)} with a direct {@link ByteBuffer}. */
+  @Test
+  public void testReadHeaderDirectBuffer() {
+
+    // given
+    byte[] data = surround(EXPECTED_HEADER_STRING);
+    ByteBuffer buffer = ByteBuffer.allocateDirect(data.length).put(data);
+    buffer.position(PREFIX.length()).limit(data.length - SUFFIX.length());
+
+    // when
+    ThankTokenHeader header = getReader().readHeader(buffer);
+
+    // then
+    assertThat(header).isEqualToComparingFieldByField(createTestHeader());
+    assertThat(buffer.position()).isEqualTo(PREFIX.length());
+  }
+
+  /** Test of {@link ThankJsonByteReader#readHeader(ByteBuffer)} with a read-only {@link ByteBuffer}. */
+  @Test
+  public void testReadHeaderReadOnlyBuffer() {
+
+    // given
+    byte[] data = surround(EXPECTED_HEADER_STRING);
+    ByteBuffer buffer = ByteBuffer.wrap(data, PREFIX.length(), EXPECTED_HEADER_STRING.length()).asReadOnlyBuffer();
+
+    // when
+    ThankTokenHeader header = getReader().readHeader(buffer);
+
+    // then
+    assertThat(buffer.hasArray()).isFalse();
+    assertThat(header).isEqualToComparingFieldByField(createTestHeader());
+  }
+
+  /**
+   * Test of {@link ThankJsonByteReader#readTransaction(ThankTokenHeader, ByteBuffer)} with a sliced heap
+   * {@link ByteBuffer} that has an array offset.
+   */
+  @Test
+  public void testReadTxSlicedBuffer() {
+
+    // given
+    String purpose = "äöü";
+    String json = EXPECTED_TX_STRING.replace(PUBLIC_PURPOSE_JSON, "\"pp\":\"" + purpose + "\"");
+    byte[] data = surround(json);
+    ByteBuffer buffer = ByteBuffer.wrap(data, PREFIX.length(), data.length - PREFIX.length() - SUFFIX.length())
+        .slice();
+
+    // when
+    ThankTransaction tx = getReader().readTransaction(createTestHeader(), buffer);
+
+    // then
+    assertThat(buffer.arrayOffset()).isEqualTo(PREFIX.length());
+    assertThat(tx.getPublicPurpose()).isEqualTo(purpose);
+  }
+
+  /** Test of {@link ThankJsonByteReader#readHeader(ByteBuffer)} with malformed JSON. */
+  @Test
+  public void testReadHeaderMalformed() {
+
+    checkMalformed(EXPECTED_HEADER_STRING.substring(0, EXPECTED_HEADER_STRING.length() - 1));
+    checkMalformed(EXPECTED_HEADER_STRING + "x");
+    checkMalformed(EXPECTED_HEADER_STRING.replace("\"ver\":", "\"ver\""));
+    checkMalformed(EXPECTED_HEADER_STRING.replace(",\"alg\"", "\"alg\""));
+    checkMalformed(EXPECTED_HEADER_STRING.replace("\"ver\":999", "\"ver\":-"));
+    checkMalformed("{\"ver\":999,\"alg\":\"rsa4k");
+    checkMalformed("");
+  }
+
+  private void checkMalformed(String json) {
+
+    try {
+      getReader().readHeader(wrap(json));
+      failBecauseExceptionWasNotThrown(IllegalStateException.class);
+    } catch (IllegalStateException e) {
+      assertThat(e).hasMessageContaining("Invalid JSON");
+    }
+  }
+
+  private static byte[] surround(String json) {
+
+    return (PREFIX + json + SUFFIX).getBytes(StandardCharsets.UTF_8);
+  }
+
+  private static ByteBuffer wrap(String json) {
+
+    return ByteBuffer.wrap(json.getBytes(StandardCharsets.UTF_8));
+  }
+
+}
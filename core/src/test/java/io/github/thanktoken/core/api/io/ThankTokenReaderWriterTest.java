@@ -27,11 +27,13 @@ import io.github.thanktoken.core.api.value.ThankValue;
  */
 public class ThankTokenReaderWriterTest extends Assertions implements TestData {
 
-  private static final String EXPECTED_HEADER_STRING = "{\"ver\":999,\"alg\":\"rsa4k\",\"cur\":\"Gradido\",\"amt\":\"100\",\"ts\":\""
+  /** The expected JSON of the {@link #createTestHeader() test header}. */
+  protected static final String EXPECTED_HEADER_STRING = "{\"ver\":999,\"alg\":\"rsa4k\",\"cur\":\"Gradido\",\"amt\":\"100\",\"ts\":\""
       + TEST_TIMESTAMP_STRING + "\",\"loc\":\"" + TEST_LOCATION + "\",\"tgt\":\"P4\",\"rcp\":\""
       + TEST_KEY_PAIR_NP.getAddress().formatBase64() + "\"}";
 
-  private static final String EXPECTED_TX_STRING = "{\"ts\":\"" + TEST_TIMESTAMP_STRING + "\",\"rcp\":\""
+  /** The expected JSON of the {@link #createTestTransaction() test transaction}. */
+  protected static final String EXPECTED_TX_STRING = "{\"ts\":\"" + TEST_TIMESTAMP_STRING + "\",\"rcp\":\""
       + TEST_KEY_PAIR_PS.getAddress().formatBase64() + "\",\"pp\":\"" + TEST_PUBLIC_PURPOSE + "\",\"ep\":\""
       + TEST_ENCRYPTED_DATA_BASE64 + "\",\"sig\":\"" + TEST_SIGNATURE_BASE64 + "\"}";
 
@@ -117,7 +119,10 @@ public class ThankTokenReaderWriterTest extends Assertions implements TestData {
     assertThat(tx).isEqualToComparingFieldByField(createTestTransaction());
   }
 
-  private ThankTransaction createTestTransaction() {
+  /**
+   * @return the {@link ThankTransaction} for testing.
+   */
+  protected ThankTransaction createTestTransaction() {
 
     ThankTransactionBean tx = new ThankTransactionBean();
     tx.setTimestamp(TEST_TIMESTAMP);
@@ -129,7 +134,10 @@ public class ThankTokenReaderWriterTest extends Assertions implements TestData {
     return tx;
   }
 
-  private ThankTokenHeader createTestHeader() {
+  /**
+   * @return the {@link ThankTokenHeader} for testing.
+   */
+  protected ThankTokenHeader createTestHeader() {
 
     ThankTokenHeaderBean header = new ThankTokenHeaderBean();
     header.setVersion(TEST_VERSION);
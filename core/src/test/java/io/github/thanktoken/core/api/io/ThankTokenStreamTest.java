@@ -0,0 +1,130 @@
+package io.github.thanktoken.core.api.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.thanktoken.core.api.TestCase;
+import io.github.thanktoken.core.api.token.ThankToken;
+import io.github.thanktoken.core.api.token.header.ThankTokenHeaderField;
+import io.github.thanktoken.core.api.transaction.ThankTransactionField;
+
+/**
+ * Test of {@link ThankTokenStreamWriter} and {@link ThankTokenStreamReader}.
+ */
+public class ThankTokenStreamTest extends TestCase {
+
+  /** Test of {@link ThankFormat#JSON newline-delimited JSON}. */
+  @Test
+  public void testJson() {
+
+    check(ThankFormat.JSON);
+  }
+
+  /** Test of {@link ThankFormat#BINARY length-framed binary records}. */
+  @Test
+  public void testBinary() {
+
+    check(ThankFormat.BINARY);
+  }
+
+  /** Test of {@link ThankFormat#JSON newline-delimited JSON} with blank lines, CRLF and no final line break. */
+  @Test
+  public void testJsonLineBreaks() {
+
+    // given
+    String json = writeJson();
+    json = "\n  \n" + json.replace("\n", "\r\n").strip();
+
+    // when
+    ThankTokenStreamReader reader = createJsonReader(json);
+    List<ThankToken> tokens = reader.stream().collect(Collectors.toList());
+
+    // then
+    assertThat(tokens).hasSize(2);
+    assertThat(reader.getCount()).isEqualTo(2);
+  }
+
+  /** Test that {@link ThankFormat#JSON JSON} with content after the token object in the same line is rejected. */
+  @Test
+  public void testJsonTrailingContent() {
+
+    // given
+    String json = writeJson();
+    String firstLine = json.substring(0, json.indexOf('\n'));
+    ThankTokenStreamReader reader = createJsonReader(firstLine + " {}\n");
+
+    // when
+    try {
+      reader.read();
+      failBecauseExceptionWasNotThrown(IllegalStateException.class);
+    } catch (IllegalStateException e) {
+      // then
+      assertThat(e).hasMessageContaining("Trailing content");
+    }
+  }
+
+  /** Test of a {@link ThankFormat#JSON JSON} line longer than {@link ThankTokenStreamReader#MAX_RECORD_LENGTH}. */
+  @Test
+  public void testJsonLineTooLong() {
+
+    // given
+    ThankTokenStreamReader reader = createJsonReader("x".repeat(ThankTokenStreamReader.MAX_RECORD_LENGTH + 1));
+
+    // when
+    try {
+      reader.read();
+      failBecauseExceptionWasNotThrown(IllegalStateException.class);
+    } catch (IllegalStateException e) {
+      // then
+      assertThat(e).hasMessageContaining("exceeds");
+    }
+  }
+
+  private String writeJson() {
+
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ThankTokenStreamWriter writer = new ThankTokenStreamWriter(out, ThankFormat.JSON);
+    writer.write(TEST_TOKEN_P4);
+    writer.write(TEST_TOKEN_P4);
+    writer.close();
+    return new String(out.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  private ThankTokenStreamReader createJsonReader(String json) {
+
+    return new ThankTokenStreamReader(new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)),
+        ThankFormat.JSON);
+  }
+
+  private void check(ThankFormat format) {
+
+    // given
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ThankTokenStreamWriter writer = new ThankTokenStreamWriter(out, format);
+
+    // when
+    writer.write(TEST_TOKEN_P4);
+    writer.write(TEST_TOKEN_P4);
+    writer.close();
+    ThankTokenStreamReader reader = new ThankTokenStreamReader(new ByteArrayInputStream(out.toByteArray()), format);
+    List<ThankToken> tokens = reader.stream().collect(Collectors.toList());
+
+    // then
+    assertThat(writer.getCount()).isEqualTo(2);
+    assertThat(reader.getCount()).isEqualTo(2);
+    assertThat(tokens).hasSize(2);
+    for (ThankToken token : tokens) {
+      assertThat(ThankTokenHeaderField.getFields().toJson(token.getHeader()))
+          .isEqualTo(ThankTokenHeaderField.getFields().toJson(TEST_TOKEN_P4_HEADER));
+      assertThat(token.getTransactions()).hasSize(1);
+      assertThat(ThankTransactionField.getFields().toJson(token.getTransactions().get(0), token.getHeader()))
+          .isEqualTo(ThankTransactionField.getFields().toJson(TEST_TOKEN_P4_TX_0, TEST_TOKEN_P4_HEADER));
+    }
+  }
+
+}
@@ -0,0 +1,92 @@
+package io.github.thanktoken.core.api.repository;
+
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.thanktoken.core.api.TestCase;
+import io.github.thanktoken.core.api.token.ThankToken;
+import io.github.thanktoken.core.api.token.ThankTokenType;
+import io.github.thanktoken.core.api.token.header.ThankTokenHeaderField;
+import io.github.thanktoken.core.api.transaction.ThankTransactionField;
+
+/**
+ * Abstract test-case for implementations of {@link ThankTokenRepositoryLocalDisk}.
+ */
+public abstract class AbstractThankTokenRepositoryLocalDiskTest extends TestCase {
+
+  /** Temporary directory for the repository. */
+  @TempDir
+  Path repositoryPath;
+
+  /**
+   * @return a new instance of the {@link ThankTokenRepositoryLocalDisk} to test that opens the repository in
+   *         {@link #repositoryPath}.
+   */
+  protected abstract ThankTokenRepositoryLocalDisk createRepository();
+
+  /**
+   * Test of {@link ThankTokenRepositoryLocalDisk#save(ThankToken)} with stale copies that have less
+   * {@link io.github.thanktoken.core.api.transaction.ThankTransaction}s than already stored.
+   *
+   * @throws Exception on error.
+   */
+  @Test
+  public void testSaveStaleCopy() throws Exception {
+
+    // given
+    ThankTokenRepositoryLocalDisk repository = createRepository();
+    repository.save(createToken(3));
+
+    // when
+    repository.save(createToken(0));
+    repository.save(createToken(1));
+    ThankToken token = repository.find(TEST_TOKEN_P4_HEADER.getId());
+    close(repository);
+    repository = createRepository();
+
+    // then
+    assertThat(token.getTransactions()).hasSize(3);
+    assertThat(repository.find(TEST_TOKEN_P4_HEADER.getId()).getTransactions()).hasSize(3);
+    close(repository);
+  }
+
+  /**
+   * @param repository the {@link ThankTokenRepositoryLocalDisk} to close if it is {@link AutoCloseable}.
+   * @throws Exception on error.
+   */
+  protected static void close(ThankTokenRepositoryLocalDisk repository) throws Exception {
+
+    if (repository instanceof AutoCloseable) {
+      ((AutoCloseable) repository).close();
+    }
+  }
+
+  /**
+   * @param txCount the number of transactions.
+   * @return a copy of {@link #TEST_TOKEN_P4} with the given number of transactions.
+   */
+  protected static ThankToken createToken(int txCount) {
+
+    ThankTokenType token = new ThankTokenType(TEST_TOKEN_P4_HEADER);
+    for (int i = 0; i < txCount; i++) {
+      token.addTransaction(TEST_TOKEN_P4_TX_0);
+    }
+    return token;
+  }
+
+  /**
+   * @param token the {@link ThankToken} to check for equality with {@link #TEST_TOKEN_P4}.
+   */
+  protected void checkToken(ThankToken token) {
+
+    assertThat(token).isNotNull();
+    assertThat(ThankTokenHeaderField.getFields().toJson(token.getHeader()))
+        .isEqualTo(ThankTokenHeaderField.getFields().toJson(TEST_TOKEN_P4_HEADER));
+    assertThat(token.getTransactions()).hasSize(1);
+    assertThat(ThankTransactionField.getFields().toJson(token.getTransactions().get(0), TEST_TOKEN_P4_HEADER))
+        .isEqualTo(ThankTransactionField.getFields().toJson(TEST_TOKEN_P4_TX_0, TEST_TOKEN_P4_HEADER));
+  }
+
+}
@@ -0,0 +1,122 @@
+package io.github.thanktoken.core.api.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import io.github.thanktoken.core.api.id.ThankTokenIdType;
+import io.github.thanktoken.core.api.io.ThankNetworkException;
+import io.github.thanktoken.core.api.token.ThankToken;
+
+/**
+ * Implementation of {@link ThankTokenRepositoryRemoteService} for testing that serves {@link ThankToken}s from memory
+ * and counts the requests.
+ */
+public class TestRemoteService implements ThankTokenRepositoryRemoteService {
+
+  private final Map<ThankTokenIdType, ThankToken> tokens;
+
+  private final AtomicInteger findCount;
+
+  private final List<Collection<ThankTokenIdType>> findAllRequests;
+
+  private volatile CountDownLatch latch;
+
+  private volatile RuntimeException error;
+
+  /**
+   * The constructor.
+   */
+  public TestRemoteService() {
+
+    super();
+    this.tokens = new ConcurrentHashMap<>();
+    this.findCount = new AtomicInteger();
+    this.findAllRequests = new ArrayList<>();
+  }
+
+  /**
+   * @param token the {@link ThankToken} to serve.
+   * @return this.
+   */
+  public TestRemoteService add(ThankToken token) {
+
+    this.tokens.put(token.requireHeader().getId(), token);
+    return this;
+  }
+
+  /**
+   * @param latch the {@link CountDownLatch} that {@link #find(ThankTokenIdType)} awaits before returning or
+   *        {@code null} to return immediately.
+   */
+  public void setLatch(CountDownLatch latch) {
+
+    this.latch = latch;
+  }
+
+  /**
+   * @param error the {@link RuntimeException} to throw from {@link #find(ThankTokenIdType)} or {@code null} to
+   *        succeed.
+   */
+  public void setError(RuntimeException error) {
+
+    this.error = error;
+  }
+
+  /**
+   * @return the number of {@link #find(ThankTokenIdType)} requests.
+   */
+  public int getFindCount() {
+
+    return this.findCount.get();
+  }
+
+  /**
+   * @return the {@link List} with the {@link ThankTokenIdType}s of the {@link #findAll(Collection) batch requests}.
+   */
+  public synchronized List<Collection<ThankTokenIdType>> getFindAllRequests() {
+
+    return new ArrayList<>(this.findAllRequests);
+  }
+
+  @Override
+  public ThankToken find(ThankTokenIdType id) throws ThankNetworkException {
+
+    this.findCount.incrementAndGet();
+    CountDownLatch currentLatch = this.latch;
+    if (currentLatch != null) {
+      try {
+        currentLatch.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException(e);
+      }
+    }
+    RuntimeException currentError = this.error;
+    if (currentError != null) {
+      throw currentError;
+    }
+    return this.tokens.get(id);
+  }
+
+  @Override
+  public synchronized Map<ThankTokenIdType, ThankToken> findAll(Collection<ThankTokenIdType> ids)
+      throws ThankNetworkException {
+
+    this.findAllRequests.add(new ArrayList<>(ids));
+    Map<ThankTokenIdType, ThankToken> result = new HashMap<>(ids.size());
+    for (ThankTokenIdType id : ids) {
+      ThankToken token = this.tokens.get(id);
+      if (token != null) {
+        result.put(id, token);
+      }
+    }
+    return result;
+  }
+
+}
@@ -0,0 +1,87 @@
+package io.github.thanktoken.core.api.repository;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import io.github.thanktoken.core.api.io.ThankNetworkException;
+import io.github.thanktoken.core.api.message.ThankMessage;
+import io.github.thanktoken.core.api.token.ThankToken;
+import io.github.thanktoken.core.api.validate.ThankValidationException;
+import io.github.thanktoken.core.api.validate.ThankValidationMode;
+import io.github.thanktoken.core.api.validate.ThankValidationResult;
+import io.github.thanktoken.core.api.validate.ThankValidationResultImpl;
+import io.github.thanktoken.core.api.validate.ThankValidator;
+import io.github.thanktoken.core.api.validate.failure.ThankValidationFailure;
+
+/**
+ * Implementation of {@link ThankValidator} for testing that returns a configurable result and counts the
+ * validations.
+ */
+public class TestValidator implements ThankValidator {
+
+  private final AtomicInteger validationCount;
+
+  private volatile ThankValidationFailure failure;
+
+  private volatile Consumer<ThankToken> callback;
+
+  /**
+   * The constructor.
+   */
+  public TestValidator() {
+
+    super();
+    this.validationCount = new AtomicInteger();
+  }
+
+  /**
+   * @param failure the {@link ThankValidationFailure} to report or {@code null} to report every
+   *        {@link ThankToken} as valid.
+   */
+  public void setFailure(ThankValidationFailure failure) {
+
+    this.failure = failure;
+  }
+
+  /**
+   * @param callback the {@link Consumer} called with the {@link ThankToken} during validation (e.g. to resolve
+   *        references via the repository) or {@code null} for none.
+   */
+  public void setCallback(Consumer<ThankToken> callback) {
+
+    this.callback = callback;
+  }
+
+  /**
+   * @return the number of validations.
+   */
+  public int getValidationCount() {
+
+    return this.validationCount.get();
+  }
+
+  @Override
+  public ThankValidationResult validate(ThankToken token, ThankValidationMode mode)
+      throws ThankValidationException, ThankNetworkException {
+
+    this.validationCount.incrementAndGet();
+    Consumer<ThankToken> currentCallback = this.callback;
+    if (currentCallback != null) {
+      currentCallback.accept(token);
+    }
+    ThankValidationResultImpl result = new ThankValidationResultImpl(mode.getFailureMode());
+    ThankValidationFailure currentFailure = this.failure;
+    if (currentFailure != null) {
+      result.add(currentFailure);
+    }
+    return result;
+  }
+
+  @Override
+  public ThankValidationResult validateMessage(ThankMessage message, ThankValidationMode mode)
+      throws ThankValidationException, ThankNetworkException {
+
+    throw new UnsupportedOperationException();
+  }
+
+}
@@ -0,0 +1,175 @@
+package io.github.thanktoken.core.api.repository;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.thanktoken.core.api.TestCase;
+import io.github.thanktoken.core.api.id.ThankTokenIdType;
+import io.github.thanktoken.core.api.io.ThankBinaryWriter;
+import io.github.thanktoken.core.api.token.ThankTokenType;
+import io.github.thanktoken.core.api.token.header.ThankTokenHeaderBean;
+import io.github.thanktoken.core.api.token.header.ThankTokenHeaderField;
+
+/**
+ * Test of {@link ThankTokenCacheSnapshot}.
+ */
+public class ThankTokenCacheSnapshotTest extends TestCase {
+
+  /** Offset of the header of the first record: magic, count, validity and header length. */
+  private static final int HEADER_OFFSET = 13;
+
+  /** Temporary directory for the snapshot. */
+  @TempDir
+  Path folder;
+
+  /** Test of {@link ThankTokenCacheSnapshot#write()} and {@link ThankTokenCacheSnapshot#load()}. */
+  @Test
+  public void testWriteAndLoad() {
+
+    // given
+    Path file = this.folder.resolve("cache.bin");
+    ThankTokenIdType id = TEST_TOKEN_P4_HEADER.getId();
+    ThankTokenCache cache = new ThankTokenCache();
+    ThankTokenContainer container = new ThankTokenContainer(TEST_TOKEN_P4);
+    container.setValid(true);
+    cache.put(id, container);
+    new ThankTokenCacheSnapshot(cache, file).close();
+
+    // when
+    ThankTokenCache restoredCache = new ThankTokenCache();
+    int count = new ThankTokenCacheSnapshot(restoredCache, file).load();
+
+    // then
+    assertThat(count).isEqualTo(1);
+    ThankTokenContainer restored = restoredCache.get(id);
+    assertThat(restored).isNotNull();
+    assertThat(restored.isValid()).isTrue();
+    assertThat(restored.getToken().getTransactions()).hasSize(1);
+    assertThat(ThankTokenHeaderField.getFields().toJson(restored.getToken().getHeader()))
+        .isEqualTo(ThankTokenHeaderField.getFields().toJson(TEST_TOKEN_P4_HEADER));
+    assertThat(new ThankTokenCacheSnapshot(new ThankTokenCache(), this.folder.resolve("missing.bin")).load()).isZero();
+  }
+
+  /** Test that the snapshot is written in the {@link ThankBinaryWriter binary format}. */
+  @Test
+  public void testWriteBinary() throws IOException {
+
+    // given
+    Path file = this.folder.resolve("cache.bin");
+    ThankTokenCache cache = new ThankTokenCache();
+    cache.put(TEST_TOKEN_P4_HEADER.getId(), new ThankTokenContainer(TEST_TOKEN_P4));
+
+    // when
+    new ThankTokenCacheSnapshot(cache, file).write();
+
+    // then
+    byte[] data = Files.readAllBytes(file);
+    assertThat(data[HEADER_OFFSET] & 0xFF).isEqualTo(ThankBinaryWriter.MARKER);
+  }
+
+  /**
+   * Test that a failed periodic {@link ThankTokenCacheSnapshot#write() snapshot} does not stop the subsequent
+   * snapshots.
+   *
+   * @throws Exception on error.
+   */
+  @Test
+  public void testPeriodicWriteContinuesAfterFailure() throws Exception {
+
+    // given
+    Path file = this.folder.resolve("cache.bin");
+    CountDownLatch written = new CountDownLatch(1);
+    AtomicInteger calls = new AtomicInteger();
+    ThankTokenCache cache = new ThankTokenCache() {
+
+      @Override
+      public List<ThankTokenContainer> getEntries() {
+
+        int call = calls.incrementAndGet();
+        if (call == 1) {
+          throw new IllegalStateException("Simulated failure");
+        } else if (call > 2) {
+          // the previous snapshot has been completed
+          written.countDown();
+        }
+        return super.getEntries();
+      }
+    };
+    cache.put(TEST_TOKEN_P4_HEADER.getId(), new ThankTokenContainer(TEST_TOKEN_P4));
+    ThankTokenCacheSnapshot snapshot = new ThankTokenCacheSnapshot(cache, file);
+
+    // when
+    snapshot.start(Duration.ofMillis(10));
+    boolean completed = written.await(10, TimeUnit.SECONDS);
+    boolean exists = Files.exists(file);
+    snapshot.close();
+
+    // then
+    assertThat(completed).isTrue();
+    assertThat(exists).isTrue();
+  }
+
+  /** Test of {@link ThankTokenCacheSnapshot#load()} with a record that can not be parsed. */
+  @Test
+  public void testLoadSkipsCorruptRecord() throws IOException {
+
+    // given
+    Path file = this.folder.resolve("cache.bin");
+    ThankTokenIdType otherId = new ThankTokenIdType(TEST_TIMESTAMP.next(), TEST_LOCATION, TEST_VERSION,
+        TEST_ALGORITHM, TEST_CURRENCY);
+    ThankTokenCache cache = new ThankTokenCache();
+    cache.put(TEST_TOKEN_P4_HEADER.getId(), new ThankTokenContainer(TEST_TOKEN_P4));
+    cache.put(otherId, new ThankTokenContainer(
+        new ThankTokenType(new ThankTokenHeaderBean(TEST_TOKEN_P4_HEADER).setTimestamp(TEST_TIMESTAMP.next()))));
+    new ThankTokenCacheSnapshot(cache, file).write();
+    byte[] data = Files.readAllBytes(file);
+    // destroy the header of the first record
+    data[HEADER_OFFSET] = 0;
+    data[HEADER_OFFSET + 1] = 0;
+    Files.write(file, data);
+
+    // when
+    ThankTokenCache restoredCache = new ThankTokenCache();
+    int count = new ThankTokenCacheSnapshot(restoredCache, file).load();
+
+    // then
+    assertThat(count).isEqualTo(1);
+    assertThat((restoredCache.get(TEST_TOKEN_P4_HEADER.getId()) == null) != (restoredCache.get(otherId) == null))
+        .isTrue();
+  }
+
+  /** Test of {@link ThankTokenCacheSnapshot#load()} with a length that is out of bounds. */
+  @Test
+  public void testLoadRejectsInvalidLength() throws IOException {
+
+    // given
+    Path file = this.folder.resolve("cache.bin");
+    ThankTokenCache cache = new ThankTokenCache();
+    cache.put(TEST_TOKEN_P4_HEADER.getId(), new ThankTokenContainer(TEST_TOKEN_P4));
+    new ThankTokenCacheSnapshot(cache, file).write();
+    byte[] data = Files.readAllBytes(file);
+    // claim a second record with a header of 2GB
+    ByteBuffer corrupt = ByteBuffer.allocate(data.length + 5).put(data).put((byte) 0).putInt(Integer.MAX_VALUE);
+    corrupt.putInt(4, 2);
+    Files.write(file, corrupt.array());
+
+    // when
+    ThankTokenCache restoredCache = new ThankTokenCache();
+    int count = new ThankTokenCacheSnapshot(restoredCache, file).load();
+
+    // then
+    assertThat(count).isEqualTo(1);
+    assertThat(restoredCache.get(TEST_TOKEN_P4_HEADER.getId())).isNotNull();
+  }
+
+}
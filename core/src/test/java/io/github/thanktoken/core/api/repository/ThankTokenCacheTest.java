@@ -0,0 +1,186 @@
+package io.github.thanktoken.core.api.repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.thanktoken.core.api.TestCase;
+import io.github.thanktoken.core.api.id.ThankTokenIdType;
+import io.github.thanktoken.core.api.timestamp.ThankTimestamp;
+
+/**
+ * Test of {@link ThankTokenCache}.
+ */
+public class ThankTokenCacheTest extends TestCase {
+
+  private static ThankTokenIdType createId(ThankTimestamp timestamp) {
+
+    return new ThankTokenIdType(timestamp, TEST_LOCATION, TEST_VERSION, TEST_ALGORITHM, TEST_CURRENCY);
+  }
+
+  /**
+   * Test of {@link ThankTokenCache#get(ThankTokenIdType)} and
+   * {@link ThankTokenCache#put(ThankTokenIdType, ThankTokenContainer)}.
+   */
+  @Test
+  public void testGetAndPut() {
+
+    // given
+    ThankTokenCache cache = new ThankTokenCache();
+    ThankTokenIdType id = TEST_TOKEN_P4_HEADER.getId();
+    ThankTokenContainer container = new ThankTokenContainer(TEST_TOKEN_P4);
+
+    // when
+    ThankTokenContainer miss = cache.get(id);
+    cache.put(id, container);
+    ThankTokenContainer hit = cache.get(id);
+
+    // then
+    assertThat(miss).isNull();
+    assertThat(hit).isSameAs(container);
+    assertThat(cache.getSize()).isEqualTo(1);
+    assertThat(cache.getWeight()).isEqualTo(2);
+    assertThat(cache.getHitCount()).isEqualTo(1);
+    assertThat(cache.getMissCount()).isEqualTo(1);
+  }
+
+  /** Test that the {@link ThankTokenCache#getMaxWeight() maximum weight} is never exceeded. */
+  @Test
+  public void testBounded() {
+
+    // given
+    ThankTokenCache cache = new ThankTokenCache(100);
+    ThankTimestamp timestamp = TEST_TIMESTAMP;
+
+    // when
+    for (int i = 0; i < 1000; i++) {
+      timestamp = timestamp.next();
+      cache.put(createId(timestamp), new ThankTokenContainer(TEST_TOKEN_P4));
+    }
+
+    // then
+    assertThat(cache.getWeight()).isLessThanOrEqualTo(100);
+    assertThat(cache.getSize() + cache.getEvictionCount()).isEqualTo(1000);
+  }
+
+  /** Test that frequently used entries survive a scan of new entries. */
+  @Test
+  public void testFrequentEntriesRetained() {
+
+    // given
+    ThankTokenCache cache = new ThankTokenCache(100);
+    ThankTokenIdType hotId = TEST_TOKEN_P4_HEADER.getId();
+    ThankTokenContainer hot = new ThankTokenContainer(TEST_TOKEN_P4);
+    cache.put(hotId, hot);
+    ThankTimestamp timestamp = TEST_TIMESTAMP;
+
+    // when
+    for (int i = 0; i < 200; i++) {
+      cache.get(hotId);
+      timestamp = timestamp.next();
+      cache.put(createId(timestamp), new ThankTokenContainer(TEST_TOKEN_P4));
+    }
+
+    // then
+    assertThat(cache.get(hotId)).isSameAs(hot);
+  }
+
+  /** Test that entries of invalid tokens are evicted first. */
+  @Test
+  public void testInvalidEvictedFirst() {
+
+    // given
+    ThankTokenCache cache = new ThankTokenCache(10);
+    ThankTokenIdType invalidId = TEST_TOKEN_P4_HEADER.getId();
+    ThankTokenContainer invalid = new ThankTokenContainer(TEST_TOKEN_P4);
+    invalid.setValid(false);
+    cache.put(invalidId, invalid);
+    ThankTimestamp timestamp = TEST_TIMESTAMP;
+
+    // when
+    for (int i = 0; i < 4; i++) {
+      timestamp = timestamp.next();
+      cache.put(createId(timestamp), new ThankTokenContainer(TEST_TOKEN_P4));
+    }
+
+    // then
+    assertThat(cache.get(invalidId)).isNull();
+    assertThat(cache.getSize()).isEqualTo(4);
+    assertThat(cache.getEvictionCount()).isEqualTo(1);
+  }
+
+  /** Test that an entry is moved back into the main area when its verdict changes from invalid to valid. */
+  @Test
+  public void testInvalidBecomesValid() {
+
+    // given
+    ThankTokenCache cache = new ThankTokenCache(100);
+    ThankTokenIdType id = TEST_TOKEN_P4_HEADER.getId();
+    ThankTokenContainer invalid = new ThankTokenContainer(TEST_TOKEN_P4);
+    invalid.setValid(false);
+    cache.put(id, invalid);
+    ThankTokenContainer other = new ThankTokenContainer(TEST_TOKEN_P4);
+    cache.put(createId(TEST_TIMESTAMP.next()), other);
+    assertThat(cache.getEntries()).containsExactly(other, invalid);
+    ThankTokenContainer valid = new ThankTokenContainer(TEST_TOKEN_P4);
+    valid.setValid(true);
+
+    // when
+    cache.put(id, valid);
+
+    // then
+    assertThat(cache.getEntries()).containsExactly(valid, other);
+    assertThat(cache.get(id)).isSameAs(valid);
+  }
+
+  /**
+   * Test of concurrent {@link ThankTokenCache#get(ThankTokenIdType) lookups} and
+   * {@link ThankTokenCache#put(ThankTokenIdType, ThankTokenContainer) updates}.
+   *
+   * @throws Exception on error.
+   */
+  @Test
+  public void testConcurrentAccess() throws Exception {
+
+    // given
+    ThankTokenCache cache = new ThankTokenCache(100);
+    List<ThankTokenIdType> ids = new ArrayList<>();
+    ThankTimestamp timestamp = TEST_TIMESTAMP;
+    for (int i = 0; i < 200; i++) {
+      timestamp = timestamp.next();
+      ids.add(createId(timestamp));
+    }
+    ExecutorService executor = Executors.newFixedThreadPool(8);
+    List<Future<?>> futures = new ArrayList<>();
+
+    // when
+    try {
+      for (int t = 0; t < 8; t++) {
+        int offset = t;
+        futures.add(executor.submit(() -> {
+          for (int i = 0; i < 10_000; i++) {
+            ThankTokenIdType id = ids.get((i * 7 + offset) % ids.size());
+            if (cache.get(id) == null) {
+              cache.put(id, new ThankTokenContainer(TEST_TOKEN_P4));
+            }
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      executor.shutdown();
+    }
+
+    // then
+    assertThat(cache.getWeight()).isLessThanOrEqualTo(100);
+    assertThat(cache.getEntries()).hasSize(cache.getSize());
+    assertThat(cache.getHitCount() + cache.getMissCount()).isEqualTo(80_000);
+  }
+
+}
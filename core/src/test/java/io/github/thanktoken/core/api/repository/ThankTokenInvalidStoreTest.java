@@ -0,0 +1,98 @@
+package io.github.thanktoken.core.api.repository;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.thanktoken.core.api.TestCase;
+import io.github.thanktoken.core.api.token.ThankToken;
+import io.github.thanktoken.core.api.token.ThankTokenType;
+import io.github.thanktoken.core.api.token.header.ThankTokenHeaderBean;
+
+/**
+ * Test of {@link ThankTokenInvalidStore}.
+ */
+public class ThankTokenInvalidStoreTest extends TestCase {
+
+  /** Temporary directory for the store. */
+  @TempDir
+  Path folder;
+
+  /** Test that verdicts {@link ThankTokenInvalidStore#add(ThankToken, String) added} survive a restart. */
+  @Test
+  public void testPersistent() {
+
+    // given
+    Path file = this.folder.resolve("invalid.bin");
+    ThankToken otherToken = new ThankTokenType(
+        new ThankTokenHeaderBean(TEST_TOKEN_P4_HEADER).setTimestamp(TEST_TIMESTAMP.next()));
+    ThankTokenInvalidStore store = new ThankTokenInvalidStore(file, 1);
+
+    // when
+    store.add(otherToken, "evicted");
+    store.add(TEST_TOKEN_P4, "invalid signature");
+    store.close();
+    store = new ThankTokenInvalidStore(file, 1);
+
+    // then
+    assertThat(store.isInvalid(TEST_TOKEN_P4)).isTrue();
+    assertThat(store.getReason(TEST_TOKEN_P4)).isEqualTo("invalid signature");
+    assertThat(store.isInvalid(otherToken)).isFalse();
+    assertThat(store.getSize()).isEqualTo(1);
+    store.close();
+  }
+
+  /** Test that the verdict of a forged copy does not affect a different copy with the same id. */
+  @Test
+  public void testForgedCopy() {
+
+    // given
+    ThankToken forgedToken = new ThankTokenType(TEST_TOKEN_P4_HEADER);
+    ThankTokenInvalidStore store = new ThankTokenInvalidStore(this.folder.resolve("invalid.bin"));
+
+    // when
+    store.add(forgedToken, "invalid signature");
+
+    // then
+    assertThat(store.isInvalid(forgedToken)).isTrue();
+    assertThat(store.isInvalid(new ThankTokenType(TEST_TOKEN_P4_HEADER))).isTrue();
+    assertThat(store.isInvalid(TEST_TOKEN_P4)).isFalse();
+    assertThat(store.getReason(TEST_TOKEN_P4)).isNull();
+    store.close();
+  }
+
+  /** Test that a corrupt record is skipped and truncated so following verdicts can be appended. */
+  @Test
+  public void testCorruptRecord() throws IOException {
+
+    // given
+    Path file = this.folder.resolve("invalid.bin");
+    ThankTokenInvalidStore store = new ThankTokenInvalidStore(file);
+    store.add(TEST_TOKEN_P4, "invalid signature");
+    store.close();
+    try (DataOutputStream out = new DataOutputStream(Files.newOutputStream(file, StandardOpenOption.APPEND))) {
+      out.writeShort(3); // key too short
+      out.write(new byte[] { 1, 2, 3 });
+      out.writeUTF("corrupt");
+    }
+    ThankToken otherToken = new ThankTokenType(TEST_TOKEN_P4_HEADER);
+
+    // when
+    store = new ThankTokenInvalidStore(file);
+    store.add(otherToken, "invalid hash chain");
+    store.close();
+    store = new ThankTokenInvalidStore(file);
+
+    // then
+    assertThat(store.isInvalid(TEST_TOKEN_P4)).isTrue();
+    assertThat(store.isInvalid(otherToken)).isTrue();
+    assertThat(store.getSize()).isEqualTo(2);
+    store.close();
+  }
+
+}
@@ -0,0 +1,88 @@
+package io.github.thanktoken.core.api.repository;
+
+import java.time.Duration;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.thanktoken.core.api.TestCase;
+import io.github.thanktoken.core.api.id.ThankTokenIdType;
+import io.github.thanktoken.core.api.timestamp.ThankTimestamp;
+
+/**
+ * Test of {@link ThankTokenNegativeCache}.
+ */
+public class ThankTokenNegativeCacheTest extends TestCase {
+
+  private static ThankTokenIdType createId(ThankTimestamp timestamp) {
+
+    return new ThankTokenIdType(timestamp, TEST_LOCATION, TEST_VERSION, TEST_ALGORITHM, TEST_CURRENCY);
+  }
+
+  /**
+   * Test that an entry expires after the {@link ThankTokenNegativeCache#getTimeToLive() time to live}.
+   *
+   * @throws Exception on error.
+   */
+  @Test
+  public void testTimeToLive() throws Exception {
+
+    // given
+    ThankTokenNegativeCache cache = new ThankTokenNegativeCache(Duration.ofMillis(50), 10);
+    ThankTokenIdType id = TEST_TOKEN_P4_HEADER.getId();
+
+    // when
+    cache.add(id);
+    boolean absentBefore = cache.isAbsent(id);
+    Thread.sleep(100);
+    boolean absentAfter = cache.isAbsent(id);
+
+    // then
+    assertThat(absentBefore).isTrue();
+    assertThat(absentAfter).isFalse();
+    assertThat(cache.getSize()).isZero();
+  }
+
+  /** Test that the oldest entries are evicted if the {@link ThankTokenNegativeCache#getCapacity() capacity} is hit. */
+  @Test
+  public void testCapacity() {
+
+    // given
+    ThankTokenNegativeCache cache = new ThankTokenNegativeCache(Duration.ofHours(1), 3);
+    ThankTokenIdType id1 = createId(TEST_TIMESTAMP);
+    ThankTokenIdType id2 = createId(TEST_TIMESTAMP.next());
+    ThankTokenIdType id3 = createId(TEST_TIMESTAMP.next().next());
+    ThankTokenIdType id4 = createId(TEST_TIMESTAMP.next().next().next());
+
+    // when
+    cache.add(id1);
+    cache.add(id2);
+    cache.add(id3);
+    cache.add(id1); // refresh so id2 is the oldest
+    cache.add(id4);
+
+    // then
+    assertThat(cache.getSize()).isEqualTo(3);
+    assertThat(cache.isAbsent(id2)).isFalse();
+    assertThat(cache.isAbsent(id1)).isTrue();
+    assertThat(cache.isAbsent(id3)).isTrue();
+    assertThat(cache.isAbsent(id4)).isTrue();
+  }
+
+  /** Test of {@link ThankTokenNegativeCache#remove(ThankTokenIdType)}. */
+  @Test
+  public void testRemove() {
+
+    // given
+    ThankTokenNegativeCache cache = new ThankTokenNegativeCache();
+    ThankTokenIdType id = TEST_TOKEN_P4_HEADER.getId();
+    cache.add(id);
+
+    // when
+    cache.remove(id);
+
+    // then
+    assertThat(cache.isAbsent(id)).isFalse();
+    assertThat(cache.getSize()).isZero();
+  }
+
+}
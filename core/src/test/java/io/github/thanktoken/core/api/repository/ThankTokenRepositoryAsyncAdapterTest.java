@@ -0,0 +1,170 @@
+package io.github.thanktoken.core.api.repository;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.thanktoken.core.api.TestCase;
+import io.github.thanktoken.core.api.id.ThankTokenIdType;
+import io.github.thanktoken.core.api.token.ThankToken;
+
+/**
+ * Test of {@link ThankTokenRepositoryAsyncAdapter}.
+ */
+public class ThankTokenRepositoryAsyncAdapterTest extends TestCase {
+
+  private static final ThankTokenIdType ID = TEST_TOKEN_P4_HEADER.getId();
+
+  private static final ThankTokenIdType MISSING_ID = new ThankTokenIdType(TEST_TIMESTAMP.next(), TEST_LOCATION,
+      TEST_VERSION, TEST_ALGORITHM, TEST_CURRENCY);
+
+  /** Temporary directory for the 2nd level cache. */
+  @TempDir
+  Path repositoryPath;
+
+  private final TestRemoteService remoteService = new TestRemoteService().add(TEST_TOKEN_P4);
+
+  private final AtomicInteger dispatchCount = new AtomicInteger();
+
+  private final Executor executor = task -> {
+    this.dispatchCount.incrementAndGet();
+    task.run();
+  };
+
+  private ThankTokenRepositoryLocalDiskImpl disk;
+
+  private ThankTokenRepositoryLocalCacheImpl localCache;
+
+  private ThankTokenRepositoryAsyncAdapter createAdapter() {
+
+    this.disk = new ThankTokenRepositoryLocalDiskImpl(this.repositoryPath);
+    this.localCache = new ThankTokenRepositoryLocalCacheImpl(this.disk);
+    ThankTokenRepositoryImpl repository = new ThankTokenRepositoryImpl(this.remoteService, this.localCache,
+        new TestValidator());
+    return new ThankTokenRepositoryAsyncAdapter(repository, this.localCache.getFirstLevelCache(), this.executor);
+  }
+
+  /**
+   * Test that {@link ThankTokenRepositoryAsyncAdapter#findAsync(ThankTokenIdType)} is dispatched on a miss of the
+   * in-memory cache and completes inline on a hit.
+   *
+   * @throws Exception on error.
+   */
+  @Test
+  public void testFindAsync() throws Exception {
+
+    // given
+    ThankTokenRepositoryAsyncAdapter adapter = createAdapter();
+
+    // when
+    ThankToken dispatched = adapter.findAsync(ID).get();
+    int dispatchCountAfterMiss = this.dispatchCount.get();
+    CompletableFuture<ThankToken> inline = adapter.findAsync(ID);
+
+    // then
+    assertThat(dispatched).isSameAs(TEST_TOKEN_P4);
+    assertThat(dispatchCountAfterMiss).isEqualTo(1);
+    assertThat(inline).isCompletedWithValue(TEST_TOKEN_P4);
+    assertThat(this.dispatchCount.get()).isEqualTo(1);
+    assertThat(adapter.findAsync(MISSING_ID).get()).isNull();
+    assertThat(this.dispatchCount.get()).isEqualTo(2);
+  }
+
+  /**
+   * Test that a {@link ThankToken} only on disk is not loaded on the calling thread.
+   *
+   * @throws Exception on error.
+   */
+  @Test
+  public void testDiskNotInline() throws Exception {
+
+    // given
+    ThankTokenRepositoryAsyncAdapter adapter = createAdapter();
+    this.disk.save(TEST_TOKEN_P4);
+
+    // when
+    ThankToken token = adapter.findValidAsync(ID).get();
+
+    // then
+    assertThat(token).isNotNull();
+    assertThat(this.dispatchCount.get()).isEqualTo(1);
+    assertThat(this.remoteService.getFindCount()).isZero();
+  }
+
+  /**
+   * Test of {@link ThankTokenRepositoryAsyncAdapter#findValidAsync(ThankTokenIdType)} for validated and invalid
+   * entries of the in-memory cache.
+   *
+   * @throws Exception on error.
+   */
+  @Test
+  public void testFindValidAsync() throws Exception {
+
+    // given
+    ThankTokenRepositoryAsyncAdapter adapter = createAdapter();
+    ThankToken valid = adapter.findValidAsync(ID).get();
+    ThankTokenContainer invalid = new ThankTokenContainer(TEST_TOKEN_P4);
+    invalid.setValid(false);
+    this.localCache.getFirstLevelCache().put(MISSING_ID, invalid);
+    this.dispatchCount.set(0);
+
+    // when
+    CompletableFuture<ThankToken> validFuture = adapter.findValidAsync(ID);
+    CompletableFuture<ThankToken> invalidFuture = adapter.findValidAsync(MISSING_ID);
+    CompletableFuture<Boolean> validityFuture = adapter.getValidityAsync(ID);
+    CompletableFuture<Map<ThankTokenIdType, ThankToken>> allFuture = adapter
+        .findAllValidAsync(List.of(ID, MISSING_ID, ID));
+
+    // then
+    assertThat(valid).isSameAs(TEST_TOKEN_P4);
+    assertThat(validFuture).isCompletedWithValue(TEST_TOKEN_P4);
+    assertThat(invalidFuture).isCompletedWithValue(null);
+    assertThat(validityFuture).isCompletedWithValue(Boolean.TRUE);
+    assertThat(allFuture.get()).containsOnlyKeys(ID);
+    assertThat(this.dispatchCount.get()).isZero();
+  }
+
+  /**
+   * Test that an error on the inline path completes the {@link CompletableFuture} exceptionally instead of being
+   * thrown to the caller.
+   */
+  @Test
+  public void testInlineErrorCompletesExceptionally() {
+
+    // given
+    IllegalStateException error = new IllegalStateException("broken cache");
+    ThankTokenCache cache = new ThankTokenCache() {
+
+      @Override
+      public ThankTokenContainer get(ThankTokenIdType id) {
+
+        throw error;
+      }
+    };
+    ThankTokenRepositoryAsyncAdapter adapter = new ThankTokenRepositoryAsyncAdapter(
+        new ThankTokenRepositoryImpl(this.remoteService, new ThankTokenRepositoryLocalCacheImpl(null, cache),
+            new TestValidator()),
+        cache, this.executor);
+
+    // when
+    CompletableFuture<ThankToken> future = adapter.findValidAsync(ID);
+
+    // then
+    assertThat(future).isCompletedExceptionally();
+    try {
+      future.get();
+      failBecauseExceptionWasNotThrown(ExecutionException.class);
+    } catch (Exception e) {
+      assertThat(e).isInstanceOf(ExecutionException.class).hasCause(error);
+    }
+    assertThat(this.dispatchCount.get()).isZero();
+  }
+
+}
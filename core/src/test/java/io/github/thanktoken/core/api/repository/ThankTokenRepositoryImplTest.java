@@ -0,0 +1,283 @@
+package io.github.thanktoken.core.api.repository;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.thanktoken.core.api.TestCase;
+import io.github.thanktoken.core.api.id.ThankTokenIdType;
+import io.github.thanktoken.core.api.token.ThankToken;
+import io.github.thanktoken.core.api.validate.failure.ThankValidationFailureMismatch;
+import io.github.thanktoken.core.api.validate.failure.ThankValidationFailureReferenceNotFound;
+
+/**
+ * Test of {@link ThankTokenRepositoryImpl}.
+ */
+public class ThankTokenRepositoryImplTest extends TestCase {
+
+  private static final ThankTokenIdType ID = TEST_TOKEN_P4_HEADER.getId();
+
+  private static final ThankTokenIdType MISSING_ID = new ThankTokenIdType(TEST_TIMESTAMP.next(), TEST_LOCATION,
+      TEST_VERSION, TEST_ALGORITHM, TEST_CURRENCY);
+
+  private static final ThankTokenIdType MISSING_ID2 = new ThankTokenIdType(TEST_TIMESTAMP.next().next(),
+      TEST_LOCATION, TEST_VERSION, TEST_ALGORITHM, TEST_CURRENCY);
+
+  /** Temporary directory for the 2nd level cache. */
+  @TempDir
+  Path repositoryPath;
+
+  private TestRemoteService remoteService = new TestRemoteService().add(TEST_TOKEN_P4);
+
+  private TestValidator validator = new TestValidator();
+
+  private ThankTokenRepositoryImpl createRepository() {
+
+    ThankTokenRepositoryLocalCacheImpl cache = new ThankTokenRepositoryLocalCacheImpl(
+        new ThankTokenRepositoryLocalDiskImpl(this.repositoryPath));
+    return new ThankTokenRepositoryImpl(this.remoteService, cache, this.validator, new ThankTokenNegativeCache());
+  }
+
+  /**
+   * Test that concurrent {@link ThankTokenRepositoryImpl#findValid(ThankTokenIdType)} calls for the same
+   * {@link ThankTokenIdType} only fetch and validate once.
+   *
+   * @throws Exception on error.
+   */
+  @Test
+  public void testFindValidCoalesced() throws Exception {
+
+    // given
+    ThankTokenRepositoryImpl repository = createRepository();
+    CountDownLatch latch = new CountDownLatch(1);
+    this.remoteService.setLatch(latch);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    List<Future<ThankToken>> futures = new ArrayList<>();
+    try {
+      for (int i = 0; i < 4; i++) {
+        futures.add(executor.submit(() -> repository.findValid(ID)));
+      }
+
+      // when
+      latch.countDown();
+
+      // then
+      for (Future<ThankToken> future : futures) {
+        assertThat(future.get(10, TimeUnit.SECONDS)).isSameAs(TEST_TOKEN_P4);
+      }
+      assertThat(this.remoteService.getFindCount()).isEqualTo(1);
+      assertThat(this.validator.getValidationCount()).isEqualTo(1);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Test that an exception of the {@link ThankTokenRepositoryRemoteService} is propagated and the fetch is retried
+   * by the next call.
+   */
+  @Test
+  public void testFindExceptionNotCached() {
+
+    // given
+    ThankTokenRepositoryImpl repository = createRepository();
+    IllegalStateException error = new IllegalStateException("remote failed");
+    this.remoteService.setError(error);
+
+    // when
+    try {
+      repository.find(ID);
+      failBecauseExceptionWasNotThrown(IllegalStateException.class);
+    } catch (IllegalStateException e) {
+      assertThat(e).isSameAs(error);
+    }
+    this.remoteService.setError(null);
+    ThankToken token = repository.find(ID);
+
+    // then
+    assertThat(token).isSameAs(TEST_TOKEN_P4);
+    assertThat(this.remoteService.getFindCount()).isEqualTo(2);
+  }
+
+  /**
+   * Test that the {@link io.github.thanktoken.core.api.validate.ThankValidator} can call back into the repository for
+   * the {@link ThankToken} it is validating without dead-locking.
+   *
+   * @throws Exception on error.
+   */
+  @Test
+  public void testValidatorReentrant() throws Exception {
+
+    // given
+    ThankTokenRepositoryImpl repository = createRepository();
+    this.validator.setCallback(token -> {
+      ThankTokenIdType id = token.requireHeader().getId();
+      assertThat(repository.find(id)).isSameAs(token);
+      assertThat(repository.getValidity(id)).isNull();
+    });
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+
+      // when
+      Future<ThankToken> future = executor.submit(() -> repository.findValid(ID));
+
+      // then
+      assertThat(future.get(10, TimeUnit.SECONDS)).isSameAs(TEST_TOKEN_P4);
+      assertThat(this.validator.getValidationCount()).isEqualTo(1);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Test of {@link ThankTokenRepositoryImpl#findAll(java.util.Collection)} with hits, misses and duplicate
+   * {@link ThankTokenIdType}s.
+   */
+  @Test
+  public void testFindAll() {
+
+    // given
+    ThankTokenRepositoryImpl repository = createRepository();
+
+    // when
+    Map<ThankTokenIdType, ThankToken> tokens = repository.findAll(List.of(ID, MISSING_ID, ID, MISSING_ID2,
+        MISSING_ID));
+    Map<ThankTokenIdType, ThankToken> cached = repository.findAll(List.of(MISSING_ID, ID, MISSING_ID2));
+
+    // then
+    assertThat(tokens).containsOnlyKeys(ID).containsEntry(ID, TEST_TOKEN_P4);
+    assertThat(cached).containsOnlyKeys(ID).containsEntry(ID, TEST_TOKEN_P4);
+    // one batch request without duplicates, the misses are then answered from the negative cache
+    assertThat(this.remoteService.getFindAllRequests()).hasSize(1);
+    assertThat(this.remoteService.getFindAllRequests().get(0)).containsExactly(ID, MISSING_ID, MISSING_ID2);
+    assertThat(repository.getNegativeCache().isAbsent(MISSING_ID)).isTrue();
+    assertThat(repository.getNegativeCache().isAbsent(MISSING_ID2)).isTrue();
+    assertThat(repository.getNegativeCache().isAbsent(ID)).isFalse();
+    assertThat(this.remoteService.getFindCount()).isZero();
+  }
+
+  /**
+   * Test of {@link ThankTokenRepositoryFacade#findAll(java.util.Collection)} that only returns valid
+   * {@link ThankToken}s.
+   */
+  @Test
+  public void testFindAllValid() {
+
+    // given
+    ThankTokenRepositoryImpl repository = createRepository();
+    ThankTokenRepositoryFacade facade = new ThankTokenRepositoryFacade(repository);
+
+    // when
+    Map<ThankTokenIdType, ThankToken> tokens = facade.findAll(List.of(MISSING_ID, ID, ID));
+
+    // then
+    assertThat(tokens).containsOnlyKeys(ID).containsEntry(ID, TEST_TOKEN_P4);
+    assertThat(this.validator.getValidationCount()).isEqualTo(1);
+    assertThat(repository.getValidity(ID)).isTrue();
+  }
+
+  /** Test that the constructor without {@link ThankTokenNegativeCache} asks the remote service for every miss. */
+  @Test
+  public void testNegativeCacheDisabledByDefault() {
+
+    // given
+    TestRemoteService emptyRemoteService = new TestRemoteService();
+    ThankTokenRepositoryImpl repository = new ThankTokenRepositoryImpl(emptyRemoteService,
+        new ThankTokenRepositoryLocalCacheImpl(new ThankTokenRepositoryLocalDiskImpl(this.repositoryPath)),
+        this.validator);
+
+    // when
+    ThankToken miss = repository.find(ID);
+    emptyRemoteService.add(TEST_TOKEN_P4);
+    ThankToken hit = repository.find(ID);
+
+    // then
+    assertThat(repository.getNegativeCache()).isNull();
+    assertThat(miss).isNull();
+    assertThat(hit).isSameAs(TEST_TOKEN_P4);
+    assertThat(emptyRemoteService.getFindCount()).isEqualTo(2);
+  }
+
+  /**
+   * Test that {@link ThankTokenRepositoryImpl#add(ThankToken)} removes the {@link ThankTokenIdType} from the
+   * {@link ThankTokenNegativeCache}.
+   */
+  @Test
+  public void testAddRemovesFromNegativeCache() {
+
+    // given
+    TestRemoteService emptyRemoteService = new TestRemoteService();
+    ThankTokenRepositoryImpl repository = new ThankTokenRepositoryImpl(emptyRemoteService,
+        new ThankTokenRepositoryLocalCacheImpl(new ThankTokenRepositoryLocalDiskImpl(this.repositoryPath)),
+        this.validator, new ThankTokenNegativeCache());
+    assertThat(repository.find(ID)).isNull();
+    assertThat(repository.getNegativeCache().isAbsent(ID)).isTrue();
+
+    // when
+    repository.add(TEST_TOKEN_P4);
+
+    // then
+    assertThat(repository.getNegativeCache().isAbsent(ID)).isFalse();
+    assertThat(repository.find(ID)).isSameAs(TEST_TOKEN_P4);
+    assertThat(emptyRemoteService.getFindCount()).isEqualTo(1);
+  }
+
+  /** Test that a definitive validation failure is persisted in the {@link ThankTokenInvalidStore}. */
+  @Test
+  public void testInvalidStoreDefinitiveFailure() {
+
+    // given
+    Path file = this.repositoryPath.resolve("invalid.bin");
+    ThankTokenInvalidStore invalidStore = new ThankTokenInvalidStore(file);
+    ThankTokenRepositoryImpl repository = createRepository(invalidStore);
+    this.validator.setFailure(new ThankValidationFailureMismatch("hash2chain", "a", "b", TEST_TOKEN_P4_HEADER));
+
+    // when
+    ThankToken token = repository.findValid(ID);
+
+    // then
+    assertThat(token).isNull();
+    assertThat(invalidStore.isInvalid(TEST_TOKEN_P4)).isTrue();
+    // flushed immediately so visible without close
+    ThankTokenInvalidStore reopenedStore = new ThankTokenInvalidStore(file);
+    assertThat(reopenedStore.isInvalid(TEST_TOKEN_P4)).isTrue();
+    reopenedStore.close();
+    invalidStore.close();
+  }
+
+  /** Test that a temporary validation failure is not persisted in the {@link ThankTokenInvalidStore}. */
+  @Test
+  public void testInvalidStoreTemporaryFailure() {
+
+    // given
+    ThankTokenInvalidStore invalidStore = new ThankTokenInvalidStore(this.repositoryPath.resolve("invalid.bin"));
+    ThankTokenRepositoryImpl repository = createRepository(invalidStore);
+    this.validator.setFailure(new ThankValidationFailureReferenceNotFound(TEST_REFERENCE, TEST_TOKEN_P4_HEADER));
+
+    // when
+    ThankToken token = repository.findValid(ID);
+
+    // then
+    assertThat(token).isNull();
+    assertThat(invalidStore.isInvalid(TEST_TOKEN_P4)).isFalse();
+    assertThat(invalidStore.getSize()).isZero();
+    invalidStore.close();
+  }
+
+  private ThankTokenRepositoryImpl createRepository(ThankTokenInvalidStore invalidStore) {
+
+    ThankTokenRepositoryLocalCacheImpl cache = new ThankTokenRepositoryLocalCacheImpl(
+        new ThankTokenRepositoryLocalDiskImpl(this.repositoryPath));
+    return new ThankTokenRepositoryImpl(this.remoteService, cache, this.validator, null, invalidStore);
+  }
+
+}
@@ -0,0 +1,173 @@
+package io.github.thanktoken.core.api.repository;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.thanktoken.core.api.TestCase;
+import io.github.thanktoken.core.api.repository.ThankTokenRepositoryJournal.FileWrite;
+
+/**
+ * Test of {@link ThankTokenRepositoryJournal}.
+ */
+public class ThankTokenRepositoryJournalTest extends TestCase {
+
+  /** Temporary directory for the repositories. */
+  @TempDir
+  Path repositoryPath;
+
+  /**
+   * Test of {@link ThankTokenRepositoryJournal#write(List)} and {@link ThankTokenRepositoryJournal#close()} with
+   * checkpoint.
+   */
+  @Test
+  public void testWriteAndCheckpoint() throws IOException {
+
+    // given
+    Path file1 = this.repositoryPath.resolve("a/b/file1.json");
+    Path file2 = this.repositoryPath.resolve("a/file2.json");
+    Path journalFile = this.repositoryPath.resolve(ThankTokenRepositoryJournal.FILENAME_JOURNAL);
+    ThankTokenRepositoryJournal journal = new ThankTokenRepositoryJournal(this.repositoryPath,
+        ThankTokenRepositoryJournal.DEFAULT_MAX_LATENCY);
+
+    // when
+    journal.write(List.of(new FileWrite(file1, bytes("one")), new FileWrite(file2, bytes("two"))));
+    long journalSize = Files.size(journalFile);
+    journal.close();
+
+    // then
+    assertThat(file1).hasContent("one");
+    assertThat(file2).hasContent("two");
+    assertThat(journalSize).isPositive();
+    assertThat(Files.size(journalFile)).isZero();
+    assertThat(listTempFiles(this.repositoryPath)).isEmpty();
+  }
+
+  /**
+   * Test of the replay after a crash: the journal has been committed but the files have never been written.
+   */
+  @Test
+  public void testReplayAfterCrash() throws IOException {
+
+    // given
+    Path crashedPath = this.repositoryPath.resolve("crashed");
+    Path recoveredPath = this.repositoryPath.resolve("recovered");
+    byte[] journalData = writeJournal(crashedPath, 2);
+    Files.createDirectories(recoveredPath);
+    Files.write(recoveredPath.resolve(ThankTokenRepositoryJournal.FILENAME_JOURNAL), journalData);
+
+    // when
+    ThankTokenRepositoryJournal journal = new ThankTokenRepositoryJournal(recoveredPath,
+        ThankTokenRepositoryJournal.DEFAULT_MAX_LATENCY);
+    journal.close();
+
+    // then
+    assertThat(recoveredPath.resolve("x/file0.json")).hasContent("data0");
+    assertThat(recoveredPath.resolve("x/file1.json")).hasContent("data1");
+    assertThat(Files.size(recoveredPath.resolve(ThankTokenRepositoryJournal.FILENAME_JOURNAL))).isZero();
+  }
+
+  /**
+   * Test of the replay after a crash while appending to the journal: the torn entry at the end has never been
+   * acknowledged and is ignored while all entries before are applied.
+   */
+  @Test
+  public void testReplayIgnoresTornEntry() throws IOException {
+
+    // given
+    Path crashedPath = this.repositoryPath.resolve("crashed");
+    Path recoveredPath = this.repositoryPath.resolve("recovered");
+    byte[] journalData = writeJournal(crashedPath, 2);
+    Files.createDirectories(recoveredPath);
+    Files.write(recoveredPath.resolve(ThankTokenRepositoryJournal.FILENAME_JOURNAL),
+        Arrays.copyOf(journalData, journalData.length - 3));
+
+    // when
+    ThankTokenRepositoryJournal journal = new ThankTokenRepositoryJournal(recoveredPath,
+        ThankTokenRepositoryJournal.DEFAULT_MAX_LATENCY);
+    journal.close();
+
+    // then
+    assertThat(recoveredPath.resolve("x/file0.json")).hasContent("data0");
+    assertThat(recoveredPath.resolve("x/file1.json")).doesNotExist();
+  }
+
+  /**
+   * Test of the replay with an already existing (outdated) file that has to be overwritten.
+   */
+  @Test
+  public void testReplayOverwritesExistingFile() throws IOException {
+
+    // given
+    Path crashedPath = this.repositoryPath.resolve("crashed");
+    Path recoveredPath = this.repositoryPath.resolve("recovered");
+    byte[] journalData = writeJournal(crashedPath, 1);
+    Files.createDirectories(recoveredPath.resolve("x"));
+    Files.write(recoveredPath.resolve("x/file0.json"), bytes("outdated"));
+    Files.write(recoveredPath.resolve(ThankTokenRepositoryJournal.FILENAME_JOURNAL), journalData);
+
+    // when
+    ThankTokenRepositoryJournal journal = new ThankTokenRepositoryJournal(recoveredPath,
+        ThankTokenRepositoryJournal.DEFAULT_MAX_LATENCY);
+    journal.close();
+
+    // then
+    assertThat(recoveredPath.resolve("x/file0.json")).hasContent("data0");
+    assertThat(listTempFiles(recoveredPath)).isEmpty();
+  }
+
+  /**
+   * Test of {@link ThankTokenRepositoryJournal#writeAtomic(Path, byte[], boolean)}.
+   */
+  @Test
+  public void testWriteAtomic() throws IOException {
+
+    // given
+    Path file = this.repositoryPath.resolve("file.json");
+    Files.write(file, bytes("old"));
+
+    // when
+    ThankTokenRepositoryJournal.writeAtomic(file, bytes("new"), true);
+    ThankTokenRepositoryJournal.writeAtomic(this.repositoryPath.resolve("other.json"), bytes("other"), false);
+
+    // then
+    assertThat(file).hasContent("new");
+    assertThat(this.repositoryPath.resolve("other.json")).hasContent("other");
+    assertThat(listTempFiles(this.repositoryPath)).isEmpty();
+  }
+
+  /**
+   * Writes the given number of files via a journal in the given directory that is never closed (simulated crash) and
+   * returns the journal data.
+   */
+  private static byte[] writeJournal(Path path, int count) throws IOException {
+
+    ThankTokenRepositoryJournal journal = new ThankTokenRepositoryJournal(path,
+        ThankTokenRepositoryJournal.DEFAULT_MAX_LATENCY);
+    for (int i = 0; i < count; i++) {
+      journal.write(List.of(new FileWrite(path.resolve("x/file" + i + ".json"), bytes("data" + i))));
+    }
+    return Files.readAllBytes(path.resolve(ThankTokenRepositoryJournal.FILENAME_JOURNAL));
+  }
+
+  private static List<Path> listTempFiles(Path path) throws IOException {
+
+    try (Stream<Path> files = Files.walk(path)) {
+      return files.filter(file -> file.getFileName().toString().endsWith(".tmp")).collect(Collectors.toList());
+    }
+  }
+
+  private static byte[] bytes(String data) {
+
+    return data.getBytes(StandardCharsets.UTF_8);
+  }
+
+}
@@ -0,0 +1,55 @@
+package io.github.thanktoken.core.api.repository;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.thanktoken.core.api.TestCase;
+import io.github.thanktoken.core.api.id.ThankTokenIdType;
+import io.github.thanktoken.core.api.token.ThankToken;
+
+/**
+ * Test of {@link ThankTokenRepositoryLocalCacheImpl}.
+ */
+public class ThankTokenRepositoryLocalCacheImplTest extends TestCase {
+
+  /** Temporary directory for the 2nd level cache. */
+  @TempDir
+  Path repositoryPath;
+
+  /**
+   * Test of {@link ThankTokenRepositoryLocalCacheImpl#findAll(java.util.Collection)} with hits in the 1st and 2nd
+   * level cache, misses and duplicate {@link ThankTokenIdType}s.
+   */
+  @Test
+  public void testFindAll() {
+
+    // given
+    ThankTokenRepositoryLocalDiskImpl disk = new ThankTokenRepositoryLocalDiskImpl(this.repositoryPath);
+    disk.save(TEST_TOKEN_P4);
+    ThankTokenRepositoryLocalCacheImpl repository = new ThankTokenRepositoryLocalCacheImpl(disk);
+    ThankTokenIdType id = TEST_TOKEN_P4_HEADER.getId();
+    ThankTokenIdType missingId = new ThankTokenIdType(TEST_TIMESTAMP.next(), TEST_LOCATION, TEST_VERSION,
+        TEST_ALGORITHM, TEST_CURRENCY);
+    ThankTokenCache firstLevelCache = repository.getFirstLevelCache();
+
+    // when
+    Map<ThankTokenIdType, ThankToken> fromDisk = repository.findAll(List.of(id, missingId, id));
+    long hitsBefore = firstLevelCache.getHitCount();
+    Map<ThankTokenIdType, ThankToken> fromMemory = repository.findAll(List.of(missingId, id));
+
+    // then
+    assertThat(fromDisk).containsOnlyKeys(id);
+    assertThat(fromMemory).containsOnlyKeys(id);
+    assertThat(fromMemory.get(id)).isSameAs(fromDisk.get(id));
+    assertThat(firstLevelCache.getHitCount() - hitsBefore).isEqualTo(1);
+    assertThat(firstLevelCache.getSize()).isEqualTo(1);
+    // tokens from the 2nd level cache are known to be valid
+    assertThat(repository.findAllValid(List.of(id, missingId))).containsOnlyKeys(id);
+    assertThat(repository.getValidity(id)).isTrue();
+  }
+
+}
@@ -0,0 +1,186 @@
+package io.github.thanktoken.core.api.repository;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.thanktoken.core.api.TestCase;
+import io.github.thanktoken.core.api.id.ThankTokenIdType;
+import io.github.thanktoken.core.api.token.ThankToken;
+import io.github.thanktoken.core.api.token.ThankTokenType;
+import io.github.thanktoken.core.api.token.header.ThankTokenHeaderBean;
+
+/**
+ * Test of {@link ThankTokenRepositoryLocalDiskBloomFilterImpl}.
+ */
+public class ThankTokenRepositoryLocalDiskBloomFilterImplTest extends TestCase {
+
+  private static final ThankTokenIdType UNKNOWN_ID = new ThankTokenIdType(TEST_TIMESTAMP.next(), TEST_LOCATION,
+      TEST_VERSION, TEST_ALGORITHM, TEST_CURRENCY);
+
+  /** Temporary directory for the repository. */
+  @TempDir
+  Path repositoryPath;
+
+  private ThankTokenRepositoryLocalDiskBloomFilterImpl open(Path filterFile) {
+
+    return new ThankTokenRepositoryLocalDiskBloomFilterImpl(
+        new ThankTokenRepositoryLocalDiskSegmentImpl(this.repositoryPath.resolve("segments")), filterFile, 1000, 0.01);
+  }
+
+  /** Test of {@link ThankTokenRepositoryLocalDiskBloomFilterImpl#find(ThankTokenIdType)}. */
+  @Test
+  public void testFind() {
+
+    // given
+    Path filterFile = this.repositoryPath.resolve("ids.bloom");
+    ThankTokenRepositoryLocalDiskBloomFilterImpl repository = open(filterFile);
+
+    // when
+    repository.save(TEST_TOKEN_P4);
+
+    // then
+    assertThat(repository.getFilter().mightContain(UNKNOWN_ID)).isFalse();
+    assertThat(repository.find(UNKNOWN_ID)).isNull();
+    assertThat(repository.find(TEST_TOKEN_P4_HEADER.getId())).isNotNull();
+    repository.close();
+    assertThat(filterFile).exists();
+  }
+
+  /** Test that the filter is loaded from the file and rebuilt if the file is missing (e.g. after a crash). */
+  @Test
+  public void testReopen() throws Exception {
+
+    // given
+    Path filterFile = this.repositoryPath.resolve("ids.bloom");
+    ThankTokenRepositoryLocalDiskBloomFilterImpl repository = open(filterFile);
+    repository.save(TEST_TOKEN_P4);
+    repository.close();
+
+    // when
+    repository = open(filterFile);
+
+    // then
+    assertThat(filterFile).doesNotExist();
+    assertThat(repository.getFilter().mightContain(TEST_TOKEN_P4_HEADER.getId())).isTrue();
+    assertThat(repository.getFilter().getInsertions()).isEqualTo(1);
+    repository.close();
+
+    // when
+    Files.delete(filterFile);
+    repository = open(filterFile);
+
+    // then
+    assertThat(repository.getFilter().mightContain(TEST_TOKEN_P4_HEADER.getId())).isTrue();
+    assertThat(repository.find(TEST_TOKEN_P4_HEADER.getId())).isNotNull();
+    repository.close();
+  }
+
+  /**
+   * Test that the persisted filter is rebuilt if a {@link ThankToken} has been saved directly to the decorated
+   * repository while the filter was closed.
+   */
+  @Test
+  public void testReopenAfterSaveToDelegate() {
+
+    // given
+    Path filterFile = this.repositoryPath.resolve("ids.bloom");
+    ThankTokenRepositoryLocalDiskBloomFilterImpl repository = open(filterFile);
+    repository.save(TEST_TOKEN_P4);
+    repository.close();
+    ThankTokenType token = new ThankTokenType(
+        new ThankTokenHeaderBean(TEST_TOKEN_P4_HEADER).setTimestamp(TEST_TIMESTAMP.next()));
+    ThankTokenIdType id = token.requireHeader().getId();
+    ThankTokenRepositoryLocalDiskSegmentImpl segments = new ThankTokenRepositoryLocalDiskSegmentImpl(
+        this.repositoryPath.resolve("segments"));
+    segments.save(token);
+    segments.close();
+
+    // when
+    repository = open(filterFile);
+
+    // then
+    assertThat(repository.getFilter().getInsertions()).isEqualTo(2);
+    assertThat(repository.getFilter().mightContain(id)).isTrue();
+    assertThat(repository.find(id)).isNotNull();
+    repository.close();
+  }
+
+  /**
+   * Test that the filter is rebuilt from the {@code h.json} files of a {@link ThankTokenRepositoryLocalDiskImpl} if
+   * the filter file is missing.
+   */
+  @Test
+  public void testRebuildFromDirectoryRepository() {
+
+    // given
+    Path tokenPath = this.repositoryPath.resolve("tokens");
+    ThankTokenRepositoryLocalDiskImpl disk = new ThankTokenRepositoryLocalDiskImpl(tokenPath);
+    disk.save(TEST_TOKEN_P4);
+    disk.close();
+    Path filterFile = this.repositoryPath.resolve("ids.bloom");
+
+    // when
+    ThankTokenRepositoryLocalDiskBloomFilterImpl repository = new ThankTokenRepositoryLocalDiskBloomFilterImpl(
+        new ThankTokenRepositoryLocalDiskImpl(tokenPath), filterFile, 1000, 0.01);
+
+    // then
+    assertThat(repository.getFilter().getInsertions()).isEqualTo(1);
+    assertThat(repository.getFilter().mightContain(TEST_TOKEN_P4_HEADER.getId())).isTrue();
+    assertThat(repository.getFilter().mightContain(UNKNOWN_ID)).isFalse();
+    assertThat(repository.find(TEST_TOKEN_P4_HEADER.getId())).isNotNull();
+    repository.close();
+  }
+
+  /**
+   * Test that the filter is rebuilt via the default {@link ThankTokenRepositoryLocalDisk#forEachId(Consumer)} of a
+   * {@link ThankTokenRepositoryLocalDisk} that only implements {@link ThankTokenRepositoryLocalDisk#scan scan}.
+   */
+  @Test
+  public void testRebuildWithDefaultForEachId() {
+
+    // given
+    ThankTokenRepositoryLocalDiskImpl disk = new ThankTokenRepositoryLocalDiskImpl(
+        this.repositoryPath.resolve("tokens"));
+    disk.save(TEST_TOKEN_P4);
+    ThankTokenRepositoryLocalDisk scanOnly = new ThankTokenRepositoryLocalDisk() {
+
+      @Override
+      public ThankToken find(ThankTokenIdType id) {
+
+        return disk.find(id);
+      }
+
+      @Override
+      public void save(ThankToken token) {
+
+        disk.save(token);
+      }
+
+      @Override
+      public Stream<ThankTokenHandle> scan(ThankTokenScanFilter filter) {
+
+        return disk.scan(filter);
+      }
+    };
+    List<ThankTokenIdType> ids = new ArrayList<>();
+
+    // when
+    scanOnly.forEachId(ids::add);
+    ThankTokenRepositoryLocalDiskBloomFilterImpl repository = new ThankTokenRepositoryLocalDiskBloomFilterImpl(
+        scanOnly, this.repositoryPath.resolve("ids.bloom"), 1000, 0.01);
+
+    // then
+    assertThat(ids).containsExactly(TEST_TOKEN_P4_HEADER.getId());
+    assertThat(repository.getFilter().mightContain(TEST_TOKEN_P4_HEADER.getId())).isTrue();
+    repository.close();
+    disk.close();
+  }
+
+}
@@ -0,0 +1,299 @@
+package io.github.thanktoken.core.api.repository;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.thanktoken.core.api.id.ThankTokenIdType;
+import io.github.thanktoken.core.api.io.ThankReaderImpl;
+import io.github.thanktoken.core.api.io.ThankWriterImpl;
+import io.github.thanktoken.core.api.token.ThankToken;
+import io.github.thanktoken.core.api.token.ThankTokenType;
+import io.github.thanktoken.core.api.transaction.ThankTransactionBean;
+
+/**
+ * Test of {@link ThankTokenRepositoryLocalDiskImpl}.
+ */
+public class ThankTokenRepositoryLocalDiskImplTest extends AbstractThankTokenRepositoryLocalDiskTest {
+
+  @Override
+  protected ThankTokenRepositoryLocalDisk createRepository() {
+
+    return new ThankTokenRepositoryLocalDiskImpl(this.repositoryPath);
+  }
+
+  /**
+   * Test of {@link ThankTokenRepositoryLocalDiskImpl#save(ThankToken)} and
+   * {@link ThankTokenRepositoryLocalDiskImpl#find(ThankTokenIdType)}.
+   */
+  @Test
+  public void testSaveAndFind() {
+
+    // given
+    ThankTokenRepositoryLocalDiskImpl repository = new ThankTokenRepositoryLocalDiskImpl(this.repositoryPath);
+
+    // when
+    repository.save(new ThankTokenType(TEST_TOKEN_P4_HEADER));
+    repository.save(TEST_TOKEN_P4);
+    ThankToken token = repository.find(TEST_TOKEN_P4_HEADER.getId());
+
+    // then
+    assertThat(repository.find(new ThankTokenIdType(TEST_TIMESTAMP.next(), TEST_LOCATION, TEST_VERSION,
+        TEST_ALGORITHM, TEST_CURRENCY))).isNull();
+    assertThat(this.repositoryPath.resolve(ThankTokenRepositoryJournal.FILENAME_JOURNAL)).doesNotExist();
+    checkToken(token);
+  }
+
+  /**
+   * Test of {@link ThankTokenRepositoryLocalDiskImpl#appendTransactions(ThankToken, int)} with an index beyond the
+   * stored {@link ThankTokenManifest manifest}.
+   */
+  @Test
+  public void testAppendTransactionsClampsIndex() {
+
+    // given
+    ThankTokenRepositoryLocalDiskImpl repository = new ThankTokenRepositoryLocalDiskImpl(this.repositoryPath);
+    repository.save(new ThankTokenType(TEST_TOKEN_P4_HEADER));
+
+    // when
+    repository.appendTransactions(TEST_TOKEN_P4, 1);
+
+    // then
+    checkToken(repository.find(TEST_TOKEN_P4_HEADER.getId()));
+  }
+
+  /**
+   * Test of {@link ThankTokenRepositoryLocalDiskImpl#appendTransactions(ThankToken, int)} with an index beyond the
+   * stored {@link io.github.thanktoken.core.api.transaction.ThankTransaction}s of a token stored without
+   * {@link ThankTokenManifest manifest}.
+   */
+  @Test
+  public void testAppendTransactionsClampsIndexWithoutManifest() throws IOException {
+
+    // given
+    ThankTokenRepositoryLocalDiskImpl repository = new ThankTokenRepositoryLocalDiskImpl(this.repositoryPath);
+    repository.save(new ThankTokenType(TEST_TOKEN_P4_HEADER));
+    Path folder = repository.getPath(TEST_TOKEN_P4_HEADER.getId());
+    Files.delete(folder.resolve(ThankTokenManifest.FILENAME_MANIFEST));
+
+    // when
+    repository.appendTransactions(TEST_TOKEN_P4, 1);
+
+    // then
+    checkToken(repository.find(TEST_TOKEN_P4_HEADER.getId()));
+  }
+
+  /**
+   * Test of {@link ThankTokenRepositoryLocalDiskImpl#save(ThankToken)} with stale copies of a token stored without
+   * {@link ThankTokenManifest manifest}.
+   */
+  @Test
+  public void testSaveStaleCopyWithoutManifest() throws IOException {
+
+    // given
+    ThankTokenRepositoryLocalDiskImpl repository = new ThankTokenRepositoryLocalDiskImpl(this.repositoryPath);
+    repository.save(createToken(3));
+    Path folder = repository.getPath(TEST_TOKEN_P4_HEADER.getId());
+    Files.delete(folder.resolve(ThankTokenManifest.FILENAME_MANIFEST));
+
+    // when
+    repository.save(createToken(0));
+    repository.save(createToken(1));
+
+    // then
+    assertThat(folder.resolve(ThankTokenManifest.FILENAME_MANIFEST)).doesNotExist();
+    assertThat(repository.find(TEST_TOKEN_P4_HEADER.getId()).getTransactions()).hasSize(3);
+  }
+
+  /**
+   * Test of {@link ThankTokenRepositoryReadMode#MAPPED mapped mode} with small files read into heap buffers and a
+   * large file that is mapped.
+   */
+  @Test
+  public void testMapped() {
+
+    // given
+    ThankTokenRepositoryLocalDiskImpl repository = new ThankTokenRepositoryLocalDiskImpl(this.repositoryPath,
+        ThankReaderImpl.get(), ThankWriterImpl.get(), ThankTokenRepositoryReadMode.MAPPED);
+    String purpose = "x".repeat(32 * 1024);
+    ThankTokenType largeToken = new ThankTokenType(TEST_TOKEN_P4_HEADER).addTransaction(TEST_TOKEN_P4_TX_0)
+        .addTransaction(new ThankTransactionBean(TEST_TOKEN_P4_TX_0).setPublicPurpose(purpose));
+
+    // when
+    repository.save(TEST_TOKEN_P4);
+    ThankToken token = repository.find(TEST_TOKEN_P4_HEADER.getId());
+    repository.save(largeToken);
+    ThankToken loadedLargeToken = repository.find(TEST_TOKEN_P4_HEADER.getId());
+
+    // then
+    checkToken(token);
+    assertThat(loadedLargeToken.getTransactions()).hasSize(2);
+    assertThat(loadedLargeToken.getTransactions().get(1).getPublicPurpose()).isEqualTo(purpose);
+  }
+
+  /** Test of {@link ThankTokenRepositoryWriteMode#DURABLE durable mode}. */
+  @Test
+  public void testDurable() {
+
+    // given
+    ThankTokenRepositoryLocalDiskImpl repository = new ThankTokenRepositoryLocalDiskImpl(this.repositoryPath,
+        ThankReaderImpl.get(), ThankWriterImpl.get(), ThankTokenRepositoryReadMode.STREAM,
+        ThankTokenRepositoryWriteMode.DURABLE, ThankTokenRepositoryJournal.DEFAULT_MAX_LATENCY);
+
+    // when
+    repository.save(TEST_TOKEN_P4);
+    repository.close();
+    repository = new ThankTokenRepositoryLocalDiskImpl(this.repositoryPath);
+
+    // then
+    checkToken(repository.find(TEST_TOKEN_P4_HEADER.getId()));
+  }
+
+  /** Test of {@link ThankTokenRepositoryWriteMode#DURABLE durable mode} with replay of the journal after a crash. */
+  @Test
+  public void testDurableReplayAfterCrash() throws IOException {
+
+    // given
+    Path crashedPath = this.repositoryPath.resolve("crashed");
+    Path recoveredPath = this.repositoryPath.resolve("recovered");
+    ThankTokenRepositoryLocalDiskImpl repository = new ThankTokenRepositoryLocalDiskImpl(crashedPath,
+        ThankReaderImpl.get(), ThankWriterImpl.get(), ThankTokenRepositoryReadMode.STREAM,
+        ThankTokenRepositoryWriteMode.DURABLE, ThankTokenRepositoryJournal.DEFAULT_MAX_LATENCY);
+    repository.save(TEST_TOKEN_P4);
+    // simulate a crash after the journal was committed but before any token file reached the disk
+    Files.createDirectories(recoveredPath);
+    Files.copy(crashedPath.resolve(ThankTokenRepositoryJournal.FILENAME_JOURNAL),
+        recoveredPath.resolve(ThankTokenRepositoryJournal.FILENAME_JOURNAL));
+
+    // when
+    repository = new ThankTokenRepositoryLocalDiskImpl(recoveredPath, ThankReaderImpl.get(), ThankWriterImpl.get(),
+        ThankTokenRepositoryReadMode.STREAM, ThankTokenRepositoryWriteMode.DURABLE,
+        ThankTokenRepositoryJournal.DEFAULT_MAX_LATENCY);
+    ThankToken token = repository.find(TEST_TOKEN_P4_HEADER.getId());
+    repository.close();
+
+    // then
+    checkToken(token);
+    assertThat(Files.size(recoveredPath.resolve(ThankTokenRepositoryJournal.FILENAME_JOURNAL))).isZero();
+  }
+
+  /** Test of {@link ThankTokenRepositoryWriteMode#ATOMIC atomic mode}. */
+  @Test
+  public void testAtomic() throws IOException {
+
+    // given
+    ThankTokenRepositoryLocalDiskImpl repository = new ThankTokenRepositoryLocalDiskImpl(this.repositoryPath,
+        ThankReaderImpl.get(), ThankWriterImpl.get(), ThankTokenRepositoryReadMode.STREAM,
+        ThankTokenRepositoryWriteMode.ATOMIC, ThankTokenRepositoryJournal.DEFAULT_MAX_LATENCY);
+
+    // when
+    repository.save(new ThankTokenType(TEST_TOKEN_P4_HEADER));
+    repository.save(TEST_TOKEN_P4);
+    repository = new ThankTokenRepositoryLocalDiskImpl(this.repositoryPath);
+
+    // then
+    checkToken(repository.find(TEST_TOKEN_P4_HEADER.getId()));
+    assertThat(this.repositoryPath.resolve(ThankTokenRepositoryJournal.FILENAME_JOURNAL)).doesNotExist();
+    try (Stream<Path> files = Files.walk(this.repositoryPath)) {
+      assertThat(files.filter(file -> file.getFileName().toString().endsWith(".tmp"))).isEmpty();
+    }
+  }
+
+  /**
+   * Test of {@link ThankTokenRepositoryLocalDiskImpl#flush()} forcing the written files and directories in
+   * {@link ThankTokenRepositoryWriteMode#DIRECT direct mode}.
+   */
+  @Test
+  public void testFlush() {
+
+    // given
+    ThankTokenRepositoryLocalDiskImpl repository = new ThankTokenRepositoryLocalDiskImpl(this.repositoryPath);
+
+    // when
+    repository.save(new ThankTokenType(TEST_TOKEN_P4_HEADER));
+    repository.flush();
+    repository.save(TEST_TOKEN_P4);
+    repository.flush();
+    repository.flush(); // nothing written since the last flush
+
+    // then
+    checkToken(new ThankTokenRepositoryLocalDiskImpl(this.repositoryPath).find(TEST_TOKEN_P4_HEADER.getId()));
+  }
+
+  /** Test of {@link ThankTokenRepositoryLayoutMigration} to {@link ThankTokenRepositoryLayoutHashed}. */
+  @Test
+  public void testMigrateToHashedLayout() {
+
+    // given
+    ThankTokenRepositoryLocalDiskImpl repository = new ThankTokenRepositoryLocalDiskImpl(this.repositoryPath);
+    repository.save(TEST_TOKEN_P4);
+    Path defaultFolder = repository.getPath(TEST_TOKEN_P4_HEADER.getId());
+
+    // when
+    long count = new ThankTokenRepositoryLayoutMigration(this.repositoryPath, ThankTokenRepositoryLayoutHashed.get())
+        .migrate();
+    repository = new ThankTokenRepositoryLocalDiskImpl(this.repositoryPath, ThankReaderImpl.get(),
+        ThankWriterImpl.get(), ThankTokenRepositoryReadMode.STREAM, ThankTokenRepositoryWriteMode.DIRECT,
+        ThankTokenRepositoryJournal.DEFAULT_MAX_LATENCY, ThankTokenRepositoryLayoutHashed.get());
+
+    // then
+    assertThat(count).isEqualTo(1);
+    assertThat(defaultFolder).doesNotExist();
+    assertThat(this.repositoryPath.resolve(TEST_TOKEN_P4_HEADER.getAlgorithm().getValue())).doesNotExist();
+    assertThat(ThankTokenRepositoryLayoutHashed.get().getRelativePath(TEST_TOKEN_P4_HEADER.getId())).hasSize(3);
+    checkToken(repository.find(TEST_TOKEN_P4_HEADER.getId()));
+  }
+
+  /** Test of {@link ThankTokenRepositoryLocalDiskImpl#scan(ThankTokenScanFilter)}. */
+  @Test
+  public void testScan() {
+
+    // given
+    ThankTokenRepositoryLocalDiskImpl repository = new ThankTokenRepositoryLocalDiskImpl(this.repositoryPath);
+    repository.save(TEST_TOKEN_P4);
+    ThankTokenScanFilter filter = ThankTokenScanFilter.all().withCurrency(TEST_CURRENCY).withAlgorithm(TEST_ALGORITHM);
+
+    // when
+    List<ThankTokenHandle> handles = repository.scan(filter.withTimestampRange(TEST_TIMESTAMP, TEST_TIMESTAMP.next()))
+        .collect(Collectors.toList());
+    long laterCount = repository.scan(filter.withTimestampRange(TEST_TIMESTAMP.next(), null)).count();
+
+    // then
+    assertThat(laterCount).isZero();
+    assertThat(handles).hasSize(1);
+    assertThat(handles.get(0).getId()).isEqualTo(TEST_TOKEN_P4_HEADER.getId());
+    checkToken(handles.get(0).getToken());
+  }
+
+  /**
+   * Test of {@link ThankTokenRepositoryLocalDiskImpl#scan(ThankTokenScanFilter)} with
+   * {@link ThankTokenRepositoryLayoutHashed} where a folder without header (e.g. half-created) is no token.
+   */
+  @Test
+  public void testScanHashedSkipsFolderWithoutHeader() throws IOException {
+
+    // given
+    ThankTokenRepositoryLocalDiskImpl repository = new ThankTokenRepositoryLocalDiskImpl(this.repositoryPath,
+        ThankReaderImpl.get(), ThankWriterImpl.get(), ThankTokenRepositoryReadMode.STREAM,
+        ThankTokenRepositoryWriteMode.DIRECT, ThankTokenRepositoryJournal.DEFAULT_MAX_LATENCY,
+        ThankTokenRepositoryLayoutHashed.get());
+    repository.save(TEST_TOKEN_P4);
+    ThankTokenIdType emptyId = new ThankTokenIdType(TEST_TIMESTAMP.next(), TEST_LOCATION, TEST_VERSION,
+        TEST_ALGORITHM, TEST_CURRENCY);
+    Files.createDirectories(ThankTokenRepositoryLayoutHashed.get().getPath(this.repositoryPath, emptyId));
+
+    // when
+    List<ThankTokenHandle> handles = repository.scan(ThankTokenScanFilter.all()).collect(Collectors.toList());
+
+    // then
+    assertThat(handles).hasSize(1);
+    assertThat(handles.get(0).getId()).isEqualTo(TEST_TOKEN_P4_HEADER.getId());
+    checkToken(handles.get(0).getToken());
+  }
+
+}
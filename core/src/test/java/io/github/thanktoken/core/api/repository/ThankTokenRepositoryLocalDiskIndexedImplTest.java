@@ -0,0 +1,154 @@
+package io.github.thanktoken.core.api.repository;
+
+import java.nio.file.Path;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.thanktoken.core.api.TestCase;
+import io.github.thanktoken.core.api.address.ThankAddressType;
+import io.github.thanktoken.core.api.repository.ThankTokenLocationIndex.Rollup;
+import io.github.thanktoken.core.api.repository.ThankTokenTimeIndex.Entry;
+import io.github.thanktoken.core.api.timestamp.ThankTimestamp;
+import io.github.thanktoken.core.api.token.ThankToken;
+import io.github.thanktoken.core.api.token.ThankTokenType;
+import io.github.thanktoken.core.api.token.header.ThankTokenHeaderBean;
+import io.github.thanktoken.core.api.value.ThankValue;
+
+/**
+ * Test of {@link ThankTokenRepositoryLocalDiskIndexedImpl}.
+ */
+public class ThankTokenRepositoryLocalDiskIndexedImplTest extends TestCase {
+
+  /** Temporary directory for the repository. */
+  @TempDir
+  Path repositoryPath;
+
+  /**
+   * Test of {@link ThankTokenOwnerIndex} maintained on
+   * {@link ThankTokenRepositoryLocalDiskIndexedImpl#save(ThankToken)} and
+   * {@link ThankTokenRepositoryLocalDiskIndexedImpl#appendTransactions(ThankToken, int)}.
+   */
+  @Test
+  public void testOwnerIndex() {
+
+    // given
+    Path indexFile = this.repositoryPath.resolve("owner.idx");
+    ThankTokenRepositoryLocalDiskIndexedImpl repository = new ThankTokenRepositoryLocalDiskIndexedImpl(
+        new ThankTokenRepositoryLocalDiskImpl(this.repositoryPath), new ThankTokenOwnerIndex(indexFile));
+    repository.save(new ThankTokenType(TEST_TOKEN_P4_HEADER));
+    ThankTokenOwnerIndex index = repository.getIndex(ThankTokenOwnerIndex.class);
+    assertThat(index.findByOwner(TEST_KEY_PAIR_NP.getAddress())).containsExactly(TEST_TOKEN_P4_HEADER.getId());
+
+    // when
+    repository.appendTransactions(TEST_TOKEN_P4, 0);
+    repository.close();
+    index = new ThankTokenOwnerIndex(indexFile);
+
+    // then
+    assertThat(index.isRebuildRequired()).isFalse();
+    assertThat(index.findByOwner(TEST_KEY_PAIR_NP.getAddress())).isEmpty();
+    assertThat(index.findByOwner(TEST_KEY_PAIR_PS.getAddress())).containsExactly(TEST_TOKEN_P4_HEADER.getId());
+    assertThat(index.findByOwnerType(ThankAddressType.PSEUDONYMOUS)).containsExactly(TEST_TOKEN_P4_HEADER.getId());
+    assertThat(index.findByOwnerType(ThankAddressType.NATURAL_PERSON)).isEmpty();
+    index.close();
+  }
+
+  /**
+   * Test of {@link ThankTokenOwnerIndex} with a stale copy
+   * {@link ThankTokenRepositoryLocalDiskIndexedImpl#save(ThankToken) saved} after the newer {@link ThankToken}.
+   */
+  @Test
+  public void testOwnerIndexStaleSave() {
+
+    // given
+    Path indexFile = this.repositoryPath.resolve("owner.idx");
+    ThankTokenRepositoryLocalDiskIndexedImpl repository = new ThankTokenRepositoryLocalDiskIndexedImpl(
+        new ThankTokenRepositoryLocalDiskImpl(this.repositoryPath), new ThankTokenOwnerIndex(indexFile));
+    ThankTokenOwnerIndex index = repository.getIndex(ThankTokenOwnerIndex.class);
+
+    // when
+    repository.save(TEST_TOKEN_P4);
+    repository.save(new ThankTokenType(TEST_TOKEN_P4_HEADER));
+
+    // then
+    assertThat(index.findByOwner(TEST_KEY_PAIR_PS.getAddress())).containsExactly(TEST_TOKEN_P4_HEADER.getId());
+    assertThat(index.findByOwner(TEST_KEY_PAIR_NP.getAddress())).isEmpty();
+    repository.close();
+    index = new ThankTokenOwnerIndex(indexFile);
+    assertThat(index.findByOwner(TEST_KEY_PAIR_PS.getAddress())).containsExactly(TEST_TOKEN_P4_HEADER.getId());
+    assertThat(index.findByOwner(TEST_KEY_PAIR_NP.getAddress())).isEmpty();
+    index.close();
+  }
+
+  /** Test of {@link ThankTokenTimeIndex} maintained by {@link ThankTokenRepositoryLocalDiskIndexedImpl}. */
+  @Test
+  public void testTimeIndex() {
+
+    // given
+    ThankTokenRepositoryLocalDiskIndexedImpl repository = new ThankTokenRepositoryLocalDiskIndexedImpl(
+        new ThankTokenRepositoryLocalDiskImpl(this.repositoryPath),
+        new ThankTokenTimeIndex(this.repositoryPath.resolve("time.idx")));
+    ThankTokenTimeIndex index = repository.getIndex(ThankTokenTimeIndex.class);
+    ThankTimestamp txTimestamp = TEST_TOKEN_P4_TX_0.getTimestamp();
+
+    // when
+    repository.save(TEST_TOKEN_P4);
+
+    // then
+    assertThat(index.findCreated(TEST_TIMESTAMP, TEST_TIMESTAMP.next()).map(Entry::getId))
+        .containsExactly(TEST_TOKEN_P4_HEADER.getId());
+    assertThat(index.findCreated(TEST_TIMESTAMP.next(), null)).isEmpty();
+    assertThat(index.findTransactions(TEST_TIMESTAMP, null).map(Entry::getTimestamp)).containsExactly(txTimestamp);
+    assertThat(index.findTransactions(null, txTimestamp)).isEmpty();
+    repository.close();
+  }
+
+  /** Test of {@link ThankTokenLocationIndex} maintained by {@link ThankTokenRepositoryLocalDiskIndexedImpl}. */
+  @Test
+  public void testLocationIndex() {
+
+    // given
+    ThankTokenRepositoryLocalDiskIndexedImpl repository = new ThankTokenRepositoryLocalDiskIndexedImpl(
+        new ThankTokenRepositoryLocalDiskImpl(this.repositoryPath),
+        new ThankTokenLocationIndex(this.repositoryPath.resolve("location.idx")));
+    ThankTokenLocationIndex index = repository.getIndex(ThankTokenLocationIndex.class);
+
+    // when
+    repository.save(new ThankTokenType(TEST_TOKEN_P4_HEADER));
+    repository.appendTransactions(TEST_TOKEN_P4, 0);
+
+    // then
+    for (String prefix : new String[] { "9F", "9F2C", "9F2C4M" }) {
+      Rollup rollup = index.getRollup(TEST_CURRENCY, prefix);
+      assertThat(rollup.getCount()).isEqualTo(1);
+      assertThat(rollup.getTotal()).isEqualTo(TEST_TOKEN_P4_HEADER.getAmount());
+    }
+    assertThat(index.getRollup(TEST_CURRENCY, "8F")).isNull();
+    repository.close();
+  }
+
+  /** Test of {@link ThankTokenLocationIndex#update(ThankToken)} with a total that would overflow. */
+  @Test
+  public void testLocationIndexOverflow() {
+
+    // given
+    ThankTokenLocationIndex index = new ThankTokenLocationIndex(this.repositoryPath.resolve("location.idx"));
+    ThankTokenHeaderBean header1 = new ThankTokenHeaderBean(TEST_TOKEN_P4_HEADER).setAmount(ThankValue.MAX_VALUE);
+    ThankTokenHeaderBean header2 = new ThankTokenHeaderBean(header1).setTimestamp(TEST_TIMESTAMP.next());
+    index.update(new ThankTokenType(header1));
+
+    // when
+    Throwable error = catchThrowable(() -> index.update(new ThankTokenType(header2)));
+
+    // then
+    assertThat(error).isInstanceOf(IllegalArgumentException.class).hasCauseInstanceOf(ArithmeticException.class);
+    for (String prefix : new String[] { "9F", "9F2C", "9F2C4M" }) {
+      Rollup rollup = index.getRollup(TEST_CURRENCY, prefix);
+      assertThat(rollup.getCount()).isEqualTo(1);
+      assertThat(rollup.getTotal()).isEqualTo(ThankValue.MAX_VALUE);
+    }
+    index.close();
+  }
+
+}
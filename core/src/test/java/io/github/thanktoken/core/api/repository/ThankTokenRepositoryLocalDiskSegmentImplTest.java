@@ -0,0 +1,253 @@
+package io.github.thanktoken.core.api.repository;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.thanktoken.core.api.id.ThankTokenIdType;
+import io.github.thanktoken.core.api.io.ThankReaderImpl;
+import io.github.thanktoken.core.api.io.ThankWriterImpl;
+import io.github.thanktoken.core.api.timestamp.ThankTimestamp;
+import io.github.thanktoken.core.api.token.ThankToken;
+import io.github.thanktoken.core.api.token.ThankTokenType;
+import io.github.thanktoken.core.api.token.header.ThankTokenHeaderBean;
+
+/**
+ * Test of {@link ThankTokenRepositoryLocalDiskSegmentImpl}.
+ */
+public class ThankTokenRepositoryLocalDiskSegmentImplTest extends AbstractThankTokenRepositoryLocalDiskTest {
+
+  @Override
+  protected ThankTokenRepositoryLocalDisk createRepository() {
+
+    return new ThankTokenRepositoryLocalDiskSegmentImpl(this.repositoryPath);
+  }
+
+  /**
+   * Test of {@link ThankTokenRepositoryLocalDiskSegmentImpl#save(ThankToken)} and
+   * {@link ThankTokenRepositoryLocalDiskSegmentImpl#find(ThankTokenIdType)}.
+   */
+  @Test
+  public void testSaveAndFind() {
+
+    // given
+    ThankTokenRepositoryLocalDiskSegmentImpl repository = new ThankTokenRepositoryLocalDiskSegmentImpl(
+        this.repositoryPath);
+
+    // when
+    repository.save(TEST_TOKEN_P4);
+    ThankToken token = repository.find(TEST_TOKEN_P4_HEADER.getId());
+
+    // then
+    assertThat(repository.find(new ThankTokenIdType(TEST_TIMESTAMP.next(), TEST_LOCATION, TEST_VERSION,
+        TEST_ALGORITHM, TEST_CURRENCY))).isNull();
+    checkToken(token);
+    repository.close();
+  }
+
+  /** Test that the index is rebuilt from the segment files when the repository is reopened. */
+  @Test
+  public void testReopen() {
+
+    // given
+    ThankTokenRepositoryLocalDiskSegmentImpl repository = new ThankTokenRepositoryLocalDiskSegmentImpl(
+        this.repositoryPath);
+    repository.save(TEST_TOKEN_P4);
+    repository.close();
+
+    // when
+    repository = new ThankTokenRepositoryLocalDiskSegmentImpl(this.repositoryPath);
+
+    // then
+    assertThat(repository.getSize()).isEqualTo(1);
+    checkToken(repository.find(TEST_TOKEN_P4_HEADER.getId()));
+    repository.close();
+  }
+
+  /**
+   * Test that saving a stored {@link ThankToken} with a new transaction only appends that transaction and that the
+   * chain of records is restored when the repository is reopened.
+   */
+  @Test
+  public void testAppendTransactions() throws Exception {
+
+    // given
+    Path segmentFile = this.repositoryPath.resolve("segment-00000000.log");
+    ThankTokenRepositoryLocalDiskSegmentImpl repository = new ThankTokenRepositoryLocalDiskSegmentImpl(
+        this.repositoryPath);
+    repository.save(new ThankTokenType(TEST_TOKEN_P4_HEADER));
+    long sizeWithoutTx = Files.size(segmentFile);
+    repository.save(TEST_TOKEN_P4);
+    long appendedSize = Files.size(segmentFile) - sizeWithoutTx;
+    repository.close();
+    Path fullPath = this.repositoryPath.resolve("full");
+    ThankTokenRepositoryLocalDiskSegmentImpl fullRepository = new ThankTokenRepositoryLocalDiskSegmentImpl(fullPath);
+    fullRepository.save(TEST_TOKEN_P4);
+    fullRepository.close();
+    long fullSize = Files.size(fullPath.resolve("segment-00000000.log"));
+
+    // when
+    repository = new ThankTokenRepositoryLocalDiskSegmentImpl(this.repositoryPath);
+
+    // then
+    assertThat(appendedSize).isLessThan(fullSize);
+    assertThat(repository.getSize()).isEqualTo(1);
+    checkToken(repository.find(TEST_TOKEN_P4_HEADER.getId()));
+    repository.save(TEST_TOKEN_P4);
+    assertThat(Files.size(segmentFile)).isEqualTo(sizeWithoutTx + appendedSize);
+    repository.close();
+  }
+
+  /**
+   * Test that a torn record at the end of a segment (e.g. due to a crash while appending) is truncated when the
+   * repository is reopened and following records are appended after the last complete record.
+   */
+  @Test
+  public void testReopenTruncatesTornRecord() throws Exception {
+
+    // given
+    Path segmentFile = this.repositoryPath.resolve("segment-00000000.log");
+    ThankTokenRepositoryLocalDiskSegmentImpl repository = new ThankTokenRepositoryLocalDiskSegmentImpl(
+        this.repositoryPath);
+    repository.save(TEST_TOKEN_P4);
+    repository.close();
+    long size = Files.size(segmentFile);
+    // partial record: length prefix announces more bytes than written
+    Files.write(segmentFile, new byte[] { 0, 0, 0, 100, 1, 0, 0 }, StandardOpenOption.APPEND);
+    ThankToken otherToken = new ThankTokenType(
+        new ThankTokenHeaderBean(TEST_TOKEN_P4_HEADER).setTimestamp(TEST_TIMESTAMP.next()));
+
+    // when
+    repository = new ThankTokenRepositoryLocalDiskSegmentImpl(this.repositoryPath);
+    long truncatedSize = Files.size(segmentFile);
+    repository.save(otherToken);
+    repository.close();
+    long savedSize = Files.size(segmentFile);
+    // torn length prefix
+    Files.write(segmentFile, new byte[] { 0, 0 }, StandardOpenOption.APPEND);
+    repository = new ThankTokenRepositoryLocalDiskSegmentImpl(this.repositoryPath);
+
+    // then
+    assertThat(truncatedSize).isEqualTo(size);
+    assertThat(repository.getSize()).isEqualTo(2);
+    checkToken(repository.find(TEST_TOKEN_P4_HEADER.getId()));
+    assertThat(repository.find(otherToken.getHeader().getId())).isNotNull();
+    assertThat(Files.size(segmentFile)).isEqualTo(savedSize);
+    repository.close();
+  }
+
+  /**
+   * Test of the rollover to a new segment when the
+   * {@link ThankTokenRepositoryLocalDiskSegmentImpl#getMaxSegmentSize() maximum segment size} is reached followed by
+   * a reopen with a transactions record in a later segment than the token record.
+   */
+  @Test
+  public void testRolloverAndReopen() {
+
+    // given
+    ThankTokenRepositoryLocalDiskSegmentImpl repository = new ThankTokenRepositoryLocalDiskSegmentImpl(
+        this.repositoryPath, ThankReaderImpl.get(), ThankWriterImpl.get(), 1);
+    ThankToken otherToken = new ThankTokenType(
+        new ThankTokenHeaderBean(TEST_TOKEN_P4_HEADER).setTimestamp(TEST_TIMESTAMP.next()));
+
+    // when
+    repository.save(new ThankTokenType(TEST_TOKEN_P4_HEADER));
+    repository.save(otherToken);
+    repository.save(TEST_TOKEN_P4);
+    repository.close();
+    repository = new ThankTokenRepositoryLocalDiskSegmentImpl(this.repositoryPath, ThankReaderImpl.get(),
+        ThankWriterImpl.get(), 1);
+
+    // then
+    assertThat(this.repositoryPath.resolve("segment-00000002.log")).exists();
+    assertThat(this.repositoryPath.resolve("segment-00000003.log")).doesNotExist();
+    assertThat(repository.getSize()).isEqualTo(2);
+    checkToken(repository.find(TEST_TOKEN_P4_HEADER.getId()));
+    assertThat(repository.find(otherToken.getHeader().getId()).getTransactions()).isEmpty();
+    repository.close();
+  }
+
+  /** Test of {@link ThankTokenRepositoryReadMode#MAPPED mapped mode}. */
+  @Test
+  public void testMapped() {
+
+    // given
+    ThankTokenRepositoryLocalDiskSegmentImpl repository = new ThankTokenRepositoryLocalDiskSegmentImpl(
+        this.repositoryPath, ThankReaderImpl.get(), ThankWriterImpl.get(),
+        ThankTokenRepositoryLocalDiskSegmentImpl.DEFAULT_MAX_SEGMENT_SIZE, ThankTokenRepositoryReadMode.MAPPED);
+
+    // when
+    repository.save(TEST_TOKEN_P4);
+    ThankToken token = repository.find(TEST_TOKEN_P4_HEADER.getId());
+
+    // then
+    checkToken(token);
+    checkToken(repository.find(TEST_TOKEN_P4_HEADER.getId()));
+    repository.close();
+  }
+
+  /**
+   * Test of {@link ThankTokenRepositoryReadMode#MAPPED mapped mode} with records appended to the active segment after
+   * it has been mapped.
+   */
+  @Test
+  public void testMappedAfterAppend() {
+
+    // given
+    ThankTokenRepositoryLocalDiskSegmentImpl repository = new ThankTokenRepositoryLocalDiskSegmentImpl(
+        this.repositoryPath, ThankReaderImpl.get(), ThankWriterImpl.get(),
+        ThankTokenRepositoryLocalDiskSegmentImpl.DEFAULT_MAX_SEGMENT_SIZE, ThankTokenRepositoryReadMode.MAPPED);
+    repository.save(new ThankTokenType(TEST_TOKEN_P4_HEADER));
+    assertThat(repository.find(TEST_TOKEN_P4_HEADER.getId()).getTransactions()).isEmpty();
+    List<ThankTokenIdType> ids = new ArrayList<>();
+    ThankTimestamp timestamp = TEST_TIMESTAMP;
+    for (int i = 0; i < 10; i++) {
+      timestamp = timestamp.next();
+      ThankTokenHeaderBean header = new ThankTokenHeaderBean(TEST_TOKEN_P4_HEADER).setTimestamp(timestamp);
+      repository.save(new ThankTokenType(header));
+      ids.add(header.getId());
+    }
+
+    // when
+    repository.save(TEST_TOKEN_P4);
+
+    // then
+    checkToken(repository.find(TEST_TOKEN_P4_HEADER.getId()));
+    for (ThankTokenIdType id : ids) {
+      assertThat(repository.find(id)).isNotNull();
+    }
+    assertThat(repository.findAll(ids)).hasSize(10);
+    repository.close();
+  }
+
+  /**
+   * Test of {@link ThankTokenRepositoryLocalDiskSegmentImpl#findAll(java.util.Collection)} with hits, misses and
+   * duplicate {@link ThankTokenIdType}s.
+   */
+  @Test
+  public void testFindAll() {
+
+    // given
+    ThankTokenRepositoryLocalDiskSegmentImpl repository = new ThankTokenRepositoryLocalDiskSegmentImpl(
+        this.repositoryPath);
+    repository.save(TEST_TOKEN_P4);
+    ThankTokenIdType id = TEST_TOKEN_P4_HEADER.getId();
+    ThankTokenIdType missingId = new ThankTokenIdType(TEST_TIMESTAMP.next(), TEST_LOCATION, TEST_VERSION,
+        TEST_ALGORITHM, TEST_CURRENCY);
+
+    // when
+    Map<ThankTokenIdType, ThankToken> tokens = repository.findAll(List.of(missingId, id, id));
+
+    // then
+    assertThat(tokens).containsOnlyKeys(id);
+    checkToken(tokens.get(id));
+    assertThat(repository.findAll(List.of(missingId))).isEmpty();
+    repository.close();
+  }
+
+}
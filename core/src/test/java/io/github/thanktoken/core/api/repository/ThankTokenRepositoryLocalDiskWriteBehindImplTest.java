@@ -0,0 +1,235 @@
+package io.github.thanktoken.core.api.repository;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import io.github.thanktoken.core.api.TestCase;
+import io.github.thanktoken.core.api.id.ThankTokenIdType;
+import io.github.thanktoken.core.api.timestamp.ThankTimestamp;
+import io.github.thanktoken.core.api.token.ThankToken;
+import io.github.thanktoken.core.api.token.ThankTokenType;
+import io.github.thanktoken.core.api.token.header.ThankTokenHeaderBean;
+
+/**
+ * Test of {@link ThankTokenRepositoryLocalDiskWriteBehindImpl}.
+ */
+public class ThankTokenRepositoryLocalDiskWriteBehindImplTest extends TestCase {
+
+  private static final ThankTokenIdType ID = TEST_TOKEN_P4_HEADER.getId();
+
+  /** Temporary directory for the repository. */
+  @TempDir
+  Path repositoryPath;
+
+  /**
+   * Test of {@link ThankTokenRepositoryLocalDiskWriteBehindImpl#save(ThankToken)},
+   * {@link ThankTokenRepositoryLocalDiskWriteBehindImpl#flush() flush} and
+   * {@link ThankTokenRepositoryLocalDiskWriteBehindImpl#close() close} on top of
+   * {@link ThankTokenRepositoryLocalDiskImpl}.
+   */
+  @Test
+  public void testSaveFlushAndClose() {
+
+    // given
+    ThankTokenRepositoryLocalDiskWriteBehindImpl repository = new ThankTokenRepositoryLocalDiskWriteBehindImpl(
+        new ThankTokenRepositoryLocalDiskImpl(this.repositoryPath));
+
+    // when
+    repository.save(TEST_TOKEN_P4);
+    ThankToken queued = repository.find(ID);
+    repository.flush();
+    int queueSize = repository.getQueueSize();
+    repository.close();
+
+    // then
+    assertThat(queued).isNotNull();
+    assertThat(queueSize).isZero();
+    ThankToken token = new ThankTokenRepositoryLocalDiskImpl(this.repositoryPath).find(ID);
+    assertThat(token).isNotNull();
+    assertThat(token.getTransactions()).hasSize(1);
+    repository.close(); // closing twice is a no-op
+  }
+
+  /**
+   * Test that a {@link ThankToken} re-saved after a transaction was added while its previous save is being written is
+   * written again.
+   *
+   * @throws Exception on error.
+   */
+  @Test
+  public void testResaveWhileWriting() throws Exception {
+
+    // given
+    BlockingRepository delegate = new BlockingRepository();
+    ThankTokenRepositoryLocalDiskWriteBehindImpl repository = new ThankTokenRepositoryLocalDiskWriteBehindImpl(
+        delegate);
+    ThankTokenType token = new ThankTokenType(TEST_TOKEN_P4_HEADER);
+    repository.save(token);
+    assertThat(delegate.started.await(10, TimeUnit.SECONDS)).isTrue();
+
+    // when
+    token.addTransaction(TEST_TOKEN_P4_TX_0);
+    repository.save(token);
+    delegate.release.countDown();
+    flush(repository);
+
+    // then
+    assertThat(delegate.savedTxCounts).containsExactly(0, 1);
+    assertThat(repository.getQueueSize()).isZero();
+    repository.close();
+  }
+
+  /**
+   * Test that a stale copy with less transactions saved while the token is being written neither overwrites it nor
+   * blocks {@link ThankTokenRepositoryLocalDiskWriteBehindImpl#flush() flush} and
+   * {@link ThankTokenRepositoryLocalDiskWriteBehindImpl#close() close}.
+   *
+   * @throws Exception on error.
+   */
+  @Test
+  public void testStaleSaveWhileWriting() throws Exception {
+
+    // given
+    BlockingRepository delegate = new BlockingRepository();
+    ThankTokenRepositoryLocalDiskWriteBehindImpl repository = new ThankTokenRepositoryLocalDiskWriteBehindImpl(
+        delegate);
+    repository.save(TEST_TOKEN_P4);
+    assertThat(delegate.started.await(10, TimeUnit.SECONDS)).isTrue();
+
+    // when
+    repository.save(new ThankTokenType(TEST_TOKEN_P4_HEADER));
+    delegate.release.countDown();
+    flush(repository);
+
+    // then
+    assertThat(delegate.savedTxCounts).containsExactly(1);
+    assertThat(repository.find(ID).getTransactions()).hasSize(1);
+    close(repository);
+  }
+
+  /**
+   * Test of concurrent {@link ThankTokenRepositoryLocalDiskWriteBehindImpl#save(ThankToken) saves} and
+   * {@link ThankTokenRepositoryLocalDiskWriteBehindImpl#flush() flushes} with a small capacity.
+   *
+   * @throws Exception on error.
+   */
+  @Test
+  public void testConcurrentSaveAndFlush() throws Exception {
+
+    // given
+    BlockingRepository delegate = new BlockingRepository();
+    delegate.release.countDown();
+    ThankTokenRepositoryLocalDiskWriteBehindImpl repository = new ThankTokenRepositoryLocalDiskWriteBehindImpl(
+        delegate, 4);
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    List<Future<?>> futures = new ArrayList<>();
+
+    // when
+    try {
+      for (int t = 0; t < 4; t++) {
+        int offset = t;
+        futures.add(executor.submit(() -> {
+          ThankTimestamp timestamp = TEST_TIMESTAMP;
+          for (int i = 0; i < 50; i++) {
+            timestamp = timestamp.next();
+            if ((i % 4) == offset) {
+              ThankTokenHeaderBean header = new ThankTokenHeaderBean(TEST_TOKEN_P4_HEADER).setTimestamp(timestamp);
+              repository.save(new ThankTokenType(header));
+              // re-save of the shared token from all threads
+              repository.save(TEST_TOKEN_P4);
+            }
+            if ((i % 10) == 0) {
+              repository.flush();
+            }
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get(30, TimeUnit.SECONDS);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+    close(repository);
+
+    // then
+    assertThat(repository.getQueueSize()).isZero();
+    assertThat(delegate.tokens).hasSize(51);
+  }
+
+  private static void flush(ThankTokenRepositoryLocalDiskWriteBehindImpl repository) throws Exception {
+
+    runWithTimeout(repository::flush);
+  }
+
+  private static void close(ThankTokenRepositoryLocalDiskWriteBehindImpl repository) throws Exception {
+
+    runWithTimeout(repository::close);
+  }
+
+  private static void runWithTimeout(Runnable runnable) throws Exception {
+
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      executor.submit(runnable).get(10, TimeUnit.SECONDS);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * In-memory {@link ThankTokenRepositoryLocalDisk} that records the number of transactions of each save and blocks
+   * the first save until {@link #release released}.
+   */
+  private static class BlockingRepository implements ThankTokenRepositoryLocalDisk {
+
+    private final Map<ThankTokenIdType, ThankToken> tokens = new ConcurrentHashMap<>();
+
+    private final List<Integer> savedTxCounts = new ArrayList<>();
+
+    private final CountDownLatch started = new CountDownLatch(1);
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Override
+    public ThankToken find(ThankTokenIdType id) {
+
+      return this.tokens.get(id);
+    }
+
+    @Override
+    public void save(ThankToken token) {
+
+      synchronized (this.savedTxCounts) {
+        this.savedTxCounts.add(Integer.valueOf(token.getTransactions().size()));
+      }
+      this.started.countDown();
+      try {
+        this.release.await();
+      } catch (InterruptedException e) {
+        throw new IllegalStateException(e);
+      }
+      this.tokens.put(token.requireHeader().getId(), token);
+    }
+
+    @Override
+    public void forEachId(Consumer<ThankTokenIdType> consumer) {
+
+      this.tokens.keySet().forEach(consumer);
+    }
+
+  }
+
+}
@@ -0,0 +1,182 @@
+package io.github.thanktoken.core.api.repository;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.Test;
+
+import io.github.thanktoken.core.api.TestCase;
+import io.github.thanktoken.core.api.id.ThankTokenIdType;
+
+/**
+ * Test of {@link ThankTokenRequestCoalescer}.
+ */
+public class ThankTokenRequestCoalescerTest extends TestCase {
+
+  private static final ThankTokenIdType ID = TEST_TOKEN_P4_HEADER.getId();
+
+  /**
+   * Starts a first request that blocks until the given {@link CountDownLatch} is released and a second request for
+   * the same {@link ThankTokenIdType} that has to wait for the first one.
+   */
+  private static <V> Future<V> startWaiter(ExecutorService executor, ThankTokenRequestCoalescer<V> coalescer,
+      AtomicInteger requestCount) throws Exception {
+
+    Thread[] waiter = new Thread[1];
+    Future<V> future = executor.submit(() -> {
+      waiter[0] = Thread.currentThread();
+      return coalescer.execute(ID, () -> {
+        requestCount.incrementAndGet();
+        throw new IllegalStateException("second request must not be performed");
+      });
+    });
+    // wait until the second caller is blocked on the pending request
+    long timeout = System.currentTimeMillis() + 10_000;
+    while ((waiter[0] == null) || (waiter[0].getState() != Thread.State.WAITING)) {
+      assertThat(System.currentTimeMillis()).isLessThan(timeout);
+      Thread.sleep(1);
+    }
+    return future;
+  }
+
+  private static Future<String> startRequest(ExecutorService executor, ThankTokenRequestCoalescer<String> coalescer,
+      AtomicInteger requestCount, CountDownLatch latch, RuntimeException error) throws Exception {
+
+    Future<String> future = executor.submit(() -> coalescer.execute(ID, () -> {
+      requestCount.incrementAndGet();
+      try {
+        latch.await();
+      } catch (InterruptedException e) {
+        throw new IllegalStateException(e);
+      }
+      if (error != null) {
+        throw error;
+      }
+      return "result";
+    }));
+    long timeout = System.currentTimeMillis() + 10_000;
+    while (!coalescer.isPending(ID)) {
+      assertThat(System.currentTimeMillis()).isLessThan(timeout);
+      Thread.sleep(1);
+    }
+    return future;
+  }
+
+  /**
+   * Test that concurrent requests for the same {@link ThankTokenIdType} are performed only once and share the result.
+   *
+   * @throws Exception on error.
+   */
+  @Test
+  public void testCoalescing() throws Exception {
+
+    // given
+    ThankTokenRequestCoalescer<String> coalescer = new ThankTokenRequestCoalescer<>();
+    AtomicInteger requestCount = new AtomicInteger();
+    CountDownLatch latch = new CountDownLatch(1);
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<String> first = startRequest(executor, coalescer, requestCount, latch, null);
+      Future<String> second = startWaiter(executor, coalescer, requestCount);
+
+      // when
+      latch.countDown();
+
+      // then
+      assertThat(first.get(10, TimeUnit.SECONDS)).isEqualTo("result");
+      assertThat(second.get(10, TimeUnit.SECONDS)).isEqualTo("result");
+      assertThat(requestCount.get()).isEqualTo(1);
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Test that an exception of the request is propagated to all waiting callers.
+   *
+   * @throws Exception on error.
+   */
+  @Test
+  public void testExceptionPropagatedToWaiters() throws Exception {
+
+    // given
+    ThankTokenRequestCoalescer<String> coalescer = new ThankTokenRequestCoalescer<>();
+    AtomicInteger requestCount = new AtomicInteger();
+    CountDownLatch latch = new CountDownLatch(1);
+    IllegalStateException error = new IllegalStateException("remote failed");
+    ExecutorService executor = Executors.newFixedThreadPool(2);
+    try {
+      Future<String> first = startRequest(executor, coalescer, requestCount, latch, error);
+      Future<String> second = startWaiter(executor, coalescer, requestCount);
+
+      // when
+      latch.countDown();
+
+      // then
+      for (Future<String> future : List.of(first, second)) {
+        try {
+          future.get(10, TimeUnit.SECONDS);
+          failBecauseExceptionWasNotThrown(ExecutionException.class);
+        } catch (ExecutionException e) {
+          assertThat(e.getCause()).isSameAs(error);
+        }
+      }
+      assertThat(requestCount.get()).isEqualTo(1);
+      assertThat(coalescer.isPending(ID)).isFalse();
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /** Test that the pending request is removed after completion so the next call performs a new request. */
+  @Test
+  public void testRemovedAfterCompletion() {
+
+    // given
+    ThankTokenRequestCoalescer<String> coalescer = new ThankTokenRequestCoalescer<>();
+    AtomicInteger requestCount = new AtomicInteger();
+
+    // when
+    String first = coalescer.execute(ID, () -> "first" + requestCount.incrementAndGet());
+    boolean pending = coalescer.isPending(ID);
+    String second = coalescer.execute(ID, () -> "second" + requestCount.incrementAndGet());
+
+    // then
+    assertThat(first).isEqualTo("first1");
+    assertThat(pending).isFalse();
+    assertThat(second).isEqualTo("second2");
+  }
+
+  /**
+   * Test that a re-entrant request for the same {@link ThankTokenIdType} from within the request is performed
+   * directly instead of dead-locking on its own result.
+   *
+   * @throws Exception on error.
+   */
+  @Test
+  public void testReentrant() throws Exception {
+
+    // given
+    ThankTokenRequestCoalescer<String> coalescer = new ThankTokenRequestCoalescer<>();
+    ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+
+      // when
+      Future<String> future = executor
+          .submit(() -> coalescer.execute(ID, () -> "outer-" + coalescer.execute(ID, () -> "inner")));
+
+      // then
+      assertThat(future.get(10, TimeUnit.SECONDS)).isEqualTo("outer-inner");
+      assertThat(coalescer.isPending(ID)).isFalse();
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+}